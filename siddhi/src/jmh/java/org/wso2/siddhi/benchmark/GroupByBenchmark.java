@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures group by aggregations over an unbounded stream and over a length window.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GroupByBenchmark {
+
+    @Benchmark
+    public void groupBy(GroupByState state) throws InterruptedException {
+        state.send();
+    }
+
+    /**
+     * App with a group by query keyed by the key attribute.
+     */
+    @State(Scope.Benchmark)
+    public static class GroupByState extends SiddhiBenchmarkState {
+
+        @Param({"", "#window.length(1000)"})
+        public String window;
+
+        @Override
+        protected String siddhiApp() {
+            return "from InputStream" + window + " " +
+                    "select key, sum(price) as totalPrice, avg(price) as avgPrice, max(volume) as maxVolume, " +
+                    "count() as eventCount " +
+                    "group by key " +
+                    "insert into OutputStream;";
+        }
+    }
+}
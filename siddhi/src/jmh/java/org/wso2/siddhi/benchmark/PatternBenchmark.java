@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures pattern and sequence matching. The pattern correlates on the key attribute, so the number of pending
+ * partial matches grows with the key cardinality.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PatternBenchmark {
+
+    @Benchmark
+    public void match(PatternState state) throws InterruptedException {
+        state.send();
+    }
+
+    /**
+     * App with either a pattern or a sequence query.
+     */
+    @State(Scope.Benchmark)
+    public static class PatternState extends SiddhiBenchmarkState {
+
+        @Param({"pattern", "sequence"})
+        public String matching;
+
+        @Override
+        protected String siddhiApp() {
+            if ("pattern".equals(matching)) {
+                return "from every e1=InputStream[price > 70] -> " +
+                        "e2=InputStream[key == e1.key and price < 30] within 1 sec " +
+                        "select e1.key as key, e1.price as price1, e2.price as price2 " +
+                        "insert into OutputStream;";
+            }
+            return "from every e1=InputStream[price > 50], e2=InputStream[price > e1.price] " +
+                    "select e1.key as key, e1.price as price1, e2.price as price2 " +
+                    "insert into OutputStream;";
+        }
+    }
+}
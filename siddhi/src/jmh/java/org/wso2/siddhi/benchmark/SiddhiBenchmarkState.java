@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+import org.wso2.siddhi.core.stream.output.StreamCallback;
+
+import java.util.Random;
+
+/**
+ * Base benchmark state which runs a Siddhi app over a pre-generated set of events. Events are sent to
+ * InputStream(key string, price double, volume long, payload0 string, ...) and everything arriving at OutputStream
+ * is counted.
+ * <p>
+ * eventSize is the number of attributes in each event and keyCardinality the number of distinct values of the key
+ * attribute; volume cycles over the same number of values.
+ */
+@State(Scope.Benchmark)
+public abstract class SiddhiBenchmarkState {
+
+    private static final int MIN_EVENT_COUNT = 4096;
+    private static final int KEY_ATTRIBUTE_COUNT = 3;
+
+    @Param({"3", "20"})
+    public int eventSize;
+
+    @Param({"10", "10000"})
+    public int keyCardinality;
+
+    protected SiddhiManager siddhiManager;
+    protected SiddhiAppRuntime siddhiAppRuntime;
+    protected InputHandler inputHandler;
+    protected Object[][] events;
+    protected volatile long outputCount = 0;
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        siddhiManager = new SiddhiManager();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(inputStreamAnnotations() + inputStreamDefinition() +
+                siddhiApp());
+        siddhiAppRuntime.addCallback("OutputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                outputCount += events.length;
+            }
+        });
+        siddhiAppRuntime.start();
+        inputHandler = siddhiAppRuntime.getInputHandler("InputStream");
+        events = generateEvents();
+        prepare();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        siddhiAppRuntime.shutdown();
+        siddhiManager.shutdown();
+    }
+
+    /**
+     * @return queries, tables and any further definitions of the app under benchmark
+     */
+    protected abstract String siddhiApp();
+
+    /**
+     * @return annotations to be placed on the input stream definition
+     */
+    protected String inputStreamAnnotations() {
+        return "";
+    }
+
+    /**
+     * Hook to load data the benchmark depends on once the app has started.
+     */
+    protected void prepare() throws InterruptedException {
+    }
+
+    public Object[] nextEvent() {
+        Object[] event = events[index];
+        index = index + 1 == events.length ? 0 : index + 1;
+        return event;
+    }
+
+    public void send() throws InterruptedException {
+        inputHandler.send(nextEvent());
+    }
+
+    private String inputStreamDefinition() {
+        StringBuilder definition = new StringBuilder("define stream InputStream (key string, price double, " +
+                "volume long");
+        for (int i = 0; i < eventSize - KEY_ATTRIBUTE_COUNT; i++) {
+            definition.append(", payload").append(i).append(" string");
+        }
+        return definition.append("); ").toString();
+    }
+
+    private Object[][] generateEvents() {
+        Random random = new Random(42);
+        int attributeCount = Math.max(eventSize, KEY_ATTRIBUTE_COUNT);
+        Object[][] generatedEvents = new Object[Math.max(keyCardinality, MIN_EVENT_COUNT)][];
+        for (int i = 0; i < generatedEvents.length; i++) {
+            Object[] data = new Object[attributeCount];
+            data[0] = "key" + (i % keyCardinality);
+            data[1] = (double) random.nextInt(100);
+            data[2] = (long) (i % keyCardinality);
+            for (int j = KEY_ATTRIBUTE_COUNT; j < attributeCount; j++) {
+                data[j] = "payload" + random.nextInt(1000);
+            }
+            generatedEvents[i] = data;
+        }
+        return generatedEvents;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures SnapshotService.snapshot() for an app holding window and group by state for every key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Benchmark
+    public byte[] snapshot(SnapshotState state) {
+        return state.siddhiAppRuntime.snapshot();
+    }
+
+    /**
+     * App whose state is filled once before measuring.
+     */
+    @State(Scope.Benchmark)
+    public static class SnapshotState extends SiddhiBenchmarkState {
+
+        @Override
+        protected String siddhiApp() {
+            return "from InputStream#window.length(10000) " +
+                    "select key, sum(price) as totalPrice, max(volume) as maxVolume " +
+                    "group by key " +
+                    "insert into OutputStream;";
+        }
+
+        @Override
+        protected void prepare() throws InterruptedException {
+            for (int i = 0; i < events.length; i++) {
+                send();
+            }
+        }
+    }
+}
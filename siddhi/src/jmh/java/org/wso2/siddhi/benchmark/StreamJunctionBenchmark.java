@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.siddhi.core.event.Event;
+
+/**
+ * Measures publishing through a StreamJunction with two subscribers, either synchronously or through the disruptor
+ * when the stream is annotated with @async.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamJunctionBenchmark {
+
+    @Benchmark
+    public void send(JunctionState state) throws InterruptedException {
+        state.send();
+    }
+
+    @Benchmark
+    public void sendBatch(JunctionState state) throws InterruptedException {
+        for (int i = 0; i < state.batch.length; i++) {
+            state.batch[i] = new Event(System.currentTimeMillis(), state.nextEvent());
+        }
+        state.inputHandler.send(state.batch);
+    }
+
+    /**
+     * App with two queries subscribed to the input stream.
+     */
+    @State(Scope.Benchmark)
+    public static class JunctionState extends SiddhiBenchmarkState {
+
+        @Param({"sync", "async"})
+        public String junction;
+
+        private final Event[] batch = new Event[64];
+
+        @Override
+        protected String inputStreamAnnotations() {
+            return "async".equals(junction) ? "@async(buffer.size='1024') " : "";
+        }
+
+        @Override
+        protected String siddhiApp() {
+            return "from InputStream select key, price insert into OutputStream; " +
+                    "from InputStream[volume > 0] select key, price insert into OutputStream;";
+        }
+    }
+}
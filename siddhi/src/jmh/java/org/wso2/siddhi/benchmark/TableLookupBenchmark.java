@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+
+/**
+ * Measures stream to table joins served by the IndexEventHolder, probing either the primary key or a secondary
+ * index. The table holds one row per key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TableLookupBenchmark {
+
+    @Benchmark
+    public void lookup(TableState state) throws InterruptedException {
+        state.send();
+    }
+
+    /**
+     * App joining the input stream with an indexed in-memory table.
+     */
+    @State(Scope.Benchmark)
+    public static class TableState extends SiddhiBenchmarkState {
+
+        @Param({"key", "volume"})
+        public String lookupAttribute;
+
+        @Override
+        protected String siddhiApp() {
+            return "define stream TableInputStream (key string, price double, volume long); " +
+                    "@PrimaryKey('key') @Index('volume') " +
+                    "define table StockTable (key string, price double, volume long); " +
+                    "from TableInputStream insert into StockTable; " +
+                    "from InputStream join StockTable " +
+                    "on StockTable." + lookupAttribute + " == InputStream." + lookupAttribute + " " +
+                    "select InputStream.key, StockTable.price " +
+                    "insert into OutputStream;";
+        }
+
+        @Override
+        protected void prepare() throws InterruptedException {
+            InputHandler tableInputHandler = siddhiAppRuntime.getInputHandler("TableInputStream");
+            for (int i = 0; i < keyCardinality; i++) {
+                tableInputHandler.send(new Object[]{"key" + i, (double) i, (long) i});
+            }
+        }
+    }
+}
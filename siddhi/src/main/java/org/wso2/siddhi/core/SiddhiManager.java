@@ -24,6 +24,7 @@ import org.wso2.siddhi.core.util.SiddhiAppRuntimeBuilder;
 import org.wso2.siddhi.core.util.config.ConfigManager;
 import org.wso2.siddhi.core.util.parser.SiddhiAppParser;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.snapshot.StateSerializer;
 import org.wso2.siddhi.query.api.SiddhiApp;
 import org.wso2.siddhi.query.compiler.SiddhiCompiler;
 
@@ -97,6 +98,17 @@ public class SiddhiManager {
         this.siddhiContext.setPersistenceStore(persistenceStore);
     }
 
+    /**
+     * Method to set the serializer used to write and read the states persisted by the Siddhi Manager instance.
+     * {@link org.wso2.siddhi.core.util.snapshot.BinaryStateSerializer} is the default state serializer, and
+     * {@link org.wso2.siddhi.core.util.snapshot.JavaStateSerializer} uses Java serialization.
+     *
+     * @param stateSerializer State Serializer implementation to be used.
+     */
+    public void setStateSerializer(StateSerializer stateSerializer) {
+        this.siddhiContext.setStateSerializer(stateSerializer);
+    }
+
     /**
      * Method to set configManager for the Siddhi Manager instance.
      *
@@ -19,27 +19,58 @@
 package org.wso2.siddhi.core.aggregation;
 
 import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventCloner;
+import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.core.executor.ConstantExpressionExecutor;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.query.input.stream.single.EntryValveExecutor;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental.AsyncIncrementalExecutor;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental.Executor;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental.IncrementalExecutor;
 import org.wso2.siddhi.core.table.Table;
+import org.wso2.siddhi.core.util.IncrementalTimeConverterUtil;
 import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
 import org.wso2.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
+import org.wso2.siddhi.core.util.collection.operator.Operator;
+import org.wso2.siddhi.core.util.parser.ExpressionParser;
+import org.wso2.siddhi.core.util.parser.MatcherParser;
+import org.wso2.siddhi.core.util.parser.OperatorParser;
 import org.wso2.siddhi.query.api.aggregation.TimePeriod;
 import org.wso2.siddhi.query.api.aggregation.Within;
 import org.wso2.siddhi.query.api.definition.AggregationDefinition;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
 import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+
+import static org.wso2.siddhi.core.util.SiddhiConstants.UNKNOWN_STATE;
 
 /**
  * Aggregation runtime managing aggregation operations for aggregation definition
  */
 public class AggregationRuntime {
+    private static final String RANGE_START = "_START";
+    private static final String RANGE_END = "_END";
+    private static final int MAX_UNLOCKED_RETRIEVALS = 3;
+
     private final AggregationDefinition aggregationDefinition;
     private final Map<TimePeriod.Duration, IncrementalExecutor> incrementalExecutorMap;
     private final Map<TimePeriod.Duration, Table> aggregationTables;
@@ -47,6 +78,14 @@ public class AggregationRuntime {
     private List<TimePeriod.Duration> incrementalDurations;
     private SingleStreamRuntime singleStreamRuntime;
     private EntryValveExecutor entryValveExecutor;
+    private List<ExpressionExecutor> rollupExpressionExecutors;
+    private List<ExpressionExecutor> outputExpressionExecutors;
+    private int groupByAttributeCount;
+    private StreamEventPool rollupStreamEventPool;
+    private StreamEvent resetEvent;
+    private StreamEventPool aggregateStreamEventPool;
+    private StreamEventCloner aggregateStreamEventCloner;
+    private Map<TimePeriod.Duration, CompiledCondition> tableRangeConditions = new HashMap<>();
 
     public AggregationRuntime(AggregationDefinition aggregationDefinition,
                               Map<TimePeriod.Duration, IncrementalExecutor> incrementalExecutorMap,
@@ -54,7 +93,11 @@ public class AggregationRuntime {
                               SingleStreamRuntime singleStreamRuntime,
                               EntryValveExecutor entryValveExecutor,
                               List<TimePeriod.Duration> incrementalDurations,
-                              SiddhiAppContext siddhiAppContext) {
+                              SiddhiAppContext siddhiAppContext,
+                              MetaStreamEvent retrievalMetaStreamEvent,
+                              List<ExpressionExecutor> rollupExpressionExecutors,
+                              List<ExpressionExecutor> outputExpressionExecutors,
+                              int groupByAttributeCount) {
         this.aggregationDefinition = aggregationDefinition;
         this.incrementalExecutorMap = incrementalExecutorMap;
         this.aggregationTables = aggregationTables;
@@ -62,6 +105,26 @@ public class AggregationRuntime {
         this.siddhiAppContext = siddhiAppContext;
         this.singleStreamRuntime = singleStreamRuntime;
         this.entryValveExecutor = entryValveExecutor;
+        this.rollupExpressionExecutors = rollupExpressionExecutors;
+        this.outputExpressionExecutors = outputExpressionExecutors;
+        this.groupByAttributeCount = groupByAttributeCount;
+
+        this.rollupStreamEventPool = new StreamEventPool(retrievalMetaStreamEvent,
+                siddhiAppContext.getEventPoolMagazineSize(), siddhiAppContext.getEventPoolDepotSize());
+        this.resetEvent = rollupStreamEventPool.borrowEvent();
+        this.resetEvent.setType(ComplexEvent.Type.RESET);
+
+        MetaStreamEvent aggregateMetaStreamEvent = new MetaStreamEvent();
+        aggregateMetaStreamEvent.addInputDefinition(aggregationDefinition);
+        aggregateMetaStreamEvent.setEventType(MetaStreamEvent.EventType.AGGREGATE);
+        for (Attribute attribute : aggregationDefinition.getAttributeList()) {
+            aggregateMetaStreamEvent.addOutputData(attribute);
+        }
+        this.aggregateStreamEventPool = new StreamEventPool(aggregateMetaStreamEvent,
+                siddhiAppContext.getEventPoolMagazineSize(), siddhiAppContext.getEventPoolDepotSize());
+        this.aggregateStreamEventCloner = new StreamEventCloner(aggregateMetaStreamEvent, aggregateStreamEventPool);
+
+        compileTableRangeConditions();
     }
 
     public Map<TimePeriod.Duration, IncrementalExecutor> getIncrementalExecutorMap() {
@@ -92,19 +155,259 @@ public class AggregationRuntime {
         return incrementalDurations;
     }
 
+    /**
+     * Retrieves the aggregates within the requested time range at the requested granularity. The aggregates are
+     * read from the coarsest duration table which is not coarser than the requested granularity, merged with the
+     * aggregates still held in memory by the incremental executors up to that duration and re-aggregated to the
+     * requested granularity.
+     *
+     * @param matchingEvent     event the 'within', 'per' and 'on' conditions are evaluated against
+     * @param compiledCondition condition compiled via {@link #compileCondition}
+     * @return matching aggregates, one per group and time bucket in ascending time order
+     */
     public StreamEvent find(StateEvent matchingEvent, CompiledCondition compiledCondition) {
-        return null;
-        //todo implement
-    }
+        IncrementalAggregateCompileCondition incrementalAggregateCompileCondition =
+                (IncrementalAggregateCompileCondition) compiledCondition;
 
+        TimePeriod.Duration perDuration = IncrementalTimeConverterUtil.getDuration(String.valueOf(
+                incrementalAggregateCompileCondition.getPerExpressionExecutor().execute(matchingEvent)));
+        int retrievalDurationIndex = getRetrievalDurationIndex(perDuration);
+        if (retrievalDurationIndex < 0) {
+            throw new SiddhiAppRuntimeException("Aggregation '" + aggregationDefinition.getId() + "' cannot be " +
+                    "retrieved per " + perDuration + ", as it is not aggregated per " + perDuration +
+                    " or any finer duration");
+        }
+
+        List<ExpressionExecutor> withinExpressionExecutors =
+                incrementalAggregateCompileCondition.getWithinExpressionExecutors();
+        long[] withinRange;
+        if (withinExpressionExecutors.size() == 1) {
+            withinRange = IncrementalTimeConverterUtil.getWithinRange(
+                    withinExpressionExecutors.get(0).execute(matchingEvent));
+        } else {
+            withinRange = new long[]{
+                    IncrementalTimeConverterUtil.convertToEpochTime(
+                            withinExpressionExecutors.get(0).execute(matchingEvent)),
+                    IncrementalTimeConverterUtil.convertToEpochTime(
+                            withinExpressionExecutors.get(1).execute(matchingEvent))};
+        }
+        if (withinRange[0] >= withinRange[1]) {
+            return null;
+        }
+
+        List<Object[]> aggregates = collectAggregates(retrievalDurationIndex, withinRange[0], withinRange[1]);
+        if (aggregates.isEmpty()) {
+            return null;
+        }
+        ComplexEventChunk<StreamEvent> aggregateEventChunk = rollup(aggregates, perDuration);
+        return ((Operator) incrementalAggregateCompileCondition.getOnCompiledCondition()).find(matchingEvent,
+                aggregateEventChunk, aggregateStreamEventCloner);
+    }
 
     public CompiledCondition compileCondition(Expression expression, Within within, Expression per,
                                               MatchingMetaInfoHolder matchingMetaInfoHolder,
                                               List<VariableExpressionExecutor> variableExpressionExecutors,
                                               Map<String, Table> tableMap, String queryName,
                                               SiddhiAppContext siddhiAppContext) {
+        if (within == null || per == null) {
+            throw new SiddhiAppCreationException("Aggregation '" + aggregationDefinition.getId() + "' can only " +
+                    "be retrieved with both 'within' and 'per' defined");
+        }
+        List<Expression> timeRange = within.getTimeRange();
+        if (timeRange.isEmpty() || timeRange.size() > 2) {
+            throw new SiddhiAppCreationException("'within' of aggregation '" + aggregationDefinition.getId() +
+                    "' should either have a pattern or a start and an end time, but found " + timeRange.size() +
+                    " values");
+        }
+        List<ExpressionExecutor> withinExpressionExecutors = new ArrayList<>(timeRange.size());
+        for (Expression timeExpression : timeRange) {
+            ExpressionExecutor withinExpressionExecutor = ExpressionParser.parseExpression(timeExpression,
+                    matchingMetaInfoHolder.getMetaStateEvent(), matchingMetaInfoHolder.getCurrentState(), tableMap,
+                    variableExpressionExecutors, siddhiAppContext, false, 0, queryName);
+            Attribute.Type type = withinExpressionExecutor.getReturnType();
+            if (type != Attribute.Type.STRING && type != Attribute.Type.LONG && type != Attribute.Type.INT) {
+                throw new SiddhiAppCreationException("'within' of aggregation '" + aggregationDefinition.getId() +
+                        "' should be of type STRING or LONG, but found " + type);
+            }
+            withinExpressionExecutors.add(withinExpressionExecutor);
+        }
+        ExpressionExecutor perExpressionExecutor = ExpressionParser.parseExpression(per,
+                matchingMetaInfoHolder.getMetaStateEvent(), matchingMetaInfoHolder.getCurrentState(), tableMap,
+                variableExpressionExecutors, siddhiAppContext, false, 0, queryName);
+        if (perExpressionExecutor.getReturnType() != Attribute.Type.STRING) {
+            throw new SiddhiAppCreationException("'per' of aggregation '" + aggregationDefinition.getId() +
+                    "' should be of type STRING, but found " + perExpressionExecutor.getReturnType());
+        }
+        if (perExpressionExecutor instanceof ConstantExpressionExecutor) {
+            TimePeriod.Duration perDuration;
+            try {
+                perDuration = IncrementalTimeConverterUtil.getDuration(
+                        (String) ((ConstantExpressionExecutor) perExpressionExecutor).getValue());
+            } catch (SiddhiAppRuntimeException e) {
+                throw new SiddhiAppCreationException(e.getMessage(), e);
+            }
+            if (getRetrievalDurationIndex(perDuration) < 0) {
+                throw new SiddhiAppCreationException("Aggregation '" + aggregationDefinition.getId() +
+                        "' cannot be retrieved per " + perDuration + ", as it is not aggregated per " +
+                        perDuration + " or any finer duration");
+            }
+        }
+        CompiledCondition onCompiledCondition = OperatorParser.constructOperator(new ComplexEventChunk<>(true),
+                expression, matchingMetaInfoHolder, siddhiAppContext, variableExpressionExecutors, tableMap,
+                queryName);
+        return new IncrementalAggregateCompileCondition(withinExpressionExecutors, perExpressionExecutor,
+                onCompiledCondition);
+    }
+
+    private int getRetrievalDurationIndex(TimePeriod.Duration perDuration) {
+        int retrievalDurationIndex = -1;
+        for (int i = 0; i < incrementalDurations.size(); i++) {
+            if (incrementalDurations.get(i).ordinal() <= perDuration.ordinal()) {
+                retrievalDurationIndex = i;
+            }
+        }
+        return retrievalDurationIndex;
+    }
+
+    private void compileTableRangeConditions() {
+        // Range bounds are read from the output data of the matching event, the same way as table rows
+        StreamDefinition rangeDefinition = StreamDefinition.id(aggregationDefinition.getId() + "_range")
+                .attribute(RANGE_START, Attribute.Type.LONG).attribute(RANGE_END, Attribute.Type.LONG);
+        for (Map.Entry<TimePeriod.Duration, Table> entry : aggregationTables.entrySet()) {
+            String tableId = entry.getValue().getTableDefinition().getId();
+            Expression rangeExpression = Expression.and(
+                    Expression.compare(Expression.variable("_TIMESTAMP").ofStream(tableId),
+                            Compare.Operator.GREATER_THAN_EQUAL, Expression.variable(RANGE_START)),
+                    Expression.compare(Expression.variable("_TIMESTAMP").ofStream(tableId),
+                            Compare.Operator.LESS_THAN, Expression.variable(RANGE_END)));
+            MetaStreamEvent rangeMetaStreamEvent = new MetaStreamEvent();
+            rangeMetaStreamEvent.addInputDefinition(rangeDefinition);
+            rangeMetaStreamEvent.setEventType(MetaStreamEvent.EventType.AGGREGATE);
+            for (Attribute attribute : rangeDefinition.getAttributeList()) {
+                rangeMetaStreamEvent.addOutputData(attribute);
+            }
+            MatchingMetaInfoHolder matchingMetaInfoHolder = MatcherParser.constructMatchingMetaStateHolder(
+                    rangeMetaStreamEvent, 0, entry.getValue().getTableDefinition(), UNKNOWN_STATE);
+            tableRangeConditions.put(entry.getKey(), entry.getValue().compileCondition(rangeExpression,
+                    matchingMetaInfoHolder, siddhiAppContext, null, null, aggregationDefinition.getId()));
+        }
+    }
+
+    /**
+     * Collects the stored aggregates within the given range. The in-memory aggregates of the executors are copied
+     * under their locks, taken from the root upwards in the same order aggregates are dispatched, and the table is
+     * scanned after the locks are released. If any executor dispatched aggregates in the meantime, some of them
+     * could be counted twice, hence the retrieval is repeated. After a few such attempts the table is scanned while
+     * the executors are still locked, so that busy aggregations are retrieved as well.
+     */
+    private List<Object[]> collectAggregates(int retrievalDurationIndex, long start, long end) {
+        long[] dispatchCounts = new long[retrievalDurationIndex + 1];
+        for (int attempt = 0; attempt < MAX_UNLOCKED_RETRIEVALS; attempt++) {
+            List<Object[]> aggregates = new ArrayList<>();
+            collectInMemoryAggregates(0, retrievalDurationIndex, start, end, aggregates, dispatchCounts, false);
+            collectTableAggregates(retrievalDurationIndex, start, end, aggregates);
+            if (!isDispatchedSince(dispatchCounts)) {
+                return aggregates;
+            }
+        }
+        List<Object[]> aggregates = new ArrayList<>();
+        collectInMemoryAggregates(0, retrievalDurationIndex, start, end, aggregates, dispatchCounts, true);
+        return aggregates;
+    }
+
+    private void collectInMemoryAggregates(int durationIndex, int retrievalDurationIndex, long start, long end,
+                                           List<Object[]> aggregates, long[] dispatchCounts,
+                                           boolean collectTableAggregates) {
+        IncrementalExecutor incrementalExecutor = incrementalExecutorMap.get(incrementalDurations.get(durationIndex));
+        synchronized (incrementalExecutor) {
+            dispatchCounts[durationIndex] = incrementalExecutor.getDispatchCount();
+            for (Object[] aggregate : incrementalExecutor.getProcessedAggregates()) {
+                long timestamp = (Long) aggregate[0];
+                if (timestamp >= start && timestamp < end) {
+                    aggregates.add(aggregate);
+                }
+            }
+            if (durationIndex < retrievalDurationIndex) {
+                Executor nextExecutor = incrementalExecutor.getNextExecutor();
+                if (nextExecutor instanceof AsyncIncrementalExecutor) {
+                    // Aggregates already emitted by this executor should reach the coarser ones before reading
+                    ((AsyncIncrementalExecutor) nextExecutor).awaitDrain();
+                }
+                collectInMemoryAggregates(durationIndex + 1, retrievalDurationIndex, start, end, aggregates,
+                        dispatchCounts, collectTableAggregates);
+            } else if (collectTableAggregates) {
+                collectTableAggregates(durationIndex, start, end, aggregates);
+            }
+        }
+    }
+
+    private void collectTableAggregates(int durationIndex, long start, long end, List<Object[]> aggregates) {
+        TimePeriod.Duration duration = incrementalDurations.get(durationIndex);
+        StreamEvent rangeEvent = new StreamEvent(0, 0, 2);
+        rangeEvent.setOutputData(new Object[]{start, end});
+        StateEvent matchingEvent = new StateEvent(2, 0);
+        matchingEvent.setEvent(0, rangeEvent);
+        StreamEvent tableEvent = aggregationTables.get(duration).find(matchingEvent,
+                tableRangeConditions.get(duration));
+        while (tableEvent != null) {
+            aggregates.add(tableEvent.getOutputData());
+            tableEvent = tableEvent.getNext();
+        }
+    }
+
+    private boolean isDispatchedSince(long[] dispatchCounts) {
+        for (int i = 0; i < dispatchCounts.length; i++) {
+            if (incrementalExecutorMap.get(incrementalDurations.get(i)).getDispatchCount() != dispatchCounts[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ComplexEventChunk<StreamEvent> rollup(List<Object[]> aggregates, TimePeriod.Duration perDuration) {
+        TreeMap<Long, Map<Object, List<Object[]>>> aggregatesByTime = new TreeMap<>();
+        for (Object[] aggregate : aggregates) {
+            long startTimeOfAggregates = IncrementalTimeConverterUtil.getStartTimeOfAggregates(
+                    (Long) aggregate[0], perDuration);
+            Object groupByKey = null;
+            if (groupByAttributeCount > 0) {
+                groupByKey = new GroupByKey(Arrays.copyOfRange(aggregate, 1, groupByAttributeCount + 1));
+            }
+            aggregatesByTime.computeIfAbsent(startTimeOfAggregates, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(groupByKey, k -> new ArrayList<>()).add(aggregate);
+        }
+
+        ComplexEventChunk<StreamEvent> aggregateEventChunk = new ComplexEventChunk<>(true);
+        StreamEvent rollupEvent = rollupStreamEventPool.borrowEvent();
+        synchronized (rollupExpressionExecutors) {
+            for (Map.Entry<Long, Map<Object, List<Object[]>>> entry : aggregatesByTime.entrySet()) {
+                for (List<Object[]> groupedAggregates : entry.getValue().values()) {
+                    // Index 0 holds the timestamp of the aggregates, hence it's not re-aggregated
+                    Object[] values = new Object[rollupExpressionExecutors.size()];
+                    for (int i = 1; i < rollupExpressionExecutors.size(); i++) {
+                        rollupExpressionExecutors.get(i).execute(resetEvent);
+                    }
+                    for (Object[] aggregate : groupedAggregates) {
+                        rollupEvent.setOutputData(aggregate);
+                        for (int i = 1; i < rollupExpressionExecutors.size(); i++) {
+                            values[i] = rollupExpressionExecutors.get(i).execute(rollupEvent);
+                        }
+                    }
+                    values[0] = entry.getKey();
+                    rollupEvent.setOutputData(values);
 
-        //todo implement
-        return null;
+                    Object[] outputData = new Object[outputExpressionExecutors.size()];
+                    for (int i = 0; i < outputExpressionExecutors.size(); i++) {
+                        outputData[i] = outputExpressionExecutors.get(i).execute(rollupEvent);
+                    }
+                    StreamEvent aggregateEvent = aggregateStreamEventPool.borrowEvent();
+                    aggregateEvent.setTimestamp(entry.getKey());
+                    aggregateEvent.setOutputData(outputData);
+                    aggregateEventChunk.add(aggregateEvent);
+                }
+            }
+        }
+        rollupStreamEventPool.returnEvents(rollupEvent);
+        return aggregateEventChunk;
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.aggregation;
+
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled condition of an aggregation retrieval, holding the 'within' and 'per' executors along with the
+ * condition applied on the retrieved aggregates.
+ */
+public class IncrementalAggregateCompileCondition implements CompiledCondition {
+    private final List<ExpressionExecutor> withinExpressionExecutors;
+    private final ExpressionExecutor perExpressionExecutor;
+    private final CompiledCondition onCompiledCondition;
+
+    public IncrementalAggregateCompileCondition(List<ExpressionExecutor> withinExpressionExecutors,
+                                                ExpressionExecutor perExpressionExecutor,
+                                                CompiledCondition onCompiledCondition) {
+        this.withinExpressionExecutors = withinExpressionExecutors;
+        this.perExpressionExecutor = perExpressionExecutor;
+        this.onCompiledCondition = onCompiledCondition;
+    }
+
+    public List<ExpressionExecutor> getWithinExpressionExecutors() {
+        return withinExpressionExecutors;
+    }
+
+    public ExpressionExecutor getPerExpressionExecutor() {
+        return perExpressionExecutor;
+    }
+
+    public CompiledCondition getOnCompiledCondition() {
+        return onCompiledCondition;
+    }
+
+    @Override
+    public CompiledCondition cloneCompiledCondition(String key) {
+        List<ExpressionExecutor> clonedWithinExpressionExecutors = new ArrayList<>(withinExpressionExecutors.size());
+        for (ExpressionExecutor withinExpressionExecutor : withinExpressionExecutors) {
+            clonedWithinExpressionExecutors.add(withinExpressionExecutor.cloneExecutor(key));
+        }
+        return new IncrementalAggregateCompileCondition(clonedWithinExpressionExecutors,
+                perExpressionExecutor.cloneExecutor(key), onCompiledCondition.cloneCompiledCondition(key));
+    }
+}
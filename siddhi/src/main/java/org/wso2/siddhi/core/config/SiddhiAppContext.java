@@ -21,13 +21,16 @@ package org.wso2.siddhi.core.config;
 import com.lmax.disruptor.ExceptionHandler;
 import org.wso2.siddhi.core.function.Script;
 import org.wso2.siddhi.core.util.ElementIdGenerator;
+import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.ThreadBarrier;
+import org.wso2.siddhi.core.util.TimerWheel;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.persistence.PersistenceService;
 import org.wso2.siddhi.core.util.snapshot.SnapshotService;
 import org.wso2.siddhi.core.util.statistics.StatisticsManager;
 import org.wso2.siddhi.core.util.timestamp.TimestampGenerator;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +53,7 @@ public class SiddhiAppContext {
 
     private ExecutorService executorService;
     private ScheduledExecutorService scheduledExecutorService;
+    private TimerWheel timerWheel;
     private List<EternalReferencedHolder> eternalReferencedHolders;
     private SnapshotService snapshotService;
 
@@ -60,6 +64,11 @@ public class SiddhiAppContext {
     private Map<String, Script> scriptFunctionMap;
     private ExceptionHandler<Object> disruptorExceptionHandler;
     private int bufferSize;
+    private long groupByIdleTime = -1;
+    private int groupByMaxGroups = -1;
+    private int incrementalSnapshots = 0;
+    private int eventPoolMagazineSize = SiddhiConstants.DEFAULT_EVENT_POOL_MAGAZINE_SIZE;
+    private int eventPoolDepotSize = SiddhiConstants.DEFAULT_EVENT_POOL_DEPOT_SIZE;
 
     public SiddhiAppContext() {
         this.eternalReferencedHolders = new CopyOnWriteArrayList<EternalReferencedHolder>();
@@ -130,10 +139,22 @@ public class SiddhiAppContext {
         this.scheduledExecutorService = scheduledExecutorService;
     }
 
+    public TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    public void setTimerWheel(TimerWheel timerWheel) {
+        this.timerWheel = timerWheel;
+    }
+
     public void addEternalReferencedHolder(EternalReferencedHolder eternalReferencedHolder) {
         eternalReferencedHolders.add(eternalReferencedHolder);
     }
 
+    public void removeEternalReferencedHolder(EternalReferencedHolder eternalReferencedHolder) {
+        eternalReferencedHolders.removeAll(Collections.singleton(eternalReferencedHolder));
+    }
+
     public List<EternalReferencedHolder> getEternalReferencedHolders() {
         return eternalReferencedHolders;
     }
@@ -217,4 +238,44 @@ public class SiddhiAppContext {
     public void setBufferSize(int bufferSize) {
         this.bufferSize = bufferSize;
     }
+
+    public long getGroupByIdleTime() {
+        return groupByIdleTime;
+    }
+
+    public void setGroupByIdleTime(long groupByIdleTime) {
+        this.groupByIdleTime = groupByIdleTime;
+    }
+
+    public int getGroupByMaxGroups() {
+        return groupByMaxGroups;
+    }
+
+    public void setGroupByMaxGroups(int groupByMaxGroups) {
+        this.groupByMaxGroups = groupByMaxGroups;
+    }
+
+    public int getIncrementalSnapshots() {
+        return incrementalSnapshots;
+    }
+
+    public void setIncrementalSnapshots(int incrementalSnapshots) {
+        this.incrementalSnapshots = incrementalSnapshots;
+    }
+
+    public int getEventPoolMagazineSize() {
+        return eventPoolMagazineSize;
+    }
+
+    public void setEventPoolMagazineSize(int eventPoolMagazineSize) {
+        this.eventPoolMagazineSize = eventPoolMagazineSize;
+    }
+
+    public int getEventPoolDepotSize() {
+        return eventPoolDepotSize;
+    }
+
+    public void setEventPoolDepotSize(int eventPoolDepotSize) {
+        this.eventPoolDepotSize = eventPoolDepotSize;
+    }
 }
@@ -25,6 +25,8 @@ import org.wso2.siddhi.core.util.config.ConfigManager;
 import org.wso2.siddhi.core.util.config.InMemoryConfigManager;
 import org.wso2.siddhi.core.util.extension.holder.AbstractExtensionHolder;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
+import org.wso2.siddhi.core.util.snapshot.BinaryStateSerializer;
+import org.wso2.siddhi.core.util.snapshot.StateSerializer;
 import org.wso2.siddhi.core.util.statistics.metrics.SiddhiMetricsFactory;
 
 import java.util.HashMap;
@@ -42,6 +44,7 @@ public class SiddhiContext {
     private ExceptionHandler<Object> defaultDisrupterExceptionHandler;
     private Map<String, Class> siddhiExtensions = new HashMap<>();
     private PersistenceStore persistenceStore = null;
+    private StateSerializer stateSerializer = new BinaryStateSerializer();
     private ConcurrentHashMap<String, DataSource> siddhiDataSources;
     private StatisticsConfiguration statisticsConfiguration;
     private ConcurrentHashMap<Class, AbstractExtensionHolder> extensionHolderMap;
@@ -84,6 +87,14 @@ public class SiddhiContext {
         this.persistenceStore = persistenceStore;
     }
 
+    public StateSerializer getStateSerializer() {
+        return stateSerializer;
+    }
+
+    public void setStateSerializer(StateSerializer stateSerializer) {
+        this.stateSerializer = stateSerializer;
+    }
+
     public void setConfigManager(ConfigManager configManager) {
         this.configManager = configManager;
     }
@@ -71,6 +71,10 @@ public class StateEvent implements ComplexEvent {
         next = (StateEvent) stateEvent;
     }
 
+    public void setOutputData(Object[] outputData) {
+        this.outputData = outputData;
+    }
+
     @Override
     public void setOutputData(Object object, int index) {
         outputData[index] = object;
@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.event.stream;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link ComplexEventChunk} of {@link StreamEvent}s that keeps the events serialized outside the heap, in a
+ * sequence of direct {@link ByteBuffer} segments ordered by arrival. Events are decoded when they are iterated,
+ * polled or fetched, hence the returned events are copies, and changing them does not change the chunk. Events can
+ * only be added at the end, while removed events are marked as such and their space is reclaimed once all the
+ * events before them are removed, which suits windows expiring events in arrival order.
+ */
+public class OffHeapStreamEventChunk extends ComplexEventChunk<StreamEvent> {
+
+    private static final long serialVersionUID = -2941207451066537380L;
+    private static final int RECORD_HEADER_SIZE = 5;
+    private static final byte LIVE = 0;
+    private static final byte REMOVED = 1;
+    private static final int MAX_FREE_SEGMENTS = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte TRUE = 6;
+    private static final byte FALSE = 7;
+    private static final byte OBJECT = 8;
+
+    private static final ComplexEvent.Type[] EVENT_TYPES = ComplexEvent.Type.values();
+
+    private final int segmentSize;
+    // Each segment is written up to its position, and the records are read with absolute gets
+    private final transient List<ByteBuffer> segments = new ArrayList<>();
+    private final transient ArrayDeque<ByteBuffer> freeSegments = new ArrayDeque<>();
+    private transient ByteBuffer encodingBuffer = ByteBuffer.allocate(256);
+    private int headOffset = 0;
+    private int cursorSegment = 0;
+    private int cursorOffset = 0;
+    private int lastReturnedSegment = -1;
+    private int lastReturnedOffset = -1;
+    private int size = 0;
+
+    /**
+     * @param segmentSize size in bytes of the direct buffers holding the events
+     */
+    public OffHeapStreamEventChunk(int segmentSize) {
+        super(false);
+        this.segmentSize = segmentSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(StreamEvent streamEvents) {
+        for (StreamEvent streamEvent = streamEvents; streamEvent != null; streamEvent = streamEvent.getNext()) {
+            encode(streamEvent);
+            ByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            int recordSize = RECORD_HEADER_SIZE + encodingBuffer.position();
+            if (segment == null || segment.remaining() < recordSize) {
+                segment = allocateSegment(recordSize);
+                segments.add(segment);
+            }
+            segment.putInt(encodingBuffer.position());
+            segment.put(LIVE);
+            encodingBuffer.flip();
+            segment.put(encodingBuffer);
+            encodingBuffer.clear();
+            size++;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (cursorSegment < segments.size()) {
+            ByteBuffer segment = segments.get(cursorSegment);
+            if (cursorOffset < segment.position()) {
+                if (segment.get(cursorOffset + 4) == LIVE) {
+                    return true;
+                }
+                cursorOffset += RECORD_HEADER_SIZE + segment.getInt(cursorOffset);
+            } else {
+                cursorSegment++;
+                cursorOffset = 0;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public StreamEvent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ByteBuffer segment = segments.get(cursorSegment);
+        StreamEvent streamEvent = decode(segment, cursorOffset + RECORD_HEADER_SIZE);
+        lastReturnedSegment = cursorSegment;
+        lastReturnedOffset = cursorOffset;
+        cursorOffset += RECORD_HEADER_SIZE + segment.getInt(cursorOffset);
+        return streamEvent;
+    }
+
+    @Override
+    public void remove() {
+        if (lastReturnedOffset < 0) {
+            throw new IllegalStateException();
+        }
+        segments.get(lastReturnedSegment).put(lastReturnedOffset + 4, REMOVED);
+        lastReturnedOffset = -1;
+        size--;
+        reclaim();
+    }
+
+    @Override
+    public StreamEvent poll() {
+        while (!segments.isEmpty()) {
+            ByteBuffer segment = segments.get(0);
+            if (headOffset < segment.position()) {
+                if (segment.get(headOffset + 4) == LIVE) {
+                    StreamEvent streamEvent = decode(segment, headOffset + RECORD_HEADER_SIZE);
+                    segment.put(headOffset + 4, REMOVED);
+                    if (lastReturnedSegment == 0 && lastReturnedOffset == headOffset) {
+                        lastReturnedOffset = -1;
+                    }
+                    size--;
+                    reclaim();
+                    return streamEvent;
+                }
+                headOffset += RECORD_HEADER_SIZE + segment.getInt(headOffset);
+            } else if (segments.size() > 1) {
+                releaseFirstSegment();
+            } else {
+                break;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public StreamEvent getFirst() {
+        ComplexEventChunk<StreamEvent> eventChunk = new ComplexEventChunk<>(false);
+        for (int i = 0; i < segments.size(); i++) {
+            ByteBuffer segment = segments.get(i);
+            for (int offset = i == 0 ? headOffset : 0; offset < segment.position();
+                 offset += RECORD_HEADER_SIZE + segment.getInt(offset)) {
+                if (segment.get(offset + 4) == LIVE) {
+                    eventChunk.add(decode(segment, offset + RECORD_HEADER_SIZE));
+                }
+            }
+        }
+        return eventChunk.getFirst();
+    }
+
+    @Override
+    public StreamEvent getLast() {
+        StreamEvent last = null;
+        for (StreamEvent streamEvent = getFirst(); streamEvent != null; streamEvent = streamEvent.getNext()) {
+            last = streamEvent;
+        }
+        return last;
+    }
+
+    @Override
+    public void clear() {
+        for (ByteBuffer segment : segments) {
+            recycle(segment);
+        }
+        segments.clear();
+        headOffset = 0;
+        size = 0;
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        cursorSegment = 0;
+        cursorOffset = headOffset;
+        lastReturnedSegment = -1;
+        lastReturnedOffset = -1;
+    }
+
+    @Override
+    public void insertBeforeCurrent(StreamEvent events) {
+        throw new UnsupportedOperationException("Events can only be added at the end of an off-heap event chunk");
+    }
+
+    @Override
+    public void insertAfterCurrent(StreamEvent streamEvents) {
+        throw new UnsupportedOperationException("Events can only be added at the end of an off-heap event chunk");
+    }
+
+    @Override
+    public void detach() {
+        throw new UnsupportedOperationException("Events cannot be detached from an off-heap event chunk");
+    }
+
+    @Override
+    public StreamEvent detachAllBeforeCurrent() {
+        throw new UnsupportedOperationException("Events cannot be detached from an off-heap event chunk");
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStreamEventChunk{" +
+                "size=" + size +
+                ", segments=" + segments.size() +
+                '}';
+    }
+
+    /**
+     * Skip the removed events at the head, releasing the segments holding no live events.
+     */
+    private void reclaim() {
+        while (!segments.isEmpty()) {
+            ByteBuffer segment = segments.get(0);
+            if (headOffset < segment.position()) {
+                if (segment.get(headOffset + 4) == LIVE) {
+                    return;
+                }
+                headOffset += RECORD_HEADER_SIZE + segment.getInt(headOffset);
+            } else if (segments.size() > 1) {
+                releaseFirstSegment();
+            } else {
+                // The only segment is emptied, and is reused from its start
+                segment.clear();
+                headOffset = 0;
+                cursorSegment = 0;
+                cursorOffset = 0;
+                return;
+            }
+        }
+    }
+
+    private void releaseFirstSegment() {
+        recycle(segments.remove(0));
+        headOffset = 0;
+        if (cursorSegment > 0) {
+            cursorSegment--;
+        } else {
+            cursorOffset = 0;
+        }
+        if (lastReturnedSegment > 0) {
+            lastReturnedSegment--;
+        } else {
+            lastReturnedOffset = -1;
+        }
+    }
+
+    private ByteBuffer allocateSegment(int recordSize) {
+        if (recordSize <= segmentSize) {
+            ByteBuffer segment = freeSegments.poll();
+            if (segment != null) {
+                return segment;
+            }
+        }
+        return ByteBuffer.allocateDirect(Math.max(segmentSize, recordSize));
+    }
+
+    private void recycle(ByteBuffer segment) {
+        if (segment.capacity() == segmentSize && freeSegments.size() < MAX_FREE_SEGMENTS) {
+            segment.clear();
+            freeSegments.add(segment);
+        }
+    }
+
+    private void encode(StreamEvent streamEvent) {
+        ensureCapacity(9);
+        encodingBuffer.putLong(streamEvent.getTimestamp());
+        encodingBuffer.put((byte) streamEvent.getType().ordinal());
+        encode(streamEvent.getBeforeWindowData());
+        encode(streamEvent.getOnAfterWindowData());
+        encode(streamEvent.getOutputData());
+    }
+
+    private void encode(Object[] data) {
+        ensureCapacity(4);
+        if (data == null) {
+            encodingBuffer.putInt(-1);
+            return;
+        }
+        encodingBuffer.putInt(data.length);
+        for (Object value : data) {
+            if (value == null) {
+                ensureCapacity(1);
+                encodingBuffer.put(NULL);
+            } else if (value instanceof String) {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                ensureCapacity(5 + bytes.length);
+                encodingBuffer.put(STRING).putInt(bytes.length).put(bytes);
+            } else if (value instanceof Integer) {
+                ensureCapacity(5);
+                encodingBuffer.put(INTEGER).putInt((Integer) value);
+            } else if (value instanceof Long) {
+                ensureCapacity(9);
+                encodingBuffer.put(LONG).putLong((Long) value);
+            } else if (value instanceof Double) {
+                ensureCapacity(9);
+                encodingBuffer.put(DOUBLE).putDouble((Double) value);
+            } else if (value instanceof Float) {
+                ensureCapacity(5);
+                encodingBuffer.put(FLOAT).putFloat((Float) value);
+            } else if (value instanceof Boolean) {
+                ensureCapacity(1);
+                encodingBuffer.put((Boolean) value ? TRUE : FALSE);
+            } else {
+                byte[] bytes = serialize(value);
+                ensureCapacity(5 + bytes.length);
+                encodingBuffer.put(OBJECT).putInt(bytes.length).put(bytes);
+            }
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (encodingBuffer.remaining() < length) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(encodingBuffer.capacity() * 2,
+                    encodingBuffer.position() + length));
+            encodingBuffer.flip();
+            buffer.put(encodingBuffer);
+            encodingBuffer = buffer;
+        }
+    }
+
+    private static StreamEvent decode(ByteBuffer segment, int offset) {
+        ByteBuffer buffer = segment.duplicate();
+        buffer.position(offset);
+        StreamEvent streamEvent = new StreamEvent(0, 0, 0);
+        streamEvent.setTimestamp(buffer.getLong());
+        streamEvent.setType(EVENT_TYPES[buffer.get()]);
+        streamEvent.setBeforeWindowData(decodeData(buffer));
+        streamEvent.setOnAfterWindowData(decodeData(buffer));
+        streamEvent.setOutputData(decodeData(buffer));
+        return streamEvent;
+    }
+
+    private static Object[] decodeData(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        Object[] data = new Object[length];
+        for (int i = 0; i < length; i++) {
+            byte tag = buffer.get();
+            switch (tag) {
+                case NULL:
+                    break;
+                case STRING:
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    data[i] = new String(bytes, StandardCharsets.UTF_8);
+                    break;
+                case INTEGER:
+                    data[i] = buffer.getInt();
+                    break;
+                case LONG:
+                    data[i] = buffer.getLong();
+                    break;
+                case DOUBLE:
+                    data[i] = buffer.getDouble();
+                    break;
+                case FLOAT:
+                    data[i] = buffer.getFloat();
+                    break;
+                case TRUE:
+                    data[i] = Boolean.TRUE;
+                    break;
+                case FALSE:
+                    data[i] = Boolean.FALSE;
+                    break;
+                default:
+                    byte[] objectBytes = new byte[buffer.getInt()];
+                    buffer.get(objectBytes);
+                    data[i] = deserialize(objectBytes);
+            }
+        }
+        return data;
+    }
+
+    private static byte[] serialize(Object value) {
+        try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+            objectOutputStream.writeObject(value);
+            objectOutputStream.flush();
+            return byteArrayOutputStream.toByteArray();
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot store attribute value of type '" +
+                    value.getClass().getName() + "' off-heap, " + e.getMessage(), e);
+        }
+    }
+
+    private static Object deserialize(byte[] bytes) {
+        try {
+            return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new SiddhiAppRuntimeException("Cannot read attribute value stored off-heap, " + e.getMessage(), e);
+        }
+    }
+}
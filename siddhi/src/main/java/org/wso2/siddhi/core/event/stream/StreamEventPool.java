@@ -17,30 +17,80 @@
  */
 package org.wso2.siddhi.core.event.stream;
 
+import org.wso2.siddhi.core.util.SiddhiConstants;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Event pool containing StreamEvent for reuse
- * This is not a thread safe implementation
+ * Event pool containing StreamEvent for reuse.
+ * This is a thread safe implementation. Each thread borrows from and returns to its own magazine of up to
+ * {@code size} events without synchronization. Full magazines are handed over to a lock free shared depot, from
+ * which threads that run out of events (e.g. threads that only borrow) refill their magazines. Magazines are only
+ * weakly registered with the pool, hence the magazine of a terminated thread is garbage collected together with
+ * its events while its hit and miss counts are retained.
  */
 public class StreamEventPool implements Serializable {
 
     private static final long serialVersionUID = -1743558131917334571L;
     private StreamEventFactory eventFactory;
     private int size;
-    private int index = 0;
-    private StreamEvent streamEventList;
+    private int depotSize;
+    private transient ThreadLocal<Magazine> magazine;
+    private transient Queue<MagazineReference> magazines;
+    private transient ReferenceQueue<Magazine> retiredMagazines;
+    private transient AtomicLong retiredHits;
+    private transient AtomicLong retiredMisses;
+    private transient AtomicReference<DepotNode> depot;
+    private transient AtomicInteger depotCount;
 
     public StreamEventPool(MetaStreamEvent metaStreamEvent, int size) {
-        eventFactory = new StreamEventFactory(metaStreamEvent.getBeforeWindowData().size(),
-                metaStreamEvent.getOnAfterWindowData().size(),
-                metaStreamEvent.getOutputData().size());
-        this.size = size;
+        this(metaStreamEvent, size, SiddhiConstants.DEFAULT_EVENT_POOL_DEPOT_SIZE);
+    }
+
+    public StreamEventPool(MetaStreamEvent metaStreamEvent, int size, int depotSize) {
+        this(metaStreamEvent.getBeforeWindowData().size(), metaStreamEvent.getOnAfterWindowData().size(),
+                metaStreamEvent.getOutputData().size(), size, depotSize);
     }
 
     public StreamEventPool(int beforeWindowDataSize, int onAfterWindowDataSize, int outputDataSize, int poolSize) {
+        this(beforeWindowDataSize, onAfterWindowDataSize, outputDataSize, poolSize,
+                SiddhiConstants.DEFAULT_EVENT_POOL_DEPOT_SIZE);
+    }
+
+    public StreamEventPool(int beforeWindowDataSize, int onAfterWindowDataSize, int outputDataSize, int poolSize,
+                           int depotSize) {
         eventFactory = new StreamEventFactory(beforeWindowDataSize, onAfterWindowDataSize, outputDataSize);
         this.size = poolSize;
+        this.depotSize = depotSize;
+        init();
+    }
+
+    private void init() {
+        magazines = new ConcurrentLinkedQueue<MagazineReference>();
+        retiredMagazines = new ReferenceQueue<Magazine>();
+        retiredHits = new AtomicLong();
+        retiredMisses = new AtomicLong();
+        depot = new AtomicReference<DepotNode>();
+        depotCount = new AtomicInteger();
+        magazine = new ThreadLocal<Magazine>() {
+            @Override
+            protected Magazine initialValue() {
+                purgeRetiredMagazines();
+                Magazine magazine = new Magazine();
+                magazine.reference = new MagazineReference(magazine, retiredMagazines);
+                magazines.add(magazine.reference);
+                return magazine;
+            }
+        };
     }
 
     /**
@@ -49,15 +99,17 @@ public class StreamEventPool implements Serializable {
      * @return if StreamEvent exist in the pool an existing event if not a new StreamEvent will be returned
      */
     public StreamEvent borrowEvent() {
-        if (index > 0) {
-            StreamEvent event = streamEventList;
-            streamEventList = streamEventList.getNext();
-            event.setNext(null);
-            index--;
-            return event;
-        } else {
+        Magazine localMagazine = magazine.get();
+        if (localMagazine.count == 0 && !refill(localMagazine)) {
+            localMagazine.reference.misses++;
             return eventFactory.newInstance();
         }
+        StreamEvent event = localMagazine.events;
+        localMagazine.events = event.getNext();
+        localMagazine.count--;
+        localMagazine.reference.hits++;
+        event.setNext(null);
+        return event;
     }
 
     /**
@@ -67,30 +119,161 @@ public class StreamEventPool implements Serializable {
      * @param streamEvent used event
      */
     public void returnEvents(StreamEvent streamEvent) {
-        if (streamEvent != null) {
-            if (index < size) {
-                StreamEvent first = streamEvent;
-                StreamEvent last = streamEvent;
-                while (streamEvent != null) {
-                    last = streamEvent;
-                    index++;
-                    streamEvent = streamEvent.getNext();
+        if (streamEvent != null && size > 0) {
+            Magazine localMagazine = magazine.get();
+            while (streamEvent != null) {
+                if (localMagazine.count == size && !flush(localMagazine)) {
+                    return;
                 }
-                last.setNext(streamEventList);
-                streamEventList = first;
+                StreamEvent next = streamEvent.getNext();
+                streamEvent.setNext(localMagazine.events);
+                localMagazine.events = streamEvent;
+                localMagazine.count++;
+                streamEvent = next;
             }
         }
+    }
 
+    /**
+     * Take a full magazine from the depot.
+     *
+     * @param localMagazine empty magazine of the current thread
+     * @return true if the magazine was refilled
+     */
+    private boolean refill(Magazine localMagazine) {
+        DepotNode head;
+        do {
+            head = depot.get();
+            if (head == null) {
+                return false;
+            }
+        } while (!depot.compareAndSet(head, head.next));
+        depotCount.decrementAndGet();
+        localMagazine.events = head.events;
+        localMagazine.count = head.count;
+        return true;
     }
 
     /**
-     * @return Occupied buffer size
+     * Hand over the events of a full magazine to the depot. Depot nodes are never reused, hence the compare and set
+     * operations are not subjected to the ABA problem.
+     *
+     * @param localMagazine full magazine of the current thread
+     * @return true if the magazine was emptied
+     */
+    private boolean flush(Magazine localMagazine) {
+        if (depotCount.incrementAndGet() > depotSize) {
+            depotCount.decrementAndGet();
+            return false;
+        }
+        DepotNode node = new DepotNode(localMagazine.events, localMagazine.count);
+        do {
+            node.next = depot.get();
+        } while (!depot.compareAndSet(node.next, node));
+        localMagazine.events = null;
+        localMagazine.count = 0;
+        return true;
+    }
+
+    /**
+     * Unregister the magazines of terminated threads, retaining their hit and miss counts.
+     */
+    private void purgeRetiredMagazines() {
+        MagazineReference reference;
+        while ((reference = (MagazineReference) retiredMagazines.poll()) != null) {
+            if (magazines.remove(reference)) {
+                retiredHits.addAndGet(reference.hits);
+                retiredMisses.addAndGet(reference.misses);
+            }
+        }
+    }
+
+    /**
+     * @return Occupied buffer size, this is an approximation when the pool is being used concurrently
      */
     public int getBufferedEventsSize() {
-        return index;
+        purgeRetiredMagazines();
+        int bufferedEvents = depotCount.get() * size;
+        for (MagazineReference reference : magazines) {
+            Magazine localMagazine = reference.get();
+            if (localMagazine != null) {
+                bufferedEvents += localMagazine.count;
+            }
+        }
+        return bufferedEvents;
+    }
+
+    /**
+     * @return number of borrowed events served from the pool, this is an approximation when the pool is being used
+     * concurrently
+     */
+    public long getHitCount() {
+        purgeRetiredMagazines();
+        long hits = retiredHits.get();
+        for (MagazineReference reference : magazines) {
+            hits += reference.hits;
+        }
+        return hits;
+    }
+
+    /**
+     * @return number of borrowed events newly created as the pool was empty, this is an approximation when the pool
+     * is being used concurrently
+     */
+    public long getMissCount() {
+        purgeRetiredMagazines();
+        long misses = retiredMisses.get();
+        for (MagazineReference reference : magazines) {
+            misses += reference.misses;
+        }
+        return misses;
     }
 
     public int getSize() {
         return size;
     }
+
+    public int getDepotSize() {
+        return depotSize;
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        init();
+    }
+
+    /**
+     * Per thread cache of pooled events.
+     */
+    private static class Magazine {
+        private StreamEvent events;
+        private int count;
+        private MagazineReference reference;
+    }
+
+    /**
+     * Weak registration of a magazine, holding its hit and miss counts so that they outlive the magazine.
+     */
+    private static class MagazineReference extends WeakReference<Magazine> {
+        private long hits;
+        private long misses;
+
+        MagazineReference(Magazine magazine, ReferenceQueue<Magazine> queue) {
+            super(magazine, queue);
+        }
+    }
+
+    /**
+     * Node of the depot stack holding the events of a full magazine.
+     */
+    private static class DepotNode {
+        private final StreamEvent events;
+        private final int count;
+        private DepotNode next;
+
+        DepotNode(StreamEvent events, int count) {
+            this.events = events;
+            this.count = count;
+        }
+    }
 }
@@ -24,13 +24,21 @@ import org.wso2.siddhi.query.api.definition.Attribute;
 /**
  * Executor class for Constant Siddhi expressions. Function execution logic is implemented in execute method.
  */
-public class ConstantExpressionExecutor implements ExpressionExecutor {
+public class ConstantExpressionExecutor implements PrimitiveExpressionExecutor {
     private Object value;
     private Attribute.Type type;
+    private long longValue;
+    private double doubleValue;
+    private boolean primitiveExecutable = false;
 
     public ConstantExpressionExecutor(Object value, Attribute.Type type) {
         this.value = value;
         this.type = type;
+        if (value instanceof Number) {
+            longValue = ((Number) value).longValue();
+            doubleValue = ((Number) value).doubleValue();
+            primitiveExecutable = true;
+        }
     }
 
     @Override
@@ -38,6 +46,21 @@ public class ConstantExpressionExecutor implements ExpressionExecutor {
         return value;
     }
 
+    @Override
+    public boolean isPrimitiveExecutable() {
+        return primitiveExecutable;
+    }
+
+    @Override
+    public long executeAsLong(ComplexEvent event) {
+        return longValue;
+    }
+
+    @Override
+    public double executeAsDouble(ComplexEvent event) {
+        return doubleValue;
+    }
+
     public Attribute.Type getReturnType() {
         return type;
     }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.executor;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+
+/**
+ * Expression Executor which is capable of evaluating its numeric result as a primitive. This lets chained numeric
+ * executors (e.g. variables, constants, math and compare executors) work on primitives without boxing intermediate
+ * results, evaluating each operand once. INT and LONG results are read via {@link #executeAsLong(ComplexEvent)} and
+ * FLOAT and DOUBLE results via {@link #executeAsDouble(ComplexEvent)}, which should only be called when
+ * {@link #isPrimitiveExecutable()} is true.
+ * <p>
+ * A null result is returned as {@link #NULL_LONG} or {@link #NULL_DOUBLE}. As these are also valid values, a
+ * caller receiving them should fall back to {@link #execute(ComplexEvent)} to get the exact result; INT results
+ * are the exception, as {@link #NULL_LONG} is out of their range.
+ */
+public interface PrimitiveExpressionExecutor extends ExpressionExecutor {
+
+    long NULL_LONG = Long.MIN_VALUE;
+
+    double NULL_DOUBLE = Double.NaN;
+
+    boolean isPrimitiveExecutable();
+
+    long executeAsLong(ComplexEvent event);
+
+    double executeAsDouble(ComplexEvent event);
+
+}
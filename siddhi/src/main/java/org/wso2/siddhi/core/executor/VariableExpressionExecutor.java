@@ -29,7 +29,7 @@ import static org.wso2.siddhi.core.util.SiddhiConstants.UNKNOWN_STATE;
  * Executor class for Siddhi event attributes. This executor is used to extract attribute value from
  * {@link ComplexEvent}.
  */
-public class VariableExpressionExecutor implements ExpressionExecutor {
+public class VariableExpressionExecutor implements PrimitiveExpressionExecutor {
     private Attribute attribute;
     private int[] position = new int[]{UNKNOWN_STATE, UNKNOWN_STATE, UNKNOWN_STATE, UNKNOWN_STATE};
     //Position[stream event chain index, stream event index, stream attribute type index, stream attribute index]
@@ -46,6 +46,31 @@ public class VariableExpressionExecutor implements ExpressionExecutor {
         return event.getAttribute(position);
     }
 
+    @Override
+    public boolean isPrimitiveExecutable() {
+        switch (attribute.getType()) {
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public long executeAsLong(ComplexEvent event) {
+        Object value = event.getAttribute(position);
+        return value == null ? NULL_LONG : ((Number) value).longValue();
+    }
+
+    @Override
+    public double executeAsDouble(ComplexEvent event) {
+        Object value = event.getAttribute(position);
+        return value == null ? NULL_DOUBLE : ((Number) value).doubleValue();
+    }
+
 
     public Attribute.Type getReturnType() {
         return attribute.getType();
@@ -18,30 +18,115 @@
 package org.wso2.siddhi.core.executor.condition.compare;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
 import org.wso2.siddhi.core.executor.condition.ConditionExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Parent Executor class for Compare conditions. common evaluation logic is implemented within executor.
+ * When both operands are primitive executable, each operand is evaluated once as a long or a double and numeric
+ * sub classes compare them through the typed {@code executePrimitive} overloads. Operands yielding the null
+ * sentinel of {@link PrimitiveExpressionExecutor} are re-evaluated through the boxed path.
  */
 public abstract class CompareConditionExpressionExecutor extends ConditionExpressionExecutor {
 
     protected ExpressionExecutor leftExpressionExecutor;
     protected ExpressionExecutor rightExpressionExecutor;
+    protected PrimitiveExpressionExecutor leftPrimitiveExecutor;
+    protected PrimitiveExpressionExecutor rightPrimitiveExecutor;
+    private boolean primitiveExecutable = false;
+    private boolean leftIntegral;
+    private boolean rightIntegral;
 
     public CompareConditionExpressionExecutor(ExpressionExecutor leftExpressionExecutor,
                                               ExpressionExecutor rightExpressionExecutor) {
         this.leftExpressionExecutor = leftExpressionExecutor;
         this.rightExpressionExecutor = rightExpressionExecutor;
+        if (leftExpressionExecutor instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) leftExpressionExecutor).isPrimitiveExecutable() &&
+                rightExpressionExecutor instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) rightExpressionExecutor).isPrimitiveExecutable()) {
+            this.leftPrimitiveExecutor = (PrimitiveExpressionExecutor) leftExpressionExecutor;
+            this.rightPrimitiveExecutor = (PrimitiveExpressionExecutor) rightExpressionExecutor;
+            this.primitiveExecutable = true;
+            this.leftIntegral = isIntegral(leftExpressionExecutor.getReturnType());
+            this.rightIntegral = isIntegral(rightExpressionExecutor.getReturnType());
+        }
     }
 
+    private static boolean isIntegral(Attribute.Type type) {
+        return type == Attribute.Type.INT || type == Attribute.Type.LONG;
+    }
 
     public Boolean execute(ComplexEvent event) {
+        if (primitiveExecutable) {
+            Boolean result = executePrimitive(event);
+            if (result != null) {
+                return result;
+            }
+        }
         Object left = leftExpressionExecutor.execute(event);
         Object right = rightExpressionExecutor.execute(event);
         return !(left == null || right == null) && execute(left, right);
     }
 
+    /**
+     * Evaluate each operand once as a primitive and compare them.
+     *
+     * @param event the event being evaluated
+     * @return result of the comparison, or null when an operand returned the null sentinel
+     */
+    private Boolean executePrimitive(ComplexEvent event) {
+        if (leftIntegral) {
+            long left = leftPrimitiveExecutor.executeAsLong(event);
+            if (left == PrimitiveExpressionExecutor.NULL_LONG) {
+                return null;
+            }
+            if (rightIntegral) {
+                long right = rightPrimitiveExecutor.executeAsLong(event);
+                return right == PrimitiveExpressionExecutor.NULL_LONG ? null : executePrimitive(left, right);
+            }
+            double right = rightPrimitiveExecutor.executeAsDouble(event);
+            return Double.isNaN(right) ? null : executePrimitive(left, right);
+        }
+        double left = leftPrimitiveExecutor.executeAsDouble(event);
+        if (Double.isNaN(left)) {
+            return null;
+        }
+        if (rightIntegral) {
+            long right = rightPrimitiveExecutor.executeAsLong(event);
+            return right == PrimitiveExpressionExecutor.NULL_LONG ? null : executePrimitive(left, right);
+        }
+        double right = rightPrimitiveExecutor.executeAsDouble(event);
+        return Double.isNaN(right) ? null : executePrimitive(left, right);
+    }
+
     protected abstract Boolean execute(Object left, Object right);
 
+    /**
+     * Compare non null integral operands. Numeric sub classes override the overload matching their operand types.
+     *
+     * @param left  left operand
+     * @param right right operand
+     * @return result of the comparison
+     */
+    protected boolean executePrimitive(long left, long right) {
+        throw new OperationNotSupportedException(getClass().getName() + " cannot compare long and long operands");
+    }
+
+    protected boolean executePrimitive(long left, double right) {
+        throw new OperationNotSupportedException(getClass().getName() + " cannot compare long and double operands");
+    }
+
+    protected boolean executePrimitive(double left, long right) {
+        throw new OperationNotSupportedException(getClass().getName() + " cannot compare double and long operands");
+    }
+
+    protected boolean executePrimitive(double left, double right) {
+        throw new OperationNotSupportedException(getClass().getName() + " cannot compare double and double " +
+                "operands");
+    }
+
 }
@@ -36,6 +36,11 @@ public class EqualCompareConditionExpressionExecutorFloatFloat extends
         return ((Float) left).floatValue() == ((Float) right).floatValue();
     }
 
+    @Override
+    protected boolean executePrimitive(double left, double right) {
+        return (float) left == (float) right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new EqualCompareConditionExpressionExecutorFloatFloat(leftExpressionExecutor.cloneExecutor(key),
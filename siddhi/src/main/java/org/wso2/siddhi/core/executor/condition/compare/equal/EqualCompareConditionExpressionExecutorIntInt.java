@@ -37,6 +37,11 @@ public class EqualCompareConditionExpressionExecutorIntInt
 
     }
 
+    @Override
+    protected boolean executePrimitive(long left, long right) {
+        return (int) left == (int) right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new EqualCompareConditionExpressionExecutorIntInt(leftExpressionExecutor.cloneExecutor(key),
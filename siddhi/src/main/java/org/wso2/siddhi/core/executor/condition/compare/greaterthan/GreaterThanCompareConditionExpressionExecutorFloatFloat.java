@@ -36,6 +36,11 @@ public class GreaterThanCompareConditionExpressionExecutorFloatFloat extends
         return (Float) left > (Float) right;
     }
 
+    @Override
+    protected boolean executePrimitive(double left, double right) {
+        return (float) left > (float) right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new GreaterThanCompareConditionExpressionExecutorFloatFloat(leftExpressionExecutor.cloneExecutor(key),
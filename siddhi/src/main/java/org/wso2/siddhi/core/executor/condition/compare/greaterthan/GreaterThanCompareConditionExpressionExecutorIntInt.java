@@ -36,6 +36,11 @@ public class GreaterThanCompareConditionExpressionExecutorIntInt extends Greater
 
     }
 
+    @Override
+    protected boolean executePrimitive(long left, long right) {
+        return (int) left > (int) right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new GreaterThanCompareConditionExpressionExecutorIntInt(leftExpressionExecutor.cloneExecutor(key),
@@ -39,6 +39,11 @@ public class GreaterThanEqualCompareConditionExpressionExecutorDoubleDouble exte
 
     }
 
+    @Override
+    protected boolean executePrimitive(double left, double right) {
+        return left >= right;
+    }
+
 
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
@@ -39,6 +39,11 @@ public class GreaterThanEqualCompareConditionExpressionExecutorDoubleFloat exten
 
     }
 
+    @Override
+    protected boolean executePrimitive(double left, double right) {
+        return left >= (float) right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new GreaterThanEqualCompareConditionExpressionExecutorDoubleFloat(leftExpressionExecutor.cloneExecutor
@@ -39,6 +39,11 @@ public class GreaterThanEqualCompareConditionExpressionExecutorDoubleLong extend
 
     }
 
+    @Override
+    protected boolean executePrimitive(double left, long right) {
+        return left >= right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new GreaterThanEqualCompareConditionExpressionExecutorDoubleLong(leftExpressionExecutor.cloneExecutor
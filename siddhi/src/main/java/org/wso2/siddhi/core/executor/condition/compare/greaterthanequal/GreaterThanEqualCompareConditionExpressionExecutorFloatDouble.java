@@ -39,6 +39,11 @@ public class GreaterThanEqualCompareConditionExpressionExecutorFloatDouble exten
 
     }
 
+    @Override
+    protected boolean executePrimitive(double left, double right) {
+        return (float) left >= right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new GreaterThanEqualCompareConditionExpressionExecutorFloatDouble(leftExpressionExecutor.cloneExecutor
@@ -39,6 +39,11 @@ public class GreaterThanEqualCompareConditionExpressionExecutorLongDouble extend
 
     }
 
+    @Override
+    protected boolean executePrimitive(long left, double right) {
+        return left >= right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new GreaterThanEqualCompareConditionExpressionExecutorLongDouble(leftExpressionExecutor.cloneExecutor
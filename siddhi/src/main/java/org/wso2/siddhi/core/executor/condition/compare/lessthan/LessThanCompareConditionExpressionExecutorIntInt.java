@@ -37,6 +37,11 @@ public class LessThanCompareConditionExpressionExecutorIntInt extends LessThanCo
 
     }
 
+    @Override
+    protected boolean executePrimitive(long left, long right) {
+        return (int) left < (int) right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new LessThanCompareConditionExpressionExecutorIntInt(leftExpressionExecutor.cloneExecutor(key),
@@ -38,6 +38,11 @@ public class LessThanCompareConditionExpressionExecutorLongLong extends
 
     }
 
+    @Override
+    protected boolean executePrimitive(long left, long right) {
+        return left < right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new LessThanCompareConditionExpressionExecutorLongLong(leftExpressionExecutor.cloneExecutor(key),
@@ -37,6 +37,11 @@ public class LessThanEqualCompareConditionExpressionExecutorFloatFloat extends
         return (Float) left <= (Float) right;
     }
 
+    @Override
+    protected boolean executePrimitive(double left, double right) {
+        return (float) left <= (float) right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new LessThanEqualCompareConditionExpressionExecutorFloatFloat(leftExpressionExecutor.cloneExecutor
@@ -37,6 +37,11 @@ public class NotEqualCompareConditionExpressionExecutorFloatFloat extends
         return ((Float) left).floatValue() != ((Float) right).floatValue();
     }
 
+    @Override
+    protected boolean executePrimitive(double left, double right) {
+        return (float) left != (float) right;
+    }
+
     @Override
     public ExpressionExecutor cloneExecutor(String key) {
         return new NotEqualCompareConditionExpressionExecutorFloatFloat(leftExpressionExecutor.cloneExecutor(key),
@@ -138,6 +138,20 @@ public abstract class FunctionExecutor implements ExpressionExecutor, EternalRef
      */
     protected abstract Object execute(Object data);
 
+    /**
+     * Drop the references the Siddhi app holds to this executor and to its nested function executors, so that an
+     * executor cloned for a group or a partition key can be garbage collected once it is no longer used.
+     */
+    public void release() {
+        siddhiAppContext.removeEternalReferencedHolder(this);
+        siddhiAppContext.getSnapshotService().removeSnapshotable(queryName, this);
+        for (ExpressionExecutor expressionExecutor : attributeExpressionExecutors) {
+            if (expressionExecutor instanceof FunctionExecutor) {
+                ((FunctionExecutor) expressionExecutor).release();
+            }
+        }
+    }
+
     @Override
     public String getElementId() {
         return elementId;
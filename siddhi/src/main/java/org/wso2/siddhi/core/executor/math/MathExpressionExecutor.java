@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.executor.math;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.PrimitiveExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+/**
+ * Parent Executor class for math operations. When both operands are primitive executable, the data type specific
+ * sub classes evaluate the operation on primitives in a single pass and only box the final result. A null operand,
+ * or an undefined operation such as a division by zero, yields {@link #NULL_LONG} or {@link #NULL_DOUBLE}, in
+ * which case the result is evaluated again on objects to tell a null result from a genuine one.
+ */
+public abstract class MathExpressionExecutor implements PrimitiveExpressionExecutor {
+
+    protected ExpressionExecutor leftExpressionExecutor;
+    protected ExpressionExecutor rightExpressionExecutor;
+    protected boolean primitiveExecutable = false;
+    private PrimitiveExpressionExecutor leftPrimitiveExecutor;
+    private PrimitiveExpressionExecutor rightPrimitiveExecutor;
+    private boolean isLeftIntegral;
+    private boolean isRightIntegral;
+
+    public MathExpressionExecutor(ExpressionExecutor leftExpressionExecutor,
+                                  ExpressionExecutor rightExpressionExecutor) {
+        this.leftExpressionExecutor = leftExpressionExecutor;
+        this.rightExpressionExecutor = rightExpressionExecutor;
+        if (leftExpressionExecutor instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) leftExpressionExecutor).isPrimitiveExecutable() &&
+                rightExpressionExecutor instanceof PrimitiveExpressionExecutor &&
+                ((PrimitiveExpressionExecutor) rightExpressionExecutor).isPrimitiveExecutable()) {
+            this.leftPrimitiveExecutor = (PrimitiveExpressionExecutor) leftExpressionExecutor;
+            this.rightPrimitiveExecutor = (PrimitiveExpressionExecutor) rightExpressionExecutor;
+            this.isLeftIntegral = isIntegral(leftExpressionExecutor.getReturnType());
+            this.isRightIntegral = isIntegral(rightExpressionExecutor.getReturnType());
+            this.primitiveExecutable = true;
+        }
+    }
+
+    private static boolean isIntegral(Attribute.Type type) {
+        return type == Attribute.Type.INT || type == Attribute.Type.LONG;
+    }
+
+    @Override
+    public boolean isPrimitiveExecutable() {
+        return primitiveExecutable;
+    }
+
+    @Override
+    public long executeAsLong(ComplexEvent event) {
+        Object value = execute(event);
+        return value == null ? NULL_LONG : ((Number) value).longValue();
+    }
+
+    @Override
+    public double executeAsDouble(ComplexEvent event) {
+        Object value = execute(event);
+        return value == null ? NULL_DOUBLE : ((Number) value).doubleValue();
+    }
+
+    protected long leftAsLong(ComplexEvent event) {
+        return asLong(leftPrimitiveExecutor, isLeftIntegral, event);
+    }
+
+    protected long rightAsLong(ComplexEvent event) {
+        return asLong(rightPrimitiveExecutor, isRightIntegral, event);
+    }
+
+    protected float leftAsFloat(ComplexEvent event) {
+        return asFloat(leftPrimitiveExecutor, isLeftIntegral, event);
+    }
+
+    protected float rightAsFloat(ComplexEvent event) {
+        return asFloat(rightPrimitiveExecutor, isRightIntegral, event);
+    }
+
+    protected double leftAsDouble(ComplexEvent event) {
+        return asDouble(leftPrimitiveExecutor, isLeftIntegral, event);
+    }
+
+    protected double rightAsDouble(ComplexEvent event) {
+        return asDouble(rightPrimitiveExecutor, isRightIntegral, event);
+    }
+
+    private static long asLong(PrimitiveExpressionExecutor executor, boolean integral, ComplexEvent event) {
+        if (integral) {
+            return executor.executeAsLong(event);
+        }
+        double value = executor.executeAsDouble(event);
+        return Double.isNaN(value) ? NULL_LONG : (long) value;
+    }
+
+    private static float asFloat(PrimitiveExpressionExecutor executor, boolean integral, ComplexEvent event) {
+        if (integral) {
+            long value = executor.executeAsLong(event);
+            return value == NULL_LONG ? Float.NaN : (float) value;
+        }
+        return (float) executor.executeAsDouble(event);
+    }
+
+    private static double asDouble(PrimitiveExpressionExecutor executor, boolean integral, ComplexEvent event) {
+        if (integral) {
+            long value = executor.executeAsLong(event);
+            return value == NULL_LONG ? NULL_DOUBLE : (double) value;
+        }
+        return executor.executeAsDouble(event);
+    }
+}
@@ -19,23 +19,26 @@ package org.wso2.siddhi.core.executor.math.add;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Executor class for Float Add function. Function execution logic is implemented in execute here.
  */
-public class AddExpressionExecutorFloat implements ExpressionExecutor {
-    private ExpressionExecutor leftExpressionExecutor;
-    private ExpressionExecutor rightExpressionExecutor;
-
+public class AddExpressionExecutorFloat extends MathExpressionExecutor {
     public AddExpressionExecutorFloat(ExpressionExecutor leftExpressionExecutor,
                                       ExpressionExecutor rightExpressionExecutor) {
-        this.leftExpressionExecutor = leftExpressionExecutor;
-        this.rightExpressionExecutor = rightExpressionExecutor;
+        super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
     @Override
     public Object execute(ComplexEvent event) {
+        if (primitiveExecutable) {
+            double value = executeAsDouble(event);
+            if (!Double.isNaN(value)) {
+                return (float) value;
+            }
+        }
         Object leftObject = leftExpressionExecutor.execute(event);
         Object rightObject = rightExpressionExecutor.execute(event);
         if (leftObject == null || rightObject == null) {
@@ -44,6 +47,11 @@ public class AddExpressionExecutorFloat implements ExpressionExecutor {
         return ((Number) leftObject).floatValue() + ((Number) rightObject).floatValue();
     }
 
+    @Override
+    public double executeAsDouble(ComplexEvent event) {
+        return leftAsFloat(event) + rightAsFloat(event);
+    }
+
     public Attribute.Type getReturnType() {
         return Attribute.Type.FLOAT;
     }
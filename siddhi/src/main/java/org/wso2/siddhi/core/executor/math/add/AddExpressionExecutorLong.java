@@ -19,24 +19,27 @@ package org.wso2.siddhi.core.executor.math.add;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Executor class for Long Add function. Function execution logic is implemented in execute here.
  */
-public class AddExpressionExecutorLong implements ExpressionExecutor {
-    private ExpressionExecutor leftExpressionExecutor;
-    private ExpressionExecutor rightExpressionExecutor;
-
+public class AddExpressionExecutorLong extends MathExpressionExecutor {
 
     public AddExpressionExecutorLong(ExpressionExecutor leftExpressionExecutor,
                                      ExpressionExecutor rightExpressionExecutor) {
-        this.leftExpressionExecutor = leftExpressionExecutor;
-        this.rightExpressionExecutor = rightExpressionExecutor;
+        super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
     @Override
     public Object execute(ComplexEvent event) {
+        if (primitiveExecutable) {
+            long value = executeAsLong(event);
+            if (value != NULL_LONG) {
+                return value;
+            }
+        }
         Object leftObject = leftExpressionExecutor.execute(event);
         Object rightObject = rightExpressionExecutor.execute(event);
         if (leftObject == null || rightObject == null) {
@@ -46,6 +49,16 @@ public class AddExpressionExecutorLong implements ExpressionExecutor {
 
     }
 
+    @Override
+    public long executeAsLong(ComplexEvent event) {
+        long left = leftAsLong(event);
+        long right = rightAsLong(event);
+        if (left == NULL_LONG || right == NULL_LONG) {
+            return NULL_LONG;
+        }
+        return left + right;
+    }
+
     public Attribute.Type getReturnType() {
         return Attribute.Type.LONG;
     }
@@ -19,24 +19,27 @@ package org.wso2.siddhi.core.executor.math.divide;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Executor class for Float Divide function. Function execution logic is implemented in execute here.
  */
-public class DivideExpressionExecutorFloat implements ExpressionExecutor {
-    private ExpressionExecutor leftExpressionExecutor;
-    private ExpressionExecutor rightExpressionExecutor;
-
+public class DivideExpressionExecutorFloat extends MathExpressionExecutor {
 
     public DivideExpressionExecutorFloat(ExpressionExecutor leftExpressionExecutor,
                                          ExpressionExecutor rightExpressionExecutor) {
-        this.leftExpressionExecutor = leftExpressionExecutor;
-        this.rightExpressionExecutor = rightExpressionExecutor;
+        super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
     @Override
     public Object execute(ComplexEvent event) {
+        if (primitiveExecutable) {
+            double value = executeAsDouble(event);
+            if (!Double.isNaN(value)) {
+                return (float) value;
+            }
+        }
         Object leftObject = leftExpressionExecutor.execute(event);
         Object rightObject = rightExpressionExecutor.execute(event);
         if (leftObject == null || rightObject == null) {
@@ -49,6 +52,16 @@ public class DivideExpressionExecutorFloat implements ExpressionExecutor {
         return ((Number) leftObject).floatValue() / right;
     }
 
+    @Override
+    public double executeAsDouble(ComplexEvent event) {
+        float left = leftAsFloat(event);
+        float right = rightAsFloat(event);
+        if (right == 0.0f) {
+            return NULL_DOUBLE;
+        }
+        return left / right;
+    }
+
     public Attribute.Type getReturnType() {
         return Attribute.Type.FLOAT;
     }
@@ -19,24 +19,27 @@ package org.wso2.siddhi.core.executor.math.mod;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Executor class for Double Modulus function. Function execution logic is implemented in execute here.
  */
-public class ModExpressionExecutorDouble implements ExpressionExecutor {
-    private ExpressionExecutor leftExpressionExecutor;
-    private ExpressionExecutor rightExpressionExecutor;
-
+public class ModExpressionExecutorDouble extends MathExpressionExecutor {
 
     public ModExpressionExecutorDouble(ExpressionExecutor leftExpressionExecutor,
                                        ExpressionExecutor rightExpressionExecutor) {
-        this.leftExpressionExecutor = leftExpressionExecutor;
-        this.rightExpressionExecutor = rightExpressionExecutor;
+        super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
     @Override
     public Object execute(ComplexEvent event) {
+        if (primitiveExecutable) {
+            double value = executeAsDouble(event);
+            if (!Double.isNaN(value)) {
+                return value;
+            }
+        }
         Object leftObject = leftExpressionExecutor.execute(event);
         Object rightObject = rightExpressionExecutor.execute(event);
         if (leftObject == null || rightObject == null) {
@@ -49,6 +52,16 @@ public class ModExpressionExecutorDouble implements ExpressionExecutor {
         return ((Number) leftObject).doubleValue() % right;
     }
 
+    @Override
+    public double executeAsDouble(ComplexEvent event) {
+        double left = leftAsDouble(event);
+        double right = rightAsDouble(event);
+        if (right == 0.0) {
+            return NULL_DOUBLE;
+        }
+        return left % right;
+    }
+
     public Attribute.Type getReturnType() {
         return Attribute.Type.DOUBLE;
     }
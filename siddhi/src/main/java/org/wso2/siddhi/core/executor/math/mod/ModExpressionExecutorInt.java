@@ -19,24 +19,25 @@ package org.wso2.siddhi.core.executor.math.mod;
 
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.math.MathExpressionExecutor;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Executor class for Integer Modulus function. Function execution logic is implemented in execute here.
  */
-public class ModExpressionExecutorInt implements ExpressionExecutor {
-    private ExpressionExecutor leftExpressionExecutor;
-    private ExpressionExecutor rightExpressionExecutor;
-
+public class ModExpressionExecutorInt extends MathExpressionExecutor {
 
     public ModExpressionExecutorInt(ExpressionExecutor leftExpressionExecutor,
                                     ExpressionExecutor rightExpressionExecutor) {
-        this.leftExpressionExecutor = leftExpressionExecutor;
-        this.rightExpressionExecutor = rightExpressionExecutor;
+        super(leftExpressionExecutor, rightExpressionExecutor);
     }
 
     @Override
     public Object execute(ComplexEvent event) {
+        if (primitiveExecutable) {
+            long value = executeAsLong(event);
+            return value == NULL_LONG ? null : (int) value;
+        }
         Object leftObject = leftExpressionExecutor.execute(event);
         Object rightObject = rightExpressionExecutor.execute(event);
         if (leftObject == null || rightObject == null) {
@@ -49,6 +50,16 @@ public class ModExpressionExecutorInt implements ExpressionExecutor {
         return ((Number) leftObject).intValue() % right;
     }
 
+    @Override
+    public long executeAsLong(ComplexEvent event) {
+        long left = leftAsLong(event);
+        long right = rightAsLong(event);
+        if (left == NULL_LONG || right == NULL_LONG || (int) right == 0) {
+            return NULL_LONG;
+        }
+        return (int) left % (int) right;
+    }
+
     public Attribute.Type getReturnType() {
         return Attribute.Type.INT;
     }
@@ -64,7 +64,8 @@ public class PartitionStreamReceiver implements StreamJunction.Receiver {
         this.partitionExecutors = partitionExecutors;
         this.siddhiAppContext = siddhiAppContext;
         streamId = streamDefinition.getId();
-        this.eventPool = new StreamEventPool(metaStreamEvent, 5);
+        this.eventPool = new StreamEventPool(metaStreamEvent, siddhiAppContext.getEventPoolMagazineSize(),
+                siddhiAppContext.getEventPoolDepotSize());
         this.streamEventChunk = new ComplexEventChunk<ComplexEvent>(false);
 
     }
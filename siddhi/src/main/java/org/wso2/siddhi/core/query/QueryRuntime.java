@@ -133,7 +133,8 @@ public class QueryRuntime {
         QueryRuntime queryRuntime = new QueryRuntime(query, siddhiAppContext, clonedStreamRuntime, clonedSelector,
                                                      clonedOutputRateLimiter, outputCallback, this.metaComplexEvent,
                                                      synchronised, this.queryId + key);
-        QueryParserHelper.initStreamRuntime(clonedStreamRuntime, metaComplexEvent, lockWrapper, queryId);
+        QueryParserHelper.initStreamRuntime(clonedStreamRuntime, metaComplexEvent, lockWrapper, queryId,
+                siddhiAppContext);
 
         queryRuntime.setToLocalStream(toLocalStream);
 
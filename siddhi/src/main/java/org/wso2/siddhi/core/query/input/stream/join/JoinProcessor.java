@@ -23,16 +23,28 @@ import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.state.StateEvent;
 import org.wso2.siddhi.core.event.state.StateEventPool;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventCloner;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.processor.Processor;
+import org.wso2.siddhi.core.query.processor.stream.AbstractStreamProcessor;
 import org.wso2.siddhi.core.query.processor.stream.window.FindableProcessor;
 import org.wso2.siddhi.core.query.selector.QuerySelector;
+import org.wso2.siddhi.core.util.EqualityKeys;
 import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
+import org.wso2.siddhi.core.util.collection.operator.ScanOperator;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Created on 12/8/14.
  */
 public class JoinProcessor implements Processor {
+    // Below this many events, finding each event on its own costs less than scanning the found side once
+    private static final int MIN_HASH_JOIN_CHUNK_SIZE = 4;
     private boolean trigger;
     private boolean leftJoinProcessor = false;
     private boolean outerJoinProcessor = false;
@@ -44,6 +56,10 @@ public class JoinProcessor implements Processor {
     private FindableProcessor findableProcessor;
     private Processor nextProcessor;
     private QuerySelector selector;
+    private ScanOperator scanOperator;
+    private ExpressionExecutor[] incomingKeyExecutors;
+    private ExpressionExecutor[] foundKeyExecutors;
+    private ExpressionExecutor conditionExecutor;
 
     public JoinProcessor(boolean leftJoinProcessor, boolean preJoinProcessor, boolean outerJoinProcessor, int
             matchingStreamIndex) {
@@ -61,6 +77,12 @@ public class JoinProcessor implements Processor {
     @Override
     public void process(ComplexEventChunk complexEventChunk) {
         if (trigger) {
+            if (complexEventChunk.getFirst() != complexEventChunk.getLast()) {
+                StreamEvent firstEvent = (StreamEvent) complexEventChunk.getFirst();
+                complexEventChunk.clear();
+                processInBatch(firstEvent);
+                return;
+            }
             ComplexEventChunk<StateEvent> returnEventChunk = new ComplexEventChunk<StateEvent>(true);
             StateEvent joinStateEvent = new StateEvent(2, 0);
             StreamEvent nextEvent = (StreamEvent) complexEventChunk.getFirst();
@@ -124,6 +146,213 @@ public class JoinProcessor implements Processor {
         }
     }
 
+    /**
+     * Join a chunk of several events holding the join lock once. The found side does not change while the chunk
+     * is joined, as the window in front of this processor has already processed the whole chunk. When the join
+     * condition has equality keys, the found side is scanned and the chunk is large enough, the found side events
+     * are read once in place and matched to the chunk through a hash table built over the smaller of the two sides.
+     *
+     * @param firstEvent first event of the chunk
+     */
+    private void processInBatch(StreamEvent firstEvent) {
+        List<StreamEvent> streamEvents = new ArrayList<StreamEvent>();
+        StreamEvent nextEvent = firstEvent;
+        while (nextEvent != null) {
+            StreamEvent streamEvent = nextEvent;
+            nextEvent = streamEvent.getNext();
+            streamEvent.setNext(null);
+            streamEvents.add(streamEvent);
+        }
+        // Aggregating selectors emit one output per batch chunk, hence each event is handed over on its own
+        boolean combineOutput = !selector.isAggregatingBatches();
+        List<ComplexEventChunk<StateEvent>> returnEventChunks = new ArrayList<ComplexEventChunk<StateEvent>>();
+        ComplexEventChunk<StateEvent> returnEventChunk = new ComplexEventChunk<StateEvent>(true);
+        returnEventChunks.add(returnEventChunk);
+        StateEvent joinStateEvent = new StateEvent(2, 0);
+        joinLockWrapper.lock();
+        try {
+            StreamEvent[] foundStreamEvents = null;
+            if (scanOperator != null) {
+                foundStreamEvents = findInBatch(streamEvents, joinStateEvent);
+            }
+            for (int i = 0, size = streamEvents.size(); i < size; i++) {
+                StreamEvent streamEvent = streamEvents.get(i);
+                ComplexEvent.Type eventType = streamEvent.getType();
+                if (eventType == ComplexEvent.Type.TIMER) {
+                    continue;
+                }
+                if (!combineOutput && returnEventChunk.getFirst() != null) {
+                    returnEventChunk = new ComplexEventChunk<StateEvent>(true);
+                    returnEventChunks.add(returnEventChunk);
+                }
+                if (eventType == ComplexEvent.Type.RESET) {
+                    if (!leftJoinProcessor) {
+                        returnEventChunk.add(joinEventBuilder(null, streamEvent, eventType));
+                    } else {
+                        returnEventChunk.add(joinEventBuilder(streamEvent, null, eventType));
+                    }
+                    continue;
+                }
+                StreamEvent foundStreamEvent;
+                if (foundStreamEvents != null) {
+                    foundStreamEvent = foundStreamEvents[i];
+                } else {
+                    joinStateEvent.setEvent(matchingStreamIndex, streamEvent);
+                    foundStreamEvent = findableProcessor.find(joinStateEvent, compiledCondition);
+                    joinStateEvent.setEvent(matchingStreamIndex, null);
+                }
+                if (foundStreamEvent == null) {
+                    if (outerJoinProcessor && !leftJoinProcessor) {
+                        returnEventChunk.add(joinEventBuilder(null, streamEvent, eventType));
+                    } else if (outerJoinProcessor && leftJoinProcessor) {
+                        returnEventChunk.add(joinEventBuilder(streamEvent, null, eventType));
+                    }
+                } else {
+                    while (foundStreamEvent != null) {
+                        StreamEvent nextFoundStreamEvent = foundStreamEvent.getNext();
+                        foundStreamEvent.setNext(null);
+                        if (!leftJoinProcessor) {
+                            returnEventChunk.add(joinEventBuilder(foundStreamEvent, streamEvent, eventType));
+                        } else {
+                            returnEventChunk.add(joinEventBuilder(streamEvent, foundStreamEvent, eventType));
+                        }
+                        foundStreamEvent = nextFoundStreamEvent;
+                    }
+                }
+            }
+        } finally {
+            joinLockWrapper.unlock();
+        }
+        for (ComplexEventChunk<StateEvent> eventChunk : returnEventChunks) {
+            if (eventChunk.getFirst() != null) {
+                selector.process(eventChunk);
+            }
+        }
+    }
+
+    /**
+     * Find the matching events of every event in the chunk with a single scan of the found side events. The found
+     * side events are read where they are stored, and only the matched ones are copied.
+     *
+     * @param streamEvents   events of the chunk
+     * @param joinStateEvent state event used to evaluate the keys and the join condition
+     * @return chains of the found events, indexed by the position of the matching event in the chunk, or null
+     * if the chunk has too few events to be joined this way
+     */
+    private StreamEvent[] findInBatch(List<StreamEvent> streamEvents, StateEvent joinStateEvent) {
+        int probingEventCount = 0;
+        for (StreamEvent streamEvent : streamEvents) {
+            if (streamEvent.getType() == ComplexEvent.Type.CURRENT ||
+                    streamEvent.getType() == ComplexEvent.Type.EXPIRED) {
+                probingEventCount++;
+            }
+        }
+        if (probingEventCount < MIN_HASH_JOIN_CHUNK_SIZE) {
+            return null;
+        }
+        Object[] incomingKeys = new Object[streamEvents.size()];
+        for (int i = 0; i < incomingKeys.length; i++) {
+            StreamEvent streamEvent = streamEvents.get(i);
+            if (streamEvent.getType() == ComplexEvent.Type.CURRENT ||
+                    streamEvent.getType() == ComplexEvent.Type.EXPIRED) {
+                incomingKeys[i] = getKey(incomingKeyExecutors, matchingStreamIndex, streamEvent, joinStateEvent);
+            }
+        }
+
+        int foundStreamIndex = 1 - matchingStreamIndex;
+        findableProcessor.find(joinStateEvent, scanOperator);
+        List<StreamEvent> candidateEvents = scanOperator.takeStoreEvents();
+        Object[] candidateKeys = new Object[candidateEvents.size()];
+        for (int i = 0; i < candidateKeys.length; i++) {
+            candidateKeys[i] = getKey(foundKeyExecutors, foundStreamIndex, candidateEvents.get(i), joinStateEvent);
+        }
+
+        List<List<Integer>> matches = new ArrayList<List<Integer>>(incomingKeys.length);
+        for (int i = 0; i < incomingKeys.length; i++) {
+            matches.add(null);
+        }
+        if (candidateKeys.length <= probingEventCount) {
+            Map<Object, List<Integer>> candidateTable = buildHashTable(candidateKeys);
+            for (int i = 0; i < incomingKeys.length; i++) {
+                List<Integer> bucket = incomingKeys[i] == null ? null : candidateTable.get(incomingKeys[i]);
+                if (bucket != null) {
+                    for (Integer candidateIndex : bucket) {
+                        addMatch(matches, i, candidateIndex, streamEvents, candidateEvents, joinStateEvent);
+                    }
+                }
+            }
+        } else {
+            Map<Object, List<Integer>> incomingTable = buildHashTable(incomingKeys);
+            for (int j = 0; j < candidateKeys.length; j++) {
+                List<Integer> bucket = candidateKeys[j] == null ? null : incomingTable.get(candidateKeys[j]);
+                if (bucket != null) {
+                    for (Integer incomingIndex : bucket) {
+                        addMatch(matches, incomingIndex, j, streamEvents, candidateEvents, joinStateEvent);
+                    }
+                }
+            }
+        }
+
+        StreamEventCloner streamEventCloner = ((AbstractStreamProcessor) findableProcessor).getStreamEventCloner();
+        StreamEvent[] foundStreamEvents = new StreamEvent[incomingKeys.length];
+        for (int i = 0; i < incomingKeys.length; i++) {
+            List<Integer> candidateIndexes = matches.get(i);
+            if (candidateIndexes == null) {
+                continue;
+            }
+            ComplexEventChunk<StreamEvent> foundEventChunk = new ComplexEventChunk<StreamEvent>(false);
+            for (Integer candidateIndex : candidateIndexes) {
+                foundEventChunk.add(streamEventCloner.copyStreamEvent(candidateEvents.get(candidateIndex)));
+            }
+            foundStreamEvents[i] = foundEventChunk.getFirst();
+        }
+        return foundStreamEvents;
+    }
+
+    private void addMatch(List<List<Integer>> matches, int incomingIndex, int candidateIndex,
+                          List<StreamEvent> streamEvents, List<StreamEvent> candidateEvents,
+                          StateEvent joinStateEvent) {
+        joinStateEvent.setEvent(matchingStreamIndex, streamEvents.get(incomingIndex));
+        joinStateEvent.setEvent(1 - matchingStreamIndex, candidateEvents.get(candidateIndex));
+        boolean matched = (Boolean) conditionExecutor.execute(joinStateEvent);
+        joinStateEvent.setEvent(matchingStreamIndex, null);
+        joinStateEvent.setEvent(1 - matchingStreamIndex, null);
+        if (matched) {
+            List<Integer> candidateIndexes = matches.get(incomingIndex);
+            if (candidateIndexes == null) {
+                candidateIndexes = new ArrayList<Integer>();
+                matches.set(incomingIndex, candidateIndexes);
+            }
+            candidateIndexes.add(candidateIndex);
+        }
+    }
+
+    private Map<Object, List<Integer>> buildHashTable(Object[] keys) {
+        Map<Object, List<Integer>> hashTable = new HashMap<Object, List<Integer>>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) {
+                continue;
+            }
+            List<Integer> bucket = hashTable.get(keys[i]);
+            if (bucket == null) {
+                bucket = new ArrayList<Integer>(1);
+                hashTable.put(keys[i], bucket);
+            }
+            bucket.add(i);
+        }
+        return hashTable;
+    }
+
+    private Object getKey(ExpressionExecutor[] keyExecutors, int streamIndex, StreamEvent streamEvent,
+                          StateEvent joinStateEvent) {
+        joinStateEvent.setEvent(streamIndex, streamEvent);
+        try {
+            return EqualityKeys.getKey(keyExecutors, joinStateEvent);
+        } finally {
+            joinStateEvent.setEvent(streamIndex, null);
+        }
+    }
+
     /**
      * Get next processor element in the processor chain. Processed event should be sent to next processor
      *
@@ -178,6 +407,11 @@ public class JoinProcessor implements Processor {
         joinProcessor.setTrigger(trigger);
         if (trigger) {
             joinProcessor.setCompiledCondition(compiledCondition.cloneCompiledCondition(key));
+            if (scanOperator != null) {
+                joinProcessor.setEqualityKeys((ScanOperator) scanOperator.cloneCompiledCondition(key),
+                        cloneExecutors(incomingKeyExecutors, key), cloneExecutors(foundKeyExecutors, key),
+                        conditionExecutor.cloneExecutor(key));
+            }
         }
         return joinProcessor;
     }
@@ -190,6 +424,30 @@ public class JoinProcessor implements Processor {
         this.compiledCondition = compiledCondition;
     }
 
+    /**
+     * Let chunks of several events be joined through a hash table on the equality keys of the join condition.
+     *
+     * @param scanOperator         operator listing all events of the found side
+     * @param incomingKeyExecutors key executors of the events this processor joins
+     * @param foundKeyExecutors    key executors of the found side events, in the same order
+     * @param conditionExecutor    executor of the whole join condition
+     */
+    public void setEqualityKeys(ScanOperator scanOperator, ExpressionExecutor[] incomingKeyExecutors,
+                                ExpressionExecutor[] foundKeyExecutors, ExpressionExecutor conditionExecutor) {
+        this.scanOperator = scanOperator;
+        this.incomingKeyExecutors = incomingKeyExecutors;
+        this.foundKeyExecutors = foundKeyExecutors;
+        this.conditionExecutor = conditionExecutor;
+    }
+
+    private ExpressionExecutor[] cloneExecutors(ExpressionExecutor[] expressionExecutors, String key) {
+        ExpressionExecutor[] clonedExpressionExecutors = new ExpressionExecutor[expressionExecutors.length];
+        for (int i = 0; i < expressionExecutors.length; i++) {
+            clonedExpressionExecutors[i] = expressionExecutors[i].cloneExecutor(key);
+        }
+        return clonedExpressionExecutors;
+    }
+
     public void setTrigger(boolean trigger) {
         this.trigger = trigger;
     }
@@ -89,6 +89,7 @@ public class CountPreStateProcessor extends StreamPreStateProcessor {
                 }
             }
         }
+        updatePartialMatchCount();
         return returnEventChunk;
     }
 
@@ -107,6 +108,9 @@ public class CountPreStateProcessor extends StreamPreStateProcessor {
 
     @Override
     public void addState(StateEvent stateEvent) {
+        if (!admitState(stateEvent)) {
+            return;
+        }
         //        if (stateType == StateInputStream.Type.SEQUENCE) {
         //            newAndEveryStateEventList.clear();
         //            pendingStateEventList.clear();
@@ -119,11 +123,17 @@ public class CountPreStateProcessor extends StreamPreStateProcessor {
             newAndEveryStateEventList.add(stateEvent);
         }
         if (minCount == 0 && stateEvent.getStreamEvent(stateId) == null) {
-            currentStateEventChunk.clear();
-            currentStateEventChunk.add(stateEvent);
-            countPostStateProcessor.processMinCountReached(stateEvent, currentStateEventChunk);
-            currentStateEventChunk.clear();
+            StateEvent previousMovingStateEvent = beginMove(stateEvent);
+            try {
+                currentStateEventChunk.clear();
+                currentStateEventChunk.add(stateEvent);
+                countPostStateProcessor.processMinCountReached(stateEvent, currentStateEventChunk);
+                currentStateEventChunk.clear();
+            } finally {
+                endMove(previousMovingStateEvent);
+            }
         }
+        updatePartialMatchCount();
     }
 
     public CountPostStateProcessor getCountPostStateProcessor() {
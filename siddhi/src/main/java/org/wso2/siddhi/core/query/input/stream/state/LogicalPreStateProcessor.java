@@ -60,6 +60,9 @@ public class LogicalPreStateProcessor extends StreamPreStateProcessor {
 
     @Override
     public void addState(StateEvent stateEvent) {
+        if (!admitState(stateEvent)) {
+            return;
+        }
         if (isStartState || stateType == StateInputStream.Type.SEQUENCE) {
             if (newAndEveryStateEventList.isEmpty()) {
                 newAndEveryStateEventList.add(stateEvent);
@@ -73,11 +76,14 @@ public class LogicalPreStateProcessor extends StreamPreStateProcessor {
                 partnerStatePreProcessor.newAndEveryStateEventList.add(stateEvent);
             }
         }
-
+        updatePartialMatchCounts();
     }
 
     @Override
     public void addEveryState(StateEvent stateEvent) {
+        if (!admitEveryState(stateEvent)) {
+            return;
+        }
         StateEvent clonedEvent = stateEventCloner.copyStateEvent(stateEvent);
         clonedEvent.setEvent(stateId, null);
         newAndEveryStateEventList.add(clonedEvent);
@@ -85,6 +91,14 @@ public class LogicalPreStateProcessor extends StreamPreStateProcessor {
             clonedEvent.setEvent(partnerStatePreProcessor.stateId, null);
             partnerStatePreProcessor.newAndEveryStateEventList.add(clonedEvent);
         }
+        updatePartialMatchCounts();
+    }
+
+    private void updatePartialMatchCounts() {
+        updatePartialMatchCount();
+        if (partnerStatePreProcessor != null) {
+            partnerStatePreProcessor.updatePartialMatchCount();
+        }
     }
 
     public void setStartState(boolean isStartState) {
@@ -100,6 +114,7 @@ public class LogicalPreStateProcessor extends StreamPreStateProcessor {
                 partnerStatePreProcessor.pendingStateEventList.size()) {
             pendingStateEventList.clear();
             partnerStatePreProcessor.pendingStateEventList.clear();
+            updatePartialMatchCounts();
 
             if (isStartState && newAndEveryStateEventList.isEmpty()) {
                 //        if (isStartState && stateType == StateInputStream.Type.SEQUENCE && newAndEveryStateEventList
@@ -161,10 +176,15 @@ public class LogicalPreStateProcessor extends StreamPreStateProcessor {
                 }
             }
         }
+        updatePartialMatchCount();
         return returnEventChunk;
     }
 
     public void setPartnerStatePreProcessor(LogicalPreStateProcessor partnerStatePreProcessor) {
         this.partnerStatePreProcessor = partnerStatePreProcessor;
     }
+
+    public LogicalPreStateProcessor getPartnerStatePreProcessor() {
+        return partnerStatePreProcessor;
+    }
 }
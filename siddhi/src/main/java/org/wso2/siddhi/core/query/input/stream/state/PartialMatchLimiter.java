@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.core.query.input.stream.state;
+
+import com.codahale.metrics.Counter;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.stream.StreamJunction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caps the number of live partial matches of a pattern query. Partitioned queries get a limiter per partition key,
+ * hence the cap applies to each key separately.
+ * <p>
+ * The cap is enforced when the number of live partial matches grows, that is when a partial match leaves a start
+ * state or when an every state copies one. A partial match moving from one non start state to the next is already
+ * counted, hence it is not checked again. On overflow the oldest partial match of the query is shed, the new one is
+ * dropped, or the new one is dropped and reported to a fault stream. Start states and the states held by count and
+ * logical states are counted but never shed; when there is nothing to shed the new partial match is dropped instead.
+ */
+public class PartialMatchLimiter {
+
+    private final String queryName;
+    private final int maxPartialMatches;
+    private final OverflowPolicy overflowPolicy;
+    private final String faultStreamId;
+    private final Counter shedCounter;
+    private String partitionKey;
+    private StateEvent movingStateEvent;
+    private StreamJunction.Publisher faultStreamPublisher;
+    private List<StreamPreStateProcessor> stateProcessors = new ArrayList<StreamPreStateProcessor>();
+    private List<StreamPreStateProcessor> sheddableStateProcessors = new ArrayList<StreamPreStateProcessor>();
+
+    public PartialMatchLimiter(String queryName, int maxPartialMatches, OverflowPolicy overflowPolicy,
+                               String faultStreamId, Counter shedCounter) {
+        this.queryName = queryName;
+        this.maxPartialMatches = maxPartialMatches;
+        this.overflowPolicy = overflowPolicy;
+        this.faultStreamId = faultStreamId;
+        this.shedCounter = shedCounter;
+    }
+
+    public String getFaultStreamId() {
+        return faultStreamId;
+    }
+
+    public void setFaultStreamJunction(StreamJunction faultStreamJunction) {
+        this.faultStreamPublisher = faultStreamJunction.constructPublisher();
+    }
+
+    public void addStateProcessor(StreamPreStateProcessor stateProcessor) {
+        stateProcessor.setPartialMatchLimiter(this);
+        if (stateProcessor instanceof LogicalPreStateProcessor &&
+                stateProcessors.contains(((LogicalPreStateProcessor) stateProcessor).getPartnerStatePreProcessor())) {
+            // Both partners hold the same partial matches, count them once
+            return;
+        }
+        stateProcessors.add(stateProcessor);
+        if (stateProcessor.getClass() == StreamPreStateProcessor.class) {
+            sheddableStateProcessors.add(stateProcessor);
+        }
+    }
+
+    /**
+     * Number of partial matches held by the non start states of the query.
+     *
+     * @return live partial match count
+     */
+    public int getPartialMatchCount() {
+        int partialMatchCount = 0;
+        for (StreamPreStateProcessor stateProcessor : stateProcessors) {
+            if (stateProcessor.isStartState) {
+                continue;
+            }
+            if (stateProcessor instanceof LogicalPreStateProcessor) {
+                partialMatchCount += Math.max(stateProcessor.getPartialMatchCount(),
+                        ((LogicalPreStateProcessor) stateProcessor).getPartnerStatePreProcessor()
+                                .getPartialMatchCount());
+            } else {
+                partialMatchCount += stateProcessor.getPartialMatchCount();
+            }
+        }
+        return partialMatchCount;
+    }
+
+    /**
+     * Set the partial match a non start state is processing. Adding it to another state moves it, as it is already
+     * counted in the state processing it.
+     *
+     * @param stateEvent partial match being processed, or null
+     * @return the partial match set before
+     */
+    StateEvent setMovingStateEvent(StateEvent stateEvent) {
+        StateEvent previousStateEvent = movingStateEvent;
+        movingStateEvent = stateEvent;
+        return previousStateEvent;
+    }
+
+    /**
+     * Decide whether a partial match can be added to a state. A partial match moving from another non start state is
+     * always admitted, other partial matches are checked against the cap.
+     *
+     * @param stateEvent partial match to be added
+     * @return true if the partial match can be added
+     */
+    public boolean admit(StateEvent stateEvent) {
+        return stateEvent == movingStateEvent || admitCopy(stateEvent);
+    }
+
+    /**
+     * Decide whether a copy of a partial match can be added, shedding according to the overflow policy when the query
+     * already holds the maximum number of partial matches.
+     *
+     * @param stateEvent partial match to be copied
+     * @return true if the copy can be added
+     */
+    public boolean admitCopy(StateEvent stateEvent) {
+        int partialMatchCount = getPartialMatchCount();
+        if (partialMatchCount < maxPartialMatches) {
+            return true;
+        }
+        if (shedCounter != null) {
+            shedCounter.inc();
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                StreamPreStateProcessor oldestStateProcessor = null;
+                StateEvent oldestStateEvent = null;
+                for (StreamPreStateProcessor stateProcessor : sheddableStateProcessors) {
+                    if (stateProcessor.isStartState) {
+                        continue;
+                    }
+                    StateEvent candidate = stateProcessor.getOldestStateEvent();
+                    if (candidate != null && (oldestStateEvent == null ||
+                            candidate.getTimestamp() < oldestStateEvent.getTimestamp())) {
+                        oldestStateProcessor = stateProcessor;
+                        oldestStateEvent = candidate;
+                    }
+                }
+                if (oldestStateEvent != null) {
+                    oldestStateProcessor.removeStateEvent(oldestStateEvent);
+                    return true;
+                }
+                return false;
+            case FAULT:
+                faultStreamPublisher.send(stateEvent.getTimestamp(),
+                        new Object[]{queryName, partitionKey, partialMatchCount}, 0);
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    public PartialMatchLimiter clone(String key) {
+        PartialMatchLimiter partialMatchLimiter = new PartialMatchLimiter(queryName, maxPartialMatches,
+                overflowPolicy, faultStreamId, shedCounter);
+        partialMatchLimiter.partitionKey = key;
+        partialMatchLimiter.faultStreamPublisher = faultStreamPublisher;
+        return partialMatchLimiter;
+    }
+
+    /**
+     * What to do with partial matches beyond the cap.
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST("drop.oldest"), DROP_NEWEST("drop.newest"), FAULT("fault");
+
+        private final String name;
+
+        OverflowPolicy(String name) {
+            this.name = name;
+        }
+
+        public static OverflowPolicy forName(String name) {
+            for (OverflowPolicy overflowPolicy : values()) {
+                if (overflowPolicy.name.equalsIgnoreCase(name)) {
+                    return overflowPolicy;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -39,6 +39,7 @@ public class StateStreamRuntime implements StreamRuntime {
     private SiddhiAppContext siddhiAppContext;
     private MetaStateEvent metaStateEvent;
     private InnerStateRuntime innerStateRuntime;
+    private PartialMatchLimiter partialMatchLimiter;
 
     public StateStreamRuntime(SiddhiAppContext siddhiAppContext, MetaStateEvent metaStateEvent) {
         this.siddhiAppContext = siddhiAppContext;
@@ -64,6 +65,9 @@ public class StateStreamRuntime implements StreamRuntime {
         ((StreamPreStateProcessor) stateStreamRuntime.innerStateRuntime.getFirstProcessor()).setThisLastProcessor(
                 (StreamPostStateProcessor)
                         stateStreamRuntime.innerStateRuntime.getLastProcessor());
+        if (partialMatchLimiter != null) {
+            stateStreamRuntime.setPartialMatchLimiter(partialMatchLimiter.clone(key));
+        }
         return stateStreamRuntime;
     }
 
@@ -87,6 +91,17 @@ public class StateStreamRuntime implements StreamRuntime {
         this.innerStateRuntime = innerStateRuntime;
     }
 
+    public PartialMatchLimiter getPartialMatchLimiter() {
+        return partialMatchLimiter;
+    }
+
+    public void setPartialMatchLimiter(PartialMatchLimiter partialMatchLimiter) {
+        this.partialMatchLimiter = partialMatchLimiter;
+        for (SingleStreamRuntime singleStreamRuntime : getSingleStreamRuntimes()) {
+            partialMatchLimiter.addStateProcessor((StreamPreStateProcessor) singleStreamRuntime.getProcessorChain());
+        }
+    }
+
     public void resetAndUpdate() {
         innerStateRuntime.reset();
         innerStateRuntime.update();
@@ -17,7 +17,9 @@
  */
 package org.wso2.siddhi.core.query.input.stream.state;
 
+import com.codahale.metrics.Counter;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.state.StateEvent;
 import org.wso2.siddhi.core.event.state.StateEventCloner;
@@ -25,13 +27,24 @@ import org.wso2.siddhi.core.event.state.StateEventPool;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventCloner;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.processor.Processor;
+import org.wso2.siddhi.core.query.processor.SchedulingProcessor;
+import org.wso2.siddhi.core.util.EqualityKeys;
+import org.wso2.siddhi.core.util.Schedulable;
+import org.wso2.siddhi.core.util.Scheduler;
 import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 import org.wso2.siddhi.query.api.execution.query.input.stream.StateInputStream;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -40,7 +53,7 @@ import java.util.Set;
 /**
  * Created on 12/17/14.
  */
-public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable {
+public class StreamPreStateProcessor implements PreStateProcessor, SchedulingProcessor, Schedulable, Snapshotable {
 
     protected int stateId;
     protected boolean isStartState;
@@ -57,6 +70,18 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
     protected ComplexEventChunk<StateEvent> currentStateEventChunk = new ComplexEventChunk<StateEvent>(false);
     protected LinkedList<StateEvent> pendingStateEventList = new LinkedList<StateEvent>();
     protected LinkedList<StateEvent> newAndEveryStateEventList = new LinkedList<StateEvent>();
+    protected Map<Object, LinkedList<StateEvent>> pendingStateEventIndex;
+    protected ExpressionExecutor[] pendingKeyExecutors;
+    protected ExpressionExecutor[] incomingKeyExecutors;
+    private StateEvent keyStateEvent;
+    // Keys of the indexed pending states in the order the states were added, the first one being the oldest
+    private LinkedHashMap<StateEvent, Object> indexedStateEventKeys;
+    protected Scheduler scheduler;
+    private long scheduledExpiryTime = -1;
+    private Counter partialMatchCounter;
+    private int reportedPartialMatchCount;
+    protected PartialMatchLimiter partialMatchLimiter;
+    private LinkedList<StateEvent> processingStateEventList;
 
     protected StateEventPool stateEventPool;
     //  private StreamEventPool streamEventPool;
@@ -78,6 +103,12 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
             this.elementId = "StreamPreStateProcessor-" + siddhiAppContext.getElementIdGenerator().createNewId();
         }
         siddhiAppContext.getSnapshotService().addSnapshotable(queryName, this);
+        if (siddhiAppContext.isStatsEnabled() && siddhiAppContext.getStatisticsManager() != null) {
+            String metricName = QueryParserHelper.getMetricName(siddhiAppContext, queryName,
+                    SiddhiConstants.METRIC_INFIX_QUERIES);
+            partialMatchCounter = siddhiAppContext.getStatisticsManager().getRegistry()
+                    .counter(metricName + ".partialMatches");
+        }
     }
 
     public StreamPostStateProcessor getThisStatePostProcessor() {
@@ -89,14 +120,202 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
     }
 
     /**
-     * Process the handed StreamEvent
+     * Process the TIMER events of the scheduler, which remove the pending states whose within period has passed.
+     * Other events are handled through processAndReturn.
      *
      * @param complexEventChunk event chunk to be processed
      */
     @Override
     public void process(ComplexEventChunk complexEventChunk) {
-        throw new IllegalStateException("process method of StreamPreStateProcessor should not be called. " +
-                "processAndReturn method is used for handling event chunks.");
+        complexEventChunk.reset();
+        while (complexEventChunk.hasNext()) {
+            ComplexEvent complexEvent = complexEventChunk.next();
+            if (complexEvent.getType() != ComplexEvent.Type.TIMER) {
+                throw new IllegalStateException("process method of StreamPreStateProcessor should not be called. " +
+                        "processAndReturn method is used for handling event chunks.");
+            }
+            expireStateEvents(complexEvent.getTimestamp());
+        }
+    }
+
+    @Override
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Number of partial matches this processor currently holds.
+     *
+     * @return count of pending and newly added states
+     */
+    public int getPartialMatchCount() {
+        int partialMatchCount = pendingStateEventList.size() + newAndEveryStateEventList.size();
+        if (indexedStateEventKeys != null) {
+            partialMatchCount += indexedStateEventKeys.size();
+        }
+        return partialMatchCount;
+    }
+
+    public void setPartialMatchLimiter(PartialMatchLimiter partialMatchLimiter) {
+        this.partialMatchLimiter = partialMatchLimiter;
+    }
+
+    /**
+     * Oldest partial match of this state that can be removed while processing the current event, the states being
+     * matched against the current event are left out.
+     *
+     * @return oldest removable state, or null if there is none
+     */
+    StateEvent getOldestStateEvent() {
+        StateEvent oldestStateEvent = newAndEveryStateEventList.peekFirst();
+        if (pendingStateEventList != processingStateEventList) {
+            oldestStateEvent = getOlderStateEvent(oldestStateEvent, pendingStateEventList.peekFirst());
+        }
+        if (indexedStateEventKeys != null) {
+            // Skip the states of the bucket being processed, they cannot be removed while it is iterated
+            for (Map.Entry<StateEvent, Object> entry : indexedStateEventKeys.entrySet()) {
+                if (pendingStateEventIndex.get(entry.getValue()) != processingStateEventList) {
+                    return getOlderStateEvent(oldestStateEvent, entry.getKey());
+                }
+            }
+        }
+        return oldestStateEvent;
+    }
+
+    private StateEvent getOlderStateEvent(StateEvent stateEvent, StateEvent otherStateEvent) {
+        if (stateEvent == null || (otherStateEvent != null &&
+                otherStateEvent.getTimestamp() < stateEvent.getTimestamp())) {
+            return otherStateEvent;
+        }
+        return stateEvent;
+    }
+
+    /**
+     * Remove a state returned by getOldestStateEvent.
+     *
+     * @param stateEvent state to be removed
+     */
+    void removeStateEvent(StateEvent stateEvent) {
+        if (newAndEveryStateEventList.peekFirst() == stateEvent) {
+            newAndEveryStateEventList.removeFirst();
+        } else if (pendingStateEventList.peekFirst() == stateEvent) {
+            pendingStateEventList.removeFirst();
+        } else if (indexedStateEventKeys != null && indexedStateEventKeys.containsKey(stateEvent)) {
+            Object key = indexedStateEventKeys.remove(stateEvent);
+            LinkedList<StateEvent> stateEvents = pendingStateEventIndex.get(key);
+            stateEvents.remove(stateEvent);
+            if (stateEvents.isEmpty()) {
+                pendingStateEventIndex.remove(key);
+            }
+        }
+        updatePartialMatchCount();
+    }
+
+    private void removeStateEvent(Iterator<StateEvent> iterator, StateEvent stateEvent) {
+        iterator.remove();
+        if (indexedStateEventKeys != null) {
+            indexedStateEventKeys.remove(stateEvent);
+        }
+    }
+
+    protected void updatePartialMatchCount() {
+        if (partialMatchCounter != null) {
+            int partialMatchCount = getPartialMatchCount();
+            partialMatchCounter.inc(partialMatchCount - reportedPartialMatchCount);
+            reportedPartialMatchCount = partialMatchCount;
+        }
+    }
+
+    /**
+     * Time at which the given state is no longer within all the within periods of this state.
+     *
+     * @param stateEvent pending state
+     * @return expiry time, or Long.MAX_VALUE when the state does not expire
+     */
+    private long getExpiryTime(StateEvent stateEvent) {
+        long expiryTime = Long.MAX_VALUE;
+        for (Map.Entry<Long, Set<Integer>> withinEntry : withinStates) {
+            for (Integer withinStateId : withinEntry.getValue()) {
+                long timestamp;
+                if (withinStateId == SiddhiConstants.ANY) {
+                    timestamp = stateEvent.getTimestamp();
+                } else {
+                    StreamEvent streamEvent = stateEvent.getStreamEvent(withinStateId);
+                    if (streamEvent == null) {
+                        continue;
+                    }
+                    timestamp = streamEvent.getTimestamp();
+                }
+                if (timestamp >= 0 && timestamp + withinEntry.getKey() < expiryTime) {
+                    expiryTime = timestamp + withinEntry.getKey();
+                }
+            }
+        }
+        return expiryTime;
+    }
+
+    private void scheduleExpiry(long expiryTime) {
+        if (expiryTime != Long.MAX_VALUE && (scheduledExpiryTime == -1 || expiryTime < scheduledExpiryTime)) {
+            scheduledExpiryTime = expiryTime;
+            scheduler.notifyAt(expiryTime);
+        }
+    }
+
+    private void expireStateEvents(long currentTime) {
+        if (currentTime < scheduledExpiryTime) {
+            return;
+        }
+        scheduledExpiryTime = -1;
+        long nextExpiryTime = Math.min(expireStateEvents(pendingStateEventList, currentTime),
+                expireStateEvents(newAndEveryStateEventList, currentTime));
+        if (pendingStateEventIndex != null) {
+            for (Iterator<LinkedList<StateEvent>> iterator = pendingStateEventIndex.values().iterator();
+                 iterator.hasNext(); ) {
+                LinkedList<StateEvent> stateEvents = iterator.next();
+                nextExpiryTime = Math.min(nextExpiryTime, expireStateEvents(stateEvents, currentTime));
+                if (stateEvents.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+        // Expire the states falling due shortly after in the same sweep, rather than sweeping once per state
+        scheduleExpiry(Math.max(nextExpiryTime, currentTime + expiryBatchTime()));
+        updatePartialMatchCount();
+    }
+
+    private long expireStateEvents(Collection<StateEvent> stateEvents, long currentTime) {
+        long nextExpiryTime = Long.MAX_VALUE;
+        for (Iterator<StateEvent> iterator = stateEvents.iterator(); iterator.hasNext(); ) {
+            StateEvent stateEvent = iterator.next();
+            long expiryTime = getExpiryTime(stateEvent);
+            if (expiryTime < currentTime) {
+                removeStateEvent(iterator, stateEvent);
+            } else if (expiryTime < nextExpiryTime) {
+                nextExpiryTime = expiryTime;
+            }
+        }
+        return nextExpiryTime;
+    }
+
+    private long getNextExpiryTime(Collection<StateEvent> stateEvents) {
+        long nextExpiryTime = Long.MAX_VALUE;
+        for (StateEvent stateEvent : stateEvents) {
+            nextExpiryTime = Math.min(nextExpiryTime, getExpiryTime(stateEvent));
+        }
+        return nextExpiryTime;
+    }
+
+    private long expiryBatchTime() {
+        long within = Long.MAX_VALUE;
+        for (Map.Entry<Long, Set<Integer>> withinEntry : withinStates) {
+            within = Math.min(within, withinEntry.getKey());
+        }
+        return Math.max(1, within / 10);
     }
 
     protected boolean isExpired(StateEvent pendingStateEvent, StreamEvent incomingStreamEvent) {
@@ -121,11 +340,44 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
     }
 
     protected void process(StateEvent stateEvent) {
-        currentStateEventChunk.add(stateEvent);
-        currentStateEventChunk.reset();
-        stateChanged = false;
-        nextProcessor.process(currentStateEventChunk);
-        currentStateEventChunk.reset();
+        StateEvent previousMovingStateEvent = beginMove(stateEvent);
+        try {
+            currentStateEventChunk.add(stateEvent);
+            currentStateEventChunk.reset();
+            stateChanged = false;
+            nextProcessor.process(currentStateEventChunk);
+            currentStateEventChunk.reset();
+        } finally {
+            endMove(previousMovingStateEvent);
+        }
+    }
+
+    /**
+     * Mark a partial match held by this state as moving, so that adding it to the next state is not counted as a new
+     * partial match.
+     *
+     * @param stateEvent partial match held by this state
+     * @return the partial match marked before, to be passed to endMove
+     */
+    protected StateEvent beginMove(StateEvent stateEvent) {
+        if (partialMatchLimiter == null) {
+            return null;
+        }
+        return partialMatchLimiter.setMovingStateEvent(isStartState ? null : stateEvent);
+    }
+
+    protected void endMove(StateEvent previousMovingStateEvent) {
+        if (partialMatchLimiter != null) {
+            partialMatchLimiter.setMovingStateEvent(previousMovingStateEvent);
+        }
+    }
+
+    protected boolean admitState(StateEvent stateEvent) {
+        return partialMatchLimiter == null || isStartState || partialMatchLimiter.admit(stateEvent);
+    }
+
+    protected boolean admitEveryState(StateEvent stateEvent) {
+        return partialMatchLimiter == null || isStartState || partialMatchLimiter.admitCopy(stateEvent);
     }
 
     /**
@@ -199,10 +451,19 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
         streamPreStateProcessor.streamEventCloner = this.streamEventCloner;
         streamPreStateProcessor.stateEventCloner = this.stateEventCloner;
         streamPreStateProcessor.streamEventPool = this.streamEventPool;
+        if (this.pendingStateEventIndex != null) {
+            streamPreStateProcessor.setCorrelationKeyExecutors(pendingKeyExecutors, incomingKeyExecutors);
+        }
+        if (this.scheduler != null) {
+            streamPreStateProcessor.setScheduler(this.scheduler.clone(key, streamPreStateProcessor));
+        }
     }
 
     @Override
     public void addState(StateEvent stateEvent) {
+        if (!admitState(stateEvent)) {
+            return;
+        }
         //        if (stateType == StateInputStream.Type.SEQUENCE) {
         //            newAndEveryStateEventList.clear();
         //            pendingStateEventList.clear();
@@ -215,11 +476,23 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
             newAndEveryStateEventList.add(stateEvent);
 
         }
+        if (scheduler != null) {
+            scheduleExpiry(getExpiryTime(stateEvent));
+        }
+        updatePartialMatchCount();
     }
 
     @Override
     public void addEveryState(StateEvent stateEvent) {
-        newAndEveryStateEventList.add(stateEventCloner.copyStateEvent(stateEvent));
+        if (!admitEveryState(stateEvent)) {
+            return;
+        }
+        StateEvent clonedStateEvent = stateEventCloner.copyStateEvent(stateEvent);
+        newAndEveryStateEventList.add(clonedStateEvent);
+        if (scheduler != null) {
+            scheduleExpiry(getExpiryTime(clonedStateEvent));
+        }
+        updatePartialMatchCount();
     }
 
     public void stateChanged() {
@@ -246,9 +519,30 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
         this.stateEventCloner = stateEventCloner;
     }
 
+    /**
+     * Index pending states by the attributes the filter of this state compares for equality with earlier states.
+     * An incoming event is then only matched against the states whose key equals the key of the event. States
+     * whose key cannot be evaluated are kept in pendingStateEventList and are matched against every event.
+     *
+     * @param pendingKeyExecutors  executors reading the key attributes of the earlier states of a pending state
+     * @param incomingKeyExecutors executors reading the corresponding attributes of the incoming event
+     */
+    public void setCorrelationKeyExecutors(ExpressionExecutor[] pendingKeyExecutors,
+                                           ExpressionExecutor[] incomingKeyExecutors) {
+        this.pendingKeyExecutors = pendingKeyExecutors;
+        this.incomingKeyExecutors = incomingKeyExecutors;
+        this.pendingStateEventIndex = new HashMap<Object, LinkedList<StateEvent>>();
+        this.indexedStateEventKeys = new LinkedHashMap<StateEvent, Object>();
+    }
+
     @Override
     public void resetState() {
         pendingStateEventList.clear();
+        if (pendingStateEventIndex != null) {
+            pendingStateEventIndex.clear();
+            indexedStateEventKeys.clear();
+        }
+        updatePartialMatchCount();
         if (isStartState && newAndEveryStateEventList.isEmpty()) {
             //        if (isStartState && stateType == StateInputStream.Type.SEQUENCE && newAndEveryStateEventList
             // .isEmpty()) {
@@ -263,20 +557,67 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
 
     @Override
     public void updateState() {
-        pendingStateEventList.addAll(newAndEveryStateEventList);
+        if (pendingStateEventIndex == null) {
+            pendingStateEventList.addAll(newAndEveryStateEventList);
+        } else {
+            for (StateEvent stateEvent : newAndEveryStateEventList) {
+                Object key = EqualityKeys.getKey(pendingKeyExecutors, stateEvent);
+                if (key == null) {
+                    pendingStateEventList.add(stateEvent);
+                } else {
+                    LinkedList<StateEvent> stateEvents = pendingStateEventIndex.get(key);
+                    if (stateEvents == null) {
+                        stateEvents = new LinkedList<StateEvent>();
+                        pendingStateEventIndex.put(key, stateEvents);
+                    }
+                    stateEvents.add(stateEvent);
+                    indexedStateEventKeys.put(stateEvent, key);
+                }
+            }
+        }
         newAndEveryStateEventList.clear();
     }
 
+    private Object getIncomingKey(StreamEvent streamEvent) {
+        if (keyStateEvent == null) {
+            keyStateEvent = stateEventPool.borrowEvent();
+        }
+        keyStateEvent.setEvent(stateId, streamEvent);
+        Object key = EqualityKeys.getKey(incomingKeyExecutors, keyStateEvent);
+        keyStateEvent.setEvent(stateId, null);
+        return key;
+    }
+
     @Override
     public ComplexEventChunk<StateEvent> processAndReturn(ComplexEventChunk complexEventChunk) {
         ComplexEventChunk<StateEvent> returnEventChunk = new ComplexEventChunk<StateEvent>(false);
         complexEventChunk.reset();
         StreamEvent streamEvent = (StreamEvent) complexEventChunk.next(); //Sure only one will be sent
-        for (Iterator<StateEvent> iterator = pendingStateEventList.iterator(); iterator.hasNext(); ) {
+        processPendingStateEvents(pendingStateEventList, streamEvent, returnEventChunk);
+        if (pendingStateEventIndex != null) {
+            Object key = getIncomingKey(streamEvent);
+            if (key != null) {
+                LinkedList<StateEvent> stateEvents = pendingStateEventIndex.get(key);
+                if (stateEvents != null) {
+                    processPendingStateEvents(stateEvents, streamEvent, returnEventChunk);
+                    if (stateEvents.isEmpty()) {
+                        pendingStateEventIndex.remove(key);
+                    }
+                }
+            }
+        }
+        updatePartialMatchCount();
+        return returnEventChunk;
+    }
+
+    private void processPendingStateEvents(LinkedList<StateEvent> stateEvents, StreamEvent streamEvent,
+                                           ComplexEventChunk<StateEvent> returnEventChunk) {
+        processingStateEventList = stateEvents;
+        for (Iterator<StateEvent> iterator = stateEvents.iterator(); iterator.hasNext(); ) {
             StateEvent stateEvent = iterator.next();
             if (withinStates.size() > 0) {
                 if (isExpired(stateEvent, streamEvent)) {
-                    iterator.remove();
+                    removeStateEvent(iterator, stateEvent);
                     continue;
                 }
             }
@@ -304,7 +645,7 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
                 returnEventChunk.add(stateEvent);
             }
             if (stateChanged) {
-                iterator.remove();
+                removeStateEvent(iterator, stateEvent);
             } else {
                 switch (stateType) {
                     case PATTERN:
@@ -312,7 +653,7 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
                         break;
                     case SEQUENCE:
                         stateEvent.setEvent(stateId, null);
-                        iterator.remove();
+                        removeStateEvent(iterator, stateEvent);
                         if (thisStatePostProcessor.callbackPreStateProcessor != null) {
                             thisStatePostProcessor.callbackPreStateProcessor.startStateReset();
                         }
@@ -320,7 +661,7 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
                 }
             }
         }
-        return returnEventChunk;
+        processingStateEventList = null;
     }
 
     @Override
@@ -338,6 +679,9 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
         state.put("CurrentStateEventChunk", currentStateEventChunk.getFirst());
         state.put("PendingStateEventList", pendingStateEventList);
         state.put("NewAndEveryStateEventList", newAndEveryStateEventList);
+        if (pendingStateEventIndex != null) {
+            state.put("PendingStateEventIndex", pendingStateEventIndex);
+        }
         return state;
     }
 
@@ -347,6 +691,40 @@ public class StreamPreStateProcessor implements PreStateProcessor, Snapshotable
         currentStateEventChunk.add((StateEvent) state.get("FirstEvent"));
         pendingStateEventList = (LinkedList<StateEvent>) state.get("PendingStateEventList");
         newAndEveryStateEventList = (LinkedList<StateEvent>) state.get("NewAndEveryStateEventList");
+        if (pendingStateEventIndex != null && state.containsKey("PendingStateEventIndex")) {
+            // Written by currentState() with exactly this type
+            @SuppressWarnings("unchecked")
+            Map<Object, LinkedList<StateEvent>> restoredIndex =
+                    (Map<Object, LinkedList<StateEvent>>) state.get("PendingStateEventIndex");
+            pendingStateEventIndex = restoredIndex;
+            List<StateEvent> indexedStateEvents = new ArrayList<StateEvent>();
+            for (LinkedList<StateEvent> stateEvents : pendingStateEventIndex.values()) {
+                indexedStateEvents.addAll(stateEvents);
+            }
+            // The order the states were added in is not persisted, states were added in the order of their timestamps
+            Collections.sort(indexedStateEvents, new Comparator<StateEvent>() {
+                @Override
+                public int compare(StateEvent stateEvent, StateEvent otherStateEvent) {
+                    return Long.compare(stateEvent.getTimestamp(), otherStateEvent.getTimestamp());
+                }
+            });
+            indexedStateEventKeys.clear();
+            for (StateEvent stateEvent : indexedStateEvents) {
+                indexedStateEventKeys.put(stateEvent, EqualityKeys.getKey(pendingKeyExecutors, stateEvent));
+            }
+        }
+        if (scheduler != null) {
+            long nextExpiryTime = Math.min(getNextExpiryTime(pendingStateEventList),
+                    getNextExpiryTime(newAndEveryStateEventList));
+            if (pendingStateEventIndex != null) {
+                for (LinkedList<StateEvent> stateEvents : pendingStateEventIndex.values()) {
+                    nextExpiryTime = Math.min(nextExpiryTime, getNextExpiryTime(stateEvents));
+                }
+            }
+            scheduledExpiryTime = -1;
+            scheduleExpiry(nextExpiryTime);
+        }
+        updatePartialMatchCount();
     }
 
     @Override
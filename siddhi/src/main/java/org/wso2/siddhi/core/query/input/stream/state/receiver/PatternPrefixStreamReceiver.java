@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.core.query.input.stream.state.receiver;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.event.state.MetaStateEvent;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.converter.StreamEventConverter;
+import org.wso2.siddhi.core.event.stream.converter.StreamEventConverterFactory;
+import org.wso2.siddhi.core.query.input.stream.state.StreamPreStateProcessor;
+import org.wso2.siddhi.core.query.processor.Processor;
+import org.wso2.siddhi.core.stream.StreamJunction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link org.wso2.siddhi.core.stream.StreamJunction.Receiver} evaluating the filters of a leading pattern state shared
+ * by several pattern queries once per event, and handing only the events that satisfy them to the receivers of those
+ * queries. The filters are taken out of the processor chains of the queries, which then start their partial matches
+ * from every event they receive.
+ */
+public class PatternPrefixStreamReceiver implements StreamJunction.Receiver {
+
+    private final String streamId;
+    private final int stateId;
+    private final Processor filterProcessor;
+    private final StreamEventConverter streamEventConverter;
+    private final StreamEvent streamEvent;
+    private final StateEvent stateEvent;
+    private final ComplexEventChunk<StateEvent> stateEventChunk = new ComplexEventChunk<StateEvent>(false);
+    private final List<StreamJunction.Receiver> receivers = new ArrayList<StreamJunction.Receiver>();
+    private final List<Event> batchedEvents = new ArrayList<Event>();
+    private boolean matched;
+
+    /**
+     * Take over the filters of the leading state of the first query sharing it.
+     *
+     * @param streamId                id of the stream of the leading state
+     * @param streamPreStateProcessor pre state processor of the leading state
+     * @param metaStateEvent          meta state event of the query
+     */
+    public PatternPrefixStreamReceiver(String streamId, StreamPreStateProcessor streamPreStateProcessor,
+                                       MetaStateEvent metaStateEvent) {
+        this.streamId = streamId;
+        this.stateId = streamPreStateProcessor.getStateId();
+        this.filterProcessor = streamPreStateProcessor.getNextProcessor();
+        Processor lastFilterProcessor = filterProcessor;
+        while (lastFilterProcessor.getNextProcessor() != streamPreStateProcessor.getThisStatePostProcessor()) {
+            lastFilterProcessor = lastFilterProcessor.getNextProcessor();
+        }
+        lastFilterProcessor.setNextProcessor(new MatchProcessor());
+        MetaStreamEvent metaStreamEvent = metaStateEvent.getMetaStreamEvent(stateId);
+        this.streamEventConverter = StreamEventConverterFactory.constructEventConverter(metaStreamEvent);
+        this.streamEvent = new StreamEvent(metaStreamEvent.getBeforeWindowData().size(),
+                metaStreamEvent.getOnAfterWindowData().size(), metaStreamEvent.getOutputData().size());
+        this.stateEvent = new StateEvent(metaStateEvent.getStreamEventCount(),
+                metaStateEvent.getOutputDataAttributes().size());
+    }
+
+    /**
+     * Hand the events satisfying the shared filters to the receiver of a query, whose leading state then no longer
+     * needs to filter them.
+     *
+     * @param receiver                receiver of the query
+     * @param streamPreStateProcessor pre state processor of the leading state of the query
+     */
+    public void addReceiver(StreamJunction.Receiver receiver, StreamPreStateProcessor streamPreStateProcessor) {
+        streamPreStateProcessor.setNextProcessor(streamPreStateProcessor.getThisStatePostProcessor());
+        receivers.add(receiver);
+    }
+
+    @Override
+    public String getStreamId() {
+        return streamId;
+    }
+
+    private synchronized boolean isMatching(long timestamp, Object[] data, ComplexEvent.Type type) {
+        streamEventConverter.convertData(timestamp, data, type, streamEvent);
+        stateEvent.setEvent(stateId, streamEvent);
+        matched = false;
+        stateEventChunk.add(stateEvent);
+        filterProcessor.process(stateEventChunk);
+        stateEventChunk.clear();
+        stateEvent.setEvent(stateId, null);
+        return matched;
+    }
+
+    private boolean isMatching(Event event) {
+        return isMatching(event.getTimestamp(), event.getData(), event.isExpired() ? ComplexEvent.Type.EXPIRED :
+                ComplexEvent.Type.CURRENT);
+    }
+
+    @Override
+    public void receive(ComplexEvent complexEvent) {
+        List<Event> events = new ArrayList<Event>();
+        for (; complexEvent != null; complexEvent = complexEvent.getNext()) {
+            if (isMatching(complexEvent.getTimestamp(), complexEvent.getOutputData(), complexEvent.getType())) {
+                Event event = new Event(complexEvent.getTimestamp(), complexEvent.getOutputData());
+                event.setIsExpired(complexEvent.getType() == ComplexEvent.Type.EXPIRED);
+                events.add(event);
+            }
+        }
+        if (!events.isEmpty()) {
+            Event[] matchedEvents = events.toArray(new Event[events.size()]);
+            for (StreamJunction.Receiver receiver : receivers) {
+                receiver.receive(matchedEvents);
+            }
+        }
+    }
+
+    @Override
+    public void receive(Event event) {
+        if (isMatching(event)) {
+            for (StreamJunction.Receiver receiver : receivers) {
+                receiver.receive(event);
+            }
+        }
+    }
+
+    @Override
+    public void receive(Event event, boolean endOfBatch) {
+        if (isMatching(event)) {
+            batchedEvents.add(event);
+        }
+        if (endOfBatch && !batchedEvents.isEmpty()) {
+            Event[] matchedEvents = batchedEvents.toArray(new Event[batchedEvents.size()]);
+            batchedEvents.clear();
+            for (StreamJunction.Receiver receiver : receivers) {
+                receiver.receive(matchedEvents);
+            }
+        }
+    }
+
+    @Override
+    public void receive(long timeStamp, Object[] data) {
+        if (isMatching(timeStamp, data, ComplexEvent.Type.CURRENT)) {
+            for (StreamJunction.Receiver receiver : receivers) {
+                receiver.receive(timeStamp, data);
+            }
+        }
+    }
+
+    @Override
+    public void receive(Event[] events) {
+        List<Event> matchedEvents = new ArrayList<Event>(events.length);
+        for (Event event : events) {
+            if (isMatching(event)) {
+                matchedEvents.add(event);
+            }
+        }
+        if (!matchedEvents.isEmpty()) {
+            Event[] matchedEventArray = matchedEvents.toArray(new Event[matchedEvents.size()]);
+            for (StreamJunction.Receiver receiver : receivers) {
+                receiver.receive(matchedEventArray);
+            }
+        }
+    }
+
+    /**
+     * Terminates the shared filters, recording that the event satisfied them.
+     */
+    private class MatchProcessor implements Processor {
+
+        @Override
+        @SuppressWarnings("rawtypes") // Signature of Processor
+        public void process(ComplexEventChunk complexEventChunk) {
+            matched = true;
+        }
+
+        @Override
+        public Processor getNextProcessor() {
+            return null;
+        }
+
+        @Override
+        public void setNextProcessor(Processor processor) {
+        }
+
+        @Override
+        public void setToLast(Processor processor) {
+        }
+
+        @Override
+        public Processor cloneProcessor(String key) {
+            return new MatchProcessor();
+        }
+    }
+}
@@ -24,9 +24,11 @@ import org.wso2.siddhi.core.event.GroupedComplexEvent;
 import org.wso2.siddhi.core.query.output.ratelimit.OutputRateLimiter;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of {@link OutputRateLimiter} which will collect pre-defined number of events and the emit only the
@@ -34,7 +36,7 @@ import java.util.Map;
  */
 public class FirstGroupByPerEventOutputRateLimiter extends OutputRateLimiter {
     private final Integer value;
-    private List<String> groupByKeys = new ArrayList<String>();
+    private Set<Object> groupByKeys = new HashSet<Object>();
     private String id;
     private ComplexEventChunk<ComplexEvent> allComplexEventChunk;
     private volatile int counter = 0;
@@ -62,8 +64,7 @@ public class FirstGroupByPerEventOutputRateLimiter extends OutputRateLimiter {
                 if (event.getType() == ComplexEvent.Type.CURRENT || event.getType() == ComplexEvent.Type.EXPIRED) {
                     complexEventChunk.remove();
                     GroupedComplexEvent groupedComplexEvent = ((GroupedComplexEvent) event);
-                    if (!groupByKeys.contains(groupedComplexEvent.getGroupKey())) {
-                        groupByKeys.add(groupedComplexEvent.getGroupKey());
+                    if (groupByKeys.add(groupedComplexEvent.getGroupKey())) {
                         allComplexEventChunk.add(groupedComplexEvent.getComplexEvent());
                     }
                     if (++counter == value) {
@@ -114,7 +115,7 @@ public class FirstGroupByPerEventOutputRateLimiter extends OutputRateLimiter {
     public void restoreState(Map<String, Object> state) {
         synchronized (this) {
             counter = (int) state.get("Counter");
-            groupByKeys = (List<String>) state.get("GroupByKeys");
+            groupByKeys = new HashSet<Object>((Collection<Object>) state.get("GroupByKeys"));
             allComplexEventChunk.clear();
             allComplexEventChunk.add((ComplexEvent) state.get("AllComplexEventChunk"));
         }
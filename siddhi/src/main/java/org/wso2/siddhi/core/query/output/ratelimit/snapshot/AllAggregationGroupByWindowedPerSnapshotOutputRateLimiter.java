@@ -44,7 +44,7 @@ public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends S
     private final ScheduledExecutorService scheduledExecutorService;
     String queryName;
     private String id;
-    private Map<String, LastEventHolder> groupByKeyEvents = new LinkedHashMap<String, LastEventHolder>();
+    private Map<Object, LastEventHolder> groupByKeyEvents = new LinkedHashMap<Object, LastEventHolder>();
     private Scheduler scheduler;
     private long scheduledTime;
 
@@ -103,9 +103,9 @@ public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends S
     private void tryFlushEvents(List<ComplexEventChunk<ComplexEvent>> outputEventChunks, ComplexEvent event) {
         if (event.getTimestamp() >= scheduledTime) {
             ComplexEventChunk<ComplexEvent> outputEventChunk = new ComplexEventChunk<ComplexEvent>(false);
-            for (Iterator<Map.Entry<String, LastEventHolder>> iterator = groupByKeyEvents.entrySet().iterator();
+            for (Iterator<Map.Entry<Object, LastEventHolder>> iterator = groupByKeyEvents.entrySet().iterator();
                  iterator.hasNext(); ) {
-                Map.Entry<String, LastEventHolder> lastEventHolderEntry = iterator.next();
+                Map.Entry<Object, LastEventHolder> lastEventHolderEntry = iterator.next();
 
                 //clearing expired events after update
                 lastEventHolderEntry.getValue().checkAndClearLastInEvent();
@@ -124,7 +124,8 @@ public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends S
     @Override
     public void start() {
         scheduler = SchedulerParser.parse(scheduledExecutorService, this, siddhiAppContext);
-        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, 5));
+        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, siddhiAppContext.getEventPoolMagazineSize(),
+                siddhiAppContext.getEventPoolDepotSize()));
         scheduler.init(lockWrapper, queryName);
         long currentTime = System.currentTimeMillis();
         scheduledTime = currentTime + value;
@@ -147,7 +148,7 @@ public class AllAggregationGroupByWindowedPerSnapshotOutputRateLimiter extends S
 
     @Override
     public synchronized void restoreState(Map<String, Object> state) {
-        groupByKeyEvents = (Map<String, LastEventHolder>) state.get("GroupByKeyEvents");
+        groupByKeyEvents = (Map<Object, LastEventHolder>) state.get("GroupByKeyEvents");
     }
 
     private class LastEventHolder {
@@ -101,7 +101,8 @@ public class AllAggregationPerSnapshotOutputRateLimiter extends SnapshotOutputRa
     @Override
     public void start() {
         scheduler = SchedulerParser.parse(scheduledExecutorService, this, siddhiAppContext);
-        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, 5));
+        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, siddhiAppContext.getEventPoolMagazineSize(),
+                siddhiAppContext.getEventPoolDepotSize()));
         scheduler.init(lockWrapper, queryName);
         long currentTime = System.currentTimeMillis();
         scheduledTime = currentTime + value;
@@ -40,7 +40,7 @@ public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimit
     private final Long value;
     private String id;
     private ScheduledExecutorService scheduledExecutorService;
-    private Map<String, ComplexEvent> groupByKeyEvents = new LinkedHashMap<String, ComplexEvent>();
+    private Map<Object, ComplexEvent> groupByKeyEvents = new LinkedHashMap<Object, ComplexEvent>();
     private Scheduler scheduler;
     private long scheduledTime;
     private String queryName;
@@ -98,7 +98,8 @@ public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimit
     @Override
     public void start() {
         scheduler = SchedulerParser.parse(scheduledExecutorService, this, siddhiAppContext);
-        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, 5));
+        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, siddhiAppContext.getEventPoolMagazineSize(),
+                siddhiAppContext.getEventPoolDepotSize()));
         scheduler.init(lockWrapper, queryName);
         long currentTime = System.currentTimeMillis();
         scheduledTime = currentTime + value;
@@ -121,7 +122,7 @@ public class GroupByPerSnapshotOutputRateLimiter extends SnapshotOutputRateLimit
 
     @Override
     public synchronized void restoreState(Map<String, Object> state) {
-        groupByKeyEvents = (Map<String, ComplexEvent>) state.get("groupByKeyEvents");
+        groupByKeyEvents = (Map<Object, ComplexEvent>) state.get("groupByKeyEvents");
     }
 
     @Override
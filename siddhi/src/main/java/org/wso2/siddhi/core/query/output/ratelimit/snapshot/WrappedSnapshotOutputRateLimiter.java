@@ -132,7 +132,8 @@ public class WrappedSnapshotOutputRateLimiter extends OutputRateLimiter {
             outputRateLimiter.setStateEventCloner(new StateEventCloner((MetaStateEvent) metaComplexEvent,
                                                                        stateEventPool));
         } else {
-            StreamEventPool streamEventPool = new StreamEventPool((MetaStreamEvent) metaComplexEvent, 5);
+            StreamEventPool streamEventPool = new StreamEventPool((MetaStreamEvent) metaComplexEvent,
+                    siddhiAppContext.getEventPoolMagazineSize(), siddhiAppContext.getEventPoolDepotSize());
             outputRateLimiter.setStreamEventCloner(new StreamEventCloner((MetaStreamEvent) metaComplexEvent,
                                                                          streamEventPool));
         }
@@ -29,9 +29,11 @@ import org.wso2.siddhi.core.util.Scheduler;
 import org.wso2.siddhi.core.util.parser.SchedulerParser;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 
 /**
@@ -42,7 +44,7 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
     private static final Logger log = Logger.getLogger(FirstGroupByPerTimeOutputRateLimiter.class);
     private final Long value;
     private String id;
-    private List<String> groupByKeys = new ArrayList<String>();
+    private Set<Object> groupByKeys = new HashSet<Object>();
     private ComplexEventChunk<ComplexEvent> allComplexEventChunk;
     private ScheduledExecutorService scheduledExecutorService;
     private Scheduler scheduler;
@@ -91,9 +93,8 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
                 } else if (event.getType() == ComplexEvent.Type.CURRENT || event.getType() == ComplexEvent.Type
                         .EXPIRED) {
                     GroupedComplexEvent groupedComplexEvent = ((GroupedComplexEvent) event);
-                    if (!groupByKeys.contains(groupedComplexEvent.getGroupKey())) {
+                    if (groupByKeys.add(groupedComplexEvent.getGroupKey())) {
                         complexEventChunk.remove();
-                        groupByKeys.add(groupedComplexEvent.getGroupKey());
                         allComplexEventChunk.add(groupedComplexEvent.getComplexEvent());
                     }
                 }
@@ -107,7 +108,8 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
     @Override
     public void start() {
         scheduler = SchedulerParser.parse(scheduledExecutorService, this, siddhiAppContext);
-        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, 5));
+        scheduler.setStreamEventPool(new StreamEventPool(0, 0, 0, siddhiAppContext.getEventPoolMagazineSize(),
+                siddhiAppContext.getEventPoolDepotSize()));
         scheduler.init(lockWrapper, queryName);
         long currentTime = System.currentTimeMillis();
         scheduledTime = currentTime + value;
@@ -133,7 +135,7 @@ public class FirstGroupByPerTimeOutputRateLimiter extends OutputRateLimiter impl
     public synchronized void restoreState(Map<String, Object> state) {
         allComplexEventChunk.clear();
         allComplexEventChunk.add((ComplexEvent) state.get("AllComplexEventChunk"));
-        groupByKeys = (List<String>) state.get("GroupByKeys");
+        groupByKeys = new HashSet<Object>((Collection<Object>) state.get("GroupByKeys"));
     }
 
 }
@@ -31,7 +31,8 @@ import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
-import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotable;
+import org.wso2.siddhi.core.util.snapshot.StateChanges;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
@@ -41,7 +42,8 @@ import java.util.List;
 /**
  * Abstract implementation of {@link Processor} intended to be used by any Stream Processors.
  */
-public abstract class AbstractStreamProcessor implements Processor, EternalReferencedHolder, Snapshotable {
+public abstract class AbstractStreamProcessor implements Processor, EternalReferencedHolder,
+        IncrementalSnapshotable {
 
     private static final Logger log = Logger.getLogger(AbstractStreamProcessor.class);
 
@@ -58,6 +60,7 @@ public abstract class AbstractStreamProcessor implements Processor, EternalRefer
     private ConfigReader configReader;
     protected String queryName;
     private boolean outputExpectsExpiredEvents;
+    private final StateChanges stateChanges = new StateChanges();
 
     public AbstractDefinition initProcessor(AbstractDefinition inputDefinition,
                                             ExpressionExecutor[] attributeExpressionExecutors,
@@ -114,6 +117,7 @@ public abstract class AbstractStreamProcessor implements Processor, EternalRefer
 
     public void process(ComplexEventChunk streamEventChunk) {
         streamEventChunk.reset();
+        stateChanges.markChanged();
         try {
             processEventChunk(streamEventChunk, nextProcessor, streamEventCloner, complexEventPopulater);
         } catch (RuntimeException e) {
@@ -181,6 +185,10 @@ public abstract class AbstractStreamProcessor implements Processor, EternalRefer
         this.streamEventCloner = streamEventCloner;
     }
 
+    public StreamEventCloner getStreamEventCloner() {
+        return streamEventCloner;
+    }
+
     public void setToLast(Processor processor) {
         if (nextProcessor == null) {
             this.nextProcessor = processor;
@@ -193,4 +201,9 @@ public abstract class AbstractStreamProcessor implements Processor, EternalRefer
     public String getElementId() {
         return elementId;
     }
+
+    @Override
+    public StateChanges collectStateChanges() {
+        return stateChanges.collect();
+    }
 }
@@ -59,6 +59,14 @@ import java.util.Map;
                 @Parameter(name = "window.time",
                         description = "The sliding time period for which the window should hold events.",
                         type = {DataType.INT, DataType.LONG, DataType.TIME}),
+                @Parameter(name = "off.heap",
+                        description = "Whether the events within the window.time period of the timestamp " +
+                                "attribute are kept serialized outside the heap. Each event is decoded again when " +
+                                "a later timestamp moves it out of the window or when the window is searched. The " +
+                                "segment size is read from the 'offHeapSegmentSize' window config.",
+                        type = {DataType.BOOL},
+                        optional = true,
+                        defaultValue = "false")
         },
         examples = @Example(
                 syntax = "define window cseEventWindow (symbol string, price float, volume int) " +
@@ -83,8 +91,7 @@ public class ExternalTimeWindowProcessor extends WindowProcessor implements Find
     @Override
     protected void init(ExpressionExecutor[] attributeExpressionExecutors, ConfigReader configReader, boolean
             outputExpectsExpiredEvents, SiddhiAppContext siddhiAppContext) {
-        this.expiredEventChunk = new ComplexEventChunk<StreamEvent>(false);
-        if (attributeExpressionExecutors.length == 2) {
+        if (attributeExpressionExecutors.length == 2 || attributeExpressionExecutors.length == 3) {
             if (attributeExpressionExecutors[1].getReturnType() == Attribute.Type.INT) {
                 timeToKeep = Integer.parseInt(String.valueOf(((ConstantExpressionExecutor)
                         attributeExpressionExecutors[1]).getValue()));
@@ -102,10 +109,13 @@ public class ExternalTimeWindowProcessor extends WindowProcessor implements Find
                         "type long, but found " + timeStampVariableExpressionExecutor.getReturnType());
             }
         } else {
-            throw new SiddhiAppValidationException("ExternalTime window should only have two parameter (<long> " +
-                    "timeStamp, <int|long|time> windowTime), but found " + attributeExpressionExecutors.length + " " +
-                    "input attributes");
+            throw new SiddhiAppValidationException("ExternalTime window should only have two or three parameters " +
+                    "(<long> timeStamp, <int|long|time> windowTime, <bool> offHeap), but found " +
+                    attributeExpressionExecutors.length + " input attributes");
         }
+        boolean offHeap = attributeExpressionExecutors.length == 3 && isOffHeap(attributeExpressionExecutors[2],
+                "ExternalTime");
+        this.expiredEventChunk = createEventChunk(offHeap, configReader);
     }
 
     @Override
@@ -55,7 +55,15 @@ import java.util.Map;
         parameters = {
                 @Parameter(name = "window.length",
                         description = "The number of events that should be included in a sliding length window.",
-                        type = {DataType.INT})
+                        type = {DataType.INT}),
+                @Parameter(name = "off.heap",
+                        description = "Whether the last window.length events are kept serialized outside the " +
+                                "heap. Useful for long length windows; each event is decoded again when the " +
+                                "window length is exceeded or when the window is searched. The segment size is " +
+                                "read from the 'offHeapSegmentSize' window config.",
+                        type = {DataType.BOOL},
+                        optional = true,
+                        defaultValue = "false")
         },
         examples = @Example(
                 syntax = "define window cseEventWindow (symbol string, price float, volume int) " +
@@ -87,13 +95,16 @@ public class LengthWindowProcessor extends WindowProcessor implements FindablePr
     @Override
     protected void init(ExpressionExecutor[] attributeExpressionExecutors, ConfigReader configReader, boolean
             outputExpectsExpiredEvents, SiddhiAppContext siddhiAppContext) {
-        expiredEventChunk = new ComplexEventChunk<StreamEvent>(false);
-        if (attributeExpressionExecutors.length == 1) {
+        if (attributeExpressionExecutors.length == 1 || attributeExpressionExecutors.length == 2) {
             length = (Integer) ((ConstantExpressionExecutor) attributeExpressionExecutors[0]).getValue();
         } else {
-            throw new SiddhiAppValidationException("Length window should only have one parameter (<int> " +
-                    "windowLength), but found " + attributeExpressionExecutors.length + " input attributes");
+            throw new SiddhiAppValidationException("Length window should only have one or two parameters (<int> " +
+                    "windowLength, <bool> offHeap), but found " + attributeExpressionExecutors.length +
+                    " input attributes");
         }
+        boolean offHeap = attributeExpressionExecutors.length == 2 && isOffHeap(attributeExpressionExecutors[1],
+                "Length");
+        expiredEventChunk = createEventChunk(offHeap, configReader);
     }
 
     @Override
@@ -41,11 +41,11 @@ import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.expression.Expression;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Sample Query:
@@ -96,7 +96,8 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
     private static final String ASC = "asc";
     private static final String DESC = "desc";
     private int lengthToKeep;
-    private List<StreamEvent> sortedWindow = new ArrayList<StreamEvent>();
+    private TreeMap<SortKey, StreamEvent> sortedWindow;
+    private long sequence = 0;
     private List<Object[]> parameterInfo;
     private EventComparator eventComparator;
 
@@ -111,6 +112,7 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
         }
         parameterInfo = new ArrayList<Object[]>();
         eventComparator = new EventComparator();
+        sortedWindow = new TreeMap<SortKey, StreamEvent>(eventComparator);
         for (int i = 1, parametersLength = attributeExpressionExecutors.length; i < parametersLength; i++) {
             if (!(attributeExpressionExecutors[i] instanceof VariableExpressionExecutor)) {
                 throw new UnsupportedOperationException("Required a variable, but found a string parameter");
@@ -158,10 +160,9 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
                 streamEvent.setNext(null);
                 streamEventChunk.add(streamEvent);
 
-                sortedWindow.add(clonedEvent);
+                sortedWindow.put(new SortKey(clonedEvent, sequence++), clonedEvent);
                 if (sortedWindow.size() > lengthToKeep) {
-                    Collections.sort(sortedWindow, eventComparator);
-                    StreamEvent expiredEvent = sortedWindow.remove(sortedWindow.size() - 1);
+                    StreamEvent expiredEvent = sortedWindow.pollLastEntry().getValue();
                     expiredEvent.setTimestamp(currentTime);
                     streamEventChunk.add(expiredEvent);
                 }
@@ -186,7 +187,7 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
     public Map<String, Object> currentState() {
         Map<String, Object> state = new HashMap<>();
         synchronized (this) {
-            state.put("SortedWindow", sortedWindow);
+            state.put("SortedWindow", new ArrayList<StreamEvent>(sortedWindow.values()));
         }
         return state;
     }
@@ -194,12 +195,17 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
 
     @Override
     public synchronized void restoreState(Map<String, Object> state) {
-        sortedWindow = (List<StreamEvent>) state.get("SortedWindow");
+        // Events are stored in the sorted order, hence re-sequencing them retains the arrival order of equal events
+        sortedWindow.clear();
+        sequence = 0;
+        for (StreamEvent streamEvent : (List<StreamEvent>) state.get("SortedWindow")) {
+            sortedWindow.put(new SortKey(streamEvent, sequence++), streamEvent);
+        }
     }
 
     @Override
     public synchronized StreamEvent find(StateEvent matchingEvent, CompiledCondition compiledCondition) {
-        return ((Operator) compiledCondition).find(matchingEvent, sortedWindow, streamEventCloner);
+        return ((Operator) compiledCondition).find(matchingEvent, sortedWindow.values(), streamEventCloner);
     }
 
     @Override
@@ -207,14 +213,29 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
                                               SiddhiAppContext siddhiAppContext,
                                               List<VariableExpressionExecutor> variableExpressionExecutors,
                                               Map<String, Table> tableMap, String queryName) {
-        return OperatorParser.constructOperator(sortedWindow, expression, matchingMetaInfoHolder,
+        return OperatorParser.constructOperator(sortedWindow.values(), expression, matchingMetaInfoHolder,
                 siddhiAppContext, variableExpressionExecutors, tableMap, this.queryName);
     }
 
-    private class EventComparator implements Comparator<StreamEvent> {
+    /**
+     * Key of the sorted window, events having equal sort attributes are ordered by their arrival sequence.
+     */
+    private static class SortKey {
+        private final StreamEvent streamEvent;
+        private final long sequence;
+
+        SortKey(StreamEvent streamEvent, long sequence) {
+            this.streamEvent = streamEvent;
+            this.sequence = sequence;
+        }
+    }
+
+    private class EventComparator implements Comparator<SortKey> {
         @Override
-        public int compare(StreamEvent e1, StreamEvent e2) {
+        public int compare(SortKey key1, SortKey key2) {
             int comparisonResult;
+            StreamEvent e1 = key1.streamEvent;
+            StreamEvent e2 = key2.streamEvent;
             for (Object[] listItem : parameterInfo) {
                 int[] variablePosition = ((VariableExpressionExecutor) listItem[0]).getPosition();
                 Comparable comparableVariable1 = (Comparable) e1.getAttribute(variablePosition);
@@ -224,7 +245,7 @@ public class SortWindowProcessor extends WindowProcessor implements FindableProc
                     return ((Integer) listItem[1]) * comparisonResult;
                 }
             }
-            return 0;
+            return Long.compare(key1.sequence, key2.sequence);
         }
     }
 }
@@ -57,7 +57,15 @@ import java.util.Map;
         parameters = {
                 @Parameter(name = "window.time",
                         description = "The sliding time period for which the window should hold events.",
-                        type = {DataType.INT, DataType.LONG, DataType.TIME})
+                        type = {DataType.INT, DataType.LONG, DataType.TIME}),
+                @Parameter(name = "off.heap",
+                        description = "Whether the events arrived within the window.time period are kept " +
+                                "serialized outside the heap. Useful for long time windows on high rate streams; " +
+                                "each event is decoded again when its time period elapses or when the window is " +
+                                "searched. The segment size is read from the 'offHeapSegmentSize' window config.",
+                        type = {DataType.BOOL},
+                        optional = true,
+                        defaultValue = "false")
         },
         examples = {
                 @Example(
@@ -100,8 +108,7 @@ public class TimeWindowProcessor extends WindowProcessor implements SchedulingPr
     protected void init(ExpressionExecutor[] attributeExpressionExecutors, ConfigReader configReader, boolean
             outputExpectsExpiredEvents, SiddhiAppContext siddhiAppContext) {
         this.siddhiAppContext = siddhiAppContext;
-        this.expiredEventChunk = new ComplexEventChunk<StreamEvent>(false);
-        if (attributeExpressionExecutors.length == 1) {
+        if (attributeExpressionExecutors.length == 1 || attributeExpressionExecutors.length == 2) {
             if (attributeExpressionExecutors[0] instanceof ConstantExpressionExecutor) {
                 if (attributeExpressionExecutors[0].getReturnType() == Attribute.Type.INT) {
                     timeInMilliSeconds = (Integer) ((ConstantExpressionExecutor) attributeExpressionExecutors[0])
@@ -119,9 +126,13 @@ public class TimeWindowProcessor extends WindowProcessor implements SchedulingPr
                         "found a dynamic attribute " + attributeExpressionExecutors[0].getClass().getCanonicalName());
             }
         } else {
-            throw new SiddhiAppValidationException("Time window should only have one parameter (<int|long|time> " +
-                    "windowTime), but found " + attributeExpressionExecutors.length + " input attributes");
+            throw new SiddhiAppValidationException("Time window should only have one or two parameters " +
+                    "(<int|long|time> windowTime, <bool> offHeap), but found " + attributeExpressionExecutors.length +
+                    " input attributes");
         }
+        boolean offHeap = attributeExpressionExecutors.length == 2 && isOffHeap(attributeExpressionExecutors[1],
+                "Time");
+        this.expiredEventChunk = createEventChunk(offHeap, configReader);
     }
 
     @Override
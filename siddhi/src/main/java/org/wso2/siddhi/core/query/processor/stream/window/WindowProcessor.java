@@ -19,15 +19,19 @@ package org.wso2.siddhi.core.query.processor.stream.window;
 
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.OffHeapStreamEventChunk;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventCloner;
 import org.wso2.siddhi.core.event.stream.populater.ComplexEventPopulater;
+import org.wso2.siddhi.core.executor.ConstantExpressionExecutor;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.query.processor.stream.AbstractStreamProcessor;
+import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -76,4 +80,43 @@ public abstract class WindowProcessor extends AbstractStreamProcessor {
     protected abstract void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor,
                                     StreamEventCloner streamEventCloner);
 
+    /**
+     * Read the optional off.heap parameter of a window, which should be a constant bool
+     *
+     * @param attributeExpressionExecutor the executor of the parameter
+     * @param windowName                  the name of the window, used in the error message
+     * @return whether the events of the window should be kept off-heap
+     */
+    protected boolean isOffHeap(ExpressionExecutor attributeExpressionExecutor, String windowName) {
+        if (!(attributeExpressionExecutor instanceof ConstantExpressionExecutor) ||
+                attributeExpressionExecutor.getReturnType() != Attribute.Type.BOOL) {
+            throw new SiddhiAppValidationException(windowName + " window's off.heap parameter should be a " +
+                    "constant bool, but found " + attributeExpressionExecutor.getReturnType());
+        }
+        return (Boolean) ((ConstantExpressionExecutor) attributeExpressionExecutor).getValue();
+    }
+
+    /**
+     * Create the event chunk holding the events of the window
+     *
+     * @param offHeap      whether the events are kept off-heap, in segments of the size configured as
+     *                     {@value SiddhiConstants#WINDOW_OFF_HEAP_SEGMENT_SIZE}
+     * @param configReader the config reader of window
+     * @return the event chunk
+     */
+    protected ComplexEventChunk<StreamEvent> createEventChunk(boolean offHeap, ConfigReader configReader) {
+        if (offHeap) {
+            String segmentSize = configReader.readConfig(SiddhiConstants.WINDOW_OFF_HEAP_SEGMENT_SIZE,
+                    SiddhiConstants.DEFAULT_WINDOW_OFF_HEAP_SEGMENT_SIZE);
+            try {
+                return new OffHeapStreamEventChunk(Integer.parseInt(segmentSize));
+            } catch (NumberFormatException e) {
+                throw new SiddhiAppValidationException("Window config " +
+                        SiddhiConstants.WINDOW_OFF_HEAP_SEGMENT_SIZE + " requires an integer but found '" +
+                        segmentSize + "'", e);
+            }
+        }
+        return new ComplexEventChunk<StreamEvent>(false);
+    }
+
 }
@@ -20,7 +20,6 @@ package org.wso2.siddhi.core.query.selector;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.MetaComplexEvent;
-import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.table.Table;
 import org.wso2.siddhi.core.util.SiddhiConstants;
@@ -53,18 +52,24 @@ public class GroupByKeyGenerator {
     }
 
     /**
-     * generate groupBy key of a streamEvent
+     * generate groupBy key of a streamEvent. A single group by attribute is keyed by its value directly, multiple
+     * attributes are combined into a {@link GroupByKey}; null values are always wrapped so that a null key still
+     * means no group by.
      *
      * @param event complexEvent
      * @return GroupByKey
      */
-    public String constructEventKey(ComplexEvent event) {
+    public Object constructEventKey(ComplexEvent event) {
         if (groupByExecutors != null) {
-            StringBuilder sb = new StringBuilder();
-            for (ExpressionExecutor executor : groupByExecutors) {
-                sb.append(executor.execute(event)).append("::");
+            if (groupByExecutors.length == 1) {
+                Object value = groupByExecutors[0].execute(event);
+                return value != null ? value : new GroupByKey(new Object[]{null});
             }
-            return sb.toString();
+            Object[] values = new Object[groupByExecutors.length];
+            for (int i = 0; i < groupByExecutors.length; i++) {
+                values[i] = groupByExecutors[i].execute(event);
+            }
+            return new GroupByKey(values);
         } else {
             return null;
         }
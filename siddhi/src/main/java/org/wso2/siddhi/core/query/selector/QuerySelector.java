@@ -164,7 +164,7 @@ public class QuerySelector implements Processor {
                     case CURRENT:
                     case EXPIRED:
                         eventPopulator.populateStateEvent(event);
-                        String groupedByKey = groupByKeyGenerator.constructEventKey(event);
+                        Object groupedByKey = groupByKeyGenerator.constructEventKey(event);
                         GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(groupedByKey);
 
                         for (AttributeProcessor attributeProcessor : attributeProcessorList) {
@@ -177,7 +177,6 @@ public class QuerySelector implements Processor {
                                 currentComplexEventChunk.add(new GroupedComplexEvent(groupedByKey, event));
                             }
                         }
-                        GroupByAggregationAttributeExecutor.getKeyThreadLocal().remove();
                         break;
                     case TIMER:
                         break;
@@ -188,6 +187,7 @@ public class QuerySelector implements Processor {
                         break;
                 }
             }
+            GroupByAggregationAttributeExecutor.getKeyThreadLocal().remove();
         }
         currentComplexEventChunk.reset();
         if (currentComplexEventChunk.hasNext()) {
@@ -238,7 +238,7 @@ public class QuerySelector implements Processor {
     }
 
     private ComplexEventChunk processInBatchGroupBy(ComplexEventChunk complexEventChunk) {
-        Map<String, ComplexEvent> groupedEvents = new LinkedHashMap<String, ComplexEvent>();
+        Map<Object, ComplexEvent> groupedEvents = new LinkedHashMap<Object, ComplexEvent>();
         complexEventChunk.reset();
 
         synchronized (this) {
@@ -249,7 +249,7 @@ public class QuerySelector implements Processor {
                     case CURRENT:
                     case EXPIRED:
                         eventPopulator.populateStateEvent(event);
-                        String groupByKey = groupByKeyGenerator.constructEventKey(event);
+                        Object groupByKey = groupByKeyGenerator.constructEventKey(event);
                         GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(groupByKey);
 
                         for (AttributeProcessor attributeProcessor : attributeProcessorList) {
@@ -263,7 +263,6 @@ public class QuerySelector implements Processor {
                                 groupedEvents.put(groupByKey, event);
                             }
                         }
-                        GroupByAggregationAttributeExecutor.getKeyThreadLocal().remove();
                         break;
                     case TIMER:
                         break;
@@ -274,11 +273,12 @@ public class QuerySelector implements Processor {
                         break;
                 }
             }
+            GroupByAggregationAttributeExecutor.getKeyThreadLocal().remove();
         }
 
         if (groupedEvents.size() != 0) {
             complexEventChunk.clear();
-            for (Map.Entry<String, ComplexEvent> groupedEventEntry : groupedEvents.entrySet()) {
+            for (Map.Entry<Object, ComplexEvent> groupedEventEntry : groupedEvents.entrySet()) {
                 complexEventChunk.add(new GroupedComplexEvent(groupedEventEntry.getKey(),
                         groupedEventEntry.getValue()));
             }
@@ -361,6 +361,16 @@ public class QuerySelector implements Processor {
         this.batchingEnabled = batchingEnabled;
     }
 
+    /**
+     * Whether a batch chunk handed to the selector is aggregated as a whole, producing one output for the batch
+     * rather than one per event.
+     *
+     * @return true if batch chunks are aggregated as a whole
+     */
+    public boolean isAggregatingBatches() {
+        return containsAggregator && batchingEnabled;
+    }
+
     public void setEventPopulator(StateEventPopulator eventPopulator) {
         this.eventPopulator = eventPopulator;
     }
@@ -22,6 +22,7 @@ import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
 import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.function.FunctionExecutor;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
@@ -133,6 +134,19 @@ public abstract class AttributeAggregator implements EternalReferencedHolder, Sn
 
     public abstract Object reset();
 
+    /**
+     * Drop the references the Siddhi app holds to this aggregator and to the function executors cloned for it, so
+     * that an aggregator cloned for a group can be garbage collected once it is no longer used.
+     */
+    public void release() {
+        siddhiAppContext.removeEternalReferencedHolder(this);
+        for (ExpressionExecutor expressionExecutor : attributeExpressionExecutors) {
+            if (expressionExecutor instanceof FunctionExecutor) {
+                ((FunctionExecutor) expressionExecutor).release();
+            }
+        }
+    }
+
     @Override
     public String getElementId() {
         return elementId;
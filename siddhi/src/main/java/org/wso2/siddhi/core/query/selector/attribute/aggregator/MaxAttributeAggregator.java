@@ -25,14 +25,13 @@ import org.wso2.siddhi.annotation.util.DataType;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.util.collection.MonotonicDoubleDeque;
+import org.wso2.siddhi.core.util.collection.MonotonicLongDeque;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
 
 /**
@@ -148,7 +147,7 @@ public class MaxAttributeAggregator extends AttributeAggregator {
     class MaxAttributeAggregatorDouble extends MaxAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private Deque<Double> maxDeque = new LinkedList<Double>();
+        private MonotonicDoubleDeque maxDeque = new MonotonicDoubleDeque(true);
         private volatile Double maxValue = null;
 
         public Attribute.Type getReturnType() {
@@ -157,25 +156,23 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Double value = (Double) data;
-            for (Iterator<Double> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
+            if (data == null) {
+                return maxValue;
             }
-            maxDeque.addLast(value);
-            if (maxValue == null || maxValue < value) {
-                maxValue = value;
+            if (maxDeque.add((Double) data)) {
+                maxValue = (Double) data;
             }
             return maxValue;
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
+            if (data == null) {
+                return maxValue;
+            }
+            if (maxDeque.remove((Double) data)) {
+                maxValue = maxDeque.isEmpty() ? null : Double.valueOf(maxDeque.getExtremum());
+            }
             return maxValue;
         }
 
@@ -199,14 +196,14 @@ public class MaxAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             maxValue = (Double) state.get("MaxValue");
-            maxDeque = (Deque<Double>) state.get("MaxDeque");
+            maxDeque = (MonotonicDoubleDeque) state.get("MaxDeque");
         }
     }
 
     class MaxAttributeAggregatorFloat extends MaxAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.FLOAT;
-        private Deque<Float> maxDeque = new LinkedList<Float>();
+        private MonotonicDoubleDeque maxDeque = new MonotonicDoubleDeque(true);
         private volatile Float maxValue = null;
 
         public Attribute.Type getReturnType() {
@@ -215,25 +212,23 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Float value = (Float) data;
-            for (Iterator<Float> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
+            if (data == null) {
+                return maxValue;
             }
-            maxDeque.addLast(value);
-            if (maxValue == null || maxValue < value) {
-                maxValue = value;
+            if (maxDeque.add((Float) data)) {
+                maxValue = (Float) data;
             }
             return maxValue;
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
+            if (data == null) {
+                return maxValue;
+            }
+            if (maxDeque.remove((Float) data)) {
+                maxValue = maxDeque.isEmpty() ? null : Float.valueOf((float) maxDeque.getExtremum());
+            }
             return maxValue;
         }
 
@@ -257,15 +252,14 @@ public class MaxAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             maxValue = (Float) state.get("MaxValue");
-            maxDeque = (Deque<Float>) state.get("MaxDeque");
+            maxDeque = (MonotonicDoubleDeque) state.get("MaxDeque");
         }
-
     }
 
     class MaxAttributeAggregatorInt extends MaxAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.INT;
-        private Deque<Integer> maxDeque = new LinkedList<Integer>();
+        private MonotonicLongDeque maxDeque = new MonotonicLongDeque(true);
         private volatile Integer maxValue = null;
 
         public Attribute.Type getReturnType() {
@@ -274,25 +268,23 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Integer value = (Integer) data;
-            for (Iterator<Integer> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
+            if (data == null) {
+                return maxValue;
             }
-            maxDeque.addLast(value);
-            if (maxValue == null || maxValue < value) {
-                maxValue = value;
+            if (maxDeque.add((Integer) data)) {
+                maxValue = (Integer) data;
             }
             return maxValue;
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
+            if (data == null) {
+                return maxValue;
+            }
+            if (maxDeque.remove((Integer) data)) {
+                maxValue = maxDeque.isEmpty() ? null : Integer.valueOf((int) maxDeque.getExtremum());
+            }
             return maxValue;
         }
 
@@ -316,15 +308,14 @@ public class MaxAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             maxValue = (Integer) state.get("MaxValue");
-            maxDeque = (Deque<Integer>) state.get("MaxDeque");
+            maxDeque = (MonotonicLongDeque) state.get("MaxDeque");
         }
-
     }
 
     class MaxAttributeAggregatorLong extends MaxAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.LONG;
-        private Deque<Long> maxDeque = new LinkedList<Long>();
+        private MonotonicLongDeque maxDeque = new MonotonicLongDeque(true);
         private volatile Long maxValue = null;
 
         public Attribute.Type getReturnType() {
@@ -333,25 +324,23 @@ public class MaxAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Long value = (Long) data;
-            for (Iterator<Long> iterator = maxDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() < value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
+            if (data == null) {
+                return maxValue;
             }
-            maxDeque.addLast(value);
-            if (maxValue == null || maxValue < value) {
-                maxValue = value;
+            if (maxDeque.add((Long) data)) {
+                maxValue = (Long) data;
             }
             return maxValue;
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            maxDeque.removeFirstOccurrence(data);
-            maxValue = maxDeque.peekFirst();
+            if (data == null) {
+                return maxValue;
+            }
+            if (maxDeque.remove((Long) data)) {
+                maxValue = maxDeque.isEmpty() ? null : Long.valueOf(maxDeque.getExtremum());
+            }
             return maxValue;
         }
 
@@ -375,9 +364,8 @@ public class MaxAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             maxValue = (Long) state.get("MaxValue");
-            maxDeque = (Deque<Long>) state.get("MaxDeque");
+            maxDeque = (MonotonicLongDeque) state.get("MaxDeque");
         }
-
     }
 
 }
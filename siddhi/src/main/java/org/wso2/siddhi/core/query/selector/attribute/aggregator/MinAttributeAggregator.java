@@ -25,14 +25,13 @@ import org.wso2.siddhi.annotation.util.DataType;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.util.collection.MonotonicDoubleDeque;
+import org.wso2.siddhi.core.util.collection.MonotonicLongDeque;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
 
 /**
@@ -153,7 +152,7 @@ public class MinAttributeAggregator extends AttributeAggregator {
     class MinAttributeAggregatorDouble extends MinAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.DOUBLE;
-        private Deque<Double> minDeque = new LinkedList<Double>();
+        private MonotonicDoubleDeque minDeque = new MonotonicDoubleDeque(false);
         private volatile Double minValue = null;
 
         public Attribute.Type getReturnType() {
@@ -162,25 +161,23 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Double value = (Double) data;
-            for (Iterator<Double> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() > value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
+            if (data == null) {
+                return minValue;
             }
-            minDeque.addLast(value);
-            if (minValue == null || minValue > value) {
-                minValue = value;
+            if (minDeque.add((Double) data)) {
+                minValue = (Double) data;
             }
             return minValue;
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
+            if (data == null) {
+                return minValue;
+            }
+            if (minDeque.remove((Double) data)) {
+                minValue = minDeque.isEmpty() ? null : Double.valueOf(minDeque.getExtremum());
+            }
             return minValue;
         }
 
@@ -204,15 +201,14 @@ public class MinAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             minValue = (Double) state.get("MinValue");
-            minDeque = (Deque<Double>) state.get("MinDeque");
+            minDeque = (MonotonicDoubleDeque) state.get("MinDeque");
         }
-
     }
 
     class MinAttributeAggregatorFloat extends MinAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.FLOAT;
-        private Deque<Float> minDeque = new LinkedList<Float>();
+        private MonotonicDoubleDeque minDeque = new MonotonicDoubleDeque(false);
         private volatile Float minValue = null;
 
         public Attribute.Type getReturnType() {
@@ -221,25 +217,23 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Float value = (Float) data;
-            for (Iterator<Float> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() > value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
+            if (data == null) {
+                return minValue;
             }
-            minDeque.addLast(value);
-            if (minValue == null || minValue > value) {
-                minValue = value;
+            if (minDeque.add((Float) data)) {
+                minValue = (Float) data;
             }
             return minValue;
         }
 
         @Override
         public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
+            if (data == null) {
+                return minValue;
+            }
+            if (minDeque.remove((Float) data)) {
+                minValue = minDeque.isEmpty() ? null : Float.valueOf((float) minDeque.getExtremum());
+            }
             return minValue;
         }
 
@@ -263,14 +257,14 @@ public class MinAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             minValue = (Float) state.get("MinValue");
-            minDeque = (Deque<Float>) state.get("MinDeque");
+            minDeque = (MonotonicDoubleDeque) state.get("MinDeque");
         }
     }
 
     class MinAttributeAggregatorInt extends MinAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.INT;
-        private Deque<Integer> minDeque = new LinkedList<Integer>();
+        private MonotonicLongDeque minDeque = new MonotonicLongDeque(false);
         private volatile Integer minValue = null;
 
         public Attribute.Type getReturnType() {
@@ -279,18 +273,22 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Integer value = (Integer) data;
-            for (Iterator<Integer> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-
-                if (iterator.next() > value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
+            if (data == null) {
+                return minValue;
             }
-            minDeque.addLast(value);
-            if (minValue == null || minValue > value) {
-                minValue = value;
+            if (minDeque.add((Integer) data)) {
+                minValue = (Integer) data;
+            }
+            return minValue;
+        }
+
+        @Override
+        public synchronized Object processRemove(Object data) {
+            if (data == null) {
+                return minValue;
+            }
+            if (minDeque.remove((Integer) data)) {
+                minValue = minDeque.isEmpty() ? null : Integer.valueOf((int) minDeque.getExtremum());
             }
             return minValue;
         }
@@ -302,13 +300,6 @@ public class MinAttributeAggregator extends AttributeAggregator {
             return null;
         }
 
-        @Override
-        public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
-            return minValue;
-        }
-
         @Override
         public Map<String, Object> currentState() {
             Map<String, Object> state = new HashMap<>();
@@ -322,14 +313,14 @@ public class MinAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             minValue = (Integer) state.get("MinValue");
-            minDeque = (Deque<Integer>) state.get("MinDeque");
+            minDeque = (MonotonicLongDeque) state.get("MinDeque");
         }
     }
 
     class MinAttributeAggregatorLong extends MinAttributeAggregator {
 
         private final Attribute.Type type = Attribute.Type.LONG;
-        private Deque<Long> minDeque = new LinkedList<Long>();
+        private MonotonicLongDeque minDeque = new MonotonicLongDeque(false);
         private volatile Long minValue = null;
 
         public Attribute.Type getReturnType() {
@@ -338,17 +329,22 @@ public class MinAttributeAggregator extends AttributeAggregator {
 
         @Override
         public synchronized Object processAdd(Object data) {
-            Long value = (Long) data;
-            for (Iterator<Long> iterator = minDeque.descendingIterator(); iterator.hasNext(); ) {
-                if (iterator.next() > value) {
-                    iterator.remove();
-                } else {
-                    break;
-                }
+            if (data == null) {
+                return minValue;
             }
-            minDeque.addLast(value);
-            if (minValue == null || minValue > value) {
-                minValue = value;
+            if (minDeque.add((Long) data)) {
+                minValue = (Long) data;
+            }
+            return minValue;
+        }
+
+        @Override
+        public synchronized Object processRemove(Object data) {
+            if (data == null) {
+                return minValue;
+            }
+            if (minDeque.remove((Long) data)) {
+                minValue = minDeque.isEmpty() ? null : Long.valueOf(minDeque.getExtremum());
             }
             return minValue;
         }
@@ -360,13 +356,6 @@ public class MinAttributeAggregator extends AttributeAggregator {
             return null;
         }
 
-        @Override
-        public synchronized Object processRemove(Object data) {
-            minDeque.removeFirstOccurrence(data);
-            minValue = minDeque.peekFirst();
-            return minValue;
-        }
-
         @Override
         public Map<String, Object> currentState() {
             Map<String, Object> state = new HashMap<>();
@@ -380,9 +369,8 @@ public class MinAttributeAggregator extends AttributeAggregator {
         @Override
         public synchronized void restoreState(Map<String, Object> state) {
             minValue = (Long) state.get("MinValue");
-            minDeque = (Deque<Long>) state.get("MinDeque");
+            minDeque = (MonotonicLongDeque) state.get("MinDeque");
         }
-
     }
 
 }
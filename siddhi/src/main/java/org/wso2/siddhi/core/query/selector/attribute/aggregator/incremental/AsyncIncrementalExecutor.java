@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.util.extension.holder.EternalReferencedHolder;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executor placed after the root {@link IncrementalExecutor}, handing the aggregates it emits over to the coarser
+ * duration executors through a ring buffer. The coarser executors are then run on a separate thread in batches, so
+ * that rolling up into the larger durations does not slow down the per event processing of the root.
+ * <p>
+ * Events are handed over by reference, hence the emitting executor should not modify them afterwards. Readers that
+ * need the coarser executors to be up to date should call {@link #awaitDrain()} while holding the lock of the
+ * emitting executor.
+ */
+public class AsyncIncrementalExecutor implements Executor, EternalReferencedHolder {
+
+    private static final long DRAIN_PARK_NANOS = 1000;
+
+    private final SiddhiAppContext siddhiAppContext;
+    private final int bufferSize;
+    private final Runnable drainHook = this::awaitDrain;
+    private Executor next;
+    private Disruptor<RollupEvent> disruptor;
+    private volatile RingBuffer<RollupEvent> ringBuffer;
+    private volatile long processedSequence = -1;
+
+    public AsyncIncrementalExecutor(int bufferSize, SiddhiAppContext siddhiAppContext) {
+        this.bufferSize = bufferSize;
+        this.siddhiAppContext = siddhiAppContext;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes") // Signature of Executor
+    public void execute(ComplexEventChunk complexEventChunk) {
+        RingBuffer<RollupEvent> ringBuffer = this.ringBuffer;
+        if (ringBuffer == null) {
+            // Not started yet or already stopped, hence the rollup is done on the calling thread
+            next.execute(complexEventChunk);
+            return;
+        }
+        complexEventChunk.reset();
+        while (complexEventChunk.hasNext()) {
+            ComplexEvent complexEvent = complexEventChunk.next();
+            complexEventChunk.remove();
+            long sequence = ringBuffer.next();
+            try {
+                RollupEvent rollupEvent = ringBuffer.get(sequence);
+                rollupEvent.type = complexEvent.getType();
+                rollupEvent.timestamp = complexEvent.getTimestamp();
+                rollupEvent.outputData = complexEvent.getOutputData();
+            } finally {
+                ringBuffer.publish(sequence);
+            }
+        }
+    }
+
+    /**
+     * Blocks until all the aggregates handed over so far are processed by the coarser duration executors.
+     */
+    public void awaitDrain() {
+        RingBuffer<RollupEvent> ringBuffer = this.ringBuffer;
+        if (ringBuffer == null) {
+            return;
+        }
+        long cursor = ringBuffer.getCursor();
+        while (processedSequence < cursor && this.ringBuffer != null) {
+            LockSupport.parkNanos(DRAIN_PARK_NANOS);
+        }
+    }
+
+    @Override
+    public Executor getNextExecutor() {
+        return next;
+    }
+
+    @Override
+    public void setNextExecutor(Executor executor) {
+        next = executor;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // Generic varargs of Disruptor.handleEventsWith
+    public synchronized void start() {
+        if (disruptor == null) {
+            disruptor = new Disruptor<RollupEvent>(RollupEvent::new, bufferSize,
+                    siddhiAppContext.getExecutorService(), ProducerType.MULTI, new BlockingWaitStrategy());
+            disruptor.handleExceptionsWith(siddhiAppContext.getDisruptorExceptionHandler());
+            disruptor.handleEventsWith(new RollupHandler());
+            ringBuffer = disruptor.start();
+            siddhiAppContext.getThreadBarrier().addDrainHook(drainHook);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (disruptor != null) {
+            siddhiAppContext.getThreadBarrier().removeDrainHook(drainHook);
+            // Pending rollups are processed before the handler is halted
+            disruptor.shutdown();
+            ringBuffer = null;
+            disruptor = null;
+        }
+    }
+
+    /**
+     * Ring buffer entry carrying an aggregate or a timer event to the coarser duration executors.
+     */
+    private static class RollupEvent {
+        private ComplexEvent.Type type;
+        private long timestamp;
+        private Object[] outputData;
+    }
+
+    /**
+     * Handler running the coarser duration executors, with all the events available at once as a single batch.
+     */
+    private class RollupHandler implements EventHandler<RollupEvent> {
+
+        private ComplexEventChunk<StreamEvent> batch = new ComplexEventChunk<>(true);
+
+        @Override
+        public void onEvent(RollupEvent rollupEvent, long sequence, boolean endOfBatch) {
+            // Coarser executors drop the events once they have read them, hence they are not pooled
+            StreamEvent streamEvent = new StreamEvent(0, 0, 0);
+            streamEvent.setType(rollupEvent.type);
+            streamEvent.setTimestamp(rollupEvent.timestamp);
+            streamEvent.setOutputData(rollupEvent.outputData);
+            rollupEvent.outputData = null;
+            batch.add(streamEvent);
+            if (endOfBatch) {
+                try {
+                    next.execute(batch);
+                } finally {
+                    batch = new ComplexEventChunk<>(true);
+                    processedSequence = sequence;
+                }
+            }
+        }
+    }
+}
@@ -80,8 +80,8 @@ public class AvgIncrementalAttributeAggregator extends IncrementalAttributeAggre
                     + "for calculation. Expected 2 base values sum and count. However, received " + results.length
                     + " values");
         }
-        Double sum = (Double) results[0];
-        Double count = (Double) results[1];
+        double sum = ((Number) results[0]).doubleValue();
+        double count = ((Number) results[1]).doubleValue();
         if (count != 0) {
             return sum / count;
         } else {
@@ -63,7 +63,7 @@ public class CountIncrementalAttributeAggregator extends IncrementalAttributeAgg
             throw new ArithmeticException("Cannot calculate count since count base aggregate expected "
                     + "for calculation. Expected 1 base value (count). However, received no base values");
         }
-        if (results.length != 2) {
+        if (results.length != 1) {
             throw new ArithmeticException("Cannot calculate count since count base aggregate expected "
                     + "for calculation. Expected 1 base value (count). However, received " + results.length
                     + " values");
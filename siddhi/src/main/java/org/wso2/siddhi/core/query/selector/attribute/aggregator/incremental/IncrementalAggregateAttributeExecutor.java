@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+/**
+ * Executor which computes the final value of an {@link IncrementalAttributeAggregator} from the base aggregates
+ * stored by incremental aggregation, used when retrieving aggregates.
+ */
+public class IncrementalAggregateAttributeExecutor implements ExpressionExecutor {
+    private final IncrementalAttributeAggregator incrementalAttributeAggregator;
+    private final ExpressionExecutor[] baseAttributeExecutors;
+
+    public IncrementalAggregateAttributeExecutor(IncrementalAttributeAggregator incrementalAttributeAggregator,
+                                                 ExpressionExecutor[] baseAttributeExecutors) {
+        this.incrementalAttributeAggregator = incrementalAttributeAggregator;
+        this.baseAttributeExecutors = baseAttributeExecutors;
+    }
+
+    @Override
+    public Object execute(ComplexEvent event) {
+        Object[] baseValues = new Object[baseAttributeExecutors.length];
+        for (int i = 0; i < baseAttributeExecutors.length; i++) {
+            baseValues[i] = baseAttributeExecutors[i].execute(event);
+            if (baseValues[i] == null) {
+                return null;
+            }
+        }
+        return incrementalAttributeAggregator.aggregate(baseValues);
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return incrementalAttributeAggregator.getReturnType();
+    }
+
+    @Override
+    public ExpressionExecutor cloneExecutor(String key) {
+        ExpressionExecutor[] clonedBaseAttributeExecutors = new ExpressionExecutor[baseAttributeExecutors.length];
+        for (int i = 0; i < baseAttributeExecutors.length; i++) {
+            clonedBaseAttributeExecutors[i] = baseAttributeExecutors[i].cloneExecutor(key);
+        }
+        return new IncrementalAggregateAttributeExecutor(incrementalAttributeAggregator,
+                clonedBaseAttributeExecutors);
+    }
+}
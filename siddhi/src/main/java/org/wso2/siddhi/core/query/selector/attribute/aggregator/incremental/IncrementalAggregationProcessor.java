@@ -18,6 +18,7 @@
 
 package org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental;
 
+import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
 import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
@@ -40,11 +41,13 @@ public class IncrementalAggregationProcessor implements Processor {
 
     public IncrementalAggregationProcessor(IncrementalExecutor incrementalExecutor,
                                            List<ExpressionExecutor> incomingExpressionExecutors,
-                                           MetaStreamEvent processedMetaStreamEvent) {
+                                           MetaStreamEvent processedMetaStreamEvent,
+                                           SiddhiAppContext siddhiAppContext) {
         this.incrementalExecutor = incrementalExecutor;
         this.incomingExpressionExecutors = incomingExpressionExecutors;
         this.processedMetaStreamEvent = processedMetaStreamEvent;
-        this.streamEventPool = new StreamEventPool(processedMetaStreamEvent, 5);
+        this.streamEventPool = new StreamEventPool(processedMetaStreamEvent,
+                siddhiAppContext.getEventPoolMagazineSize(), siddhiAppContext.getEventPoolDepotSize());
     }
 
     @Override
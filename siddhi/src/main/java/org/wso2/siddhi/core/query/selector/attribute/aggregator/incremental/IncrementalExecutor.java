@@ -22,6 +22,7 @@ import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.state.StateEvent;
 import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
@@ -31,17 +32,25 @@ import org.wso2.siddhi.core.query.selector.attribute.processor.executor.GroupByA
 import org.wso2.siddhi.core.table.Table;
 import org.wso2.siddhi.core.util.IncrementalTimeConverterUtil;
 import org.wso2.siddhi.core.util.Scheduler;
+import org.wso2.siddhi.core.util.collection.AddingStreamEventExtractor;
+import org.wso2.siddhi.core.util.collection.UpdateAttributeMapper;
+import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
+import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 import org.wso2.siddhi.query.api.aggregation.TimePeriod;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * Incremental executor class which is responsible for performing incremental aggregation
  */
-public class IncrementalExecutor implements Executor {
+public class IncrementalExecutor implements Executor, Snapshotable {
     static final Logger LOG = Logger.getLogger(IncrementalExecutor.class);
 
     private final StreamEvent resetEvent;
@@ -62,18 +71,28 @@ public class IncrementalExecutor implements Executor {
     private Executor next;
     private Scheduler scheduler;
     private boolean isRoot;
+    private String elementId;
 
     private BaseIncrementalValueStore baseIncrementalValueStore = null;
-    private Map<String, BaseIncrementalValueStore> baseIncrementalValueStoreMap = null;
+    private Map<Object, BaseIncrementalValueStore> baseIncrementalValueStoreMap = null;
     private ArrayList<BaseIncrementalValueStore> baseIncrementalValueStoreList = null;
-    private ArrayList<HashMap<String, BaseIncrementalValueStore>> baseIncrementalValueGroupByStoreList = null;
-
+    private ArrayList<HashMap<Object, BaseIncrementalValueStore>> baseIncrementalValueGroupByStoreList = null;
+
+    private int allowedLateness;
+    private long startTimeOfAllowedLateness = -1;
+    private long[] bucketStartTimes;
+    private boolean[] bucketsEmitted;
+    private CompiledCondition correctionCondition;
+    // Incremented under the lock of this executor whenever aggregates leave it for its table and the next executor
+    private volatile long dispatchCount;
+    private UpdateAttributeMapper[] correctionAttributeMappers;
+    private AddingStreamEventExtractor correctionEventExtractor = new AddingStreamEventExtractor(0);
 
     public IncrementalExecutor(TimePeriod.Duration duration, List<ExpressionExecutor> processExpressionExecutors,
                                GroupByKeyGenerator groupByKeyGenerator, MetaStreamEvent metaStreamEvent,
                                int bufferSize, String aggregatorName, IncrementalExecutor child,
                                boolean isRoot, Table table, SiddhiAppContext siddhiAppContext,
-                               boolean isProcessingOnExternalTime) {
+                               boolean isProcessingOnExternalTime, int allowedLateness) {
         this.duration = duration;
         this.next = child;
         this.isRoot = isRoot;
@@ -81,17 +100,26 @@ public class IncrementalExecutor implements Executor {
         this.siddhiAppContext = siddhiAppContext;
         this.aggregatorName = aggregatorName;
         this.bufferSize = bufferSize;
-        this.streamEventPool = new StreamEventPool(metaStreamEvent, 10);
+        this.streamEventPool = new StreamEventPool(metaStreamEvent, siddhiAppContext.getEventPoolMagazineSize(),
+                siddhiAppContext.getEventPoolDepotSize());
         this.isProcessingOnExternalTime = isProcessingOnExternalTime;
         this.timestampExpressionExecutor = processExpressionExecutors.remove(0);
         this.baseIncrementalValueStore = new BaseIncrementalValueStore(-1, processExpressionExecutors);
+        this.allowedLateness = allowedLateness;
+        // With allowed lateness the ring keeps the current bucket along with the last closed ones
+        int ringSize = (allowedLateness > 0 ? allowedLateness : bufferSize) + 1;
+        if (allowedLateness > 0) {
+            bucketStartTimes = new long[ringSize];
+            Arrays.fill(bucketStartTimes, -1);
+            bucketsEmitted = new boolean[ringSize];
+        }
 
         if (groupByKeyGenerator != null) {
             this.groupByKeyGenerator = groupByKeyGenerator;
             isGroupBy = true;
-            if (bufferSize > 0) {
-                baseIncrementalValueGroupByStoreList = new ArrayList<>(bufferSize + 1);
-                for (int i = 0; i < bufferSize + 1; i++) {
+            if (ringSize > 1) {
+                baseIncrementalValueGroupByStoreList = new ArrayList<>(ringSize);
+                for (int i = 0; i < ringSize; i++) {
                     baseIncrementalValueGroupByStoreList.add(new HashMap<>());
                 }
             } else {
@@ -99,9 +127,9 @@ public class IncrementalExecutor implements Executor {
             }
         } else {
             isGroupBy = false;
-            if (bufferSize > 0) {
-                baseIncrementalValueStoreList = new ArrayList<BaseIncrementalValueStore>(bufferSize + 1);
-                for (int i = 0; i < bufferSize + 1; i++) {
+            if (ringSize > 1) {
+                baseIncrementalValueStoreList = new ArrayList<BaseIncrementalValueStore>(ringSize);
+                for (int i = 0; i < ringSize; i++) {
                     baseIncrementalValueStoreList.add(baseIncrementalValueStore.cloneStore(null, -1));
                 }
             }
@@ -110,12 +138,29 @@ public class IncrementalExecutor implements Executor {
         this.resetEvent = streamEventPool.borrowEvent();
         this.resetEvent.setType(ComplexEvent.Type.RESET);
         setNextExecutor(child);
+        // Not taken from the element id generator, so that the ids of the elements created after this one, and
+        // hence the snapshots taken before executors were snapshotable, stay valid
+        this.elementId = "IncrementalExecutor-" + aggregatorName + "-" + duration;
+        siddhiAppContext.getSnapshotService().addSnapshotable(aggregatorName, this);
     }
 
     public void setScheduler(Scheduler scheduler) {
         this.scheduler = scheduler;
     }
 
+    /**
+     * Sets the condition used to overwrite the stored aggregates of an already emitted bucket, when a late event
+     * updates it. The condition matches the table row of the bucket via its timestamp and group by attributes.
+     *
+     * @param correctionCondition        condition matching the corrected row, with the row at position 0
+     * @param correctionAttributeMappers mappers updating all attributes of the matched row
+     */
+    public void setCorrectionCondition(CompiledCondition correctionCondition,
+                                       UpdateAttributeMapper[] correctionAttributeMappers) {
+        this.correctionCondition = correctionCondition;
+        this.correctionAttributeMappers = correctionAttributeMappers;
+    }
+
     @Override
     public void execute(ComplexEventChunk streamEventChunk) {
         streamEventChunk.reset();
@@ -128,12 +173,20 @@ public class IncrementalExecutor implements Executor {
             if (timestamp >= nextEmitTime) {
                 nextEmitTime = IncrementalTimeConverterUtil.getNextEmitTime(timestamp, duration);
                 startTimeOfAggregates = IncrementalTimeConverterUtil.getStartTimeOfAggregates(timestamp, duration);
-                dispatchAggregateEvents(startTimeOfAggregates, timestamp);
+                if (allowedLateness > 0) {
+                    emitAndAdvanceBucket(startTimeOfAggregates);
+                } else {
+                    dispatchAggregateEvents(startTimeOfAggregates, timestamp);
+                }
                 sendTimerEvent(streamEvent, timestamp);
             }
 
             if (streamEvent.getType() == ComplexEvent.Type.CURRENT) {
-                processAggregates(streamEvent);
+                if (allowedLateness > 0 && timestamp < startTimeOfAggregates) {
+                    processLateAggregates(streamEvent, timestamp);
+                } else {
+                    processAggregates(streamEvent);
+                }
             }
         }
     }
@@ -183,19 +236,21 @@ public class IncrementalExecutor implements Executor {
         synchronized (this) {
             if (isGroupBy) {
                 try {
-                    String groupedByKey = groupByKeyGenerator.constructEventKey(streamEvent);
+                    Object groupedByKey = groupByKeyGenerator.constructEventKey(streamEvent);
                     GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(groupedByKey);
                     if (baseIncrementalValueGroupByStoreList != null) {
-                        Map<String, BaseIncrementalValueStore> baseIncrementalValueGroupByStore =
+                        Map<Object, BaseIncrementalValueStore> baseIncrementalValueGroupByStore =
                                 baseIncrementalValueGroupByStoreList.get(currentBufferIndex);
                         BaseIncrementalValueStore aBaseIncrementalValueStore =
                                 baseIncrementalValueGroupByStore.computeIfAbsent(groupedByKey,
-                                        k -> baseIncrementalValueStore.cloneStore(k, startTimeOfAggregates));
+                                        k -> baseIncrementalValueStore.cloneStore(String.valueOf(k),
+                                                startTimeOfAggregates));
                         process(streamEvent, aBaseIncrementalValueStore);
                     } else {
                         BaseIncrementalValueStore aBaseIncrementalValueStore =
                                 baseIncrementalValueStoreMap.computeIfAbsent(groupedByKey,
-                                        k -> baseIncrementalValueStore.cloneStore(k, startTimeOfAggregates));
+                                        k -> baseIncrementalValueStore.cloneStore(String.valueOf(k),
+                                                startTimeOfAggregates));
                         process(streamEvent, aBaseIncrementalValueStore);
                     }
                 } finally {
@@ -213,6 +268,139 @@ public class IncrementalExecutor implements Executor {
         }
     }
 
+    /**
+     * Routes an event that arrived after its bucket was closed to that bucket, as long as the bucket starts no more
+     * than the allowed number of durations before the current bucket. As the bucket has already been emitted, its
+     * table row is overwritten with the corrected aggregates and the event is passed on so that coarser durations
+     * account for it as well.
+     */
+    private void processLateAggregates(StreamEvent streamEvent, long timestamp) {
+        long startTimeOfLateAggregates = IncrementalTimeConverterUtil.getStartTimeOfAggregates(timestamp, duration);
+        synchronized (this) {
+            if (startTimeOfLateAggregates < startTimeOfAllowedLateness) {
+                LOG.warn("Dropping event with timestamp " + timestamp + " at aggregation '" + aggregatorName +
+                        "' for " + duration + ", as it arrived later than the allowed lateness of " +
+                        allowedLateness + " " + duration.toString().toLowerCase(Locale.ENGLISH));
+                return;
+            }
+            int bucketIndex = -1;
+            for (int i = 0; i < bucketStartTimes.length; i++) {
+                if (bucketStartTimes[i] == startTimeOfLateAggregates) {
+                    bucketIndex = i;
+                    break;
+                }
+            }
+            if (bucketIndex == -1) {
+                // No events were seen for this bucket. The ring holds a slot for each bucket within the allowed
+                // lateness, hence the oldest slot is either unused or holds a bucket beyond it.
+                bucketIndex = getOldestBucketIndex();
+                resetBucket(bucketIndex, startTimeOfLateAggregates);
+                // Bucket is considered emitted, hence its aggregates get added to the table as corrections
+                bucketsEmitted[bucketIndex] = true;
+            }
+            BaseIncrementalValueStore aBaseIncrementalValueStore;
+            if (isGroupBy) {
+                try {
+                    Object groupedByKey = groupByKeyGenerator.constructEventKey(streamEvent);
+                    GroupByAggregationAttributeExecutor.getKeyThreadLocal().set(groupedByKey);
+                    aBaseIncrementalValueStore = baseIncrementalValueGroupByStoreList.get(bucketIndex)
+                            .computeIfAbsent(groupedByKey, k -> baseIncrementalValueStore.cloneStore(
+                                    String.valueOf(k), startTimeOfLateAggregates));
+                    process(streamEvent, aBaseIncrementalValueStore);
+                } finally {
+                    GroupByAggregationAttributeExecutor.getKeyThreadLocal().remove();
+                }
+            } else {
+                aBaseIncrementalValueStore = baseIncrementalValueStoreList.get(bucketIndex);
+                process(streamEvent, aBaseIncrementalValueStore);
+            }
+            if (bucketsEmitted[bucketIndex]) {
+                StateEvent correctionEvent = new StateEvent(2, 0);
+                correctionEvent.setEvent(0, createStreamEvent(aBaseIncrementalValueStore));
+                ComplexEventChunk<StateEvent> correctionEventChunk = new ComplexEventChunk<>(true);
+                correctionEventChunk.add(correctionEvent);
+                dispatchCount++;
+                table.updateOrAddEvents(correctionEventChunk, correctionCondition, correctionAttributeMappers,
+                        correctionEventExtractor);
+                if (next != null) {
+                    ComplexEventChunk<StreamEvent> lateEventChunk = new ComplexEventChunk<>(true);
+                    lateEventChunk.add(streamEvent);
+                    next.execute(lateEventChunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * Emits the current bucket and moves on to the bucket starting at the given time. Emitted buckets are kept
+     * in the ring until they fall out of the allowed lateness, so that late events can still be routed to them.
+     */
+    private void emitAndAdvanceBucket(long startTimeOfNewAggregates) {
+        synchronized (this) {
+            ComplexEventChunk<StreamEvent> eventChunk = new ComplexEventChunk<>(true);
+            if (isGroupBy) {
+                for (BaseIncrementalValueStore aBaseIncrementalValueStore :
+                        baseIncrementalValueGroupByStoreList.get(currentBufferIndex).values()) {
+                    eventChunk.add(createStreamEvent(aBaseIncrementalValueStore));
+                }
+            } else {
+                BaseIncrementalValueStore aBaseIncrementalValueStore =
+                        baseIncrementalValueStoreList.get(currentBufferIndex);
+                if (aBaseIncrementalValueStore.isProcessed) {
+                    eventChunk.add(createStreamEvent(aBaseIncrementalValueStore));
+                }
+            }
+            bucketsEmitted[currentBufferIndex] = true;
+            if (eventChunk.getFirst() != null) {
+                dispatchCount++;
+                table.addEvents(eventChunk);
+                if (next != null) {
+                    next.execute(eventChunk);
+                }
+            }
+
+            // Oldest bucket falls out of the allowed lateness and its slot is reused for the new bucket
+            currentBufferIndex = getOldestBucketIndex();
+            resetBucket(currentBufferIndex, startTimeOfNewAggregates);
+            bucketsEmitted[currentBufferIndex] = false;
+            startTimeOfAllowedLateness = getStartTimeOfAllowedLateness(startTimeOfNewAggregates);
+        }
+    }
+
+    /**
+     * Steps back bucket by bucket, as months and years do not have a fixed length.
+     *
+     * @param startTimeOfCurrentAggregates start time of the current bucket
+     * @return start time of the oldest bucket late events are still accepted for
+     */
+    private long getStartTimeOfAllowedLateness(long startTimeOfCurrentAggregates) {
+        long startTime = startTimeOfCurrentAggregates;
+        for (int i = 0; i < allowedLateness; i++) {
+            startTime = IncrementalTimeConverterUtil.getStartTimeOfAggregates(startTime - 1, duration);
+        }
+        return startTime;
+    }
+
+    private int getOldestBucketIndex() {
+        int oldestBucketIndex = -1;
+        for (int i = 0; i < bucketStartTimes.length; i++) {
+            if (i != currentBufferIndex && (oldestBucketIndex == -1 ||
+                    bucketStartTimes[i] < bucketStartTimes[oldestBucketIndex])) {
+                oldestBucketIndex = i;
+            }
+        }
+        return oldestBucketIndex;
+    }
+
+    private void resetBucket(int bucketIndex, long startTimeOfNewAggregates) {
+        if (isGroupBy) {
+            baseIncrementalValueGroupByStoreList.get(bucketIndex).clear();
+        } else {
+            cleanBaseIncrementalValueStore(startTimeOfNewAggregates, baseIncrementalValueStoreList.get(bucketIndex));
+        }
+        bucketStartTimes[bucketIndex] = startTimeOfNewAggregates;
+    }
+
     private void process(StreamEvent streamEvent, BaseIncrementalValueStore baseIncrementalValueStore) {
         List<ExpressionExecutor> expressionExecutors = baseIncrementalValueStore.expressionExecutors;
         for (int i = 0; i < expressionExecutors.size(); i++) { //keeping timestamp value location as null
@@ -223,31 +411,93 @@ public class IncrementalExecutor implements Executor {
     }
 
     private void dispatchAggregateEvents(long startTimeOfNewAggregates, long currentTimeStamp) {
-
-        if (isGroupBy) {
-            if (baseIncrementalValueGroupByStoreList != null) {
-                int dispatchIndex = currentBufferIndex + 1;
-                if (dispatchIndex > bufferSize) {
-                    dispatchIndex -= bufferSize + 1;
+        synchronized (this) {
+            if (isGroupBy) {
+                if (baseIncrementalValueGroupByStoreList != null) {
+                    int dispatchIndex = currentBufferIndex + 1;
+                    if (dispatchIndex > bufferSize) {
+                        dispatchIndex -= bufferSize + 1;
+                    }
+                    Map<Object, BaseIncrementalValueStore> baseIncrementalValueGroupByStore =
+                            baseIncrementalValueGroupByStoreList.get(dispatchIndex);
+                    dispatchEvents(baseIncrementalValueGroupByStore);
+                    currentBufferIndex = dispatchIndex;
+                } else {
+                    dispatchEvents(baseIncrementalValueStoreMap);
                 }
-                Map<String, BaseIncrementalValueStore> baseIncrementalValueGroupByStore =
-                        baseIncrementalValueGroupByStoreList.get(dispatchIndex);
-                dispatchEvents(baseIncrementalValueGroupByStore);
-                currentBufferIndex = dispatchIndex;
             } else {
-                dispatchEvents(baseIncrementalValueStoreMap);
+                if (baseIncrementalValueStoreList != null) {
+                    int dispatchIndex = currentBufferIndex + 1;
+                    if (dispatchIndex > bufferSize) {
+                        dispatchIndex -= bufferSize + 1;
+                    }
+                    BaseIncrementalValueStore aBaseIncrementalValueStore =
+                            baseIncrementalValueStoreList.get(dispatchIndex);
+                    dispatchEvent(startTimeOfNewAggregates, aBaseIncrementalValueStore);
+                    currentBufferIndex = dispatchIndex;
+                } else {
+                    dispatchEvent(startTimeOfNewAggregates, baseIncrementalValueStore);
+                }
             }
-        } else {
-            if (baseIncrementalValueStoreList != null) {
-                int dispatchIndex = currentBufferIndex + 1;
-                if (dispatchIndex > bufferSize) {
-                    dispatchIndex -= bufferSize + 1;
+        }
+    }
+
+    /**
+     * Number of times this executor has dispatched aggregates to its table and to the next executor. Aggregates
+     * read from this executor are still where they were read from as long as this count does not change.
+     *
+     * @return dispatch count
+     */
+    public long getDispatchCount() {
+        return dispatchCount;
+    }
+
+    /**
+     * Returns a copy of the aggregates this executor is still holding in memory, i.e. the ones not yet
+     * dispatched to its table and to the next executor. Rows follow the layout of the aggregation tables with the
+     * start time of the aggregates at index 0. Callers that need a consistent view across executors should hold
+     * the lock of this executor while reading the next one, as aggregates are dispatched under the same lock.
+     *
+     * @return processed in-memory aggregates
+     */
+    public List<Object[]> getProcessedAggregates() {
+        synchronized (this) {
+            List<Object[]> processedAggregates = new ArrayList<>();
+            if (isGroupBy) {
+                if (baseIncrementalValueGroupByStoreList != null) {
+                    for (int i = 0; i < baseIncrementalValueGroupByStoreList.size(); i++) {
+                        if (bucketsEmitted == null || !bucketsEmitted[i]) {
+                            addProcessedAggregates(baseIncrementalValueGroupByStoreList.get(i).values(),
+                                    processedAggregates);
+                        }
+                    }
+                } else {
+                    addProcessedAggregates(baseIncrementalValueStoreMap.values(), processedAggregates);
                 }
-                BaseIncrementalValueStore aBaseIncrementalValueStore = baseIncrementalValueStoreList.get(dispatchIndex);
-                dispatchEvent(startTimeOfNewAggregates, aBaseIncrementalValueStore);
-                currentBufferIndex = dispatchIndex;
             } else {
-                dispatchEvent(startTimeOfNewAggregates, baseIncrementalValueStore);
+                if (baseIncrementalValueStoreList != null) {
+                    for (int i = 0; i < baseIncrementalValueStoreList.size(); i++) {
+                        if (bucketsEmitted == null || !bucketsEmitted[i]) {
+                            addProcessedAggregates(Collections.singletonList(baseIncrementalValueStoreList.get(i)),
+                                    processedAggregates);
+                        }
+                    }
+                } else {
+                    addProcessedAggregates(Collections.singletonList(baseIncrementalValueStore),
+                            processedAggregates);
+                }
+            }
+            return processedAggregates;
+        }
+    }
+
+    private void addProcessedAggregates(Collection<BaseIncrementalValueStore> baseIncrementalValueStores,
+                                        List<Object[]> processedAggregates) {
+        for (BaseIncrementalValueStore aBaseIncrementalValueStore : baseIncrementalValueStores) {
+            if (aBaseIncrementalValueStore.isProcessed) {
+                Object[] values = aBaseIncrementalValueStore.values.clone();
+                values[0] = aBaseIncrementalValueStore.timestamp;
+                processedAggregates.add(values);
             }
         }
     }
@@ -257,21 +507,27 @@ public class IncrementalExecutor implements Executor {
             StreamEvent streamEvent = createStreamEvent(aBaseIncrementalValueStore);
             ComplexEventChunk<StreamEvent> eventChunk = new ComplexEventChunk<>(true);
             eventChunk.add(streamEvent);
+            dispatchCount++;
             table.addEvents(eventChunk);
-            next.execute(eventChunk);
+            if (next != null) {
+                next.execute(eventChunk);
+            }
         }
         cleanBaseIncrementalValueStore(startTimeOfNewAggregates, aBaseIncrementalValueStore);
     }
 
-    private void dispatchEvents(Map<String, BaseIncrementalValueStore> baseIncrementalValueGroupByStore) {
+    private void dispatchEvents(Map<Object, BaseIncrementalValueStore> baseIncrementalValueGroupByStore) {
         if (baseIncrementalValueGroupByStore.size() > 0) {
             ComplexEventChunk<StreamEvent> eventChunk = new ComplexEventChunk<>(true);
             for (BaseIncrementalValueStore aBaseIncrementalValueStore : baseIncrementalValueGroupByStore.values()) {
                 StreamEvent streamEvent = createStreamEvent(aBaseIncrementalValueStore);
                 eventChunk.add(streamEvent);
             }
+            dispatchCount++;
             table.addEvents(eventChunk);
-            next.execute(eventChunk);
+            if (next != null) {
+                next.execute(eventChunk);
+            }
         }
         baseIncrementalValueGroupByStore.clear();
     }
@@ -280,10 +536,90 @@ public class IncrementalExecutor implements Executor {
         StreamEvent streamEvent = streamEventPool.borrowEvent();
         streamEvent.setTimestamp(aBaseIncrementalValueStore.timestamp);
         aBaseIncrementalValueStore.values[0] = aBaseIncrementalValueStore.timestamp;
-        streamEvent.setOutputData(aBaseIncrementalValueStore.values);
+        if (allowedLateness > 0) {
+            // Stores of emitted buckets keep being updated by late events
+            streamEvent.setOutputData(aBaseIncrementalValueStore.values.clone());
+        } else {
+            streamEvent.setOutputData(aBaseIncrementalValueStore.values);
+        }
         return streamEvent;
     }
 
+    @Override
+    public Map<String, Object> currentState() {
+        synchronized (this) {
+            Map<String, Object> state = new HashMap<>();
+            state.put("NextEmitTime", nextEmitTime);
+            state.put("StartTimeOfAggregates", startTimeOfAggregates);
+            state.put("CurrentBufferIndex", currentBufferIndex);
+            state.put("BucketStartTimes", bucketStartTimes != null ? bucketStartTimes.clone() : null);
+            state.put("BucketsEmitted", bucketsEmitted != null ? bucketsEmitted.clone() : null);
+            ArrayList<Object> stores = new ArrayList<>();
+            if (isGroupBy) {
+                List<? extends Map<Object, BaseIncrementalValueStore>> groupByStores =
+                        baseIncrementalValueGroupByStoreList != null ? baseIncrementalValueGroupByStoreList :
+                                Collections.singletonList(baseIncrementalValueStoreMap);
+                for (Map<Object, BaseIncrementalValueStore> groupByStore : groupByStores) {
+                    HashMap<Object, Object> groupByStoreState = new HashMap<>();
+                    for (Map.Entry<Object, BaseIncrementalValueStore> entry : groupByStore.entrySet()) {
+                        groupByStoreState.put(entry.getKey(), entry.getValue().currentState());
+                    }
+                    stores.add(groupByStoreState);
+                }
+            } else {
+                List<BaseIncrementalValueStore> valueStores = baseIncrementalValueStoreList != null ?
+                        baseIncrementalValueStoreList : Collections.singletonList(baseIncrementalValueStore);
+                for (BaseIncrementalValueStore valueStore : valueStores) {
+                    stores.add(valueStore.currentState());
+                }
+            }
+            state.put("Stores", stores);
+            return state;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked") // Restores the structures written by currentState()
+    public void restoreState(Map<String, Object> state) {
+        if (state == null) {
+            return;
+        }
+        synchronized (this) {
+            nextEmitTime = (Long) state.get("NextEmitTime");
+            startTimeOfAggregates = (Long) state.get("StartTimeOfAggregates");
+            currentBufferIndex = (Integer) state.get("CurrentBufferIndex");
+            if (bucketStartTimes != null) {
+                bucketStartTimes = ((long[]) state.get("BucketStartTimes")).clone();
+                bucketsEmitted = ((boolean[]) state.get("BucketsEmitted")).clone();
+                startTimeOfAllowedLateness = getStartTimeOfAllowedLateness(startTimeOfAggregates);
+            }
+            List<Object> stores = (List<Object>) state.get("Stores");
+            for (int i = 0; i < stores.size(); i++) {
+                if (isGroupBy) {
+                    Map<Object, BaseIncrementalValueStore> groupByStore = baseIncrementalValueGroupByStoreList !=
+                            null ? baseIncrementalValueGroupByStoreList.get(i) : baseIncrementalValueStoreMap;
+                    groupByStore.clear();
+                    for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) stores.get(i)).entrySet()) {
+                        Map<String, Object> storeState = (Map<String, Object>) entry.getValue();
+                        BaseIncrementalValueStore valueStore = baseIncrementalValueStore.cloneStore(
+                                String.valueOf(entry.getKey()), (Long) storeState.get("Timestamp"));
+                        valueStore.restoreState(storeState);
+                        groupByStore.put(entry.getKey(), valueStore);
+                    }
+                } else {
+                    BaseIncrementalValueStore valueStore = baseIncrementalValueStoreList != null ?
+                            baseIncrementalValueStoreList.get(i) : baseIncrementalValueStore;
+                    valueStore.restoreState((Map<String, Object>) stores.get(i));
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getElementId() {
+        return elementId;
+    }
+
     private void cleanBaseIncrementalValueStore(long startTimeOfNewAggregates,
                                                 BaseIncrementalValueStore baseIncrementalValueStore) {
         baseIncrementalValueStore.clearValues();
@@ -321,5 +657,32 @@ public class IncrementalExecutor implements Executor {
             return new BaseIncrementalValueStore(timestamp, newExpressionExecutors);
         }
 
+        public Map<String, Object> currentState() {
+            Map<String, Object> state = new HashMap<>();
+            state.put("Timestamp", timestamp);
+            state.put("Values", values.clone());
+            state.put("IsProcessed", isProcessed);
+            ArrayList<Map<String, Object>> executorStates = new ArrayList<>(expressionExecutors.size());
+            for (ExpressionExecutor expressionExecutor : expressionExecutors) {
+                executorStates.add(expressionExecutor instanceof Snapshotable ?
+                        ((Snapshotable) expressionExecutor).currentState() : null);
+            }
+            state.put("ExecutorStates", executorStates);
+            return state;
+        }
+
+        @SuppressWarnings("unchecked") // Restores the structures written by currentState()
+        public void restoreState(Map<String, Object> state) {
+            timestamp = (Long) state.get("Timestamp");
+            values = ((Object[]) state.get("Values")).clone();
+            isProcessed = (Boolean) state.get("IsProcessed");
+            List<Map<String, Object>> executorStates = (List<Map<String, Object>>) state.get("ExecutorStates");
+            for (int i = 0; i < expressionExecutors.size(); i++) {
+                if (executorStates.get(i) != null) {
+                    ((Snapshotable) expressionExecutors.get(i)).restoreState(executorStates.get(i));
+                }
+            }
+        }
+
     }
 }
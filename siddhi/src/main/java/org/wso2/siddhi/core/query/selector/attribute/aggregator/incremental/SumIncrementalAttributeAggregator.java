@@ -74,7 +74,7 @@ public class SumIncrementalAttributeAggregator extends IncrementalAttributeAggre
             throw new ArithmeticException("Cannot calculate sum since sum base aggregate expected "
                     + "for calculation. Expected 1 base value (sum). However, received no base values");
         }
-        if (results.length != 2) {
+        if (results.length != 1) {
             throw new ArithmeticException("Cannot calculate sum since sum base aggregate expected "
                     + "for calculation. Expected 1 base value (sum). However, received " + results.length
                     + " values");
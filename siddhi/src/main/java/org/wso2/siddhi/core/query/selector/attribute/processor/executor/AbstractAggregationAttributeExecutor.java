@@ -20,13 +20,13 @@ package org.wso2.siddhi.core.query.selector.attribute.processor.executor;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
-import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotable;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 /**
  * Abstract class to represent attribute aggregations.
  */
-public abstract class AbstractAggregationAttributeExecutor implements ExpressionExecutor, Snapshotable {
+public abstract class AbstractAggregationAttributeExecutor implements ExpressionExecutor, IncrementalSnapshotable {
     protected AttributeAggregator attributeAggregator;
     protected ExpressionExecutor[] attributeExpressionExecutors;
     protected SiddhiAppContext siddhiAppContext;
@@ -21,6 +21,7 @@ import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
+import org.wso2.siddhi.core.util.snapshot.StateChanges;
 
 import java.util.Map;
 
@@ -29,6 +30,8 @@ import java.util.Map;
  */
 public class AggregationAttributeExecutor extends AbstractAggregationAttributeExecutor {
 
+    private final StateChanges stateChanges = new StateChanges();
+
     public AggregationAttributeExecutor(AttributeAggregator attributeAggregator,
                                         ExpressionExecutor[] attributeExpressionExecutors, SiddhiAppContext
                                                 siddhiAppContext, String queryName) {
@@ -37,6 +40,7 @@ public class AggregationAttributeExecutor extends AbstractAggregationAttributeEx
 
     @Override
     public Object execute(ComplexEvent event) {
+        stateChanges.markChanged();
         return attributeAggregator.process(event);
     }
 
@@ -54,4 +58,9 @@ public class AggregationAttributeExecutor extends AbstractAggregationAttributeEx
     public void restoreState(Map<String, Object> state) {
         attributeAggregator.restoreState(state);
     }
+
+    @Override
+    public StateChanges collectStateChanges() {
+        return stateChanges.collect();
+    }
 }
@@ -17,23 +17,43 @@
  */
 package org.wso2.siddhi.core.query.selector.attribute.processor.executor;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.AttributeAggregator;
+import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.config.ConfigReader;
+import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
+import org.wso2.siddhi.core.util.snapshot.StateChanges;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Executor class for aggregations with group by configuration.
+ * <p>
+ * The aggregator of a group is dropped once every stream event it has seen has expired, as it is then back in its
+ * initial state. When the app sets {@code @app:groupByState(idle.time, max.groups)} groups that are idle for longer
+ * than idle.time, or the least recently used groups beyond max.groups, are dropped as well; their aggregates start
+ * from scratch if the key shows up again.
  */
 public class GroupByAggregationAttributeExecutor extends AbstractAggregationAttributeExecutor {
 
-    private static final ThreadLocal<String> keyThreadLocal = new ThreadLocal<String>();
+    private static final ThreadLocal<Object> keyThreadLocal = new ThreadLocal<Object>();
     private final ConfigReader configReader;
-    protected Map<String, AttributeAggregator> aggregatorMap = new HashMap<String, AttributeAggregator>();
+    private final long idleTime;
+    private final int maxGroups;
+    protected Map<Object, AggregatorHolder> aggregatorMap;
+    private long evictionCount = 0;
+    private Meter evictionMeter = null;
+    private Counter groupCounter = null;
+    private final StateChanges stateChanges = new StateChanges("Data", "EventCounts");
 
     public GroupByAggregationAttributeExecutor(AttributeAggregator attributeAggregator,
                                                ExpressionExecutor[] attributeExpressionExecutors,
@@ -41,26 +61,96 @@ public class GroupByAggregationAttributeExecutor extends AbstractAggregationAttr
                                                String queryName) {
         super(attributeAggregator, attributeExpressionExecutors, siddhiAppContext, queryName);
         this.configReader = configReader;
+        this.idleTime = siddhiAppContext.getGroupByIdleTime();
+        this.maxGroups = siddhiAppContext.getGroupByMaxGroups();
+        if (idleTime > 0 || maxGroups > 0) {
+            // Access ordered, so that the eldest entry is always the least recently used group
+            aggregatorMap = new LinkedHashMap<Object, AggregatorHolder>(16, 0.75f, true);
+        } else {
+            aggregatorMap = new HashMap<Object, AggregatorHolder>();
+        }
+        if (siddhiAppContext.isStatsEnabled() && siddhiAppContext.getStatisticsManager() != null) {
+            String metricName = QueryParserHelper.getMetricName(siddhiAppContext, queryName,
+                    SiddhiConstants.METRIC_INFIX_QUERIES);
+            MetricRegistry registry = siddhiAppContext.getStatisticsManager().getRegistry();
+            evictionMeter = registry.meter(metricName + ".groupByEvictions");
+            groupCounter = registry.counter(metricName + ".groupByStates");
+        }
     }
 
     @Override
     public Object execute(ComplexEvent event) {
         if (event.getType() == ComplexEvent.Type.RESET) {
             Object aOutput = null;
-            for (AttributeAggregator attributeAggregator : aggregatorMap.values()) {
-                aOutput = attributeAggregator.process(event);
+            for (AggregatorHolder aggregatorHolder : aggregatorMap.values()) {
+                aOutput = aggregatorHolder.attributeAggregator.process(event);
+            }
+            // Every group is back in its initial state after a reset
+            for (Iterator<Map.Entry<Object, AggregatorHolder>> iterator = aggregatorMap.entrySet().iterator();
+                 iterator.hasNext(); ) {
+                Map.Entry<Object, AggregatorHolder> entry = iterator.next();
+                stateChanges.markChanged(entry.getKey());
+                evict(entry.getValue());
+                iterator.remove();
             }
             return aOutput;
         }
-        String key = keyThreadLocal.get();
-        AttributeAggregator currentAttributeAggregator = aggregatorMap.get(key);
-        if (currentAttributeAggregator == null) {
-            currentAttributeAggregator = attributeAggregator.cloneAggregator(key);
-            currentAttributeAggregator.initAggregator(attributeExpressionExecutors, siddhiAppContext, configReader);
-            currentAttributeAggregator.start();
-            aggregatorMap.put(key, currentAttributeAggregator);
+        Object key = keyThreadLocal.get();
+        AggregatorHolder aggregatorHolder = aggregatorMap.get(key);
+        if (aggregatorHolder == null) {
+            AttributeAggregator currentAttributeAggregator = attributeAggregator.cloneAggregator(String.valueOf(key));
+            aggregatorHolder = new AggregatorHolder(currentAttributeAggregator);
+            aggregatorMap.put(key, aggregatorHolder);
+            if (groupCounter != null) {
+                groupCounter.inc();
+            }
+        }
+        Object output = aggregatorHolder.attributeAggregator.process(event);
+        stateChanges.markChanged(key);
+        // Only stream events expire exactly once per current event; join and pattern outputs do not mirror each
+        // other (e.g. a unidirectional join expires pairs it never emitted), so such groups are never taken to be
+        // back in their initial state.
+        if (event instanceof StreamEvent) {
+            if (event.getType() == ComplexEvent.Type.CURRENT) {
+                aggregatorHolder.eventCount++;
+            } else if (event.getType() == ComplexEvent.Type.EXPIRED && --aggregatorHolder.eventCount <= 0) {
+                evict(aggregatorMap.remove(key));
+            }
+        }
+        if (idleTime > 0 || maxGroups > 0) {
+            evictIdleGroups(aggregatorHolder);
+        }
+        return output;
+    }
+
+    private void evictIdleGroups(AggregatorHolder currentHolder) {
+        long currentTime = 0;
+        if (idleTime > 0) {
+            currentTime = siddhiAppContext.getTimestampGenerator().currentTime();
+            currentHolder.lastAccessTime = currentTime;
+        }
+        for (Iterator<Map.Entry<Object, AggregatorHolder>> iterator = aggregatorMap.entrySet().iterator();
+             iterator.hasNext(); ) {
+            Map.Entry<Object, AggregatorHolder> eldestEntry = iterator.next();
+            if ((maxGroups > 0 && aggregatorMap.size() > maxGroups) ||
+                    (idleTime > 0 && currentTime - eldestEntry.getValue().lastAccessTime > idleTime)) {
+                stateChanges.markChanged(eldestEntry.getKey());
+                evict(eldestEntry.getValue());
+                iterator.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void evict(AggregatorHolder aggregatorHolder) {
+        aggregatorHolder.attributeAggregator.stop();
+        aggregatorHolder.attributeAggregator.release();
+        evictionCount++;
+        if (evictionMeter != null) {
+            evictionMeter.mark();
+            groupCounter.dec();
         }
-        return currentAttributeAggregator.process(event);
     }
 
     public ExpressionExecutor cloneExecutor(String key) {
@@ -70,32 +160,76 @@ public class GroupByAggregationAttributeExecutor extends AbstractAggregationAttr
                                                        queryName);
     }
 
+    /**
+     * @return number of groups currently holding aggregator state
+     */
+    public int getGroupCount() {
+        return aggregatorMap.size();
+    }
+
+    /**
+     * @return number of group states dropped so far
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
     @Override
     public Map<String, Object> currentState() {
-        HashMap<String, Map<String, Object>> data = new HashMap<>();
-        for (Map.Entry<String, AttributeAggregator> entry : aggregatorMap.entrySet()) {
-            data.put(entry.getKey(), entry.getValue().currentState());
+        HashMap<Object, Map<String, Object>> data = new HashMap<>();
+        HashMap<Object, Long> eventCounts = new HashMap<>();
+        for (Map.Entry<Object, AggregatorHolder> entry : aggregatorMap.entrySet()) {
+            data.put(entry.getKey(), entry.getValue().attributeAggregator.currentState());
+            eventCounts.put(entry.getKey(), entry.getValue().eventCount);
         }
         Map<String, Object> state = new HashMap<>();
         state.put("Data", data);
+        state.put("EventCounts", eventCounts);
         return state;
     }
 
     @Override
     public void restoreState(Map<String, Object> state) {
-        HashMap<String, Map<String, Object>> data = (HashMap<String, Map<String, Object>>) state.get("Data");
+        HashMap<Object, Map<String, Object>> data = (HashMap<Object, Map<String, Object>>) state.get("Data");
+        // Written by currentState() with exactly this type
+        @SuppressWarnings("unchecked")
+        HashMap<Object, Long> eventCounts = (HashMap<Object, Long>) state.get("EventCounts");
+        long currentTime = siddhiAppContext.getTimestampGenerator().currentTime();
 
-        for (Map.Entry<String, Map<String, Object>> entry : data.entrySet()) {
-            String key = entry.getKey();
-            AttributeAggregator aAttributeAggregator = attributeAggregator.cloneAggregator(key);
-            aAttributeAggregator.initAggregator(attributeExpressionExecutors, siddhiAppContext, configReader);
-            aAttributeAggregator.start();
+        for (Map.Entry<Object, Map<String, Object>> entry : data.entrySet()) {
+            Object key = entry.getKey();
+            AttributeAggregator aAttributeAggregator = attributeAggregator.cloneAggregator(String.valueOf(key));
             aAttributeAggregator.restoreState(entry.getValue());
-            aggregatorMap.put(key, aAttributeAggregator);
+            AggregatorHolder aggregatorHolder = new AggregatorHolder(aAttributeAggregator);
+            Long eventCount = eventCounts != null ? eventCounts.get(key) : null;
+            // Without a recorded count the group is never considered to be back in its initial state
+            aggregatorHolder.eventCount = eventCount != null ? eventCount : Long.MAX_VALUE;
+            aggregatorHolder.lastAccessTime = currentTime;
+            if (aggregatorMap.put(key, aggregatorHolder) == null && groupCounter != null) {
+                groupCounter.inc();
+            }
         }
     }
 
-    public static ThreadLocal<String> getKeyThreadLocal() {
+    @Override
+    public StateChanges collectStateChanges() {
+        return stateChanges.collect();
+    }
+
+    public static ThreadLocal<Object> getKeyThreadLocal() {
         return keyThreadLocal;
     }
+
+    /**
+     * Aggregator of a single group together with the bookkeeping needed to decide when it can be dropped.
+     */
+    protected static class AggregatorHolder {
+        private final AttributeAggregator attributeAggregator;
+        private long eventCount = 0;
+        private long lastAccessTime = 0;
+
+        AggregatorHolder(AttributeAggregator attributeAggregator) {
+            this.attributeAggregator = attributeAggregator;
+        }
+    }
 }
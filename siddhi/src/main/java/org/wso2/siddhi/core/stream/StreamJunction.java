@@ -19,8 +19,13 @@
 package org.wso2.siddhi.core.stream;
 
 import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import org.apache.log4j.Logger;
@@ -28,6 +33,8 @@ import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.ComplexEvent;
 import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.core.event.SiddhiEventFactory;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 import org.wso2.siddhi.core.stream.input.InputProcessor;
 import org.wso2.siddhi.core.stream.output.StreamCallback;
 import org.wso2.siddhi.core.util.SiddhiConstants;
@@ -39,9 +46,11 @@ import org.wso2.siddhi.query.api.exception.DuplicateAnnotationException;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
 import java.lang.reflect.Constructor;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Stream Junction is the place where streams are collected and distributed. There will be an Stream Junction per
@@ -56,8 +65,13 @@ public class StreamJunction {
     private int bufferSize;
     private List<Receiver> receivers = new CopyOnWriteArrayList<Receiver>();
     private List<Publisher> publishers = new CopyOnWriteArrayList<Publisher>();
+    private Publisher inputPublisher;
     private ExecutorService executorService;
     private Boolean async = null;
+    private String waitStrategyType = SiddhiConstants.WAIT_STRATEGY_BLOCKING;
+    private long waitTimeout = SiddhiConstants.DEFAULT_WAIT_TIMEOUT;
+    private String producerTypeHint = SiddhiConstants.PRODUCER_TYPE_MULTI;
+    private ProducerType producerType = ProducerType.MULTI;
     private Disruptor<Event> disruptor;
     private RingBuffer<Event> ringBuffer;
     private ThroughputTracker throughputTracker = null;
@@ -92,6 +106,30 @@ public class StreamJunction {
                 if (bufferSizeString != null) {
                     this.bufferSize = Integer.parseInt(bufferSizeString);
                 }
+                String waitStrategyString = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_WAIT_STRATEGY);
+                if (waitStrategyString != null) {
+                    this.waitStrategyType = waitStrategyString.toLowerCase();
+                    // Validate at creation time rather than at start
+                    createWaitStrategy();
+                }
+                String waitTimeoutString = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_WAIT_TIMEOUT);
+                if (waitTimeoutString != null) {
+                    this.waitTimeout = Long.parseLong(waitTimeoutString);
+                }
+                String producerTypeString = annotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_PRODUCER_TYPE);
+                if (producerTypeString != null) {
+                    producerTypeHint = producerTypeString.toLowerCase();
+                    if (!producerTypeHint.equals(SiddhiConstants.PRODUCER_TYPE_SINGLE) &&
+                            !producerTypeHint.equals(SiddhiConstants.PRODUCER_TYPE_MULTI) &&
+                            !producerTypeHint.equals(SiddhiConstants.PRODUCER_TYPE_AUTO)) {
+                        throw new SiddhiAppCreationException("Unsupported " +
+                                SiddhiConstants.ANNOTATION_ELEMENT_PRODUCER_TYPE + " '" + producerTypeString +
+                                "' defined at @" + SiddhiConstants.ANNOTATION_ASYNC + " of stream " +
+                                streamDefinition.getId() + ", supported types are '" +
+                                SiddhiConstants.PRODUCER_TYPE_SINGLE + "', '" + SiddhiConstants.PRODUCER_TYPE_MULTI +
+                                "' and '" + SiddhiConstants.PRODUCER_TYPE_AUTO + "'");
+                    }
+                }
             }
 
         } catch (DuplicateAnnotationException e) {
@@ -106,18 +144,28 @@ public class StreamJunction {
         }
         ComplexEvent complexEventList = complexEvent;
         if (disruptor != null) {
+            int messageCount = 0;
             while (complexEventList != null) {
-                if (throughputTracker != null) {
-                    throughputTracker.eventIn();
-                }
-                long sequenceNo = ringBuffer.next();
+                messageCount++;
+                complexEventList = complexEventList.getNext();
+            }
+            if (throughputTracker != null) {
+                throughputTracker.eventsIn(messageCount);
+            }
+            complexEventList = complexEvent;
+            while (messageCount > 0) {
+                int batchSize = Math.min(messageCount, bufferSize);
+                long hi = ringBuffer.next(batchSize);
+                long lo = hi - (batchSize - 1);
                 try {
-                    Event existingEvent = ringBuffer.get(sequenceNo);
-                    existingEvent.copyFrom(complexEventList);
+                    for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                        ringBuffer.get(sequenceNo).copyFrom(complexEventList);
+                        complexEventList = complexEventList.getNext();
+                    }
                 } finally {
-                    ringBuffer.publish(sequenceNo);
+                    ringBuffer.publish(lo, hi);
                 }
-                complexEventList = complexEventList.getNext();
+                messageCount -= batchSize;
             }
         } else {
             if (throughputTracker != null) {
@@ -164,13 +212,18 @@ public class StreamJunction {
             log.trace("Event is received by streamJunction " + this);
         }
         if (disruptor != null) {
-            for (Event event : events) {   // Todo : optimize for arrays
-                long sequenceNo = ringBuffer.next();
+            // Claim and publish contiguous ranges so handlers receive them as one batch
+            int index = 0;
+            while (index < events.length) {
+                int batchSize = Math.min(events.length - index, bufferSize);
+                long hi = ringBuffer.next(batchSize);
+                long lo = hi - (batchSize - 1);
                 try {
-                    Event existingEvent = ringBuffer.get(sequenceNo);
-                    existingEvent.copyFrom(event);
+                    for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                        ringBuffer.get(sequenceNo).copyFrom(events[index++]);
+                    }
                 } finally {
-                    ringBuffer.publish(sequenceNo);
+                    ringBuffer.publish(lo, hi);
                 }
             }
         } else {
@@ -181,18 +234,27 @@ public class StreamJunction {
     }
 
     private void sendEvent(List<Event> events) {
+        if (throughputTracker != null) {
+            throughputTracker.eventsIn(events.size());
+        }
         if (isTraceEnabled) {
             log.trace("Event is received by streamJunction " + this);
         }
         if (disruptor != null) {
-            for (Event event : events) {   // Todo : optimize for arrays
-                long sequenceNo = ringBuffer.next();
+            Iterator<Event> iterator = events.iterator();
+            int remaining = events.size();
+            while (remaining > 0) {
+                int batchSize = Math.min(remaining, bufferSize);
+                long hi = ringBuffer.next(batchSize);
+                long lo = hi - (batchSize - 1);
                 try {
-                    Event existingEvent = ringBuffer.get(sequenceNo);
-                    existingEvent.copyFrom(event);
+                    for (long sequenceNo = lo; sequenceNo <= hi; sequenceNo++) {
+                        ringBuffer.get(sequenceNo).copyFrom(iterator.next());
+                    }
                 } finally {
-                    ringBuffer.publish(sequenceNo);
+                    ringBuffer.publish(lo, hi);
                 }
+                remaining -= batchSize;
             }
         } else {
             for (Receiver receiver : receivers) {
@@ -234,10 +296,10 @@ public class StreamJunction {
         if (!receivers.isEmpty() && async) {
             for (Constructor constructor : Disruptor.class.getConstructors()) {
                 if (constructor.getParameterTypes().length == 5) {      // If new disruptor classes available
-                    ProducerType producerType = ProducerType.MULTI;
+                    producerType = resolveProducerType();
                     disruptor = new Disruptor<Event>(new SiddhiEventFactory(streamDefinition.getAttributeList().size()),
                                                      bufferSize, executorService, producerType,
-                                                     new BlockingWaitStrategy());
+                                                     createWaitStrategy());
                     disruptor.handleExceptionsWith(siddhiAppContext.getDisruptorExceptionHandler());
                     break;
                 }
@@ -260,6 +322,52 @@ public class StreamJunction {
         }
     }
 
+    /**
+     * Resolve the producer type of the disruptor. Single producer mode is used when it is explicitly requested, or
+     * when 'auto' is requested and the only {@link Publisher} of this junction is the one of its
+     * {@link org.wso2.siddhi.core.stream.input.InputHandler}. As input handlers are cached per stream, no other
+     * publisher can be added once the junction has started; in any other case 'auto' falls back to multi producer
+     * mode, as queries, partitions and triggers may publish to the junction from other threads. In single producer
+     * mode, the publisher should be fed by one thread at a time.
+     *
+     * @return producer type to be used by the disruptor
+     */
+    private ProducerType resolveProducerType() {
+        switch (producerTypeHint) {
+            case SiddhiConstants.PRODUCER_TYPE_SINGLE:
+                return ProducerType.SINGLE;
+            case SiddhiConstants.PRODUCER_TYPE_AUTO:
+                return publishers.size() == 1 && publishers.get(0) == inputPublisher ?
+                        ProducerType.SINGLE : ProducerType.MULTI;
+            default:
+                return ProducerType.MULTI;
+        }
+    }
+
+    private WaitStrategy createWaitStrategy() {
+        switch (waitStrategyType) {
+            case SiddhiConstants.WAIT_STRATEGY_BLOCKING:
+                return new BlockingWaitStrategy();
+            case SiddhiConstants.WAIT_STRATEGY_SLEEPING:
+                return new SleepingWaitStrategy();
+            case SiddhiConstants.WAIT_STRATEGY_YIELDING:
+                return new YieldingWaitStrategy();
+            case SiddhiConstants.WAIT_STRATEGY_BUSY_SPIN:
+                return new BusySpinWaitStrategy();
+            case SiddhiConstants.WAIT_STRATEGY_TIMEOUT_BLOCKING:
+                return new TimeoutBlockingWaitStrategy(waitTimeout, TimeUnit.MILLISECONDS);
+            default:
+                throw new SiddhiAppCreationException("Unsupported " +
+                        SiddhiConstants.ANNOTATION_ELEMENT_WAIT_STRATEGY + " '" + waitStrategyType +
+                        "' defined at @" + SiddhiConstants.ANNOTATION_ASYNC + " of stream " +
+                        streamDefinition.getId() + ", supported strategies are '" +
+                        SiddhiConstants.WAIT_STRATEGY_BLOCKING + "', '" + SiddhiConstants.WAIT_STRATEGY_SLEEPING +
+                        "', '" + SiddhiConstants.WAIT_STRATEGY_YIELDING + "', '" +
+                        SiddhiConstants.WAIT_STRATEGY_BUSY_SPIN + "' and '" +
+                        SiddhiConstants.WAIT_STRATEGY_TIMEOUT_BLOCKING + "'");
+        }
+    }
+
     public synchronized void stopProcessing() {
         if (disruptor != null) {
             disruptor.shutdown();
@@ -273,12 +381,30 @@ public class StreamJunction {
     }
 
     public synchronized Publisher constructPublisher() {
+        if (disruptor != null && producerType == ProducerType.SINGLE && !publishers.isEmpty()) {
+            throw new SiddhiAppRuntimeException("Cannot add another publisher to stream " +
+                    streamDefinition.getId() + " as it is already processing in single producer mode");
+        }
         Publisher publisher = new Publisher();
         publisher.setStreamJunction(this);
         publishers.add(publisher);
         return publisher;
     }
 
+    /**
+     * Construct the publisher of the {@link org.wso2.siddhi.core.stream.input.InputHandler} of this stream,
+     * replacing the publisher of an earlier, disconnected input handler.
+     *
+     * @return publisher to be used by the input handler
+     */
+    public synchronized Publisher constructInputPublisher() {
+        if (inputPublisher != null) {
+            publishers.remove(inputPublisher);
+        }
+        inputPublisher = constructPublisher();
+        return inputPublisher;
+    }
+
     public synchronized void subscribe(Receiver receiver) {
         // To have reverse order at the sequence/pattern processors.
         if (!receivers.contains(receiver)) {
@@ -67,7 +67,7 @@ public class InputManager {
         if (streamJunction == null) {
             throw new DefinitionNotExistException("Stream with stream ID " + streamId + " has not been defined");
         }
-        inputDistributor.addInputProcessor(streamJunctionMap.get(streamId).constructPublisher());
+        inputDistributor.addInputProcessor(streamJunction.constructInputPublisher());
         inputHandlerMap.put(streamId, inputHandler);
         return inputHandler;
     }
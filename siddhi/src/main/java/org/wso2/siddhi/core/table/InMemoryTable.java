@@ -27,6 +27,9 @@ import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.exception.ConnectionUnavailableException;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.table.holder.EventHolder;
+import org.wso2.siddhi.core.table.holder.IndexEventHolder;
+import org.wso2.siddhi.core.table.holder.IndexedEventHolder;
+import org.wso2.siddhi.core.table.holder.SpillingEventHolder;
 import org.wso2.siddhi.core.util.collection.AddingStreamEventExtractor;
 import org.wso2.siddhi.core.util.collection.UpdateAttributeMapper;
 import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
@@ -35,10 +38,13 @@ import org.wso2.siddhi.core.util.collection.operator.Operator;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.parser.EventHolderPasser;
 import org.wso2.siddhi.core.util.parser.OperatorParser;
-import org.wso2.siddhi.core.util.snapshot.Snapshotable;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshotable;
+import org.wso2.siddhi.core.util.snapshot.StateChanges;
 import org.wso2.siddhi.query.api.definition.TableDefinition;
 import org.wso2.siddhi.query.api.expression.Expression;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,22 +54,35 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * In-memory event table implementation of SiddhiQL.
  */
-public class InMemoryTable extends Table implements Snapshotable {
+public class InMemoryTable extends Table implements IncrementalSnapshotable {
 
     private TableDefinition tableDefinition;
     private StreamEventCloner tableStreamEventCloner;
     private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
     private EventHolder eventHolder;
+    private StreamEventPool storeEventPool;
     private String elementId;
-
+    private boolean primaryKeyRows;
+    private StateChanges stateChanges;
 
     @Override
 public void init(TableDefinition tableDefinition, StreamEventPool storeEventPool,
             StreamEventCloner storeEventCloner, ConfigReader configReader, SiddhiAppContext siddhiAppContext) {
         this.tableDefinition = tableDefinition;
         this.tableStreamEventCloner = storeEventCloner;
+        this.storeEventPool = storeEventPool;
 
         eventHolder = EventHolderPasser.parse(tableDefinition, storeEventPool);
+        // Rows of primary keyed tables are kept by their primary key, as their holders are not serializable, and so
+        // that incremental snapshots only write the changed rows
+        primaryKeyRows = eventHolder instanceof IndexedEventHolder &&
+                ((IndexedEventHolder) eventHolder).getAllPrimaryKeys() != null;
+        if (eventHolder instanceof IndexEventHolder && primaryKeyRows) {
+            stateChanges = new StateChanges("PrimaryKeyRows");
+            ((IndexEventHolder) eventHolder).setPrimaryKeyChanges(stateChanges);
+        } else {
+            stateChanges = new StateChanges();
+        }
 
         if (elementId == null) {
             elementId = "InMemoryTable-" + siddhiAppContext.getElementIdGenerator().createNewId();
@@ -80,6 +99,7 @@ public void init(TableDefinition tableDefinition, StreamEventPool storeEventPool
     public void add(ComplexEventChunk<StreamEvent> addingEventChunk) {
         try {
             readWriteLock.writeLock().lock();
+            stateChanges.markChanged();
             eventHolder.add(addingEventChunk);
         } finally {
             readWriteLock.writeLock().unlock();
@@ -91,6 +111,7 @@ public void init(TableDefinition tableDefinition, StreamEventPool storeEventPool
     public void delete(ComplexEventChunk<StateEvent> deletingEventChunk, CompiledCondition compiledCondition) {
         try {
             readWriteLock.writeLock().lock();
+            stateChanges.markChanged();
             ((Operator) compiledCondition).delete(deletingEventChunk, eventHolder);
         } finally {
             readWriteLock.writeLock().unlock();
@@ -102,6 +123,7 @@ public void init(TableDefinition tableDefinition, StreamEventPool storeEventPool
                        UpdateAttributeMapper[] updateAttributeMappers) {
         try {
             readWriteLock.writeLock().lock();
+            stateChanges.markChanged();
             ((Operator) compiledCondition).update(updatingEventChunk, eventHolder, updateAttributeMappers);
         } finally {
             readWriteLock.writeLock().unlock();
@@ -115,6 +137,7 @@ public void init(TableDefinition tableDefinition, StreamEventPool storeEventPool
                             AddingStreamEventExtractor addingStreamEventExtractor) {
         try {
             readWriteLock.writeLock().lock();
+            stateChanges.markChanged();
             ComplexEventChunk<StreamEvent> failedEvents = ((Operator) compiledCondition).tryUpdate
                     (updateOrAddingEventChunk,
                     eventHolder, updateAttributeMappers, addingStreamEventExtractor);
@@ -150,7 +173,9 @@ public void init(TableDefinition tableDefinition, StreamEventPool storeEventPool
 
     @Override
     protected void destroy() {
-
+        if (eventHolder instanceof SpillingEventHolder) {
+            ((SpillingEventHolder) eventHolder).close();
+        }
     }
 
     @Override
@@ -177,13 +202,73 @@ public void init(TableDefinition tableDefinition, StreamEventPool storeEventPool
     @Override
     public Map<String, Object> currentState() {
         Map<String, Object> state = new HashMap<>();
-        state.put("EventHolder", eventHolder);
+        if (primaryKeyRows) {
+            IndexedEventHolder indexedEventHolder = (IndexedEventHolder) eventHolder;
+            int primaryKeyPosition = indexedEventHolder.getPrimaryKeyAttributePosition();
+            HashMap<Object, Object[]> rows = new HashMap<>();
+            try {
+                readWriteLock.readLock().lock();
+                for (StreamEvent streamEvent : indexedEventHolder.getAllEvents()) {
+                    rows.put(streamEvent.getOutputData()[primaryKeyPosition], streamEvent.getOutputData());
+                }
+            } finally {
+                readWriteLock.readLock().unlock();
+            }
+            state.put("PrimaryKeyRows", rows);
+        } else if (eventHolder instanceof IndexedEventHolder) {
+            // Indexed holders are not serializable, hence their rows are kept instead
+            ArrayList<Object[]> rows = new ArrayList<>();
+            try {
+                readWriteLock.readLock().lock();
+                for (StreamEvent streamEvent : ((IndexedEventHolder) eventHolder).getAllEvents()) {
+                    rows.add(streamEvent.getOutputData());
+                }
+            } finally {
+                readWriteLock.readLock().unlock();
+            }
+            state.put("Rows", rows);
+        } else {
+            state.put("EventHolder", eventHolder);
+        }
         return state;
     }
 
     @Override
     public void restoreState(Map<String, Object> state) {
-        eventHolder = (EventHolder) state.get("EventHolder");
+        if (state == null) {
+            return;
+        }
+        Map<?, ?> keyedRows = (Map<?, ?>) state.get("PrimaryKeyRows");
+        Collection<?> rows = keyedRows != null ? keyedRows.values() : (Collection<?>) state.get("Rows");
+        if (rows != null) {
+            IndexedEventHolder indexedEventHolder = (IndexedEventHolder) eventHolder;
+            try {
+                readWriteLock.writeLock().lock();
+                indexedEventHolder.deleteAll();
+                for (Object row : rows) {
+                    StreamEvent streamEvent = storeEventPool.borrowEvent();
+                    streamEvent.setOutputData((Object[]) row);
+                    indexedEventHolder.overwrite(streamEvent);
+                }
+            } finally {
+                readWriteLock.writeLock().unlock();
+            }
+        } else {
+            // Tables without indexes, and snapshots taken before the rows of indexed tables were kept, hold the
+            // event holder itself
+            EventHolder restoredEventHolder = (EventHolder) state.get("EventHolder");
+            if (restoredEventHolder != null) {
+                eventHolder = restoredEventHolder;
+                if (primaryKeyRows && eventHolder instanceof IndexEventHolder) {
+                    ((IndexEventHolder) eventHolder).setPrimaryKeyChanges(stateChanges);
+                }
+            }
+        }
+    }
+
+    @Override
+    public StateChanges collectStateChanges() {
+        return stateChanges.collect();
     }
 
     @Override
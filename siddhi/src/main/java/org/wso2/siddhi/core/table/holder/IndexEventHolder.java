@@ -25,12 +25,18 @@ import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.event.stream.converter.StreamEventConverter;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
+import org.wso2.siddhi.core.util.snapshot.StateChanges;
 import org.wso2.siddhi.query.api.expression.condition.Compare;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -38,27 +44,37 @@ import java.util.TreeMap;
 /**
  * EventHolder implementation where events will be indexed and stored. This will offer faster access compared to
  * other EventHolder implementations. User can only add unique events based on a given primary key.
+ * <p>
+ * Each single attribute index is kept in a {@link TreeMap} when it serves range lookups, or else in a
+ * {@link HashMap}. Composite indexes over several attributes are kept in a {@link HashMap} keyed by the list of the
+ * attribute values, and only serve equality lookups on all of their attributes.
  */
 public class IndexEventHolder implements IndexedEventHolder {
 
     private static final Logger log = Logger.getLogger(IndexEventHolder.class);
     private final Map<Object, StreamEvent> primaryKeyData;
-    private final Map<String, TreeMap<Object, Set<StreamEvent>>> indexData;
+    private final Map<String, Map<Object, Set<StreamEvent>>> indexData;
+    private final Map<List<String>, Map<List<Object>, Set<StreamEvent>>> compositeIndexData;
     private StreamEventPool tableStreamEventPool;
     private StreamEventConverter eventConverter;
     private int primaryKeyPosition = -1;
     private String primaryKeyAttribute;
     private Map<String, Integer> indexMetaData;
+    private Map<List<String>, int[]> compositeIndexMetaData;
     private Map<String, Integer> allIndexMetaData = new HashMap<>();
+    private Set<Integer> allIndexedPositions = new HashSet<>();
+    private StateChanges primaryKeyChanges = null;
 
     public IndexEventHolder(StreamEventPool tableStreamEventPool, StreamEventConverter eventConverter,
                             int primaryKeyPosition, String primaryKeyAttribute,
-                            boolean isPrimaryNumeric, Map<String, Integer> indexMetaData) {
+                            boolean isPrimaryNumeric, Map<String, Integer> indexMetaData,
+                            Set<String> rangeIndexes, Map<List<String>, int[]> compositeIndexMetaData) {
         this.tableStreamEventPool = tableStreamEventPool;
         this.eventConverter = eventConverter;
         this.primaryKeyPosition = primaryKeyPosition;
         this.primaryKeyAttribute = primaryKeyAttribute;
         this.indexMetaData = indexMetaData;
+        this.compositeIndexMetaData = compositeIndexMetaData;
 
         if (primaryKeyAttribute != null) {
             if (isPrimaryNumeric) {
@@ -71,14 +87,30 @@ public class IndexEventHolder implements IndexedEventHolder {
             primaryKeyData = null;
         }
         if (indexMetaData.size() > 0) {
-            indexData = new HashMap<String, TreeMap<Object, Set<StreamEvent>>>();
+            indexData = new HashMap<String, Map<Object, Set<StreamEvent>>>();
             for (String indexAttributeName : indexMetaData.keySet()) {
-                indexData.put(indexAttributeName, new TreeMap<Object, Set<StreamEvent>>());
+                if (rangeIndexes.contains(indexAttributeName)) {
+                    indexData.put(indexAttributeName, new TreeMap<Object, Set<StreamEvent>>());
+                } else {
+                    indexData.put(indexAttributeName, new HashMap<Object, Set<StreamEvent>>());
+                }
             }
             allIndexMetaData.putAll(indexMetaData);
         } else {
             indexData = null;
         }
+        allIndexedPositions.addAll(allIndexMetaData.values());
+        if (compositeIndexMetaData.size() > 0) {
+            compositeIndexData = new HashMap<List<String>, Map<List<Object>, Set<StreamEvent>>>();
+            for (Map.Entry<List<String>, int[]> compositeIndexEntry : compositeIndexMetaData.entrySet()) {
+                compositeIndexData.put(compositeIndexEntry.getKey(), new HashMap<List<Object>, Set<StreamEvent>>());
+                for (int position : compositeIndexEntry.getValue()) {
+                    allIndexedPositions.add(position);
+                }
+            }
+        } else {
+            compositeIndexData = null;
+        }
 
     }
 
@@ -86,6 +118,30 @@ public class IndexEventHolder implements IndexedEventHolder {
         return primaryKeyAttribute;
     }
 
+    /**
+     * Marks the primary keys of the events added, updated and deleted from here on as changed, so that incremental
+     * snapshots of the table only hold the changed rows.
+     *
+     * @param primaryKeyChanges changes to mark the primary keys on
+     */
+    public void setPrimaryKeyChanges(StateChanges primaryKeyChanges) {
+        if (primaryKeyData != null) {
+            this.primaryKeyChanges = primaryKeyChanges;
+        }
+    }
+
+    @Override
+    public void eventUpdated(StreamEvent streamEvent) {
+        // found rows are the rows held, hence only the change has to be recorded
+        markChanged(streamEvent);
+    }
+
+    private void markChanged(StreamEvent streamEvent) {
+        if (primaryKeyChanges != null) {
+            primaryKeyChanges.markChanged(streamEvent.getOutputData()[primaryKeyPosition]);
+        }
+    }
+
     @Override
     public void add(ComplexEventChunk<StreamEvent> addingEventChunk) {
         addingEventChunk.reset();
@@ -106,23 +162,11 @@ public class IndexEventHolder implements IndexedEventHolder {
                 log.error("Drooping event :" + streamEvent + ", as there is already an event stored with primary key " +
                                   "'" +
                                   streamEvent.getOutputData()[primaryKeyPosition] + "'");
+                return;
             }
         }
 
-        if (indexData != null) {
-            for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
-                TreeMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
-                Object key = streamEvent.getOutputData()[indexEntry.getValue()];
-                Set<StreamEvent> values = indexMap.get(key);
-                if (values == null) {
-                    values = new HashSet<StreamEvent>();
-                    values.add(streamEvent);
-                    indexMap.put(streamEvent.getOutputData()[indexEntry.getValue()], values);
-                } else {
-                    values.add(streamEvent);
-                }
-            }
-        }
+        addToIndexes(streamEvent);
 
     }
 
@@ -133,27 +177,10 @@ public class IndexEventHolder implements IndexedEventHolder {
             deletedEvent = primaryKeyData.put(streamEvent.getOutputData()[primaryKeyPosition], streamEvent);
         }
 
-        if (indexData != null) {
-            for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
-                TreeMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
-                Object key = streamEvent.getOutputData()[indexEntry.getValue()];
-                if (deletedEvent != null) {
-                    Set<StreamEvent> values = indexMap.get(key);
-                    values.remove(deletedEvent);
-                    if (values.size() == 0) {
-                        indexMap.remove(key);
-                    }
-                }
-                Set<StreamEvent> values = indexMap.get(key);
-                if (values == null) {
-                    values = new HashSet<StreamEvent>();
-                    values.add(streamEvent);
-                    indexMap.put(streamEvent.getOutputData()[indexEntry.getValue()], values);
-                } else {
-                    values.add(streamEvent);
-                }
-            }
+        if (deletedEvent != null) {
+            deleteFromIndexes(deletedEvent);
         }
+        addToIndexes(streamEvent);
     }
 
     @Override
@@ -177,7 +204,12 @@ public class IndexEventHolder implements IndexedEventHolder {
 
     @Override
     public boolean isAttributeIndexed(int position) {
-        return allIndexMetaData.containsValue(position);
+        return allIndexedPositions.contains(position);
+    }
+
+    @Override
+    public Set<List<String>> getCompositeIndexes() {
+        return compositeIndexMetaData.keySet();
     }
 
     @Override
@@ -185,17 +217,24 @@ public class IndexEventHolder implements IndexedEventHolder {
         if (primaryKeyData != null) {
             return primaryKeyData.values();
         } else if (indexData != null) {
-            HashSet<StreamEvent> resultEventSet = new HashSet<StreamEvent>();
-            Iterator<TreeMap<Object, Set<StreamEvent>>> iterator = indexData.values().iterator();
+            Set<StreamEvent> resultEventSet = newEventSet();
+            Iterator<Map<Object, Set<StreamEvent>>> iterator = indexData.values().iterator();
             if (iterator.hasNext()) {
-                TreeMap<Object, Set<StreamEvent>> aIndexData = iterator.next();
+                Map<Object, Set<StreamEvent>> aIndexData = iterator.next();
                 for (Set<StreamEvent> streamEvents : aIndexData.values()) {
                     resultEventSet.addAll(streamEvents);
                 }
             }
             return resultEventSet;
+        } else if (compositeIndexData != null) {
+            Set<StreamEvent> resultEventSet = newEventSet();
+            Map<List<Object>, Set<StreamEvent>> aIndexData = compositeIndexData.values().iterator().next();
+            for (Set<StreamEvent> streamEvents : aIndexData.values()) {
+                resultEventSet.addAll(streamEvents);
+            }
+            return resultEventSet;
         } else {
-            return new HashSet<StreamEvent>();
+            return newEventSet();
         }
     }
 
@@ -204,7 +243,7 @@ public class IndexEventHolder implements IndexedEventHolder {
 
         if (primaryKeyData != null && attribute.equals(primaryKeyAttribute)) {
             StreamEvent resultEvent;
-            HashSet<StreamEvent> resultEventSet;
+            Set<StreamEvent> resultEventSet;
 
             switch (operator) {
                 case LESS_THAN:
@@ -216,7 +255,7 @@ public class IndexEventHolder implements IndexedEventHolder {
                 case GREATER_THAN_EQUAL:
                     return ((TreeMap<Object, StreamEvent>) primaryKeyData).tailMap(value, true).values();
                 case EQUAL:
-                    resultEventSet = new HashSet<StreamEvent>();
+                    resultEventSet = newEventSet();
                     resultEvent = primaryKeyData.get(value);
                     if (resultEvent != null) {
                         resultEventSet.add(resultEvent);
@@ -224,9 +263,10 @@ public class IndexEventHolder implements IndexedEventHolder {
                     return resultEventSet;
                 case NOT_EQUAL:
                     if (primaryKeyData.size() > 0) {
-                        resultEventSet = new HashSet<StreamEvent>(primaryKeyData.values());
+                        resultEventSet = newEventSet();
+                        resultEventSet.addAll(primaryKeyData.values());
                     } else {
-                        return new HashSet<StreamEvent>();
+                        return newEventSet();
                     }
                     resultEvent = primaryKeyData.get(value);
                     if (resultEvent != null) {
@@ -235,28 +275,16 @@ public class IndexEventHolder implements IndexedEventHolder {
                     return resultEventSet;
             }
         } else {
-            HashSet<StreamEvent> resultEventSet = new HashSet<StreamEvent>();
-            TreeMap<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
+            Set<StreamEvent> resultEventSet = newEventSet();
+            Map<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
 
             Set<StreamEvent> resultEvents;
             switch (operator) {
                 case LESS_THAN:
-                    for (Set<StreamEvent> eventSet : currentIndexedData.headMap(value, false).values()) {
-                        resultEventSet.addAll(eventSet);
-                    }
-                    return resultEventSet;
                 case GREATER_THAN:
-                    for (Set<StreamEvent> eventSet : currentIndexedData.tailMap(value, false).values()) {
-                        resultEventSet.addAll(eventSet);
-                    }
-                    return resultEventSet;
                 case LESS_THAN_EQUAL:
-                    for (Set<StreamEvent> eventSet : currentIndexedData.headMap(value, true).values()) {
-                        resultEventSet.addAll(eventSet);
-                    }
-                    return resultEventSet;
                 case GREATER_THAN_EQUAL:
-                    for (Set<StreamEvent> eventSet : currentIndexedData.tailMap(value, true).values()) {
+                    for (Set<StreamEvent> eventSet : getIndexRange(currentIndexedData, operator, value).values()) {
                         resultEventSet.addAll(eventSet);
                     }
                     return resultEventSet;
@@ -268,12 +296,12 @@ public class IndexEventHolder implements IndexedEventHolder {
                     return resultEventSet;
                 case NOT_EQUAL:
                     if (currentIndexedData.size() > 0) {
-                        resultEventSet = new HashSet<StreamEvent>();
+                        resultEventSet = newEventSet();
                         for (Set<StreamEvent> eventSet : currentIndexedData.values()) {
                             resultEventSet.addAll(eventSet);
                         }
                     } else {
-                        resultEventSet = new HashSet<StreamEvent>();
+                        resultEventSet = newEventSet();
                     }
 
                     resultEvents = currentIndexedData.get(value);
@@ -287,13 +315,35 @@ public class IndexEventHolder implements IndexedEventHolder {
                 .getName());
     }
 
+    @Override
+    public Collection<StreamEvent> findEvents(List<String> compositeIndex, Object[] values) {
+        Set<StreamEvent> resultEvents = compositeIndexData.get(compositeIndex).get(Arrays.asList(values));
+        if (resultEvents != null) {
+            Set<StreamEvent> resultEventSet = newEventSet();
+            resultEventSet.addAll(resultEvents);
+            return resultEventSet;
+        } else {
+            return newEventSet();
+        }
+    }
+
     @Override
     public void deleteAll() {
         if (primaryKeyData != null) {
+            if (primaryKeyChanges != null) {
+                for (Object primaryKey : primaryKeyData.keySet()) {
+                    primaryKeyChanges.markChanged(primaryKey);
+                }
+            }
             primaryKeyData.clear();
         }
         if (indexData != null) {
-            for (TreeMap<Object, Set<StreamEvent>> aIndexedData : indexData.values()) {
+            for (Map<Object, Set<StreamEvent>> aIndexedData : indexData.values()) {
+                aIndexedData.clear();
+            }
+        }
+        if (compositeIndexData != null) {
+            for (Map<List<Object>, Set<StreamEvent>> aIndexedData : compositeIndexData.values()) {
                 aIndexedData.clear();
             }
         }
@@ -304,10 +354,10 @@ public class IndexEventHolder implements IndexedEventHolder {
         for (StreamEvent streamEvent : storeEventSet) {
             if (primaryKeyData != null) {
                 StreamEvent deletedEvent = primaryKeyData.remove(streamEvent.getOutputData()[primaryKeyPosition]);
-                if (indexData != null) {
+                if (deletedEvent != null) {
                     deleteFromIndexes(deletedEvent);
                 }
-            } else if (indexData != null) {
+            } else {
                 deleteFromIndexes(streamEvent);
             }
         }
@@ -369,52 +419,28 @@ public class IndexEventHolder implements IndexedEventHolder {
                     return;
             }
         } else {
+            Map<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
             switch (operator) {
 
                 case LESS_THAN:
-                    for (Iterator<Set<StreamEvent>> iterator = indexData.get(attribute).
-                            headMap(value, false).values().iterator();
-                         iterator.hasNext(); ) {
-                        Set<StreamEvent> deletedEventSet = iterator.next();
-                        deleteFromIndexesAndPrimaryKey(attribute, deletedEventSet);
-                        iterator.remove();
-                    }
-                    return;
                 case GREATER_THAN:
-                    for (Iterator<Set<StreamEvent>> iterator = indexData.get(attribute).
-                            tailMap(value, false).values().iterator();
-                         iterator.hasNext(); ) {
-                        Set<StreamEvent> deletedEventSet = iterator.next();
-                        deleteFromIndexesAndPrimaryKey(attribute, deletedEventSet);
-                        iterator.remove();
-                    }
-                    return;
                 case LESS_THAN_EQUAL:
-                    for (Iterator<Set<StreamEvent>> iterator = indexData.get(attribute).
-                            headMap(value, true).values().iterator();
-                         iterator.hasNext(); ) {
-                        Set<StreamEvent> deletedEventSet = iterator.next();
-                        deleteFromIndexesAndPrimaryKey(attribute, deletedEventSet);
-                        iterator.remove();
-                    }
-                    return;
                 case GREATER_THAN_EQUAL:
-                    for (Iterator<Set<StreamEvent>> iterator = indexData.get(attribute).
-                            tailMap(value, true).values().iterator();
-                         iterator.hasNext(); ) {
-                        Set<StreamEvent> deletedEventSet = iterator.next();
+                    Map<Object, Set<StreamEvent>> deletedEventSets = getIndexRange(currentIndexedData, operator,
+                            value);
+                    for (Set<StreamEvent> deletedEventSet : deletedEventSets.values()) {
                         deleteFromIndexesAndPrimaryKey(attribute, deletedEventSet);
-                        iterator.remove();
                     }
+                    currentIndexedData.keySet().removeAll(new ArrayList<Object>(deletedEventSets.keySet()));
                     return;
                 case EQUAL:
-                    Set<StreamEvent> deletedEventSet = indexData.get(attribute).remove(value);
+                    Set<StreamEvent> deletedEventSet = currentIndexedData.remove(value);
                     if (deletedEventSet != null && deletedEventSet.size() > 0) {
                         deleteFromIndexesAndPrimaryKey(attribute, deletedEventSet);
                     }
                     return;
                 case NOT_EQUAL:
-                    Set<StreamEvent> matchingEventSet = indexData.get(attribute).get(value);
+                    Set<StreamEvent> matchingEventSet = currentIndexedData.get(value);
                     deleteAll();
                     for (StreamEvent matchingEvent : matchingEventSet) {
                         add(matchingEvent);
@@ -426,6 +452,14 @@ public class IndexEventHolder implements IndexedEventHolder {
                 .getName());
     }
 
+    @Override
+    public void delete(List<String> compositeIndex, Object[] values) {
+        Set<StreamEvent> deletedEventSet = compositeIndexData.get(compositeIndex).remove(Arrays.asList(values));
+        if (deletedEventSet != null) {
+            deleteFromIndexesAndPrimaryKey(compositeIndex, deletedEventSet);
+        }
+    }
+
     @Override
     public boolean containsEventSet(String attribute, Compare.Operator operator, Object value) {
         if (primaryKeyData != null && attribute.equals(primaryKeyAttribute)) {
@@ -445,18 +479,15 @@ public class IndexEventHolder implements IndexedEventHolder {
                     return primaryKeyData.size() > 1;
             }
         } else {
-            TreeMap<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
+            Map<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
 
             switch (operator) {
 
                 case LESS_THAN:
-                    return currentIndexedData.lowerKey(value) != null;
                 case GREATER_THAN:
-                    return currentIndexedData.higherKey(value) != null;
                 case LESS_THAN_EQUAL:
-                    return currentIndexedData.ceilingKey(value) != null;
                 case GREATER_THAN_EQUAL:
-                    return currentIndexedData.floorKey(value) != null;
+                    return !getIndexRange(currentIndexedData, operator, value).isEmpty();
                 case EQUAL:
                     return currentIndexedData.get(value) != null;
                 case NOT_EQUAL:
@@ -467,19 +498,129 @@ public class IndexEventHolder implements IndexedEventHolder {
                 .getName());
     }
 
-    private void deleteFromIndexesAndPrimaryKey(String currentAttribute, Set<StreamEvent> deletedEventSet) {
+    @Override
+    public boolean containsEventSet(List<String> compositeIndex, Object[] values) {
+        return compositeIndexData.get(compositeIndex).containsKey(Arrays.asList(values));
+    }
+
+    /**
+     * Returns the part of the given index matching a range condition, as a view for tree indexes and as a copy for
+     * hash indexes, which are scanned.
+     */
+    private Map<Object, Set<StreamEvent>> getIndexRange(Map<Object, Set<StreamEvent>> indexedData,
+                                                        Compare.Operator operator, Object value) {
+        if (indexedData instanceof TreeMap) {
+            TreeMap<Object, Set<StreamEvent>> treeIndexedData = (TreeMap<Object, Set<StreamEvent>>) indexedData;
+            switch (operator) {
+                case LESS_THAN:
+                    return treeIndexedData.headMap(value, false);
+                case GREATER_THAN:
+                    return treeIndexedData.tailMap(value, false);
+                case LESS_THAN_EQUAL:
+                    return treeIndexedData.headMap(value, true);
+                case GREATER_THAN_EQUAL:
+                    return treeIndexedData.tailMap(value, true);
+            }
+        } else {
+            Map<Object, Set<StreamEvent>> resultIndexedData = new HashMap<Object, Set<StreamEvent>>();
+            for (Map.Entry<Object, Set<StreamEvent>> entry : indexedData.entrySet()) {
+                if (entry.getKey() == null) {
+                    continue;
+                }
+                int comparison = compare(entry.getKey(), value);
+                if ((operator == Compare.Operator.LESS_THAN && comparison < 0) ||
+                        (operator == Compare.Operator.GREATER_THAN && comparison > 0) ||
+                        (operator == Compare.Operator.LESS_THAN_EQUAL && comparison <= 0) ||
+                        (operator == Compare.Operator.GREATER_THAN_EQUAL && comparison >= 0)) {
+                    resultIndexedData.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return resultIndexedData;
+        }
+        throw new OperationNotSupportedException(operator + " not supported for '" + value + "' by " + getClass()
+                .getName());
+    }
+
+    // Keys of an index are values of the same attribute, hence they are comparable with each other
+    @SuppressWarnings("unchecked")
+    private static int compare(Object key, Object value) {
+        return ((Comparable<Object>) key).compareTo(value);
+    }
+
+    private void addToIndexes(StreamEvent streamEvent) {
+        markChanged(streamEvent);
+        if (indexData != null) {
+            for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
+                addToIndex(indexData.get(indexEntry.getKey()), streamEvent.getOutputData()[indexEntry.getValue()],
+                        streamEvent);
+            }
+        }
+        if (compositeIndexData != null) {
+            for (Map.Entry<List<String>, int[]> compositeIndexEntry : compositeIndexMetaData.entrySet()) {
+                addToIndex(compositeIndexData.get(compositeIndexEntry.getKey()),
+                        getCompositeKey(streamEvent, compositeIndexEntry.getValue()), streamEvent);
+            }
+        }
+    }
+
+    private <K> void addToIndex(Map<K, Set<StreamEvent>> indexMap, K key, StreamEvent streamEvent) {
+        Set<StreamEvent> values = indexMap.get(key);
+        if (values == null) {
+            values = newEventSet();
+            values.add(streamEvent);
+            indexMap.put(key, values);
+        } else {
+            values.add(streamEvent);
+        }
+    }
+
+    private <K> void deleteFromIndex(Map<K, Set<StreamEvent>> indexMap, K key, StreamEvent streamEvent) {
+        Set<StreamEvent> values = indexMap.get(key);
+        values.remove(streamEvent);
+        if (values.size() == 0) {
+            indexMap.remove(key);
+        }
+    }
+
+    /**
+     * Creates a set of events compared by their identity, as {@link StreamEvent} equality is based on its data,
+     * which can be updated in place.
+     */
+    private static Set<StreamEvent> newEventSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<StreamEvent, Boolean>());
+    }
+
+    private List<Object> getCompositeKey(StreamEvent streamEvent, int[] positions) {
+        Object[] values = new Object[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            values[i] = streamEvent.getOutputData()[positions[i]];
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * Deletes the given events from the primary key and from all the indexes other than the given index, which is
+     * either an attribute name or a composite index.
+     */
+    private void deleteFromIndexesAndPrimaryKey(Object currentIndex, Set<StreamEvent> deletedEventSet) {
         for (StreamEvent deletedEvent : deletedEventSet) {
             if (primaryKeyData != null) {
                 primaryKeyData.remove(deletedEvent.getOutputData()[primaryKeyPosition]);
+                markChanged(deletedEvent);
             }
-            for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
-                if (!currentAttribute.equals(indexEntry.getKey())) {
-                    TreeMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
-                    Object key = deletedEvent.getOutputData()[indexEntry.getValue()];
-                    Set<StreamEvent> values = indexMap.get(key);
-                    values.remove(deletedEvent);
-                    if (values.size() == 0) {
-                        indexMap.remove(key);
+            if (indexData != null) {
+                for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
+                    if (!currentIndex.equals(indexEntry.getKey())) {
+                        deleteFromIndex(indexData.get(indexEntry.getKey()),
+                                deletedEvent.getOutputData()[indexEntry.getValue()], deletedEvent);
+                    }
+                }
+            }
+            if (compositeIndexData != null) {
+                for (Map.Entry<List<String>, int[]> compositeIndexEntry : compositeIndexMetaData.entrySet()) {
+                    if (!currentIndex.equals(compositeIndexEntry.getKey())) {
+                        deleteFromIndex(compositeIndexData.get(compositeIndexEntry.getKey()),
+                                getCompositeKey(deletedEvent, compositeIndexEntry.getValue()), deletedEvent);
                     }
                 }
             }
@@ -487,15 +628,17 @@ public class IndexEventHolder implements IndexedEventHolder {
     }
 
     private void deleteFromIndexes(StreamEvent toDeleteEvent) {
-        if (indexMetaData != null) {
+        markChanged(toDeleteEvent);
+        if (indexData != null) {
             for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
-                TreeMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
-                Object key = toDeleteEvent.getOutputData()[indexEntry.getValue()];
-                Set<StreamEvent> values = indexMap.get(key);
-                values.remove(toDeleteEvent);
-                if (values.size() == 0) {
-                    indexMap.remove(key);
-                }
+                deleteFromIndex(indexData.get(indexEntry.getKey()),
+                        toDeleteEvent.getOutputData()[indexEntry.getValue()], toDeleteEvent);
+            }
+        }
+        if (compositeIndexData != null) {
+            for (Map.Entry<List<String>, int[]> compositeIndexEntry : compositeIndexMetaData.entrySet()) {
+                deleteFromIndex(compositeIndexData.get(compositeIndexEntry.getKey()),
+                        getCompositeKey(toDeleteEvent, compositeIndexEntry.getValue()), toDeleteEvent);
             }
         }
     }
@@ -22,6 +22,7 @@ import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.query.api.expression.condition.Compare;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -37,20 +38,42 @@ public interface IndexedEventHolder extends EventHolder {
 
     Collection<StreamEvent> findEvents(String attribute, Compare.Operator operator, Object value);
 
+    Collection<StreamEvent> findEvents(List<String> compositeIndex, Object[] values);
+
     void deleteAll();
 
     void deleteAll(Collection<StreamEvent> storeEventSet);
 
     void delete(String attribute, Compare.Operator operator, Object value);
 
+    void delete(List<String> compositeIndex, Object[] values);
+
     boolean containsEventSet(String attribute, Compare.Operator operator, Object value);
 
+    boolean containsEventSet(List<String> compositeIndex, Object[] values);
+
     void overwrite(StreamEvent streamEvent);
 
+    /**
+     * Informs the holder that the attributes of a row it returned were updated in place, so that the holder can
+     * store the new values.
+     *
+     * @param streamEvent the updated row
+     */
+    void eventUpdated(StreamEvent streamEvent);
+
     Set<Object> getAllPrimaryKeys();
 
     int getPrimaryKeyAttributePosition();
 
     String getPrimaryKeyAttribute();
 
+    /**
+     * Returns the composite indexes, each given by the list of its attributes. Composite indexes only serve equality
+     * lookups on all of their attributes.
+     *
+     * @return the composite indexes of the holder
+     */
+    Set<List<String>> getCompositeIndexes();
+
 }
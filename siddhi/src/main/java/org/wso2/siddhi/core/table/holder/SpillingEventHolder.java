@@ -0,0 +1,578 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.table.holder;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.event.stream.converter.StreamEventConverter;
+import org.wso2.siddhi.core.exception.OperationNotSupportedException;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.core.util.snapshot.JavaStateSerializer;
+import org.wso2.siddhi.core.util.snapshot.StateSerializer;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * EventHolder implementation which keeps a bounded set of recently used rows on heap and spills the rest to a local
+ * log structured file. Rows are unique by their primary key, and the primary key is the only indexed attribute.
+ * <p>
+ * Every live key is held in the key index, mapped either to the file offset of its latest record or to
+ * {@link #NOT_ON_DISK} when the only up to date copy is the hot row. Updated rows are appended to the end of the
+ * file when they are evicted, and the file is compacted once most of its records are stale.
+ */
+public class SpillingEventHolder implements IndexedEventHolder {
+
+    private static final Logger log = Logger.getLogger(SpillingEventHolder.class);
+    private static final long NOT_ON_DISK = -1L;
+    private static final int COMPACTION_MIN_STALE_RECORDS = 1024;
+    private static final String FILE_SUFFIX = ".spill";
+    private final Map<Object, Long> keyIndex;
+    private final LinkedHashMap<Object, StreamEvent> hotRows = new LinkedHashMap<Object, StreamEvent>();
+    private final StateSerializer objectSerializer = new JavaStateSerializer();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream recordOutput = new DataOutputStream(recordBuffer);
+    private StreamEventPool tableStreamEventPool;
+    private StreamEventConverter eventConverter;
+    private int primaryKeyPosition;
+    private String primaryKeyAttribute;
+    private Attribute.Type[] attributeTypes;
+    private int hotSetSize;
+    private Path directory;
+    private String filePrefix;
+    private Path file;
+    private FileChannel channel;
+    private long writePosition;
+    private long diskRecords;
+    private long liveDiskRecords;
+
+    public SpillingEventHolder(StreamEventPool tableStreamEventPool, StreamEventConverter eventConverter,
+                               int primaryKeyPosition, String primaryKeyAttribute, boolean isPrimaryNumeric,
+                               Attribute.Type[] attributeTypes, int hotSetSize, String location, String tableId) {
+        this.tableStreamEventPool = tableStreamEventPool;
+        this.eventConverter = eventConverter;
+        this.primaryKeyPosition = primaryKeyPosition;
+        this.primaryKeyAttribute = primaryKeyAttribute;
+        this.attributeTypes = attributeTypes;
+        this.hotSetSize = hotSetSize;
+        if (isPrimaryNumeric) {
+            keyIndex = new TreeMap<Object, Long>();
+        } else {
+            keyIndex = new HashMap<Object, Long>();
+        }
+        this.directory = Paths.get(location);
+        this.filePrefix = tableId + "-";
+        try {
+            Files.createDirectories(directory);
+            openFile();
+        } catch (IOException e) {
+            throw new SiddhiAppCreationException("Cannot create the spill file of table '" + tableId + "' at '" +
+                    location + "', " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getPrimaryKeyAttribute() {
+        return primaryKeyAttribute;
+    }
+
+    @Override
+    public synchronized void add(ComplexEventChunk<StreamEvent> addingEventChunk) {
+        addingEventChunk.reset();
+        while (addingEventChunk.hasNext()) {
+            ComplexEvent complexEvent = addingEventChunk.next();
+            StreamEvent streamEvent = tableStreamEventPool.borrowEvent();
+            eventConverter.convertComplexEvent(complexEvent, streamEvent);
+            Object key = streamEvent.getOutputData()[primaryKeyPosition];
+            if (keyIndex.containsKey(key)) {
+                log.error("Dropping event :" + streamEvent + ", as there is already an event stored with primary " +
+                        "key '" + key + "'");
+            } else {
+                keyIndex.put(key, NOT_ON_DISK);
+                hotRows.put(key, streamEvent);
+                evictColdRows();
+            }
+        }
+    }
+
+    /**
+     * Stores a copy of the given row under its primary key, replacing any existing row. Also used to record in
+     * place updates of rows returned by {@link #findEvents(String, Compare.Operator, Object)} and
+     * {@link #getAllEvents()}, as those may be decoded copies of rows which are on disk.
+     *
+     * @param streamEvent the row to be stored
+     */
+    @Override
+    public synchronized void overwrite(StreamEvent streamEvent) {
+        StreamEvent storeEvent = tableStreamEventPool.borrowEvent();
+        eventConverter.convertComplexEvent(streamEvent, storeEvent);
+        Object key = storeEvent.getOutputData()[primaryKeyPosition];
+        Long offset = keyIndex.put(key, NOT_ON_DISK);
+        if (offset != null && offset != NOT_ON_DISK) {
+            liveDiskRecords--;
+        }
+        hotRows.remove(key);
+        hotRows.put(key, storeEvent);
+        evictColdRows();
+    }
+
+    @Override
+    public void eventUpdated(StreamEvent streamEvent) {
+        // found rows can be decoded copies of the rows kept on disk
+        overwrite(streamEvent);
+    }
+
+    @Override
+    public Set<Object> getAllPrimaryKeys() {
+        return keyIndex.keySet();
+    }
+
+    @Override
+    public int getPrimaryKeyAttributePosition() {
+        return primaryKeyPosition;
+    }
+
+    @Override
+    public boolean isAttributeIndexed(String attribute) {
+        return primaryKeyAttribute.equals(attribute);
+    }
+
+    @Override
+    public boolean isAttributeIndexed(int position) {
+        return primaryKeyPosition == position;
+    }
+
+    @Override
+    public Set<List<String>> getCompositeIndexes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Returns all the rows of the table, decoding the ones on disk without moving them into the hot set.
+     *
+     * @return a copy of the collection of rows
+     */
+    @Override
+    public synchronized Collection<StreamEvent> getAllEvents() {
+        return getEvents(keyIndex);
+    }
+
+    @Override
+    public synchronized Collection<StreamEvent> findEvents(String attribute, Compare.Operator operator,
+                                                           Object value) {
+        if (attribute.equals(primaryKeyAttribute)) {
+            switch (operator) {
+                case LESS_THAN:
+                    return getEvents(((TreeMap<Object, Long>) keyIndex).headMap(value, false));
+                case GREATER_THAN:
+                    return getEvents(((TreeMap<Object, Long>) keyIndex).tailMap(value, false));
+                case LESS_THAN_EQUAL:
+                    return getEvents(((TreeMap<Object, Long>) keyIndex).headMap(value, true));
+                case GREATER_THAN_EQUAL:
+                    return getEvents(((TreeMap<Object, Long>) keyIndex).tailMap(value, true));
+                case EQUAL:
+                    List<StreamEvent> resultEvents = new ArrayList<StreamEvent>(1);
+                    StreamEvent resultEvent = promote(value);
+                    if (resultEvent != null) {
+                        resultEvents.add(resultEvent);
+                    }
+                    return resultEvents;
+                case NOT_EQUAL:
+                    List<StreamEvent> allEvents = getEvents(keyIndex);
+                    for (Iterator<StreamEvent> iterator = allEvents.iterator(); iterator.hasNext(); ) {
+                        if (value.equals(iterator.next().getOutputData()[primaryKeyPosition])) {
+                            iterator.remove();
+                            break;
+                        }
+                    }
+                    return allEvents;
+            }
+        }
+        throw new OperationNotSupportedException(operator + " not supported for '" + value + "' by " + getClass()
+                .getName());
+    }
+
+    @Override
+    public Collection<StreamEvent> findEvents(List<String> compositeIndex, Object[] values) {
+        throw new OperationNotSupportedException("Composite index " + compositeIndex + " not supported by " +
+                getClass().getName());
+    }
+
+    @Override
+    public synchronized void deleteAll() {
+        keyIndex.clear();
+        hotRows.clear();
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot truncate spill file '" + file + "', " + e.getMessage(), e);
+        }
+        writePosition = 0;
+        diskRecords = 0;
+        liveDiskRecords = 0;
+    }
+
+    @Override
+    public synchronized void deleteAll(Collection<StreamEvent> storeEventSet) {
+        for (StreamEvent streamEvent : storeEventSet) {
+            delete(streamEvent.getOutputData()[primaryKeyPosition]);
+        }
+    }
+
+    @Override
+    public synchronized void delete(String attribute, Compare.Operator operator, Object value) {
+        if (attribute.equals(primaryKeyAttribute)) {
+            switch (operator) {
+                case LESS_THAN:
+                    delete(((TreeMap<Object, Long>) keyIndex).headMap(value, false));
+                    return;
+                case GREATER_THAN:
+                    delete(((TreeMap<Object, Long>) keyIndex).tailMap(value, false));
+                    return;
+                case LESS_THAN_EQUAL:
+                    delete(((TreeMap<Object, Long>) keyIndex).headMap(value, true));
+                    return;
+                case GREATER_THAN_EQUAL:
+                    delete(((TreeMap<Object, Long>) keyIndex).tailMap(value, true));
+                    return;
+                case EQUAL:
+                    delete(value);
+                    return;
+                case NOT_EQUAL:
+                    StreamEvent streamEvent = getEvent(value, keyIndex.get(value));
+                    deleteAll();
+                    if (streamEvent != null) {
+                        keyIndex.put(value, NOT_ON_DISK);
+                        hotRows.put(value, streamEvent);
+                    }
+                    return;
+            }
+        }
+        throw new OperationNotSupportedException(operator + " not supported for '" + value + "' by " + getClass()
+                .getName());
+    }
+
+    @Override
+    public void delete(List<String> compositeIndex, Object[] values) {
+        throw new OperationNotSupportedException("Composite index " + compositeIndex + " not supported by " +
+                getClass().getName());
+    }
+
+    @Override
+    public synchronized boolean containsEventSet(String attribute, Compare.Operator operator, Object value) {
+        if (attribute.equals(primaryKeyAttribute)) {
+            switch (operator) {
+                case LESS_THAN:
+                    return ((TreeMap<Object, Long>) keyIndex).lowerKey(value) != null;
+                case GREATER_THAN:
+                    return ((TreeMap<Object, Long>) keyIndex).higherKey(value) != null;
+                case LESS_THAN_EQUAL:
+                    return ((TreeMap<Object, Long>) keyIndex).floorKey(value) != null;
+                case GREATER_THAN_EQUAL:
+                    return ((TreeMap<Object, Long>) keyIndex).ceilingKey(value) != null;
+                case EQUAL:
+                    return keyIndex.containsKey(value);
+                case NOT_EQUAL:
+                    return keyIndex.size() > (keyIndex.containsKey(value) ? 1 : 0);
+            }
+        }
+        throw new OperationNotSupportedException(operator + " not supported for '" + value + "' by " + getClass()
+                .getName());
+    }
+
+    @Override
+    public boolean containsEventSet(List<String> compositeIndex, Object[] values) {
+        throw new OperationNotSupportedException("Composite index " + compositeIndex + " not supported by " +
+                getClass().getName());
+    }
+
+    /**
+     * Closes and removes the spill file. The rows of the table are not persisted across restarts by this holder,
+     * that is done through the snapshots of the table.
+     */
+    public synchronized void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.error("Cannot remove spill file '" + file + "', " + e.getMessage(), e);
+        }
+    }
+
+    private void delete(Object key) {
+        Long offset = keyIndex.remove(key);
+        if (offset != null) {
+            hotRows.remove(key);
+            if (offset != NOT_ON_DISK) {
+                liveDiskRecords--;
+            }
+        }
+    }
+
+    private void delete(NavigableMap<Object, Long> keyRange) {
+        for (Iterator<Map.Entry<Object, Long>> iterator = keyRange.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Object, Long> entry = iterator.next();
+            iterator.remove();
+            hotRows.remove(entry.getKey());
+            if (entry.getValue() != NOT_ON_DISK) {
+                liveDiskRecords--;
+            }
+        }
+    }
+
+    private List<StreamEvent> getEvents(Map<Object, Long> keys) {
+        List<StreamEvent> resultEvents = new ArrayList<StreamEvent>(keys.size());
+        for (Map.Entry<Object, Long> entry : keys.entrySet()) {
+            resultEvents.add(getEvent(entry.getKey(), entry.getValue()));
+        }
+        return resultEvents;
+    }
+
+    private StreamEvent getEvent(Object key, Long offset) {
+        if (offset == null) {
+            return null;
+        }
+        StreamEvent streamEvent = hotRows.get(key);
+        if (streamEvent == null) {
+            streamEvent = read(offset);
+        }
+        return streamEvent;
+    }
+
+    /**
+     * Returns the row of the given key, making it the most recently used row of the hot set.
+     */
+    private StreamEvent promote(Object key) {
+        Long offset = keyIndex.get(key);
+        if (offset == null) {
+            return null;
+        }
+        StreamEvent streamEvent = hotRows.remove(key);
+        if (streamEvent == null) {
+            streamEvent = read(offset);
+        }
+        hotRows.put(key, streamEvent);
+        evictColdRows();
+        return streamEvent;
+    }
+
+    private void evictColdRows() {
+        if (hotRows.size() <= hotSetSize) {
+            return;
+        }
+        for (Iterator<Map.Entry<Object, StreamEvent>> iterator = hotRows.entrySet().iterator();
+             iterator.hasNext() && hotRows.size() > hotSetSize; ) {
+            Map.Entry<Object, StreamEvent> entry = iterator.next();
+            iterator.remove();
+            if (keyIndex.get(entry.getKey()) == NOT_ON_DISK) {
+                keyIndex.put(entry.getKey(), append(entry.getValue()));
+                diskRecords++;
+                liveDiskRecords++;
+            }
+        }
+        if (diskRecords - liveDiskRecords >= COMPACTION_MIN_STALE_RECORDS && diskRecords > 2 * liveDiskRecords) {
+            compact();
+        }
+    }
+
+    private void openFile() throws IOException {
+        file = Files.createTempFile(directory, filePrefix, FILE_SUFFIX);
+        file.toFile().deleteOnExit();
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Rewrites the live records into a new file, dropping the records of updated and deleted rows.
+     */
+    private void compact() {
+        Path oldFile = file;
+        FileChannel oldChannel = channel;
+        try {
+            openFile();
+            writePosition = 0;
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            for (Map.Entry<Object, Long> entry : keyIndex.entrySet()) {
+                long offset = entry.getValue();
+                if (offset != NOT_ON_DISK) {
+                    header.clear();
+                    readFully(oldChannel, header, offset);
+                    ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + header.getInt(0));
+                    readFully(oldChannel, record, offset);
+                    record.flip();
+                    entry.setValue(writePosition);
+                    writePosition += writeFully(record, writePosition);
+                }
+            }
+            diskRecords = liveDiskRecords;
+            oldChannel.close();
+            Files.deleteIfExists(oldFile);
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot compact spill file '" + oldFile + "', " + e.getMessage(), e);
+        }
+    }
+
+    private long append(StreamEvent streamEvent) {
+        try {
+            recordBuffer.reset();
+            recordOutput.writeInt(0);
+            recordOutput.writeLong(streamEvent.getTimestamp());
+            Object[] data = streamEvent.getOutputData();
+            for (int i = 0; i < attributeTypes.length; i++) {
+                writeValue(attributeTypes[i], data[i]);
+            }
+            recordOutput.flush();
+            ByteBuffer record = ByteBuffer.wrap(recordBuffer.toByteArray());
+            record.putInt(0, record.limit() - Integer.BYTES);
+            long offset = writePosition;
+            writePosition += writeFully(record, offset);
+            return offset;
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot write to spill file '" + file + "', " + e.getMessage(), e);
+        }
+    }
+
+    private StreamEvent read(long offset) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            readFully(channel, header, offset);
+            ByteBuffer record = ByteBuffer.allocate(header.getInt(0));
+            readFully(channel, record, offset + Integer.BYTES);
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(record.array()));
+            StreamEvent streamEvent = tableStreamEventPool.borrowEvent();
+            streamEvent.setTimestamp(input.readLong());
+            Object[] data = streamEvent.getOutputData();
+            for (int i = 0; i < attributeTypes.length; i++) {
+                data[i] = readValue(attributeTypes[i], input);
+            }
+            return streamEvent;
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot read from spill file '" + file + "', " + e.getMessage(), e);
+        }
+    }
+
+    private void writeValue(Attribute.Type type, Object value) throws IOException {
+        if (value == null) {
+            recordOutput.writeBoolean(false);
+            return;
+        }
+        recordOutput.writeBoolean(true);
+        switch (type) {
+            case STRING:
+                writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+                break;
+            case INT:
+                recordOutput.writeInt((Integer) value);
+                break;
+            case LONG:
+                recordOutput.writeLong((Long) value);
+                break;
+            case FLOAT:
+                recordOutput.writeFloat((Float) value);
+                break;
+            case DOUBLE:
+                recordOutput.writeDouble((Double) value);
+                break;
+            case BOOL:
+                recordOutput.writeBoolean((Boolean) value);
+                break;
+            default:
+                ByteArrayOutputStream objectBuffer = new ByteArrayOutputStream();
+                objectSerializer.serialize(value, objectBuffer);
+                writeBytes(objectBuffer.toByteArray());
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        recordOutput.writeInt(bytes.length);
+        recordOutput.write(bytes);
+    }
+
+    private Object readValue(Attribute.Type type, DataInputStream input) throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+        switch (type) {
+            case STRING:
+                return new String(readBytes(input), StandardCharsets.UTF_8);
+            case INT:
+                return input.readInt();
+            case LONG:
+                return input.readLong();
+            case FLOAT:
+                return input.readFloat();
+            case DOUBLE:
+                return input.readDouble();
+            case BOOL:
+                return input.readBoolean();
+            default:
+                return objectSerializer.deserialize(new ByteArrayInputStream(readBytes(input)));
+        }
+    }
+
+    private byte[] readBytes(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private int writeFully(ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return length;
+    }
+
+    private static void readFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = fileChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at " + position);
+            }
+            position += read;
+        }
+    }
+}
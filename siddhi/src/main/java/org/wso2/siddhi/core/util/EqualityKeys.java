@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Variable;
+import org.wso2.siddhi.query.api.expression.condition.And;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility methods to find the equality conditions of a condition that can serve as hash keys, and to compute those
+ * keys. Used by joins and patterns to bucket events by the attributes they are compared on.
+ */
+public class EqualityKeys {
+
+    /**
+     * Split a condition into the conditions joined by its outermost 'and's.
+     *
+     * @param expression condition to be split
+     * @param conditions list the conditions are added to
+     */
+    public static void collectConditions(Expression expression, List<Expression> conditions) {
+        if (expression instanceof And) {
+            collectConditions(((And) expression).getLeftExpression(), conditions);
+            collectConditions(((And) expression).getRightExpression(), conditions);
+        } else {
+            conditions.add(expression);
+        }
+    }
+
+    /**
+     * Returns the two variables a condition compares for equality.
+     *
+     * @param condition one of the conditions returned by collectConditions
+     * @return left and right variables, or null if the condition is not an equality of two plain variables
+     */
+    public static Variable[] getEqualVariables(Expression condition) {
+        if (!(condition instanceof Compare) || ((Compare) condition).getOperator() != Compare.Operator.EQUAL
+                || !(((Compare) condition).getLeftExpression() instanceof Variable)
+                || !(((Compare) condition).getRightExpression() instanceof Variable)) {
+            return null;
+        }
+        Variable leftVariable = (Variable) ((Compare) condition).getLeftExpression();
+        Variable rightVariable = (Variable) ((Compare) condition).getRightExpression();
+        if (leftVariable.getStreamIndex() != null || rightVariable.getStreamIndex() != null) {
+            return null;
+        }
+        return new Variable[]{leftVariable, rightVariable};
+    }
+
+    /**
+     * Whether the values of two attributes compared for equality can be used as hash keys, which requires them to
+     * be of the same type with an exact equals.
+     *
+     * @param leftExecutor  executor of one attribute
+     * @param rightExecutor executor of the other attribute
+     * @return true if the attributes can be used as keys
+     */
+    public static boolean isKeyType(VariableExpressionExecutor leftExecutor,
+                                    VariableExpressionExecutor rightExecutor) {
+        Attribute.Type type = leftExecutor.getReturnType();
+        if (type != rightExecutor.getReturnType()) {
+            return false;
+        }
+        switch (type) {
+            case STRING:
+            case INT:
+            case LONG:
+            case BOOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Computes the key of an event. A single attribute key is its value, a composite key is the list of its values.
+     *
+     * @param keyExecutors executors of the key attributes
+     * @param event        event to get the key of
+     * @return the key, or null if a composite key has a null value
+     */
+    public static Object getKey(ExpressionExecutor[] keyExecutors, ComplexEvent event) {
+        if (keyExecutors.length == 1) {
+            return keyExecutors[0].execute(event);
+        }
+        ArrayList<Object> key = new ArrayList<Object>(keyExecutors.length);
+        for (ExpressionExecutor keyExecutor : keyExecutors) {
+            Object value = keyExecutor.execute(event);
+            if (value == null) {
+                return null;
+            }
+            key.add(value);
+        }
+        return key;
+    }
+}
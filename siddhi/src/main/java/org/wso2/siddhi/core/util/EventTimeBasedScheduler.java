@@ -19,7 +19,6 @@
 package org.wso2.siddhi.core.util;
 
 import org.wso2.siddhi.core.config.SiddhiAppContext;
-import org.wso2.siddhi.core.query.input.stream.single.EntryValveProcessor;
 import org.wso2.siddhi.core.util.timestamp.EventTimeBasedMillisTimestampGenerator;
 
 /**
@@ -53,8 +52,8 @@ public class EventTimeBasedScheduler extends Scheduler {
     }
 
     @Override
-    public Scheduler clone(String key, EntryValveProcessor entryValveProcessor) {
-        Scheduler scheduler = new EventTimeBasedScheduler(entryValveProcessor, siddhiAppContext);
+    public Scheduler clone(String key, Schedulable singleThreadEntryValve) {
+        Scheduler scheduler = new EventTimeBasedScheduler(singleThreadEntryValve, siddhiAppContext);
         scheduler.elementId = elementId + "-" + key;
         return scheduler;
     }
@@ -22,12 +22,26 @@ import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 import org.wso2.siddhi.query.api.aggregation.TimePeriod;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Performs time conversions related to incremental aggregation
  */
 public class IncrementalTimeConverterUtil {
 
+    private static final Pattern WITHIN_TIME_PATTERN = Pattern.compile(
+            "(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2})\\s*([+-]\\d{2}:\\d{2})?");
+    private static final DateTimeFormatter WITHIN_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final TimePeriod.Duration[] WITHIN_PATTERN_DURATIONS = {TimePeriod.Duration.YEARS,
+            TimePeriod.Duration.MONTHS, TimePeriod.Duration.DAYS, TimePeriod.Duration.HOURS,
+            TimePeriod.Duration.MINUTES, TimePeriod.Duration.SECONDS};
+
     public static long getNextEmitTime(long currentTime, TimePeriod.Duration duration) {
         switch (duration) {
         case SECONDS:
@@ -86,6 +100,110 @@ public class IncrementalTimeConverterUtil {
         }
     }
 
+    /**
+     * Resolves the granularity given in a 'per' clause, accepting singular, plural and abbreviated forms
+     * such as "sec", "minute" or "Hours".
+     *
+     * @param per granularity as given in the query
+     * @return matching duration
+     */
+    public static TimePeriod.Duration getDuration(String per) {
+        if (per == null) {
+            throw new SiddhiAppRuntimeException("'per' value of the aggregation retrieval cannot be null");
+        }
+        switch (per.trim().toLowerCase(Locale.ENGLISH)) {
+        case "sec":
+        case "second":
+        case "seconds":
+            return TimePeriod.Duration.SECONDS;
+        case "min":
+        case "minute":
+        case "minutes":
+            return TimePeriod.Duration.MINUTES;
+        case "hour":
+        case "hours":
+            return TimePeriod.Duration.HOURS;
+        case "day":
+        case "days":
+            return TimePeriod.Duration.DAYS;
+        case "month":
+        case "months":
+            return TimePeriod.Duration.MONTHS;
+        case "year":
+        case "years":
+            return TimePeriod.Duration.YEARS;
+        default:
+            throw new SiddhiAppRuntimeException("'per' value '" + per + "' of the aggregation retrieval is not " +
+                    "one of seconds, minutes, hours, days, months or years");
+        }
+    }
+
+    /**
+     * Converts a 'within' boundary to epoch milliseconds. Boundaries can either be given as epoch milliseconds
+     * or as "yyyy-MM-dd HH:mm:ss" strings in UTC, optionally followed by an offset such as "+05:30".
+     *
+     * @param time boundary as given in the query
+     * @return epoch time in milliseconds
+     */
+    public static long convertToEpochTime(Object time) {
+        if (time instanceof Long || time instanceof Integer) {
+            return ((Number) time).longValue();
+        } else if (time instanceof String) {
+            Matcher matcher = WITHIN_TIME_PATTERN.matcher(((String) time).trim());
+            if (!matcher.matches()) {
+                throw new SiddhiAppRuntimeException("'within' value '" + time + "' is not in the expected " +
+                        "'yyyy-MM-dd HH:mm:ss' format");
+            }
+            ZoneOffset offset = matcher.group(2) == null ? ZoneOffset.UTC : ZoneOffset.of(matcher.group(2));
+            try {
+                return LocalDateTime.parse(matcher.group(1), WITHIN_TIME_FORMATTER).toInstant(offset).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new SiddhiAppRuntimeException("'within' value '" + time + "' is not a valid time", e);
+            }
+        } else {
+            throw new SiddhiAppRuntimeException("'within' value '" + time + "' of the aggregation retrieval " +
+                    "should either be a long epoch time or a 'yyyy-MM-dd HH:mm:ss' string");
+        }
+    }
+
+    /**
+     * Converts a 'within' pattern such as "2017-06-** **:**:**" to the time range it covers. Wildcards are
+     * allowed from any field onwards except the year, and the range spans one unit of the field before the
+     * first wildcard.
+     *
+     * @param pattern within pattern in UTC
+     * @return start (inclusive) and end (exclusive) of the range in epoch milliseconds
+     */
+    public static long[] getWithinRange(Object pattern) {
+        if (!(pattern instanceof String)) {
+            long time = convertToEpochTime(pattern);
+            return new long[]{time, time + 1};
+        }
+        String[] fields = ((String) pattern).trim().split("[-: ]+");
+        if (fields.length != 6) {
+            throw new SiddhiAppRuntimeException("'within' pattern '" + pattern + "' is not in the expected " +
+                    "'yyyy-MM-dd HH:mm:ss' format");
+        }
+        int wildcardIndex = fields.length;
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals("**")) {
+                if (wildcardIndex == fields.length) {
+                    wildcardIndex = i;
+                }
+                fields[i] = (i == 1 || i == 2) ? "01" : "00";
+            } else if (wildcardIndex != fields.length) {
+                throw new SiddhiAppRuntimeException("'within' pattern '" + pattern + "' can only have " +
+                        "wildcards at the end");
+            }
+        }
+        if (wildcardIndex == 0) {
+            throw new SiddhiAppRuntimeException("'within' pattern '" + pattern + "' cannot have a wildcard year");
+        }
+        long start = convertToEpochTime(fields[0] + "-" + fields[1] + "-" + fields[2] + " " + fields[3] + ":" +
+                fields[4] + ":" + fields[5]);
+        return new long[]{start, getNextEmitTime(start, WITHIN_PATTERN_DURATIONS[wildcardIndex - 1])};
+    }
+
     private static long getNextEmitTimeForMonth(long currentTime) {
         Instant timeFromEpochMillis = Instant.ofEpochMilli(currentTime);
         // timeFromEpochMillis would be of "2010-01-01T12:00:00Z" format
@@ -25,7 +25,6 @@ import org.wso2.siddhi.core.event.stream.StreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
 import org.wso2.siddhi.core.event.stream.converter.ConversionStreamEventChunk;
 import org.wso2.siddhi.core.event.stream.converter.StreamEventConverter;
-import org.wso2.siddhi.core.query.input.stream.single.EntryValveProcessor;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
 import org.wso2.siddhi.core.util.snapshot.Snapshotable;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
@@ -51,6 +50,7 @@ public abstract class Scheduler implements Snapshotable {
     private ComplexEventChunk<StreamEvent> streamEventChunk;
     private LatencyTracker latencyTracker;
     private LockWrapper lockWrapper;
+    private volatile long lastNotifyTime = -1;
 
 
     public Scheduler(Schedulable singleThreadEntryValve, SiddhiAppContext siddhiAppContext) {
@@ -61,10 +61,27 @@ public abstract class Scheduler implements Snapshotable {
 
     public abstract void schedule(long time);
 
-    public abstract Scheduler clone(String key, EntryValveProcessor entryValveProcessor);
+    /**
+     * Adjust a notification time to the precision the scheduler fires at, so that notifications falling into the
+     * same slot are coalesced into a single timer event.
+     *
+     * @param time requested notification time
+     * @return time the notification will be fired for
+     */
+    protected long alignTime(long time) {
+        return time;
+    }
+
+    public abstract Scheduler clone(String key, Schedulable singleThreadEntryValve);
 
     public void notifyAt(long time) {
         try {
+            time = alignTime(time);
+            if (time == lastNotifyTime && time > siddhiAppContext.getTimestampGenerator().currentTime()) {
+                // Already queued and yet to fire, the same notification covers this time as well
+                return;
+            }
+            lastNotifyTime = time;
             // Insert the time into the queue
             toNotifyQueue.put(time);
             schedule(time);     // Let the subclasses to schedule the scheduler
@@ -21,11 +21,15 @@ package org.wso2.siddhi.core.util;
 import org.wso2.siddhi.core.SiddhiAppRuntime;
 import org.wso2.siddhi.core.aggregation.AggregationRuntime;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.event.state.MetaStateEvent;
 import org.wso2.siddhi.core.partition.PartitionRuntime;
 import org.wso2.siddhi.core.query.QueryRuntime;
 import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
 import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
+import org.wso2.siddhi.core.query.input.stream.state.StreamPreStateProcessor;
+import org.wso2.siddhi.core.query.input.stream.state.receiver.PatternPrefixStreamReceiver;
+import org.wso2.siddhi.core.query.input.stream.state.receiver.PatternSingleProcessStreamReceiver;
 import org.wso2.siddhi.core.query.output.callback.InsertIntoStreamCallback;
 import org.wso2.siddhi.core.query.output.callback.InsertIntoWindowCallback;
 import org.wso2.siddhi.core.query.output.callback.OutputCallback;
@@ -37,7 +41,9 @@ import org.wso2.siddhi.core.table.Table;
 import org.wso2.siddhi.core.trigger.EventTrigger;
 import org.wso2.siddhi.core.util.lock.LockSynchronizer;
 import org.wso2.siddhi.core.util.parser.AggregationParser;
+import org.wso2.siddhi.core.util.parser.StateInputStreamParser;
 import org.wso2.siddhi.core.util.parser.helper.DefinitionParserHelper;
+import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
 import org.wso2.siddhi.core.window.Window;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.AggregationDefinition;
@@ -46,11 +52,14 @@ import org.wso2.siddhi.query.api.definition.StreamDefinition;
 import org.wso2.siddhi.query.api.definition.TableDefinition;
 import org.wso2.siddhi.query.api.definition.TriggerDefinition;
 import org.wso2.siddhi.query.api.definition.WindowDefinition;
+import org.wso2.siddhi.query.api.execution.query.input.stream.BasicSingleInputStream;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -90,6 +99,8 @@ public class SiddhiAppRuntimeBuilder {
     private SiddhiAppContext siddhiAppContext;
     private InputManager inputManager;
     private LockSynchronizer lockSynchronizer = new LockSynchronizer();
+    private Map<BasicSingleInputStream, PatternPrefixStreamReceiver> patternPrefixStreamReceiverMap =
+            new HashMap<BasicSingleInputStream, PatternPrefixStreamReceiver>(); //contains shared pattern states
 
     public SiddhiAppRuntimeBuilder(SiddhiAppContext siddhiAppContext) {
         this.siddhiAppContext = siddhiAppContext;
@@ -157,6 +168,32 @@ public class SiddhiAppRuntimeBuilder {
         aggregationMap.putIfAbsent(aggregationDefinition.getId(), aggregationRuntime);
     }
 
+    /**
+     * Register the leading pattern states shared by several queries, whose filters are then evaluated once for all
+     * those queries.
+     *
+     * @param sharedLeadingStreams input streams of the shared leading states
+     */
+    public void setSharedLeadingStreams(Set<BasicSingleInputStream> sharedLeadingStreams) {
+        for (BasicSingleInputStream sharedLeadingStream : sharedLeadingStreams) {
+            patternPrefixStreamReceiverMap.put(sharedLeadingStream, null);
+        }
+    }
+
+    private void subscribeToPatternPrefix(BasicSingleInputStream leadingStream,
+                                          ProcessStreamReceiver processStreamReceiver,
+                                          StreamPreStateProcessor streamPreStateProcessor,
+                                          MetaStateEvent metaStateEvent) {
+        PatternPrefixStreamReceiver patternPrefixStreamReceiver = patternPrefixStreamReceiverMap.get(leadingStream);
+        if (patternPrefixStreamReceiver == null) {
+            patternPrefixStreamReceiver = new PatternPrefixStreamReceiver(processStreamReceiver.getStreamId(),
+                    streamPreStateProcessor, metaStateEvent);
+            patternPrefixStreamReceiverMap.put(leadingStream, patternPrefixStreamReceiver);
+            streamJunctionMap.get(processStreamReceiver.getStreamId()).subscribe(patternPrefixStreamReceiver);
+        }
+        patternPrefixStreamReceiver.addReceiver(processStreamReceiver, streamPreStateProcessor);
+    }
+
     public void addPartition(PartitionRuntime partitionRuntime) {
         partitionMap.put(partitionRuntime.getPartitionId(), partitionRuntime);
     }
@@ -165,13 +202,25 @@ public class SiddhiAppRuntimeBuilder {
         queryProcessorMap.put(queryRuntime.getQueryId(), queryRuntime);
         StreamRuntime streamRuntime = queryRuntime.getStreamRuntime();
 
+        BasicSingleInputStream leadingStream = StateInputStreamParser.getSharableLeadingStream(
+                queryRuntime.getQuery());
         for (SingleStreamRuntime singleStreamRuntime : streamRuntime.getSingleStreamRuntimes()) {
             ProcessStreamReceiver processStreamReceiver = singleStreamRuntime.getProcessStreamReceiver();
             if (processStreamReceiver.toStream()) {
-                streamJunctionMap.get(processStreamReceiver.getStreamId()).subscribe(processStreamReceiver);
+                if (leadingStream != null && patternPrefixStreamReceiverMap.containsKey(leadingStream) &&
+                        processStreamReceiver.getClass() == PatternSingleProcessStreamReceiver.class &&
+                        processStreamReceiver.getStreamId().equals(leadingStream.getStreamId())) {
+                    subscribeToPatternPrefix(leadingStream, processStreamReceiver,
+                            (StreamPreStateProcessor) singleStreamRuntime.getProcessorChain(),
+                            (MetaStateEvent) queryRuntime.getMetaComplexEvent());
+                } else {
+                    streamJunctionMap.get(processStreamReceiver.getStreamId()).subscribe(processStreamReceiver);
+                }
             }
         }
 
+        QueryParserHelper.initPartialMatchLimiter(streamRuntime, streamJunctionMap);
+
         OutputCallback outputCallback = queryRuntime.getOutputCallback();
 
         if (outputCallback != null && outputCallback instanceof InsertIntoStreamCallback) {
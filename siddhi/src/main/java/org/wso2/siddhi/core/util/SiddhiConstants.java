@@ -49,9 +49,12 @@ public final class SiddhiConstants {
     public static final String ANNOTATION_ENFORCE_ORDER = "EnforceOrder";
     public static final String ANNOTATION_ASYNC = "Async";
     public static final String ANNOTATION_STATISTICS = "Statistics";
+    public static final String ANNOTATION_GROUP_BY_STATE = "GroupByState";
+    public static final String ANNOTATION_PERSISTENCE = "Persistence";
     public static final String ANNOTATION_INDEX_BY = "IndexBy";
     public static final String ANNOTATION_INDEX = "Index";
     public static final String ANNOTATION_PRIMARY_KEY = "PrimaryKey";
+    public static final String ANNOTATION_SPILL = "Spill";
     public static final String ANNOTATION_STORE = "Store";
     public static final String ANNOTATION_SOURCE = "Source";
     public static final String ANNOTATION_SINK = "Sink";
@@ -62,15 +65,46 @@ public final class SiddhiConstants {
     public static final String ANNOTATION_ATTRIBUTES = "Attributes";
     public static final String ANNOTATION_PAYLOAD = "Payload";
     public static final String ANNOTATION_ELEMENT_BUFFER_SIZE = "buffer.size";
+    public static final String ANNOTATION_ELEMENT_WAIT_STRATEGY = "wait.strategy";
+    public static final String ANNOTATION_ELEMENT_WAIT_TIMEOUT = "wait.timeout";
+    public static final String ANNOTATION_ELEMENT_PRODUCER_TYPE = "producer.type";
     public static final String ANNOTATION_ELEMENT_IDLE_TIME = "idle.time";
     public static final String ANNOTATION_ELEMENT_INCREMENT = "increment";
+    public static final String ANNOTATION_ELEMENT_MAX_GROUPS = "max.groups";
+    public static final String ANNOTATION_ELEMENT_INCREMENTAL_SNAPSHOTS = "incremental.snapshots";
     public static final String ANNOTATION_ELEMENT_TYPE = "type";
+    public static final String ANNOTATION_ELEMENT_HOT_SIZE = "hot.size";
+    public static final String ANNOTATION_ELEMENT_LOCATION = "location";
+    public static final String ANNOTATION_ELEMENT_HASH = "hash";
+    public static final String ANNOTATION_ELEMENT_TREE = "tree";
+    public static final String ANNOTATION_PARTIAL_MATCHES = "PartialMatches";
+    public static final String ANNOTATION_ELEMENT_MAX = "max";
+    public static final String ANNOTATION_ELEMENT_OVERFLOW = "overflow";
+    public static final String ANNOTATION_ELEMENT_FAULT_STREAM = "fault.stream";
     public static final String ANNOTATION_BUFFER_SIZE = "BufferSize";
+    public static final String ANNOTATION_ALLOWED_LATENESS = "AllowedLateness";
+    public static final String ANNOTATION_EVENT_POOL = "EventPool";
+    public static final String ANNOTATION_ELEMENT_MAGAZINE_SIZE = "magazine.size";
+    public static final String ANNOTATION_ELEMENT_DEPOT_SIZE = "depot.size";
 
 
     public static final String TRUE = "true";
     public static final String TRIGGER_START = "start";
     public static final int DEFAULT_EVENT_BUFFER_SIZE = 1024;
+    public static final long DEFAULT_WAIT_TIMEOUT = 1;
+    public static final long DEFAULT_TIMER_TICK_DURATION = 10;
+    public static final int DEFAULT_TIMER_WHEEL_SIZE = 512;
+    public static final int DEFAULT_EVENT_POOL_MAGAZINE_SIZE = 10;
+    public static final int DEFAULT_EVENT_POOL_DEPOT_SIZE = 8;
+
+    public static final String WAIT_STRATEGY_BLOCKING = "blocking";
+    public static final String WAIT_STRATEGY_SLEEPING = "sleeping";
+    public static final String WAIT_STRATEGY_YIELDING = "yielding";
+    public static final String WAIT_STRATEGY_BUSY_SPIN = "busy.spin";
+    public static final String WAIT_STRATEGY_TIMEOUT_BLOCKING = "timeout.blocking";
+    public static final String PRODUCER_TYPE_SINGLE = "single";
+    public static final String PRODUCER_TYPE_MULTI = "multi";
+    public static final String PRODUCER_TYPE_AUTO = "auto";
     public static final int HAVING_STATE = -2;
     public static final int UNKNOWN_STATE = -1;
     public static final int CURRENT = -1;
@@ -89,4 +123,14 @@ public final class SiddhiConstants {
     public static final String METRIC_DELIMITER = ".";
     public static final String METRIC_AGGREGATE_ANNOTATION = "[+]";
     public static final String EXTENSION_SEPARATOR = ":";
+
+    public static final String AGG_TIMESTAMP = "AGG_TIMESTAMP";
+
+    public static final String PERSISTENCE_STORE_LOCATION = "location";
+    public static final String PERSISTENCE_STORE_FSYNC = "fsync";
+    public static final String PERSISTENCE_STORE_RETENTION_COUNT = "retention.count";
+    public static final String PERSISTENCE_STORE_MMAP_THRESHOLD = "mmap.threshold";
+
+    public static final String WINDOW_OFF_HEAP_SEGMENT_SIZE = "offHeapSegmentSize";
+    public static final String DEFAULT_WINDOW_OFF_HEAP_SEGMENT_SIZE = "1048576";
 }
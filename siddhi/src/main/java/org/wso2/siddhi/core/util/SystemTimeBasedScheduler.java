@@ -15,50 +15,42 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.wso2.siddhi.core.util;
 
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
-import org.wso2.siddhi.core.query.input.stream.single.EntryValveProcessor;
 
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 
 /**
- * Scheduler based on System time
+ * Scheduler based on System time. Timeouts are registered in the {@link TimerWheel} of the Siddhi app, so only the
+ * earliest pending notification of each scheduler is held by the wheel at any time.
  */
 public class SystemTimeBasedScheduler extends Scheduler {
     private static final Logger log = Logger.getLogger(SystemTimeBasedScheduler.class);
-    private EventCaller eventCaller;
     private volatile boolean running = false;
     private ScheduledExecutorService scheduledExecutorService;
+    private final TimerWheel timerWheel;
     private final Semaphore mutex;
 
     public SystemTimeBasedScheduler(ScheduledExecutorService scheduledExecutorService, Schedulable
             singleThreadEntryValve, SiddhiAppContext siddhiAppContext) {
         super(singleThreadEntryValve, siddhiAppContext);
         this.scheduledExecutorService = scheduledExecutorService;
-        this.eventCaller = new EventCaller();
+        this.timerWheel = siddhiAppContext.getTimerWheel();
         mutex = new Semaphore(1);
     }
 
     @Override
     public void schedule(long time) {
-        if (!running && toNotifyQueue.size() == 1) {
+        if (!running) {
             try {
                 mutex.acquire();
                 if (!running) {
                     running = true;
-                    long timeDiff = time - siddhiAppContext.getTimestampGenerator().currentTime();
-                    if (timeDiff > 0) {
-                        scheduledExecutorService.schedule(eventCaller, timeDiff, TimeUnit.MILLISECONDS);
-                    } else {
-                        scheduledExecutorService.schedule(eventCaller, 0, TimeUnit.MILLISECONDS);
-                    }
+                    timerWheel.schedule(this, time);
                 }
-
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 log.error("Error when scheduling System Time Based Scheduler", e);
@@ -70,56 +62,46 @@ public class SystemTimeBasedScheduler extends Scheduler {
     }
 
     @Override
-    public Scheduler clone(String key, EntryValveProcessor entryValveProcessor) {
-        Scheduler scheduler = new SystemTimeBasedScheduler(scheduledExecutorService, entryValveProcessor,
+    protected long alignTime(long time) {
+        return timerWheel.alignTime(time);
+    }
+
+    @Override
+    public Scheduler clone(String key, Schedulable singleThreadEntryValve) {
+        Scheduler scheduler = new SystemTimeBasedScheduler(scheduledExecutorService, singleThreadEntryValve,
                                                            siddhiAppContext);
         scheduler.elementId = elementId + "-" + key;
         return scheduler;
     }
 
-    private class EventCaller implements Runnable {
-        /**
-         * When an object implementing interface <code>Runnable</code> is used
-         * to create a thread, starting the thread causes the object's
-         * <code>run</code> method to be called in that separately executing
-         * thread.
-         * <p>
-         * The general contract of the method <code>run</code> is that it may
-         * take any action whatsoever.
-         *
-         * @see Thread#run()
-         */
-        @Override
-        public void run() {
-            try {
-                sendTimerEvents();
+    /**
+     * Called by the {@link TimerWheel} once the earliest pending notification is due.
+     */
+    void onTimeout() {
+        try {
+            sendTimerEvents();
 
-                Long toNotifyTime = toNotifyQueue.peek();
-                long currentTime = siddhiAppContext.getTimestampGenerator().currentTime();
-                if (!siddhiAppContext.isPlayback()) {
+            Long toNotifyTime = toNotifyQueue.peek();
+            if (toNotifyTime != null) {
+                timerWheel.schedule(this, toNotifyTime);
+            } else {
+                try {
+                    mutex.acquire();
+                    running = false;
+                    toNotifyTime = toNotifyQueue.peek();
                     if (toNotifyTime != null) {
-                        scheduledExecutorService.schedule(eventCaller, toNotifyTime - currentTime, TimeUnit
-                                .MILLISECONDS);
-                    } else {
-                        try {
-                            mutex.acquire();
-                            running = false;
-                            if (toNotifyQueue.peek() != null) {
-                                running = true;
-                                scheduledExecutorService.schedule(eventCaller, 0, TimeUnit.MILLISECONDS);
-                            }
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            log.error("Error when scheduling System Time Based Scheduler", e);
-                        } finally {
-                            mutex.release();
-                        }
+                        running = true;
+                        timerWheel.schedule(this, toNotifyTime);
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.error("Error when scheduling System Time Based Scheduler", e);
+                } finally {
+                    mutex.release();
                 }
-            } catch (Throwable t) {
-                log.error(t);
             }
+        } catch (Throwable t) {
+            log.error(t);
         }
-
     }
 }
@@ -18,6 +18,8 @@
 
 package org.wso2.siddhi.core.util;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -26,6 +28,7 @@ import java.util.concurrent.locks.ReentrantLock;
 public class ThreadBarrier {
 
     private ReentrantLock lock = new ReentrantLock();
+    private List<Runnable> drainHooks = new CopyOnWriteArrayList<Runnable>();
 
     public void pass() {
         if (lock.isLocked()) {
@@ -36,10 +39,27 @@ public class ThreadBarrier {
 
     public void lock() {
         lock.lock();
+        for (Runnable drainHook : drainHooks) {
+            drainHook.run();
+        }
     }
 
     public void unlock() {
         lock.unlock();
     }
 
+    /**
+     * Add a hook to be run once the barrier is locked, letting asynchronous stages finish processing the events
+     * already handed over to them before the state of the Siddhi app is accessed.
+     *
+     * @param drainHook hook blocking until the stage is drained
+     */
+    public void addDrainHook(Runnable drainHook) {
+        drainHooks.add(drainHook);
+    }
+
+    public void removeDrainHook(Runnable drainHook) {
+        drainHooks.remove(drainHook);
+    }
+
 }
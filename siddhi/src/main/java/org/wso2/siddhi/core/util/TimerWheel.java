@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.core.util;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel shared by all the system time based {@link Scheduler}s of a Siddhi app. Notification times are
+ * rounded up to the wheel tick, and every scheduler due within a tick is fired in the same batch by a single ticker
+ * task. The ticker only runs while there are pending timeouts.
+ */
+public class TimerWheel {
+
+    private static final Logger log = Logger.getLogger(TimerWheel.class);
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final long tickDuration;
+    private final List<List<Timeout>> buckets;
+    private final int mask;
+    private final Runnable ticker;
+    private long lastTick;
+    private int pending = 0;
+    private ScheduledFuture<?> tickerFuture = null;
+
+    public TimerWheel(ScheduledExecutorService scheduledExecutorService) {
+        this(scheduledExecutorService, SiddhiConstants.DEFAULT_TIMER_TICK_DURATION,
+                SiddhiConstants.DEFAULT_TIMER_WHEEL_SIZE);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(ScheduledExecutorService scheduledExecutorService, long tickDuration, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Timer wheel tick duration should be positive, but found " +
+                    tickDuration);
+        }
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.tickDuration = tickDuration;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<List<Timeout>>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<Timeout>());
+        }
+        this.ticker = new Ticker();
+    }
+
+    /**
+     * Round the given time up to the end of the tick it falls in, which is when the wheel would fire it.
+     *
+     * @param time time in milliseconds
+     * @return the firing time of the tick
+     */
+    public long alignTime(long time) {
+        long remainder = time % tickDuration;
+        return remainder == 0 ? time : time - remainder + tickDuration;
+    }
+
+    /**
+     * Fire the given scheduler once the given time has passed.
+     *
+     * @param scheduler scheduler to be notified
+     * @param time      time in milliseconds
+     */
+    public synchronized void schedule(SystemTimeBasedScheduler scheduler, long time) {
+        long currentTick = System.currentTimeMillis() / tickDuration;
+        if (tickerFuture == null) {
+            lastTick = currentTick;
+            tickerFuture = scheduledExecutorService.scheduleAtFixedRate(ticker, tickDuration, tickDuration,
+                    TimeUnit.MILLISECONDS);
+        }
+        long deadline = alignTime(time) / tickDuration;
+        if (deadline <= lastTick) {
+            deadline = lastTick + 1;
+        }
+        buckets.get((int) (deadline & mask)).add(new Timeout(scheduler, deadline));
+        pending++;
+    }
+
+    private synchronized List<SystemTimeBasedScheduler> expireTimeouts() {
+        long currentTick = System.currentTimeMillis() / tickDuration;
+        List<SystemTimeBasedScheduler> expiredSchedulers = null;
+        // Catch up on every tick passed since the last run, but never go around the wheel more than once
+        long fromTick = Math.max(lastTick + 1, currentTick - mask);
+        for (long tick = fromTick; tick <= currentTick && pending > 0; tick++) {
+            for (Iterator<Timeout> iterator = buckets.get((int) (tick & mask)).iterator(); iterator.hasNext(); ) {
+                Timeout timeout = iterator.next();
+                if (timeout.deadline <= currentTick) {
+                    iterator.remove();
+                    pending--;
+                    if (expiredSchedulers == null) {
+                        expiredSchedulers = new ArrayList<SystemTimeBasedScheduler>();
+                    }
+                    expiredSchedulers.add(timeout.scheduler);
+                }
+            }
+        }
+        lastTick = currentTick;
+        if (pending == 0 && tickerFuture != null) {
+            tickerFuture.cancel(false);
+            tickerFuture = null;
+        }
+        return expiredSchedulers;
+    }
+
+    private class Ticker implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                List<SystemTimeBasedScheduler> expiredSchedulers = expireTimeouts();
+                if (expiredSchedulers != null) {
+                    for (SystemTimeBasedScheduler scheduler : expiredSchedulers) {
+                        scheduler.onTimeout();
+                    }
+                }
+            } catch (Throwable t) {
+                log.error("Error when firing timeouts of the timer wheel", t);
+            }
+        }
+    }
+
+    private static class Timeout {
+        private final SystemTimeBasedScheduler scheduler;
+        private final long deadline;
+
+        private Timeout(SystemTimeBasedScheduler scheduler, long deadline) {
+            this.scheduler = scheduler;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.collection;
+
+import java.io.Serializable;
+
+/**
+ * Sliding window extremum (min or max) over long values, backed by primitive ring buffers.
+ * <p>
+ * All values in the window are kept in arrival order in a ring, together with a monotonic deque of the arrival
+ * sequence numbers of the candidate extremum values. When values are removed in arrival order, as done by sliding
+ * windows, both adding and removing are O(1) amortized and allocation free once the rings have grown to the window
+ * size. When a removed value does not match the oldest value (e.g. sort or unique windows), its first occurrence is
+ * removed from the ring and the deque is rebuilt in O(n).
+ * <p>
+ * This is not a thread safe implementation.
+ */
+public class MonotonicLongDeque implements Serializable {
+
+    private static final long serialVersionUID = -2496313262406226873L;
+    private static final int INITIAL_CAPACITY = 8;
+    private final boolean isMax;
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int valuesHead = 0;
+    private int valuesSize = 0;
+    private long headSequence = 0;
+    private long[] dequeSequences = new long[INITIAL_CAPACITY];
+    private int dequeHead = 0;
+    private int dequeSize = 0;
+
+    /**
+     * @param isMax true to track the maximum, false to track the minimum
+     */
+    public MonotonicLongDeque(boolean isMax) {
+        this.isMax = isMax;
+    }
+
+    /**
+     * Add a value to the tail of the window.
+     *
+     * @param value value to be added
+     * @return true if the extremum has changed
+     */
+    public boolean add(long value) {
+        if (valuesSize == values.length) {
+            growValues();
+        }
+        values[(valuesHead + valuesSize) & (values.length - 1)] = value;
+        valuesSize++;
+        return pushToDeque(headSequence + valuesSize - 1, value);
+    }
+
+    /**
+     * Remove a value from the window.
+     *
+     * @param value value to be removed
+     * @return true if the extremum has changed
+     */
+    public boolean remove(long value) {
+        if (valuesSize == 0) {
+            return false;
+        }
+        if (values[valuesHead] == value) {
+            valuesHead = (valuesHead + 1) & (values.length - 1);
+            valuesSize--;
+            if (dequeSize > 0 && dequeSequences[dequeHead] == headSequence) {
+                dequeHead = (dequeHead + 1) & (dequeSequences.length - 1);
+                dequeSize--;
+                headSequence++;
+                return true;
+            }
+            headSequence++;
+            return false;
+        }
+        return removeOutOfOrder(value);
+    }
+
+    public boolean isEmpty() {
+        return dequeSize == 0;
+    }
+
+    /**
+     * @return current extremum, only valid when the window is not empty
+     */
+    public long getExtremum() {
+        return valueAt(dequeSequences[dequeHead]);
+    }
+
+    public void clear() {
+        valuesHead = 0;
+        valuesSize = 0;
+        headSequence = 0;
+        dequeHead = 0;
+        dequeSize = 0;
+    }
+
+    private long valueAt(long sequence) {
+        return values[(valuesHead + (int) (sequence - headSequence)) & (values.length - 1)];
+    }
+
+    private boolean pushToDeque(long sequence, long value) {
+        while (dequeSize > 0) {
+            long tail = valueAt(dequeSequences[(dequeHead + dequeSize - 1) & (dequeSequences.length - 1)]);
+            if (isMax ? tail < value : tail > value) {
+                dequeSize--;
+            } else {
+                break;
+            }
+        }
+        if (dequeSize == dequeSequences.length) {
+            growDeque();
+        }
+        dequeSequences[(dequeHead + dequeSize) & (dequeSequences.length - 1)] = sequence;
+        dequeSize++;
+        return dequeSize == 1;
+    }
+
+    private boolean removeOutOfOrder(long value) {
+        int mask = values.length - 1;
+        for (int i = 1; i < valuesSize; i++) {
+            if (values[(valuesHead + i) & mask] == value) {
+                for (int j = i; j < valuesSize - 1; j++) {
+                    values[(valuesHead + j) & mask] = values[(valuesHead + j + 1) & mask];
+                }
+                valuesSize--;
+                dequeHead = 0;
+                dequeSize = 0;
+                for (int j = 0; j < valuesSize; j++) {
+                    pushToDeque(headSequence + j, values[(valuesHead + j) & mask]);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void growValues() {
+        long[] newValues = new long[values.length << 1];
+        for (int i = 0; i < valuesSize; i++) {
+            newValues[i] = values[(valuesHead + i) & (values.length - 1)];
+        }
+        values = newValues;
+        valuesHead = 0;
+    }
+
+    private void growDeque() {
+        long[] newDequeSequences = new long[dequeSequences.length << 1];
+        for (int i = 0; i < dequeSize; i++) {
+            newDequeSequences[i] = dequeSequences[(dequeHead + i) & (dequeSequences.length - 1)];
+        }
+        dequeSequences = newDequeSequences;
+        dequeHead = 0;
+    }
+}
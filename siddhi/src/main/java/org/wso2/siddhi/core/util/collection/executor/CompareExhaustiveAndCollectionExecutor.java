@@ -94,6 +94,8 @@ public class CompareExhaustiveAndCollectionExecutor implements CollectionExecuto
         Collection<StreamEvent> compareStreamEvents = findEvents(deletingEvent, indexedEventHolder);
         if (compareStreamEvents == null) {
             exhaustiveCollectionExecutor.delete(deletingEvent, indexedEventHolder);
+        } else if (compareStreamEvents.size() > 0) {
+            indexedEventHolder.deleteAll(compareStreamEvents);
         }
     }
 
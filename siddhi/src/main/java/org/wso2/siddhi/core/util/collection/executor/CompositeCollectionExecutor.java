@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.collection.executor;
+
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventCloner;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
+import org.wso2.siddhi.core.table.holder.IndexedEventHolder;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation of {@link CollectionExecutor} which handle equality conditions on all the attributes of a
+ * composite index.
+ */
+public class CompositeCollectionExecutor implements CollectionExecutor {
+
+    private final List<String> compositeIndex;
+    private final ExpressionExecutor[] valueExpressionExecutors;
+    private final Attribute.Type[] attributeTypes;
+
+    /**
+     * @param compositeIndex           attributes of the composite index
+     * @param valueExpressionExecutors executors of the values compared with each attribute of the index
+     * @param attributeTypes           types of the attributes of the index, as numeric values are looked up
+     *                                 after converting them to the type of the attribute
+     */
+    public CompositeCollectionExecutor(List<String> compositeIndex, ExpressionExecutor[] valueExpressionExecutors,
+                                       Attribute.Type[] attributeTypes) {
+        this.compositeIndex = compositeIndex;
+        this.valueExpressionExecutors = valueExpressionExecutors;
+        this.attributeTypes = attributeTypes;
+    }
+
+    public StreamEvent find(StateEvent matchingEvent, IndexedEventHolder indexedEventHolder, StreamEventCloner
+            storeEventCloner) {
+
+        ComplexEventChunk<StreamEvent> returnEventChunk = new ComplexEventChunk<StreamEvent>(false);
+        for (StreamEvent storeEvent : findEvents(matchingEvent, indexedEventHolder)) {
+            if (storeEventCloner != null) {
+                returnEventChunk.add(storeEventCloner.copyStreamEvent(storeEvent));
+            } else {
+                returnEventChunk.add(storeEvent);
+            }
+        }
+        return returnEventChunk.getFirst();
+    }
+
+    public Collection<StreamEvent> findEvents(StateEvent matchingEvent, IndexedEventHolder indexedEventHolder) {
+        return indexedEventHolder.findEvents(compositeIndex, getValues(matchingEvent));
+    }
+
+    @Override
+    public boolean contains(StateEvent matchingEvent, IndexedEventHolder indexedEventHolder) {
+        return indexedEventHolder.containsEventSet(compositeIndex, getValues(matchingEvent));
+    }
+
+    @Override
+    public void delete(StateEvent deletingEvent, IndexedEventHolder indexedEventHolder) {
+        indexedEventHolder.delete(compositeIndex, getValues(deletingEvent));
+    }
+
+    @Override
+    public Cost getDefaultCost() {
+        return Cost.SINGLE_RETURN_INDEX_MATCHING;
+    }
+
+    private Object[] getValues(StateEvent matchingEvent) {
+        Object[] values = new Object[valueExpressionExecutors.length];
+        for (int i = 0; i < valueExpressionExecutors.length; i++) {
+            Object value = valueExpressionExecutors[i].execute(matchingEvent);
+            if (value instanceof Number && valueExpressionExecutors[i].getReturnType() != attributeTypes[i]) {
+                values[i] = convert((Number) value, attributeTypes[i]);
+            } else {
+                values[i] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Converts the value to the given numeric type, keeping the value as it is when it has no exact equivalent of
+     * that type, in which case no attribute value equals to it.
+     */
+    private static Object convert(Number value, Attribute.Type type) {
+        Number convertedValue;
+        switch (type) {
+            case INT:
+                convertedValue = value.intValue();
+                break;
+            case LONG:
+                convertedValue = value.longValue();
+                break;
+            case FLOAT:
+                convertedValue = value.floatValue();
+                break;
+            case DOUBLE:
+                convertedValue = value.doubleValue();
+                break;
+            default:
+                return value;
+        }
+        if (convertedValue.doubleValue() == value.doubleValue()) {
+            return convertedValue;
+        } else {
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.collection.expression;
+
+import org.wso2.siddhi.query.api.expression.Expression;
+
+import java.util.List;
+
+/**
+ * Implementation of {@link CollectionExpression} which represent equality comparisons on all the attributes of a
+ * composite index.
+ */
+public class CompositeCollectionExpression implements CollectionExpression {
+
+    private final Expression expression;
+    private final CollectionScope collectionScope;
+    private List<String> compositeIndex;
+    private List<CollectionExpression> valueCollectionExpressions;
+
+    public CompositeCollectionExpression(Expression expression, CollectionScope collectionScope,
+                                         List<String> compositeIndex,
+                                         List<CollectionExpression> valueCollectionExpressions) {
+        this.expression = expression;
+        this.collectionScope = collectionScope;
+        this.compositeIndex = compositeIndex;
+        this.valueCollectionExpressions = valueCollectionExpressions;
+    }
+
+    public List<String> getCompositeIndex() {
+        return compositeIndex;
+    }
+
+    public List<CollectionExpression> getValueCollectionExpressions() {
+        return valueCollectionExpressions;
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    @Override
+    public CollectionScope getCollectionScope() {
+        return collectionScope;
+    }
+}
@@ -174,12 +174,15 @@ public class IndexOperator implements Operator {
                 }
                 storeEvents.add(toUpdateEventChunk);
             } else {
-                while (foundEventChunk.hasNext()) {
-                    StreamEvent streamEvent = foundEventChunk.next();
+                StreamEvent streamEvent = foundEventChunk.getFirst();
+                while (streamEvent != null) {
+                    StreamEvent nextStreamEvent = streamEvent.getNext();
                     streamEvent.setNext(null); // to make the chained state back to normal
                     for (UpdateAttributeMapper updateAttributeMapper : updateAttributeMappers) {
                         updateAttributeMapper.mapOutputData(overwritingOrAddingEvent, streamEvent);
                     }
+                    storeEvents.eventUpdated(streamEvent);
+                    streamEvent = nextStreamEvent;
                 }
             }
         }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.siddhi.core.util.collection.operator;
+
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.event.stream.StreamEventCloner;
+import org.wso2.siddhi.core.exception.OperationNotSupportedException;
+import org.wso2.siddhi.core.util.collection.AddingStreamEventExtractor;
+import org.wso2.siddhi.core.util.collection.UpdateAttributeMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Operator which lists the events of a window store as they are, without copying them. It is used to read all the
+ * events of a window while the window is locked, and the caller copies the events it keeps. The find only collects
+ * the events, they are fetched through {@link #takeStoreEvents()}.
+ */
+public class ScanOperator implements Operator {
+
+    private List<StreamEvent> scannedEvents;
+
+    @Override
+    public CompiledCondition cloneCompiledCondition(String key) {
+        return new ScanOperator();
+    }
+
+    @Override
+    public StreamEvent find(StateEvent matchingEvent, Object storeEvents, StreamEventCloner storeEventCloner) {
+        scannedEvents = new ArrayList<StreamEvent>();
+        if (storeEvents instanceof ComplexEventChunk) {
+            ComplexEventChunk<?> storeEventChunk = (ComplexEventChunk<?>) storeEvents;
+            storeEventChunk.reset();
+            while (storeEventChunk.hasNext()) {
+                scannedEvents.add((StreamEvent) storeEventChunk.next());
+            }
+        } else {
+            for (Object storeEvent : (Collection<?>) storeEvents) {
+                scannedEvents.add((StreamEvent) storeEvent);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Events of the store listed by the last find. The events still belong to the store, hence they should not be
+     * changed or chained, and they should only be read while the store is locked.
+     *
+     * @return events of the store in their order, or null if there was no find since the last call
+     */
+    public List<StreamEvent> takeStoreEvents() {
+        List<StreamEvent> storeEvents = scannedEvents;
+        scannedEvents = null;
+        return storeEvents;
+    }
+
+    @Override
+    public boolean contains(StateEvent matchingEvent, Object storeEvents) {
+        throw new OperationNotSupportedException("ScanOperator only supports find");
+    }
+
+    @Override
+    public void delete(ComplexEventChunk<StateEvent> deletingEventChunk, Object storeEvents) {
+        throw new OperationNotSupportedException("ScanOperator only supports find");
+    }
+
+    @Override
+    public void update(ComplexEventChunk<StateEvent> updatingEventChunk, Object storeEvents,
+                       UpdateAttributeMapper[] updateAttributeMappers) {
+        throw new OperationNotSupportedException("ScanOperator only supports find");
+    }
+
+    @Override
+    public ComplexEventChunk<StreamEvent> tryUpdate(ComplexEventChunk<StateEvent> updatingOrAddingEventChunk,
+                                                    Object storeEvents,
+                                                    UpdateAttributeMapper[] updateAttributeMappers,
+                                                    AddingStreamEventExtractor addingStreamEventExtractor) {
+        throw new OperationNotSupportedException("ScanOperator only supports find");
+    }
+}
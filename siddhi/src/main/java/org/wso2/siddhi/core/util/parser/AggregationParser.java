@@ -29,6 +29,8 @@ import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.single.EntryValveExecutor;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
 import org.wso2.siddhi.core.query.selector.GroupByKeyGenerator;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental.AsyncIncrementalExecutor;
+import org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental.IncrementalAggregateAttributeExecutor;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental.IncrementalAggregationProcessor;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental.IncrementalAttributeAggregator;
 import org.wso2.siddhi.core.query.selector.attribute.aggregator.incremental.IncrementalExecutor;
@@ -37,6 +39,8 @@ import org.wso2.siddhi.core.util.Scheduler;
 import org.wso2.siddhi.core.util.SiddhiAppRuntimeBuilder;
 import org.wso2.siddhi.core.util.SiddhiClassLoader;
 import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
+import org.wso2.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
 import org.wso2.siddhi.core.util.extension.holder.FunctionExecutorExtensionHolder;
 import org.wso2.siddhi.core.util.extension.holder.IncrementalAttributeAggregatorExtensionHolder;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
@@ -55,16 +59,20 @@ import org.wso2.siddhi.query.api.execution.query.selection.OutputAttribute;
 import org.wso2.siddhi.query.api.expression.AttributeFunction;
 import org.wso2.siddhi.query.api.expression.Expression;
 import org.wso2.siddhi.query.api.expression.Variable;
+import org.wso2.siddhi.query.api.expression.condition.Compare;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static org.wso2.siddhi.core.util.SiddhiConstants.UNKNOWN_STATE;
+
 /*
  * This is the parer class of incremental aggregation definition.
  */
@@ -119,12 +127,14 @@ public class AggregationParser {
 
         List<ExpressionExecutor> incomingExpressionExecutors = new ArrayList<>();
         List<IncrementalAttributeAggregator> incrementalAttributeAggregators = new ArrayList<>();
+        List<String> outputAttributeNames = new ArrayList<>();
         List<Variable> groupByVariableList = aggregationDefinition.getSelector().getGroupByList();
         boolean isProcessingOnExternalTime = aggregationDefinition.getAggregateAttribute() != null;
 
         populateIncomingAggregatorsAndExecutors(aggregationDefinition, siddhiAppContext, tableMap,
                 incomingVariableExpressionExecutors, aggregatorName, incomingMetaStreamEvent,
-                incomingExpressionExecutors, incrementalAttributeAggregators, groupByVariableList);
+                incomingExpressionExecutors, incrementalAttributeAggregators, outputAttributeNames,
+                groupByVariableList);
 
         int baseAggregatorBeginIndex = incomingMetaStreamEvent.getOutputData().size();
 
@@ -167,6 +177,55 @@ public class AggregationParser {
         if (element != null) {
             bufferSize = Integer.parseInt(element.getValue());
         }
+        int allowedLateness = 0;
+        element = AnnotationHelper.getAnnotationElement(SiddhiConstants.ANNOTATION_ALLOWED_LATENESS, null,
+                aggregationDefinition.getAnnotations());
+        if (element != null) {
+            try {
+                allowedLateness = Integer.parseInt(element.getValue());
+            } catch (NumberFormatException e) {
+                throw new SiddhiAppCreationException("@" + SiddhiConstants.ANNOTATION_ALLOWED_LATENESS + " of " +
+                        "aggregation '" + aggregatorName + "' should be a number of buckets, but found '" +
+                        element.getValue() + "'", e);
+            }
+            if (allowedLateness <= 0) {
+                throw new SiddhiAppCreationException("@" + SiddhiConstants.ANNOTATION_ALLOWED_LATENESS + " of " +
+                        "aggregation '" + aggregatorName + "' should be a positive number of buckets");
+            }
+            if (!isProcessingOnExternalTime) {
+                throw new SiddhiAppCreationException("@" + SiddhiConstants.ANNOTATION_ALLOWED_LATENESS + " can " +
+                        "only be used when aggregation '" + aggregatorName + "' is aggregated by an attribute");
+            }
+            if (bufferSize > 0) {
+                throw new SiddhiAppCreationException("@" + SiddhiConstants.ANNOTATION_ALLOWED_LATENESS + " and @" +
+                        SiddhiConstants.ANNOTATION_BUFFER_SIZE + " cannot be used together in aggregation '" +
+                        aggregatorName + "'");
+            }
+        }
+
+        // Rollups into the coarser durations are done asynchronously only when the aggregation asks for it, as
+        // @app:async concerns the stream junctions
+        int asyncBufferSize = 0;
+        Annotation asyncAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_ASYNC,
+                aggregationDefinition.getAnnotations());
+        if (asyncAnnotation != null) {
+            asyncBufferSize = SiddhiConstants.DEFAULT_EVENT_BUFFER_SIZE;
+            String bufferSizeString = asyncAnnotation.getElement(SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE);
+            if (bufferSizeString != null) {
+                try {
+                    asyncBufferSize = Integer.parseInt(bufferSizeString);
+                } catch (NumberFormatException e) {
+                    throw new SiddhiAppCreationException(SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE + " of @" +
+                            SiddhiConstants.ANNOTATION_ASYNC + " in aggregation '" + aggregatorName + "' should " +
+                            "be a number, but found '" + bufferSizeString + "'", e);
+                }
+            }
+            if (asyncBufferSize <= 0 || Integer.bitCount(asyncBufferSize) != 1) {
+                throw new SiddhiAppCreationException(SiddhiConstants.ANNOTATION_ELEMENT_BUFFER_SIZE + " of @" +
+                        SiddhiConstants.ANNOTATION_ASYNC + " in aggregation '" + aggregatorName + "' should be " +
+                        "a power of 2, but found " + asyncBufferSize);
+            }
+        }
 
         // Create new scheduler
         EntryValveExecutor entryValveExecutor = new EntryValveExecutor(siddhiAppContext);
@@ -176,12 +235,31 @@ public class AggregationParser {
         Scheduler scheduler = SchedulerParser.parse(siddhiAppContext.getScheduledExecutorService(),
                 entryValveExecutor, siddhiAppContext);
         scheduler.init(lockWrapper, aggregatorName);
-        scheduler.setStreamEventPool(new StreamEventPool(processedMetaStreamEvent, 10));
+        scheduler.setStreamEventPool(new StreamEventPool(processedMetaStreamEvent,
+                siddhiAppContext.getEventPoolMagazineSize(), siddhiAppContext.getEventPoolDepotSize()));
+
+        // Executors used to re-aggregate stored aggregates and to compute the final output on retrieval
+        MetaStreamEvent retrievalMetaStreamEvent = new MetaStreamEvent();
+        for (Attribute attribute : incomingOutputStreamDefinition.getAttributeList()) {
+            retrievalMetaStreamEvent.addOutputData(attribute);
+        }
+        retrievalMetaStreamEvent.addInputDefinition(incomingOutputStreamDefinition);
+        retrievalMetaStreamEvent.setOutputDefinition(incomingOutputStreamDefinition);
+        List<VariableExpressionExecutor> retrievalVariableExpressionExecutors = new ArrayList<>();
+        List<ExpressionExecutor> rollupExpressionExecutors = constructProcessExpressionExecutors(
+                siddhiAppContext, tableMap, aggregatorName, baseAggregatorBeginIndex,
+                finalBaseAggregators, incomingOutputStreamDefinition, retrievalMetaStreamEvent,
+                retrievalVariableExpressionExecutors, false);
+        List<ExpressionExecutor> outputExpressionExecutors = constructOutputExpressionExecutors(
+                siddhiAppContext, tableMap, aggregatorName, incrementalAttributeAggregators, outputAttributeNames,
+                retrievalMetaStreamEvent, retrievalVariableExpressionExecutors);
 
         QueryParserHelper.reduceMetaComplexEvent(incomingMetaStreamEvent);
         QueryParserHelper.reduceMetaComplexEvent(processedMetaStreamEvent);
+        QueryParserHelper.reduceMetaComplexEvent(retrievalMetaStreamEvent);
         QueryParserHelper.updateVariablePosition(incomingMetaStreamEvent, incomingVariableExpressionExecutors);
         QueryParserHelper.updateVariablePosition(processedMetaStreamEvent, processVariableExpressionExecutors);
+        QueryParserHelper.updateVariablePosition(retrievalMetaStreamEvent, retrievalVariableExpressionExecutors);
 
 
         List<TimePeriod.Duration> incrementalDurations = getSortedPeriods(aggregationDefinition.getTimePeriod());
@@ -192,21 +270,35 @@ public class AggregationParser {
         Map<TimePeriod.Duration, IncrementalExecutor> incrementalExecutorMap = buildIncrementalExecutors(
                 siddhiAppContext, aggregatorName, isProcessingOnExternalTime,
                 processedMetaStreamEvent, processExpressionExecutors, groupByKeyGenerator,
-                bufferSize, incrementalDurations, aggregationTables);
+                bufferSize, allowedLateness, incrementalDurations, aggregationTables);
+        if (allowedLateness > 0) {
+            setCorrectionConditions(siddhiAppContext, tableMap, aggregatorName, incomingOutputStreamDefinition,
+                    groupByVariableList, aggregationTables, incrementalExecutorMap);
+        }
 
         IncrementalExecutor rootIncrementalExecutor = incrementalExecutorMap.get(incrementalDurations.get(0));
         rootIncrementalExecutor.setScheduler(scheduler);
+        if (asyncBufferSize > 0 && rootIncrementalExecutor.getNextExecutor() != null) {
+            // Hand the aggregates emitted by the root over to the coarser durations through a ring buffer
+            AsyncIncrementalExecutor asyncIncrementalExecutor = new AsyncIncrementalExecutor(asyncBufferSize,
+                    siddhiAppContext);
+            asyncIncrementalExecutor.setNextExecutor(rootIncrementalExecutor.getNextExecutor());
+            rootIncrementalExecutor.setNextExecutor(asyncIncrementalExecutor);
+            siddhiAppContext.addEternalReferencedHolder(asyncIncrementalExecutor);
+        }
         // Connect entry valve to root incremental executor
         entryValveExecutor.setNextExecutor(rootIncrementalExecutor);
 
-        QueryParserHelper.initStreamRuntime(streamRuntime, incomingMetaStreamEvent, lockWrapper, aggregatorName);
+        QueryParserHelper.initStreamRuntime(streamRuntime, incomingMetaStreamEvent, lockWrapper, aggregatorName,
+                siddhiAppContext);
 
         streamRuntime.setCommonProcessor(new IncrementalAggregationProcessor(rootIncrementalExecutor,
-                incomingExpressionExecutors, processedMetaStreamEvent));
+                incomingExpressionExecutors, processedMetaStreamEvent, siddhiAppContext));
 
         AggregationRuntime aggregationRuntime = new AggregationRuntime(aggregationDefinition, incrementalExecutorMap,
-                aggregationTables, ((SingleStreamRuntime) streamRuntime), entryValveExecutor,incrementalDurations,
-                siddhiAppContext);
+                aggregationTables, ((SingleStreamRuntime) streamRuntime), entryValveExecutor, incrementalDurations,
+                siddhiAppContext, retrievalMetaStreamEvent, rollupExpressionExecutors, outputExpressionExecutors,
+                groupByVariableList.size());
 
         return aggregationRuntime;
     }
@@ -214,8 +306,8 @@ public class AggregationParser {
     private static Map<TimePeriod.Duration, IncrementalExecutor> buildIncrementalExecutors(
             SiddhiAppContext siddhiAppContext, String aggregatorName, boolean isProcessingOnExternalTime,
             MetaStreamEvent processedMetaStreamEvent, List<ExpressionExecutor> processExpressionExecutors,
-            GroupByKeyGenerator groupByKeyGenerator, int bufferSize, List<TimePeriod.Duration> incrementalDurations,
-            Map<TimePeriod.Duration, Table> aggregationTables) {
+            GroupByKeyGenerator groupByKeyGenerator, int bufferSize, int allowedLateness,
+            List<TimePeriod.Duration> incrementalDurations, Map<TimePeriod.Duration, Table> aggregationTables) {
         Map<TimePeriod.Duration, IncrementalExecutor> incrementalExecutorMap = new HashMap<>();
         // Create incremental executors
         IncrementalExecutor child;
@@ -231,7 +323,7 @@ public class AggregationParser {
             IncrementalExecutor incrementalExecutor = new IncrementalExecutor(duration,
                     cloneExpressionExecutors(processExpressionExecutors),
                     groupByKeyGenerator, processedMetaStreamEvent, bufferSize, aggregatorName, child, isRoot,
-                    aggregationTables.get(duration), siddhiAppContext, isProcessingOnExternalTime);
+                    aggregationTables.get(duration), siddhiAppContext, isProcessingOnExternalTime, allowedLateness);
             incrementalExecutorMap.put(duration, incrementalExecutor);
             root = incrementalExecutor;
 
@@ -240,6 +332,82 @@ public class AggregationParser {
         return incrementalExecutorMap;
     }
 
+    /**
+     * Compiles the conditions used to overwrite the table rows of already emitted buckets with their corrected
+     * aggregates. Rows are matched by the start time of the aggregates and the group by attributes.
+     */
+    private static void setCorrectionConditions(
+            SiddhiAppContext siddhiAppContext, Map<String, Table> tableMap, String aggregatorName,
+            StreamDefinition processedDefinition, List<Variable> groupByVariableList,
+            Map<TimePeriod.Duration, Table> aggregationTables,
+            Map<TimePeriod.Duration, IncrementalExecutor> incrementalExecutorMap) {
+        for (Map.Entry<TimePeriod.Duration, IncrementalExecutor> entry : incrementalExecutorMap.entrySet()) {
+            Table table = aggregationTables.get(entry.getKey());
+            String tableId = table.getTableDefinition().getId();
+            StreamDefinition correctionDefinition = StreamDefinition.id(tableId + "_correction");
+            MetaStreamEvent correctionMetaStreamEvent = new MetaStreamEvent();
+            for (Attribute attribute : processedDefinition.getAttributeList()) {
+                correctionDefinition.attribute(attribute.getName(), attribute.getType());
+                correctionMetaStreamEvent.addOutputData(attribute);
+            }
+            correctionMetaStreamEvent.addInputDefinition(correctionDefinition);
+            // Corrected rows are read from the output data, the same way as table rows
+            correctionMetaStreamEvent.setEventType(MetaStreamEvent.EventType.AGGREGATE);
+
+            Expression correctionExpression = Expression.compare(
+                    Expression.variable("_TIMESTAMP").ofStream(tableId), Compare.Operator.EQUAL,
+                    Expression.variable("_TIMESTAMP").ofStream(correctionDefinition.getId()));
+            for (Variable groupByVariable : groupByVariableList) {
+                correctionExpression = Expression.and(correctionExpression, Expression.compare(
+                        Expression.variable(groupByVariable.getAttributeName()).ofStream(tableId),
+                        Compare.Operator.EQUAL,
+                        Expression.variable(groupByVariable.getAttributeName())
+                                .ofStream(correctionDefinition.getId())));
+            }
+            MatchingMetaInfoHolder matchingMetaInfoHolder = MatcherParser.constructMatchingMetaStateHolder(
+                    correctionMetaStreamEvent, 0, table.getTableDefinition(), UNKNOWN_STATE);
+            CompiledCondition correctionCondition = table.compileCondition(correctionExpression,
+                    matchingMetaInfoHolder, siddhiAppContext, null, tableMap, aggregatorName);
+            entry.getValue().setCorrectionCondition(correctionCondition,
+                    MatcherParser.constructUpdateAttributeMapper(table.getTableDefinition(),
+                            correctionDefinition.getAttributeList(), 0));
+        }
+    }
+
+    private static List<ExpressionExecutor> constructOutputExpressionExecutors(
+            SiddhiAppContext siddhiAppContext, Map<String, Table> tableMap, String aggregatorName,
+            List<IncrementalAttributeAggregator> incrementalAttributeAggregators, List<String> outputAttributeNames,
+            MetaStreamEvent retrievalMetaStreamEvent,
+            List<VariableExpressionExecutor> retrievalVariableExpressionExecutors) {
+        List<ExpressionExecutor> outputExpressionExecutors = new ArrayList<>();
+        // Timestamp of the aggregates is the first output attribute
+        outputExpressionExecutors.add(ExpressionParser.parseExpression(new Variable("_TIMESTAMP"),
+                retrievalMetaStreamEvent, 0, tableMap, retrievalVariableExpressionExecutors, siddhiAppContext,
+                false, 0, aggregatorName));
+        Iterator<IncrementalAttributeAggregator> incrementalAttributeAggregatorIterator =
+                incrementalAttributeAggregators.iterator();
+        for (String outputAttributeName : outputAttributeNames) {
+            if (outputAttributeName == null) {
+                IncrementalAttributeAggregator incrementalAttributeAggregator =
+                        incrementalAttributeAggregatorIterator.next();
+                Attribute[] baseAttributes = incrementalAttributeAggregator.getBaseAttributes();
+                ExpressionExecutor[] baseAttributeExecutors = new ExpressionExecutor[baseAttributes.length];
+                for (int i = 0; i < baseAttributes.length; i++) {
+                    baseAttributeExecutors[i] = ExpressionParser.parseExpression(
+                            new Variable(baseAttributes[i].getName()), retrievalMetaStreamEvent, 0, tableMap,
+                            retrievalVariableExpressionExecutors, siddhiAppContext, false, 0, aggregatorName);
+                }
+                outputExpressionExecutors.add(new IncrementalAggregateAttributeExecutor(
+                        incrementalAttributeAggregator, baseAttributeExecutors));
+            } else {
+                outputExpressionExecutors.add(ExpressionParser.parseExpression(new Variable(outputAttributeName),
+                        retrievalMetaStreamEvent, 0, tableMap, retrievalVariableExpressionExecutors,
+                        siddhiAppContext, false, 0, aggregatorName));
+            }
+        }
+        return outputExpressionExecutors;
+    }
+
     private static List<ExpressionExecutor> constructProcessExpressionExecutors(
             SiddhiAppContext siddhiAppContext, Map<String, Table> tableMap,
             String aggregatorName, int baseAggregatorBeginIndex,
@@ -301,11 +469,14 @@ public class AggregationParser {
             Map<String, Table> tableMap, List<VariableExpressionExecutor> incomingVariableExpressionExecutors,
             String aggregatorName, MetaStreamEvent incomingMetaStreamEvent,
             List<ExpressionExecutor> incomingExpressionExecutors,
-            List<IncrementalAttributeAggregator> incrementalAttributeAggregators, List<Variable> groupByVariableList) {
+            List<IncrementalAttributeAggregator> incrementalAttributeAggregators, List<String> outputAttributeNames,
+            List<Variable> groupByVariableList) {
         ExpressionExecutor timestampExecutor = getTimestampExecutor(aggregationDefinition, siddhiAppContext,
                 tableMap, incomingVariableExpressionExecutors, aggregatorName, incomingMetaStreamEvent);
         incomingMetaStreamEvent.addOutputData(new Attribute("_TIMESTAMP", Attribute.Type.LONG));
         incomingExpressionExecutors.add(timestampExecutor);
+        aggregationDefinition.getAttributeList().add(
+                new Attribute(SiddhiConstants.AGG_TIMESTAMP, Attribute.Type.LONG));
 
         AbstractDefinition incomingLastInputStreamDefinition = incomingMetaStreamEvent.getLastInputDefinition();
         for (Variable groupByVariable : groupByVariableList) {
@@ -330,6 +501,7 @@ public class AggregationParser {
                     initIncrementalAttributeAggregator(incomingLastInputStreamDefinition,
                             (AttributeFunction) expression, incrementalAggregator);
                     incrementalAttributeAggregators.add(incrementalAggregator);
+                    outputAttributeNames.add(null);
                     aggregationDefinition.getAttributeList().add(
                             new Attribute(outputAttribute.getRename(), incrementalAggregator.getReturnType()));
                 } catch (SiddhiAppCreationException ex) {
@@ -342,6 +514,7 @@ public class AggregationParser {
                         incomingExpressionExecutors.add(expressionExecutor);
                         incomingMetaStreamEvent.addOutputData(
                                 new Attribute(outputAttribute.getRename(), expressionExecutor.getReturnType()));
+                        outputAttributeNames.add(outputAttribute.getRename());
                         aggregationDefinition.getAttributeList().add(
                                 new Attribute(outputAttribute.getRename(), expressionExecutor.getReturnType()));
                     } catch (SiddhiAppCreationException e) {
@@ -364,6 +537,7 @@ public class AggregationParser {
                                 ((Variable) expression).getAttributeName() + "' not used in aggregation '" +
                                 aggregatorName + "' processing.");
                     }
+                    outputAttributeNames.add(groupByAttribute.getName());
                     aggregationDefinition.getAttributeList().add(
                             new Attribute(groupByAttribute.getName(), groupByAttribute.getType()));
                 } else {
@@ -373,6 +547,7 @@ public class AggregationParser {
                     incomingExpressionExecutors.add(expressionExecutor);
                     incomingMetaStreamEvent.addOutputData(
                             new Attribute(outputAttribute.getRename(), expressionExecutor.getReturnType()));
+                    outputAttributeNames.add(outputAttribute.getRename());
                     aggregationDefinition.getAttributeList().add(
                             new Attribute(outputAttribute.getRename(), expressionExecutor.getReturnType()));
                 }
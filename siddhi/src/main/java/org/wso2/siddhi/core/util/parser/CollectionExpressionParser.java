@@ -24,10 +24,12 @@ import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.table.Table;
 import org.wso2.siddhi.core.table.holder.IndexedEventHolder;
+import org.wso2.siddhi.core.util.EqualityKeys;
 import org.wso2.siddhi.core.util.collection.executor.AnyAndCollectionExecutor;
 import org.wso2.siddhi.core.util.collection.executor.CollectionExecutor;
 import org.wso2.siddhi.core.util.collection.executor.CompareCollectionExecutor;
 import org.wso2.siddhi.core.util.collection.executor.CompareExhaustiveAndCollectionExecutor;
+import org.wso2.siddhi.core.util.collection.executor.CompositeCollectionExecutor;
 import org.wso2.siddhi.core.util.collection.executor.ExhaustiveCollectionExecutor;
 import org.wso2.siddhi.core.util.collection.executor.NonAndCollectionExecutor;
 import org.wso2.siddhi.core.util.collection.executor.NonCollectionExecutor;
@@ -38,10 +40,12 @@ import org.wso2.siddhi.core.util.collection.expression.AttributeCollectionExpres
 import org.wso2.siddhi.core.util.collection.expression.BasicCollectionExpression;
 import org.wso2.siddhi.core.util.collection.expression.CollectionExpression;
 import org.wso2.siddhi.core.util.collection.expression.CompareCollectionExpression;
+import org.wso2.siddhi.core.util.collection.expression.CompositeCollectionExpression;
 import org.wso2.siddhi.core.util.collection.expression.NotCollectionExpression;
 import org.wso2.siddhi.core.util.collection.expression.NullCollectionExpression;
 import org.wso2.siddhi.core.util.collection.expression.OrCollectionExpression;
 import org.wso2.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
+import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.expression.AttributeFunction;
 import org.wso2.siddhi.query.api.expression.Expression;
@@ -59,8 +63,12 @@ import org.wso2.siddhi.query.api.expression.math.Mod;
 import org.wso2.siddhi.query.api.expression.math.Multiply;
 import org.wso2.siddhi.query.api.expression.math.Subtract;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Class to parse Expressions and create Expression executors.
@@ -79,6 +87,12 @@ public class CollectionExpressionParser {
             matchingMetaInfoHolder, IndexedEventHolder indexedEventHolder) {
         if (expression instanceof And) {
 
+            CollectionExpression compositeCollectionExpression = parseCompositeCollectionExpression((And) expression,
+                    matchingMetaInfoHolder, indexedEventHolder);
+            if (compositeCollectionExpression != null) {
+                return compositeCollectionExpression;
+            }
+
             CollectionExpression leftCollectionExpression = parseCollectionExpression(((And) expression)
                     .getLeftExpression(), matchingMetaInfoHolder, indexedEventHolder);
             CollectionExpression rightCollectionExpression = parseCollectionExpression(((And) expression)
@@ -296,6 +310,101 @@ public class CollectionExpressionParser {
     }
 
 
+    /**
+     * Matches the equality conditions of the given and expression with the composite indexes of the holder, and
+     * picks the index covering the most attributes.
+     *
+     * @param expression             and expression to be parsed
+     * @param matchingMetaInfoHolder matchingMetaInfoHolder
+     * @param indexedEventHolder     indexed event holder
+     * @return the collection expression using the composite index, or null when no composite index is covered or
+     * when the primary key is compared for equality, as that is more selective than any composite index
+     */
+    private static CollectionExpression parseCompositeCollectionExpression(And expression, MatchingMetaInfoHolder
+            matchingMetaInfoHolder, IndexedEventHolder indexedEventHolder) {
+        Set<List<String>> compositeIndexes = indexedEventHolder.getCompositeIndexes();
+        if (compositeIndexes.isEmpty()) {
+            return null;
+        }
+        List<Expression> conditions = new ArrayList<Expression>();
+        EqualityKeys.collectConditions(expression, conditions);
+        Map<String, Integer> equalityConditions = new HashMap<String, Integer>();
+        Map<String, Expression> valueExpressions = new HashMap<String, Expression>();
+        for (int i = 0; i < conditions.size(); i++) {
+            if (!(conditions.get(i) instanceof Compare) ||
+                    ((Compare) conditions.get(i)).getOperator() != Compare.Operator.EQUAL) {
+                continue;
+            }
+            Compare compare = (Compare) conditions.get(i);
+            Expression attributeExpression;
+            Expression valueExpression;
+            if (compare.getLeftExpression() instanceof Variable &&
+                    isCollectionVariable(matchingMetaInfoHolder, (Variable) compare.getLeftExpression())) {
+                attributeExpression = compare.getLeftExpression();
+                valueExpression = compare.getRightExpression();
+            } else {
+                attributeExpression = compare.getRightExpression();
+                valueExpression = compare.getLeftExpression();
+            }
+            if (attributeExpression instanceof Variable &&
+                    isCollectionVariable(matchingMetaInfoHolder, (Variable) attributeExpression) &&
+                    parseCollectionExpression(valueExpression, matchingMetaInfoHolder, indexedEventHolder)
+                            .getCollectionScope() == CollectionExpression.CollectionScope.NON) {
+                String attribute = ((Variable) attributeExpression).getAttributeName();
+                if (!equalityConditions.containsKey(attribute)) {
+                    equalityConditions.put(attribute, i);
+                    valueExpressions.put(attribute, valueExpression);
+                }
+            }
+        }
+        if (indexedEventHolder.getPrimaryKeyAttribute() != null &&
+                equalityConditions.containsKey(indexedEventHolder.getPrimaryKeyAttribute())) {
+            return null;
+        }
+        List<String> compositeIndex = null;
+        for (List<String> aCompositeIndex : compositeIndexes) {
+            if (equalityConditions.keySet().containsAll(aCompositeIndex) &&
+                    (compositeIndex == null || aCompositeIndex.size() > compositeIndex.size())) {
+                compositeIndex = aCompositeIndex;
+            }
+        }
+        if (compositeIndex == null) {
+            return null;
+        }
+
+        List<CollectionExpression> valueCollectionExpressions = new ArrayList<CollectionExpression>();
+        Set<Integer> indexedConditions = new HashSet<Integer>();
+        Expression indexedExpression = null;
+        for (String attribute : compositeIndex) {
+            int conditionIndex = equalityConditions.get(attribute);
+            indexedConditions.add(conditionIndex);
+            valueCollectionExpressions.add(new BasicCollectionExpression(valueExpressions.get(attribute),
+                    CollectionExpression.CollectionScope.NON));
+            indexedExpression = andExpression(indexedExpression, conditions.get(conditionIndex));
+        }
+        CollectionExpression compositeCollectionExpression = new CompositeCollectionExpression(indexedExpression,
+                CollectionExpression.CollectionScope.INDEXED_RESULT_SET, compositeIndex, valueCollectionExpressions);
+        Expression remainingExpression = null;
+        for (int i = 0; i < conditions.size(); i++) {
+            if (!indexedConditions.contains(i)) {
+                remainingExpression = andExpression(remainingExpression, conditions.get(i));
+            }
+        }
+        if (remainingExpression == null) {
+            return compositeCollectionExpression;
+        }
+        return new AndCollectionExpression(expression, CollectionExpression.CollectionScope.OPTIMISED_RESULT_SET,
+                compositeCollectionExpression, parseCollectionExpression(remainingExpression,
+                matchingMetaInfoHolder, indexedEventHolder));
+    }
+
+    private static Expression andExpression(Expression leftExpression, Expression rightExpression) {
+        if (leftExpression == null) {
+            return rightExpression;
+        }
+        return Expression.and(leftExpression, rightExpression);
+    }
+
     private static boolean isCollectionVariable(MatchingMetaInfoHolder matchingMetaInfoHolder, Variable variable) {
         if (variable.getStreamId() != null) {
             MetaStreamEvent collectionStreamEvent = matchingMetaInfoHolder.getMetaStateEvent().getMetaStreamEvent
@@ -344,6 +453,25 @@ public class CollectionExpressionParser {
             return new CompareCollectionExecutor(expressionExecutor, matchingMetaInfoHolder.getStoreEventIndex(),
                     attributeCollectionExpression.getAttribute(), ((CompareCollectionExpression)
                     collectionExpression).getOperator(), valueExpressionExecutor);
+        } else if (collectionExpression instanceof CompositeCollectionExpression) {
+            CompositeCollectionExpression compositeCollectionExpression =
+                    (CompositeCollectionExpression) collectionExpression;
+            List<CollectionExpression> valueCollectionExpressions =
+                    compositeCollectionExpression.getValueCollectionExpressions();
+            ExpressionExecutor[] valueExpressionExecutors = new ExpressionExecutor[valueCollectionExpressions.size()];
+            Attribute.Type[] attributeTypes = new Attribute.Type[valueCollectionExpressions.size()];
+            AbstractDefinition collectionDefinition = matchingMetaInfoHolder.getMetaStateEvent().getMetaStreamEvent(
+                    matchingMetaInfoHolder.getStoreEventIndex()).getLastInputDefinition();
+            for (int i = 0; i < valueExpressionExecutors.length; i++) {
+                valueExpressionExecutors[i] = ExpressionParser.parseExpression(valueCollectionExpressions.get(i)
+                                .getExpression(), matchingMetaInfoHolder.getMetaStateEvent(),
+                        matchingMetaInfoHolder.getCurrentState(), tableMap, variableExpressionExecutors,
+                        siddhiAppContext, false, 0, queryName);
+                attributeTypes[i] = collectionDefinition.getAttributeType(
+                        compositeCollectionExpression.getCompositeIndex().get(i));
+            }
+            return new CompositeCollectionExecutor(compositeCollectionExpression.getCompositeIndex(),
+                    valueExpressionExecutors, attributeTypes);
         } else if (collectionExpression instanceof NullCollectionExpression) {
             ExpressionExecutor expressionExecutor = null;
             if (isFirst) {
@@ -26,6 +26,7 @@ import org.wso2.siddhi.core.exception.OperationNotSupportedException;
 import org.wso2.siddhi.core.table.holder.EventHolder;
 import org.wso2.siddhi.core.table.holder.IndexEventHolder;
 import org.wso2.siddhi.core.table.holder.ListEventHolder;
+import org.wso2.siddhi.core.table.holder.SpillingEventHolder;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.annotation.Element;
@@ -34,14 +35,20 @@ import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Class to parse {@link EventHolder}
  */
 public class EventHolderPasser {
     private static final Logger log = Logger.getLogger(EventHolderPasser.class);
+    private static final int DEFAULT_SPILL_HOT_SIZE = 10000;
 
     public static EventHolder parse(AbstractDefinition tableDefinition, StreamEventPool tableStreamEventPool) {
         ZeroStreamEventConverter eventConverter = new ZeroStreamEventConverter();
@@ -50,6 +57,8 @@ public class EventHolderPasser {
         int primaryKeyPosition = -1;
 
         Map<String, Integer> indexMetaData = new HashMap<String, Integer>();
+        Set<String> rangeIndexes = new HashSet<String>();
+        Map<List<String>, int[]> compositeIndexMetaData = new LinkedHashMap<List<String>, int[]>();
 
         // primaryKey.
         Annotation primaryKeyAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PRIMARY_KEY,
@@ -81,12 +90,47 @@ public class EventHolderPasser {
                                                                    + indexAnnotation.getElements().size() + " element");
             }
             for (Element element : indexAnnotation.getElements()) {
-                Integer previousValue = indexMetaData.put(element.getValue().trim(), tableDefinition
-                        .getAttributePosition(element.getValue().trim()));
+                if (element.getKey() != null && !SiddhiConstants.ANNOTATION_ELEMENT_HASH.equalsIgnoreCase(
+                        element.getKey()) && !SiddhiConstants.ANNOTATION_ELEMENT_TREE.equalsIgnoreCase(
+                        element.getKey())) {
+                    throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_INDEX + " annotation accepts " +
+                            "only hash and tree keys but found " + element.getKey() + ", at '" +
+                            tableDefinition.getId() + "'");
+                }
+                List<String> indexAttributes = new ArrayList<String>();
+                for (String indexAttribute : element.getValue().split(",")) {
+                    indexAttributes.add(indexAttribute.trim());
+                }
+                if (indexAttributes.size() > 1) {
+                    // composite index, which only serves equality lookups on all of its attributes
+                    if (SiddhiConstants.ANNOTATION_ELEMENT_TREE.equalsIgnoreCase(element.getKey())) {
+                        throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_INDEX + " annotation " +
+                                "does not support tree composite indexes but found '" + element.getValue() +
+                                "', at '" + tableDefinition.getId() + "'");
+                    }
+                    int[] positions = new int[indexAttributes.size()];
+                    for (int i = 0; i < positions.length; i++) {
+                        positions[i] = tableDefinition.getAttributePosition(indexAttributes.get(i));
+                    }
+                    if (compositeIndexMetaData.put(indexAttributes, positions) != null) {
+                        throw new SiddhiAppCreationException("Multiple " + SiddhiConstants.ANNOTATION_INDEX + " " +
+                                "annotations defined with same attributes " + indexAttributes + ", at '" +
+                                tableDefinition.getId() + "'");
+                    }
+                    continue;
+                }
+                String indexAttribute = indexAttributes.get(0);
+                Integer previousValue = indexMetaData.put(indexAttribute, tableDefinition
+                        .getAttributePosition(indexAttribute));
                 if (previousValue != null) {
                     throw new SiddhiAppCreationException("Multiple " + SiddhiConstants.ANNOTATION_INDEX + " " +
-                                                                     "annotations defined with same attribute '" + element.getValue().trim() + "', at '" +
-                                                                     tableDefinition.getId() + "'");
+                            "annotations defined with same attribute '" + indexAttribute + "', at '" +
+                            tableDefinition.getId() + "'");
+                }
+                // numeric attributes are kept in a tree to serve range lookups, unless a hash index is asked for
+                if (SiddhiConstants.ANNOTATION_ELEMENT_TREE.equalsIgnoreCase(element.getKey()) ||
+                        (element.getKey() == null && isNumeric(tableDefinition.getAttributeType(indexAttribute)))) {
+                    rangeIndexes.add(indexAttribute);
                 }
             }
         }
@@ -100,19 +144,71 @@ public class EventHolderPasser {
                                                              " at '" + tableDefinition.getId() + "'");
         }
 
-        if (primaryKeyAttribute != null || indexMetaData.size() > 0) {
+        // spill to disk.
+        Annotation spillAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_SPILL,
+                tableDefinition.getAnnotations());
+        if (spillAnnotation != null) {
+            if (primaryKeyAttribute == null) {
+                throw new SiddhiAppCreationException(SiddhiConstants.ANNOTATION_SPILL + " annotation requires a " +
+                        SiddhiConstants.ANNOTATION_PRIMARY_KEY + " annotation, at '" + tableDefinition.getId() + "'");
+            }
+            if (indexMetaData.size() > 0 || compositeIndexMetaData.size() > 0) {
+                throw new SiddhiAppCreationException(SiddhiConstants.ANNOTATION_SPILL + " annotation cannot be " +
+                        "used with " + SiddhiConstants.ANNOTATION_INDEX + " annotation, at '" +
+                        tableDefinition.getId() + "'");
+            }
+            int hotSetSize = DEFAULT_SPILL_HOT_SIZE;
+            String location = System.getProperty("java.io.tmpdir");
+            for (Element element : spillAnnotation.getElements()) {
+                if (SiddhiConstants.ANNOTATION_ELEMENT_HOT_SIZE.equalsIgnoreCase(element.getKey())) {
+                    try {
+                        hotSetSize = Integer.parseInt(element.getValue().trim());
+                    } catch (NumberFormatException e) {
+                        throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_SPILL + " annotation " +
+                                "requires an integer hot.size but found '" + element.getValue() + "', at '" +
+                                tableDefinition.getId() + "'", e);
+                    }
+                    if (hotSetSize <= 0) {
+                        throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_SPILL + " annotation " +
+                                "requires a positive hot.size but found " + hotSetSize + ", at '" +
+                                tableDefinition.getId() + "'");
+                    }
+                } else if (SiddhiConstants.ANNOTATION_ELEMENT_LOCATION.equalsIgnoreCase(element.getKey())) {
+                    location = element.getValue().trim();
+                } else {
+                    throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_SPILL + " annotation accepts " +
+                            "only hot.size and location but found " + element.getKey() + ", at '" +
+                            tableDefinition.getId() + "'");
+                }
+            }
+            return new SpillingEventHolder(tableStreamEventPool, eventConverter, primaryKeyPosition,
+                    primaryKeyAttribute, isNumeric(tableDefinition.getAttributeType(primaryKeyAttribute)),
+                    getAttributeTypes(tableDefinition), hotSetSize, location, tableDefinition.getId());
+        }
+
+        if (primaryKeyAttribute != null || indexMetaData.size() > 0 || compositeIndexMetaData.size() > 0) {
             boolean isNumeric = false;
             if (primaryKeyAttribute != null) {
-                Attribute.Type type = tableDefinition.getAttributeType(primaryKeyAttribute);
-                if (type == Attribute.Type.DOUBLE || type == Attribute.Type.FLOAT || type == Attribute.Type.INT ||
-                        type == Attribute.Type.LONG) {
-                    isNumeric = true;
-                }
+                isNumeric = isNumeric(tableDefinition.getAttributeType(primaryKeyAttribute));
             }
             return new IndexEventHolder(tableStreamEventPool, eventConverter, primaryKeyPosition, primaryKeyAttribute,
-                                        isNumeric, indexMetaData);
+                                        isNumeric, indexMetaData, rangeIndexes, compositeIndexMetaData);
         } else {
             return new ListEventHolder(tableStreamEventPool, eventConverter);
         }
     }
+
+    private static boolean isNumeric(Attribute.Type type) {
+        return type == Attribute.Type.DOUBLE || type == Attribute.Type.FLOAT || type == Attribute.Type.INT ||
+                type == Attribute.Type.LONG;
+    }
+
+    private static Attribute.Type[] getAttributeTypes(AbstractDefinition tableDefinition) {
+        List<Attribute> attributeList = tableDefinition.getAttributeList();
+        Attribute.Type[] attributeTypes = new Attribute.Type[attributeList.size()];
+        for (int i = 0; i < attributeTypes.length; i++) {
+            attributeTypes[i] = attributeList.get(i).getType();
+        }
+        return attributeTypes;
+    }
 }
@@ -40,9 +40,13 @@ import org.wso2.siddhi.core.query.processor.stream.window.TableWindowProcessor;
 import org.wso2.siddhi.core.query.processor.stream.window.WindowProcessor;
 import org.wso2.siddhi.core.query.processor.stream.window.WindowWindowProcessor;
 import org.wso2.siddhi.core.table.Table;
+import org.wso2.siddhi.core.util.EqualityKeys;
 import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.core.util.collection.operator.CollectionOperator;
 import org.wso2.siddhi.core.util.collection.operator.CompiledCondition;
+import org.wso2.siddhi.core.util.collection.operator.EventChunkOperator;
 import org.wso2.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
+import org.wso2.siddhi.core.util.collection.operator.ScanOperator;
 import org.wso2.siddhi.core.util.config.ConfigReader;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
 import org.wso2.siddhi.core.window.Window;
@@ -52,7 +56,9 @@ import org.wso2.siddhi.query.api.definition.Attribute;
 import org.wso2.siddhi.query.api.execution.query.input.stream.JoinInputStream;
 import org.wso2.siddhi.query.api.execution.query.input.stream.SingleInputStream;
 import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Variable;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -230,6 +236,11 @@ public class JoinInputStreamParser {
             populateJoinProcessors(leftMetaStreamEvent, leftInputStreamId, leftPreJoinProcessor,
                     leftPostJoinProcessor, leftCompiledCondition);
         }
+        if (joinInputStream.getOnCompare() != null) {
+            populateEqualityKeys(joinInputStream.getOnCompare(), metaStateEvent, leftPostJoinProcessor,
+                    leftCompiledCondition, rightFindableProcessor, rightPostJoinProcessor, rightCompiledCondition,
+                    leftFindableProcessor, siddhiAppContext, tableMap, executors, queryName);
+        }
         JoinStreamRuntime joinStreamRuntime = new JoinStreamRuntime(siddhiAppContext, metaStateEvent);
         joinStreamRuntime.addRuntime(leftStreamRuntime);
         joinStreamRuntime.addRuntime(rightStreamRuntime);
@@ -266,6 +277,87 @@ public class JoinInputStreamParser {
         postJoinProcessor.setCompiledCondition(compiledCondition);
     }
 
+    /**
+     * Find the attributes the join condition compares for equality across the two sides, and let the post
+     * {@link JoinProcessor}s that scan a stream window join chunks of events through a hash table on them.
+     * Only top-level `==` conjuncts between plain variables of the same INT, LONG, STRING or BOOL type are used
+     * as keys, the whole condition is still checked on each pair of events sharing a key.
+     */
+    private static void populateEqualityKeys(Expression compareCondition, MetaStateEvent metaStateEvent,
+                                             JoinProcessor leftPostJoinProcessor,
+                                             CompiledCondition leftCompiledCondition,
+                                             FindableProcessor rightFindableProcessor,
+                                             JoinProcessor rightPostJoinProcessor,
+                                             CompiledCondition rightCompiledCondition,
+                                             FindableProcessor leftFindableProcessor,
+                                             SiddhiAppContext siddhiAppContext, Map<String, Table> tableMap,
+                                             List<VariableExpressionExecutor> executors, String queryName) {
+        boolean leftScansRight = isScanningStreamWindow(rightFindableProcessor, leftCompiledCondition);
+        boolean rightScansLeft = isScanningStreamWindow(leftFindableProcessor, rightCompiledCondition);
+        if (!leftScansRight && !rightScansLeft) {
+            return;
+        }
+        List<Expression> conditions = new ArrayList<Expression>();
+        EqualityKeys.collectConditions(compareCondition, conditions);
+        List<ExpressionExecutor> leftKeyExecutors = new ArrayList<ExpressionExecutor>();
+        List<ExpressionExecutor> rightKeyExecutors = new ArrayList<ExpressionExecutor>();
+        for (Expression condition : conditions) {
+            Variable[] variables = EqualityKeys.getEqualVariables(condition);
+            if (variables == null) {
+                continue;
+            }
+            VariableExpressionExecutor leftExecutor = (VariableExpressionExecutor) ExpressionParser.parseExpression(
+                    variables[0], metaStateEvent, UNKNOWN_STATE, tableMap, executors, siddhiAppContext, false, 0,
+                    queryName);
+            VariableExpressionExecutor rightExecutor = (VariableExpressionExecutor) ExpressionParser.parseExpression(
+                    variables[1], metaStateEvent, UNKNOWN_STATE, tableMap, executors, siddhiAppContext, false, 0,
+                    queryName);
+            if (!isEqualityKey(leftExecutor, rightExecutor)) {
+                continue;
+            }
+            if (leftExecutor.getPosition()[SiddhiConstants.STREAM_EVENT_CHAIN_INDEX] == 0) {
+                leftKeyExecutors.add(leftExecutor);
+                rightKeyExecutors.add(rightExecutor);
+            } else {
+                leftKeyExecutors.add(rightExecutor);
+                rightKeyExecutors.add(leftExecutor);
+            }
+        }
+        if (leftKeyExecutors.isEmpty()) {
+            return;
+        }
+        ExpressionExecutor[] leftKeys = leftKeyExecutors.toArray(new ExpressionExecutor[leftKeyExecutors.size()]);
+        ExpressionExecutor[] rightKeys = rightKeyExecutors.toArray(new ExpressionExecutor[rightKeyExecutors.size()]);
+        ExpressionExecutor conditionExecutor = ExpressionParser.parseExpression(compareCondition, metaStateEvent,
+                UNKNOWN_STATE, tableMap, executors, siddhiAppContext, false, 0, queryName);
+        if (leftScansRight) {
+            leftPostJoinProcessor.setEqualityKeys(new ScanOperator(), leftKeys, rightKeys, conditionExecutor);
+        }
+        if (rightScansLeft) {
+            rightPostJoinProcessor.setEqualityKeys(new ScanOperator(), rightKeys, leftKeys, conditionExecutor);
+        }
+    }
+
+    private static boolean isScanningStreamWindow(FindableProcessor findableProcessor,
+                                                  CompiledCondition compiledCondition) {
+        if (!(findableProcessor instanceof WindowProcessor) || findableProcessor instanceof TableWindowProcessor ||
+                findableProcessor instanceof WindowWindowProcessor ||
+                findableProcessor instanceof AggregateWindowProcessor) {
+            return false;
+        }
+        return compiledCondition instanceof EventChunkOperator || compiledCondition instanceof CollectionOperator;
+    }
+
+    private static boolean isEqualityKey(VariableExpressionExecutor leftExecutor,
+                                         VariableExpressionExecutor rightExecutor) {
+        int leftStreamIndex = leftExecutor.getPosition()[SiddhiConstants.STREAM_EVENT_CHAIN_INDEX];
+        int rightStreamIndex = rightExecutor.getPosition()[SiddhiConstants.STREAM_EVENT_CHAIN_INDEX];
+        if (leftStreamIndex < 0 || rightStreamIndex < 0 || leftStreamIndex == rightStreamIndex) {
+            return false;
+        }
+        return EqualityKeys.isKeyType(leftExecutor, rightExecutor);
+    }
+
     private static void setStreamRuntimeProcessorChain(
             MetaStreamEvent metaStreamEvent, SingleStreamRuntime streamRuntime,
             String inputStreamId, Map<String, Table> tableMap, Map<String, Window> windowMap,
@@ -103,7 +103,8 @@ public class OutputParser {
             }
             tableMetaStreamEvent.addInputDefinition(matchingTableDefinition);
 
-            streamEventPool = new StreamEventPool(tableMetaStreamEvent, 10);
+            streamEventPool = new StreamEventPool(tableMetaStreamEvent, siddhiAppContext.getEventPoolMagazineSize(),
+                    siddhiAppContext.getEventPoolDepotSize());
             streamEventConverter = new ZeroStreamEventConverter();
 
         }
@@ -18,6 +18,7 @@
 
 package org.wso2.siddhi.core.util.parser;
 
+import com.codahale.metrics.Counter;
 import org.wso2.siddhi.core.aggregation.AggregationRuntime;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.state.MetaStateEvent;
@@ -30,6 +31,8 @@ import org.wso2.siddhi.core.query.QueryRuntime;
 import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.join.JoinStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
+import org.wso2.siddhi.core.query.input.stream.state.PartialMatchLimiter;
+import org.wso2.siddhi.core.query.input.stream.state.StateStreamRuntime;
 import org.wso2.siddhi.core.query.output.callback.OutputCallback;
 import org.wso2.siddhi.core.query.output.ratelimit.OutputRateLimiter;
 import org.wso2.siddhi.core.query.output.ratelimit.snapshot.WrappedSnapshotOutputRateLimiter;
@@ -41,13 +44,16 @@ import org.wso2.siddhi.core.util.lock.LockWrapper;
 import org.wso2.siddhi.core.util.parser.helper.QueryParserHelper;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
 import org.wso2.siddhi.core.window.Window;
+import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.annotation.Element;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
 import org.wso2.siddhi.query.api.exception.DuplicateDefinitionException;
+import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
 import org.wso2.siddhi.query.api.execution.query.Query;
 import org.wso2.siddhi.query.api.execution.query.input.handler.StreamHandler;
 import org.wso2.siddhi.query.api.execution.query.input.stream.JoinInputStream;
 import org.wso2.siddhi.query.api.execution.query.input.stream.SingleInputStream;
+import org.wso2.siddhi.query.api.execution.query.input.stream.StateInputStream;
 import org.wso2.siddhi.query.api.execution.query.output.stream.OutputStream;
 import org.wso2.siddhi.query.api.util.AnnotationHelper;
 
@@ -112,6 +118,17 @@ public class QueryParser {
                     siddhiAppContext, streamDefinitionMap, tableDefinitionMap, windowDefinitionMap,
                     aggregationDefinitionMap, tableMap, windowMap, aggregationMap, executors, latencyTracker,
                     outputExpectsExpiredEvents, queryName);
+            Annotation partialMatchesAnnotation = AnnotationHelper.getAnnotation(
+                    SiddhiConstants.ANNOTATION_PARTIAL_MATCHES, query.getAnnotations());
+            if (partialMatchesAnnotation != null) {
+                if (!(streamRuntime instanceof StateStreamRuntime) || ((StateInputStream) query.getInputStream())
+                        .getStateType() != StateInputStream.Type.PATTERN) {
+                    throw new SiddhiAppCreationException("@" + SiddhiConstants.ANNOTATION_PARTIAL_MATCHES +
+                            " annotation can only be used with pattern queries");
+                }
+                ((StateStreamRuntime) streamRuntime).setPartialMatchLimiter(parsePartialMatchLimiter(
+                        partialMatchesAnnotation, siddhiAppContext, queryName));
+            }
             QuerySelector selector = SelectorParser.parse(query.getSelector(), query.getOutputStream(),
                     siddhiAppContext, streamRuntime.getMetaComplexEvent(), tableMap, executors, queryName);
             boolean isWindow = query.getInputStream() instanceof JoinInputStream;
@@ -198,7 +215,7 @@ public class QueryParser {
             QueryParserHelper.reduceMetaComplexEvent(streamRuntime.getMetaComplexEvent());
             QueryParserHelper.updateVariablePosition(streamRuntime.getMetaComplexEvent(), executors);
             QueryParserHelper.initStreamRuntime(streamRuntime, streamRuntime.getMetaComplexEvent(), lockWrapper,
-                    queryName);
+                    queryName, siddhiAppContext);
             selector.setEventPopulator(StateEventPopulatorFactory.constructEventPopulator(streamRuntime
                     .getMetaComplexEvent()));
             queryRuntime = new QueryRuntime(query, siddhiAppContext, streamRuntime, selector, outputRateLimiter,
@@ -230,5 +247,55 @@ public class QueryParser {
         return queryRuntime;
     }
 
+    private static PartialMatchLimiter parsePartialMatchLimiter(Annotation partialMatchesAnnotation,
+                                                                SiddhiAppContext siddhiAppContext,
+                                                                String queryName) {
+        int maxPartialMatches = -1;
+        PartialMatchLimiter.OverflowPolicy overflowPolicy = PartialMatchLimiter.OverflowPolicy.DROP_OLDEST;
+        String faultStreamId = null;
+        for (Element element : partialMatchesAnnotation.getElements()) {
+            if (SiddhiConstants.ANNOTATION_ELEMENT_MAX.equalsIgnoreCase(element.getKey())) {
+                try {
+                    maxPartialMatches = Integer.parseInt(element.getValue().trim());
+                } catch (NumberFormatException e) {
+                    throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_PARTIAL_MATCHES +
+                            " annotation requires an integer max but found " + element.getValue(), e);
+                }
+                if (maxPartialMatches <= 0) {
+                    throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_PARTIAL_MATCHES +
+                            " annotation requires a positive max but found " + maxPartialMatches);
+                }
+            } else if (SiddhiConstants.ANNOTATION_ELEMENT_OVERFLOW.equalsIgnoreCase(element.getKey())) {
+                overflowPolicy = PartialMatchLimiter.OverflowPolicy.forName(element.getValue().trim());
+                if (overflowPolicy == null) {
+                    throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_PARTIAL_MATCHES +
+                            " annotation accepts only drop.oldest, drop.newest and fault as overflow but found " +
+                            element.getValue());
+                }
+            } else if (SiddhiConstants.ANNOTATION_ELEMENT_FAULT_STREAM.equalsIgnoreCase(element.getKey())) {
+                faultStreamId = element.getValue().trim();
+            } else {
+                throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_PARTIAL_MATCHES +
+                        " annotation accepts only max, overflow and fault.stream but found " + element.getKey());
+            }
+        }
+        if (maxPartialMatches == -1) {
+            throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_PARTIAL_MATCHES +
+                    " annotation requires a max");
+        }
+        if ((overflowPolicy == PartialMatchLimiter.OverflowPolicy.FAULT) != (faultStreamId != null)) {
+            throw new SiddhiAppValidationException(SiddhiConstants.ANNOTATION_PARTIAL_MATCHES +
+                    " annotation requires a fault.stream if and only if the overflow is fault");
+        }
+        Counter shedCounter = null;
+        if (siddhiAppContext.isStatsEnabled() && siddhiAppContext.getStatisticsManager() != null) {
+            String metricName = QueryParserHelper.getMetricName(siddhiAppContext, queryName,
+                    SiddhiConstants.METRIC_INFIX_QUERIES);
+            shedCounter = siddhiAppContext.getStatisticsManager().getRegistry()
+                    .counter(metricName + ".shedPartialMatches");
+        }
+        return new PartialMatchLimiter(queryName, maxPartialMatches, overflowPolicy, faultStreamId, shedCounter);
+    }
+
 
 }
@@ -28,6 +28,7 @@ import org.wso2.siddhi.core.util.ElementIdGenerator;
 import org.wso2.siddhi.core.util.SiddhiAppRuntimeBuilder;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.ThreadBarrier;
+import org.wso2.siddhi.core.util.TimerWheel;
 import org.wso2.siddhi.core.util.persistence.PersistenceService;
 import org.wso2.siddhi.core.util.snapshot.SnapshotService;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
@@ -122,6 +123,77 @@ public class SiddhiAppParser {
                 }
             }
 
+            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_GROUP_BY_STATE,
+                    siddhiApp.getAnnotations());
+            if (annotation != null) {
+                for (Element e : annotation.getElements()) {
+                    if (SiddhiConstants.ANNOTATION_ELEMENT_IDLE_TIME.equalsIgnoreCase(e.getKey())) {
+                        try {
+                            siddhiAppContext.setGroupByIdleTime(SiddhiCompiler.parseTimeConstantDefinition(
+                                    e.getValue()).value());
+                        } catch (SiddhiParserException ex) {
+                            throw new SiddhiParserException("Invalid idle.time constant '" + e.getValue() +
+                                    "' in groupByState annotation", ex);
+                        }
+                    } else if (SiddhiConstants.ANNOTATION_ELEMENT_MAX_GROUPS.equalsIgnoreCase(e.getKey())) {
+                        int maxGroups;
+                        try {
+                            maxGroups = Integer.parseInt(e.getValue());
+                        } catch (NumberFormatException ex) {
+                            throw new SiddhiAppValidationException("GroupByState annotation requires an integer " +
+                                    "max.groups but found '" + e.getValue() + "'", ex);
+                        }
+                        if (maxGroups <= 0) {
+                            throw new SiddhiAppValidationException("GroupByState annotation requires a positive " +
+                                    "max.groups but found " + maxGroups);
+                        }
+                        siddhiAppContext.setGroupByMaxGroups(maxGroups);
+                    } else {
+                        throw new SiddhiAppValidationException("GroupByState annotation accepts only idle.time and " +
+                                "max.groups but found " + e.getKey());
+                    }
+                }
+            }
+
+            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PERSISTENCE,
+                    siddhiApp.getAnnotations());
+            if (annotation != null) {
+                for (Element e : annotation.getElements()) {
+                    if (SiddhiConstants.ANNOTATION_ELEMENT_INCREMENTAL_SNAPSHOTS.equalsIgnoreCase(e.getKey())) {
+                        int incrementalSnapshots;
+                        try {
+                            incrementalSnapshots = Integer.parseInt(e.getValue());
+                        } catch (NumberFormatException ex) {
+                            throw new SiddhiAppValidationException("Persistence annotation requires an integer " +
+                                    "incremental.snapshots but found '" + e.getValue() + "'", ex);
+                        }
+                        if (incrementalSnapshots < 0) {
+                            throw new SiddhiAppValidationException("Persistence annotation requires a " +
+                                    "non-negative incremental.snapshots but found " + incrementalSnapshots);
+                        }
+                        siddhiAppContext.setIncrementalSnapshots(incrementalSnapshots);
+                    } else {
+                        throw new SiddhiAppValidationException("Persistence annotation accepts only " +
+                                "incremental.snapshots but found " + e.getKey());
+                    }
+                }
+            }
+
+            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_EVENT_POOL,
+                    siddhiApp.getAnnotations());
+            if (annotation != null) {
+                for (Element e : annotation.getElements()) {
+                    if (SiddhiConstants.ANNOTATION_ELEMENT_MAGAZINE_SIZE.equalsIgnoreCase(e.getKey())) {
+                        siddhiAppContext.setEventPoolMagazineSize(parseEventPoolSize(e));
+                    } else if (SiddhiConstants.ANNOTATION_ELEMENT_DEPOT_SIZE.equalsIgnoreCase(e.getKey())) {
+                        siddhiAppContext.setEventPoolDepotSize(parseEventPoolSize(e));
+                    } else {
+                        throw new SiddhiAppValidationException("EventPool annotation accepts only magazine.size " +
+                                "and depot.size but found " + e.getKey());
+                    }
+                }
+            }
+
             siddhiAppContext.setThreadBarrier(new ThreadBarrier());
 
             siddhiAppContext.setExecutorService(Executors.newCachedThreadPool(
@@ -131,6 +203,7 @@ public class SiddhiAppParser {
             siddhiAppContext.setScheduledExecutorService(Executors.newScheduledThreadPool(5,
                     new ThreadFactoryBuilder().setNameFormat("Siddhi-" +
                             siddhiAppContext.getName() + "-scheduler-thread-%d").build()));
+            siddhiAppContext.setTimerWheel(new TimerWheel(siddhiAppContext.getScheduledExecutorService()));
 
             // Select the TimestampGenerator based on playback mode on/off
             annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PLAYBACK,
@@ -215,6 +288,8 @@ public class SiddhiAppParser {
             window.init(siddhiAppRuntimeBuilder.getTableMap(), siddhiAppRuntimeBuilder
                     .getWindowMap(), latencyTracker, window.getWindowDefinition().getId());
         }
+        siddhiAppRuntimeBuilder.setSharedLeadingStreams(StateInputStreamParser.findSharedLeadingStreams(
+                siddhiApp.getExecutionElementList()));
         try {
             int queryIndex = 1;
             for (ExecutionElement executionElement : siddhiApp.getExecutionElementList()) {
@@ -253,6 +328,21 @@ public class SiddhiAppParser {
         return siddhiAppRuntimeBuilder;
     }
 
+    private static int parseEventPoolSize(Element element) {
+        int size;
+        try {
+            size = Integer.parseInt(element.getValue());
+        } catch (NumberFormatException e) {
+            throw new SiddhiAppValidationException("EventPool annotation requires an integer " + element.getKey() +
+                    " but found '" + element.getValue() + "'", e);
+        }
+        if (size < 0) {
+            throw new SiddhiAppValidationException("EventPool annotation requires a non-negative " +
+                    element.getKey() + " but found " + size);
+        }
+        return size;
+    }
+
     private static void defineTriggerDefinitions(SiddhiAppRuntimeBuilder siddhiAppRuntimeBuilder,
                                                  Map<String, TriggerDefinition> triggerDefinitionMap) {
         for (TriggerDefinition definition : triggerDefinitionMap.values()) {
@@ -19,7 +19,9 @@ package org.wso2.siddhi.core.util.parser;
 
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.event.state.MetaStateEvent;
+import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
 import org.wso2.siddhi.core.exception.OperationNotSupportedException;
+import org.wso2.siddhi.core.executor.ExpressionExecutor;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
@@ -40,10 +42,16 @@ import org.wso2.siddhi.core.query.input.stream.state.runtime.InnerStateRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.runtime.LogicalInnerStateRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.runtime.NextInnerStateRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.runtime.StreamInnerStateRuntime;
+import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.table.Table;
+import org.wso2.siddhi.core.util.EqualityKeys;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
 import org.wso2.siddhi.query.api.definition.AbstractDefinition;
+import org.wso2.siddhi.query.api.execution.ExecutionElement;
+import org.wso2.siddhi.query.api.execution.query.Query;
+import org.wso2.siddhi.query.api.execution.query.input.handler.Filter;
+import org.wso2.siddhi.query.api.execution.query.input.handler.StreamHandler;
 import org.wso2.siddhi.query.api.execution.query.input.state.CountStateElement;
 import org.wso2.siddhi.query.api.execution.query.input.state.EveryStateElement;
 import org.wso2.siddhi.query.api.execution.query.input.state.LogicalStateElement;
@@ -52,6 +60,8 @@ import org.wso2.siddhi.query.api.execution.query.input.state.StateElement;
 import org.wso2.siddhi.query.api.execution.query.input.state.StreamStateElement;
 import org.wso2.siddhi.query.api.execution.query.input.stream.BasicSingleInputStream;
 import org.wso2.siddhi.query.api.execution.query.input.stream.StateInputStream;
+import org.wso2.siddhi.query.api.expression.Expression;
+import org.wso2.siddhi.query.api.expression.Variable;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -118,9 +128,118 @@ public class StateInputStreamParser {
         ((StreamPreStateProcessor) innerStateRuntime.getFirstProcessor()).setThisLastProcessor(
                 (StreamPostStateProcessor) innerStateRuntime.getLastProcessor());
 
+        if (stateInputStream.getStateType() == StateInputStream.Type.PATTERN) {
+            parseCorrelationKeys(stateElement, innerStateRuntime, metaStateEvent, siddhiAppContext, tableMap,
+                    variableExpressionExecutors, queryName);
+        }
+
         return stateStreamRuntime;
     }
 
+    /**
+     * Find the attributes each pattern state compares for equality with attributes of earlier states, and let
+     * its {@link StreamPreStateProcessor} index the pending states by them. Only plain stream states are
+     * indexed, and only on earlier states that are not count states, as the events of those states do not change
+     * while a partial match waits on a later state.
+     */
+    private static void parseCorrelationKeys(StateElement stateElement, InnerStateRuntime innerStateRuntime,
+                                             MetaStateEvent metaStateEvent, SiddhiAppContext siddhiAppContext,
+                                             Map<String, Table> tableMap,
+                                             List<VariableExpressionExecutor> variableExpressionExecutors,
+                                             String queryName) {
+        for (MetaStreamEvent metaStreamEvent : metaStateEvent.getMetaStreamEvents()) {
+            if (metaStreamEvent.getEventType() != MetaStreamEvent.EventType.DEFAULT) {
+                return;
+            }
+        }
+        Map<String, List<Expression>> stateConditions = new HashMap<String, List<Expression>>();
+        collectStateConditions(stateElement, stateConditions);
+        Set<Integer> countStateIds = new HashSet<Integer>();
+        for (SingleStreamRuntime singleStreamRuntime : innerStateRuntime.getSingleStreamRuntimeList()) {
+            Processor processor = singleStreamRuntime.getProcessorChain();
+            if (processor instanceof CountPreStateProcessor) {
+                countStateIds.add(((CountPreStateProcessor) processor).getStateId());
+            }
+        }
+        for (SingleStreamRuntime singleStreamRuntime : innerStateRuntime.getSingleStreamRuntimeList()) {
+            Processor processor = singleStreamRuntime.getProcessorChain();
+            if (processor.getClass() != StreamPreStateProcessor.class) {
+                continue;
+            }
+            StreamPreStateProcessor streamPreStateProcessor = (StreamPreStateProcessor) processor;
+            int stateId = streamPreStateProcessor.getStateId();
+            String referenceId = metaStateEvent.getMetaStreamEvent(stateId).getInputReferenceId();
+            List<Expression> conditions = referenceId == null ? null : stateConditions.get(referenceId);
+            if (conditions == null) {
+                continue;
+            }
+            List<ExpressionExecutor> pendingKeyExecutors = new ArrayList<ExpressionExecutor>();
+            List<ExpressionExecutor> incomingKeyExecutors = new ArrayList<ExpressionExecutor>();
+            for (Expression condition : conditions) {
+                Variable[] variables = EqualityKeys.getEqualVariables(condition);
+                if (variables == null) {
+                    continue;
+                }
+                VariableExpressionExecutor leftExecutor = (VariableExpressionExecutor) ExpressionParser
+                        .parseExpression(variables[0], metaStateEvent, stateId, tableMap, variableExpressionExecutors,
+                                siddhiAppContext, false, SiddhiConstants.CURRENT, queryName);
+                VariableExpressionExecutor rightExecutor = (VariableExpressionExecutor) ExpressionParser
+                        .parseExpression(variables[1], metaStateEvent, stateId, tableMap, variableExpressionExecutors,
+                                siddhiAppContext, false, SiddhiConstants.CURRENT, queryName);
+                if (isCorrelationKey(rightExecutor, leftExecutor, stateId, countStateIds)) {
+                    pendingKeyExecutors.add(leftExecutor);
+                    incomingKeyExecutors.add(rightExecutor);
+                } else if (isCorrelationKey(leftExecutor, rightExecutor, stateId, countStateIds)) {
+                    pendingKeyExecutors.add(rightExecutor);
+                    incomingKeyExecutors.add(leftExecutor);
+                }
+            }
+            if (!incomingKeyExecutors.isEmpty()) {
+                streamPreStateProcessor.setCorrelationKeyExecutors(
+                        pendingKeyExecutors.toArray(new ExpressionExecutor[pendingKeyExecutors.size()]),
+                        incomingKeyExecutors.toArray(new ExpressionExecutor[incomingKeyExecutors.size()]));
+            }
+        }
+    }
+
+    private static boolean isCorrelationKey(VariableExpressionExecutor incomingExecutor,
+                                            VariableExpressionExecutor pendingExecutor, int stateId,
+                                            Set<Integer> countStateIds) {
+        int pendingStateId = pendingExecutor.getPosition()[SiddhiConstants.STREAM_EVENT_CHAIN_INDEX];
+        if (incomingExecutor.getPosition()[SiddhiConstants.STREAM_EVENT_CHAIN_INDEX] != stateId ||
+                pendingStateId < 0 || pendingStateId >= stateId || countStateIds.contains(pendingStateId)) {
+            return false;
+        }
+        return EqualityKeys.isKeyType(incomingExecutor, pendingExecutor);
+    }
+
+    private static void collectStateConditions(StateElement stateElement,
+                                               Map<String, List<Expression>> stateConditions) {
+        if (stateElement instanceof StreamStateElement) {
+            BasicSingleInputStream basicSingleInputStream = ((StreamStateElement) stateElement)
+                    .getBasicSingleInputStream();
+            if (basicSingleInputStream.getStreamReferenceId() == null) {
+                return;
+            }
+            List<Expression> conditions = new ArrayList<Expression>();
+            for (StreamHandler streamHandler : basicSingleInputStream.getStreamHandlers()) {
+                if (!(streamHandler instanceof Filter)) {
+                    break;
+                }
+                EqualityKeys.collectConditions(streamHandler.getParameters()[0], conditions);
+            }
+            stateConditions.put(basicSingleInputStream.getStreamReferenceId(), conditions);
+        } else if (stateElement instanceof NextStateElement) {
+            collectStateConditions(((NextStateElement) stateElement).getStateElement(), stateConditions);
+            collectStateConditions(((NextStateElement) stateElement).getNextStateElement(), stateConditions);
+        } else if (stateElement instanceof EveryStateElement) {
+            collectStateConditions(((EveryStateElement) stateElement).getStateElement(), stateConditions);
+        } else if (stateElement instanceof LogicalStateElement) {
+            collectStateConditions(((LogicalStateElement) stateElement).getStreamStateElement1(), stateConditions);
+            collectStateConditions(((LogicalStateElement) stateElement).getStreamStateElement2(), stateConditions);
+        }
+    }
+
     private static InnerStateRuntime parse(StateElement stateElement,
                                            Map<String, AbstractDefinition> streamDefinitionMap,
                                            Map<String, AbstractDefinition> tableDefinitionMap,
@@ -159,6 +278,11 @@ public class StateInputStreamParser {
 
                 streamPreStateProcessor = new StreamPreStateProcessor(stateType, clonewithinStates(withinStates));
                 streamPreStateProcessor.init(siddhiAppContext, queryName);
+                if (!withinStates.isEmpty()) {
+                    // Evict the pending states once they are past within, even when no further events arrive
+                    streamPreStateProcessor.setScheduler(SchedulerParser.parse(
+                            siddhiAppContext.getScheduledExecutorService(), streamPreStateProcessor, siddhiAppContext));
+                }
 
                 if (stateElement.getWithin() != null) {
                     withinStates.remove(0);
@@ -361,6 +485,67 @@ public class StateInputStreamParser {
 
     }
 
+    /**
+     * Leading state of a pattern query whose filters can be evaluated once for all the pattern queries starting with
+     * the same state. That is a filtered stream state whose stream is not consumed by any other state of the query,
+     * as an event failing its filters then cannot change the state of the query.
+     *
+     * @param query query to be checked
+     * @return input stream of the leading state, or null if the query does not have such a leading state
+     */
+    public static BasicSingleInputStream getSharableLeadingStream(Query query) {
+        if (!(query.getInputStream() instanceof StateInputStream)) {
+            return null;
+        }
+        StateInputStream stateInputStream = (StateInputStream) query.getInputStream();
+        if (stateInputStream.getStateType() != StateInputStream.Type.PATTERN) {
+            return null;
+        }
+        StateElement stateElement = stateInputStream.getStateElement();
+        while (stateElement instanceof NextStateElement || stateElement instanceof EveryStateElement) {
+            if (stateElement instanceof NextStateElement) {
+                stateElement = ((NextStateElement) stateElement).getStateElement();
+            } else {
+                stateElement = ((EveryStateElement) stateElement).getStateElement();
+            }
+        }
+        if (stateElement == null || stateElement.getClass() != StreamStateElement.class) {
+            return null;
+        }
+        BasicSingleInputStream basicSingleInputStream = ((StreamStateElement) stateElement)
+                .getBasicSingleInputStream();
+        if (basicSingleInputStream.isInnerStream() || basicSingleInputStream.getStreamHandlers().isEmpty() ||
+                stateInputStream.getStreamCount(basicSingleInputStream.getStreamId()) != 1) {
+            return null;
+        }
+        for (StreamHandler streamHandler : basicSingleInputStream.getStreamHandlers()) {
+            if (!(streamHandler instanceof Filter)) {
+                return null;
+            }
+        }
+        return basicSingleInputStream;
+    }
+
+    /**
+     * Find the leading states shared by more than one pattern query of a Siddhi app.
+     *
+     * @param executionElements execution elements of the Siddhi app
+     * @return input streams of the shared leading states
+     */
+    public static Set<BasicSingleInputStream> findSharedLeadingStreams(List<ExecutionElement> executionElements) {
+        Set<BasicSingleInputStream> leadingStreams = new HashSet<BasicSingleInputStream>();
+        Set<BasicSingleInputStream> sharedLeadingStreams = new HashSet<BasicSingleInputStream>();
+        for (ExecutionElement executionElement : executionElements) {
+            if (executionElement instanceof Query) {
+                BasicSingleInputStream leadingStream = getSharableLeadingStream((Query) executionElement);
+                if (leadingStream != null && !leadingStreams.add(leadingStream)) {
+                    sharedLeadingStreams.add(leadingStream);
+                }
+            }
+        }
+        return sharedLeadingStreams;
+    }
+
     private static List<Map.Entry<Long, Set<Integer>>> clonewithinStates(List<Map.Entry<Long, Set<Integer>>>
                                                                                  withinStates) {
         List<Map.Entry<Long, Set<Integer>>> clonedwithinStates = new ArrayList<Map.Entry<Long, Set<Integer>>>
@@ -80,7 +80,7 @@ public class StoreQueryParser {
         if (inputStore instanceof AggregationInputStore) {
             AggregationInputStore aggregationInputStore = (AggregationInputStore) inputStore;
             if (aggregationInputStore.getPer() != null && aggregationInputStore.getWithin() != null) {
-                if (metaStreamEvent.getEventType() != EventType.AGGREGATE) {
+                if (!aggregationMap.containsKey(inputStore.getStoreId())) {
                     throw new StoreQueryCreationException(inputStore.getStoreId() +
                             " is not an aggregation hence it cannot be processed with 'within' and 'per'.");
                 }
@@ -90,7 +90,9 @@ public class StoreQueryParser {
                 throw new StoreQueryCreationException(inputStore.getStoreId() +
                         " should either have both 'within' and 'per' defined or none.");
             }
-            onCondition = ((AggregationInputStore) inputStore).getOnCondition();
+            if (aggregationInputStore.getOnCondition() != null) {
+                onCondition = aggregationInputStore.getOnCondition();
+            }
         } else if (inputStore instanceof ConditionInputStore) {
             onCondition = ((ConditionInputStore) inputStore).getOnCondition();
         }
@@ -151,7 +151,8 @@ public class DefinitionParserHelper {
                 tableMetaStreamEvent.addOutputData(attribute);
             }
 
-            StreamEventPool tableStreamEventPool = new StreamEventPool(tableMetaStreamEvent, 10);
+            StreamEventPool tableStreamEventPool = new StreamEventPool(tableMetaStreamEvent,
+                    siddhiAppContext.getEventPoolMagazineSize(), siddhiAppContext.getEventPoolDepotSize());
             StreamEventCloner tableStreamEventCloner = new StreamEventCloner(tableMetaStreamEvent,
                     tableStreamEventPool);
 
@@ -27,21 +27,26 @@ import org.wso2.siddhi.core.event.state.StateEventPool;
 import org.wso2.siddhi.core.event.stream.MetaStreamEvent;
 import org.wso2.siddhi.core.event.stream.StreamEventCloner;
 import org.wso2.siddhi.core.event.stream.StreamEventPool;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
 import org.wso2.siddhi.core.executor.VariableExpressionExecutor;
 import org.wso2.siddhi.core.query.input.ProcessStreamReceiver;
 import org.wso2.siddhi.core.query.input.stream.StreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.join.JoinProcessor;
 import org.wso2.siddhi.core.query.input.stream.single.SingleStreamRuntime;
+import org.wso2.siddhi.core.query.input.stream.state.PartialMatchLimiter;
+import org.wso2.siddhi.core.query.input.stream.state.StateStreamRuntime;
 import org.wso2.siddhi.core.query.input.stream.state.StreamPreStateProcessor;
 import org.wso2.siddhi.core.query.processor.Processor;
 import org.wso2.siddhi.core.query.processor.SchedulingProcessor;
 import org.wso2.siddhi.core.query.processor.stream.AbstractStreamProcessor;
+import org.wso2.siddhi.core.stream.StreamJunction;
 import org.wso2.siddhi.core.util.SiddhiConstants;
 import org.wso2.siddhi.core.util.lock.LockWrapper;
 import org.wso2.siddhi.core.util.statistics.LatencyTracker;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.wso2.siddhi.core.util.SiddhiConstants.BEFORE_WINDOW_DATA_INDEX;
 import static org.wso2.siddhi.core.util.SiddhiConstants.HAVING_STATE;
@@ -148,24 +153,26 @@ public class QueryParserHelper {
     }
 
     public static void initStreamRuntime(StreamRuntime runtime, MetaComplexEvent metaComplexEvent, LockWrapper
-            lockWrapper, String queryName) {
+            lockWrapper, String queryName, SiddhiAppContext siddhiAppContext) {
 
         if (runtime instanceof SingleStreamRuntime) {
-            initSingleStreamRuntime((SingleStreamRuntime) runtime, 0, metaComplexEvent, null, lockWrapper, queryName);
+            initSingleStreamRuntime((SingleStreamRuntime) runtime, 0, metaComplexEvent, null, lockWrapper, queryName,
+                    siddhiAppContext);
         } else {
             MetaStateEvent metaStateEvent = (MetaStateEvent) metaComplexEvent;
             StateEventPool stateEventPool = new StateEventPool(metaStateEvent, 5);
             MetaStreamEvent[] metaStreamEvents = metaStateEvent.getMetaStreamEvents();
             for (int i = 0, metaStreamEventsLength = metaStreamEvents.length; i < metaStreamEventsLength; i++) {
                 initSingleStreamRuntime(runtime.getSingleStreamRuntimes().get(i),
-                        i, metaStateEvent, stateEventPool, lockWrapper, queryName);
+                        i, metaStateEvent, stateEventPool, lockWrapper, queryName, siddhiAppContext);
             }
         }
     }
 
     private static void initSingleStreamRuntime(SingleStreamRuntime singleStreamRuntime, int streamEventChainIndex,
                                                 MetaComplexEvent metaComplexEvent, StateEventPool stateEventPool,
-                                                LockWrapper lockWrapper, String queryName) {
+                                                LockWrapper lockWrapper, String queryName,
+                                                SiddhiAppContext siddhiAppContext) {
         MetaStreamEvent metaStreamEvent;
 
         if (metaComplexEvent instanceof MetaStateEvent) {
@@ -173,7 +180,8 @@ public class QueryParserHelper {
         } else {
             metaStreamEvent = (MetaStreamEvent) metaComplexEvent;
         }
-        StreamEventPool streamEventPool = new StreamEventPool(metaStreamEvent, 5);
+        StreamEventPool streamEventPool = new StreamEventPool(metaStreamEvent,
+                siddhiAppContext.getEventPoolMagazineSize(), siddhiAppContext.getEventPoolDepotSize());
         ProcessStreamReceiver processStreamReceiver = singleStreamRuntime.getProcessStreamReceiver();
         processStreamReceiver.setMetaStreamEvent(metaStreamEvent);
         processStreamReceiver.setStreamEventPool(streamEventPool);
@@ -181,7 +189,7 @@ public class QueryParserHelper {
         processStreamReceiver.init();
         Processor processor = singleStreamRuntime.getProcessorChain();
         while (processor != null) {
-            if (processor instanceof SchedulingProcessor) {
+            if (processor instanceof SchedulingProcessor && ((SchedulingProcessor) processor).getScheduler() != null) {
                 ((SchedulingProcessor) processor).getScheduler().setStreamEventPool(streamEventPool);
                 ((SchedulingProcessor) processor).getScheduler().init(lockWrapper, queryName);
             }
@@ -210,16 +218,43 @@ public class QueryParserHelper {
         }
     }
 
+    /**
+     * Connect the partial match limiter of a pattern query to the fault stream it reports rejected partial matches
+     * to.
+     *
+     * @param streamRuntime     stream runtime of the query
+     * @param streamJunctionMap stream junctions of the Siddhi app
+     */
+    public static void initPartialMatchLimiter(StreamRuntime streamRuntime,
+                                               Map<String, StreamJunction> streamJunctionMap) {
+        if (!(streamRuntime instanceof StateStreamRuntime)) {
+            return;
+        }
+        PartialMatchLimiter partialMatchLimiter = ((StateStreamRuntime) streamRuntime).getPartialMatchLimiter();
+        if (partialMatchLimiter == null || partialMatchLimiter.getFaultStreamId() == null) {
+            return;
+        }
+        String faultStreamId = partialMatchLimiter.getFaultStreamId();
+        StreamJunction faultStreamJunction = streamJunctionMap.get(faultStreamId);
+        if (faultStreamJunction == null) {
+            throw new SiddhiAppCreationException("Fault stream '" + faultStreamId + "' of @" +
+                    SiddhiConstants.ANNOTATION_PARTIAL_MATCHES + " annotation is not defined");
+        }
+        List<Attribute> attributes = faultStreamJunction.getStreamDefinition().getAttributeList();
+        if (attributes.size() != 3 || attributes.get(0).getType() != Attribute.Type.STRING ||
+                attributes.get(1).getType() != Attribute.Type.STRING ||
+                attributes.get(2).getType() != Attribute.Type.INT) {
+            throw new SiddhiAppCreationException("Fault stream '" + faultStreamId + "' of @" +
+                    SiddhiConstants.ANNOTATION_PARTIAL_MATCHES + " annotation should have a string query name, " +
+                    "a string partition key and an int partial match count as its attributes");
+        }
+        partialMatchLimiter.setFaultStreamJunction(faultStreamJunction);
+    }
+
     public static LatencyTracker getLatencyTracker(SiddhiAppContext siddhiAppContext, String name, String type) {
         LatencyTracker latencyTracker = null;
         if (siddhiAppContext.isStatsEnabled() && siddhiAppContext.getStatisticsManager() != null) {
-            String metricName =
-                    siddhiAppContext.getSiddhiContext().getStatisticsConfiguration().getMatricPrefix() +
-                            SiddhiConstants.METRIC_DELIMITER + SiddhiConstants.METRIC_INFIX_EXECUTION_PLANS +
-                            SiddhiConstants.METRIC_DELIMITER + siddhiAppContext.getName() +
-                            SiddhiConstants.METRIC_DELIMITER + SiddhiConstants.METRIC_INFIX_SIDDHI +
-                            SiddhiConstants.METRIC_DELIMITER + type +
-                            SiddhiConstants.METRIC_DELIMITER + name;
+            String metricName = getMetricName(siddhiAppContext, name, type);
             latencyTracker = siddhiAppContext.getSiddhiContext()
                     .getStatisticsConfiguration()
                     .getFactory()
@@ -228,4 +263,13 @@ public class QueryParserHelper {
         return latencyTracker;
     }
 
+    public static String getMetricName(SiddhiAppContext siddhiAppContext, String name, String type) {
+        return siddhiAppContext.getSiddhiContext().getStatisticsConfiguration().getMatricPrefix() +
+                SiddhiConstants.METRIC_DELIMITER + SiddhiConstants.METRIC_INFIX_EXECUTION_PLANS +
+                SiddhiConstants.METRIC_DELIMITER + siddhiAppContext.getName() +
+                SiddhiConstants.METRIC_DELIMITER + SiddhiConstants.METRIC_INFIX_SIDDHI +
+                SiddhiConstants.METRIC_DELIMITER + type +
+                SiddhiConstants.METRIC_DELIMITER + name;
+    }
+
 }
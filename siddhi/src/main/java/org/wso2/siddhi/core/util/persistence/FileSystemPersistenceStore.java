@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.persistence;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.core.util.SiddhiConstants;
+import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Implementation of {@link PersistenceStore} which stores the state in the local file system. Each revision is
+ * written once to its own segment file, holding a header with the length and the CRC32 checksum of the snapshot,
+ * and is moved into place atomically once written. The revisions of each Siddhi app are listed in an index file in
+ * the order they were last saved, from which the last revision is resolved. New revisions are appended to it, while
+ * the index is rewritten when a revision is saved again or when revisions are dropped.
+ * <p>
+ * Supported properties are {@value SiddhiConstants#PERSISTENCE_STORE_LOCATION}, the directory holding the
+ * revisions, {@value SiddhiConstants#PERSISTENCE_STORE_FSYNC}, one of {@code always}, {@code data} and {@code none},
+ * {@value SiddhiConstants#PERSISTENCE_STORE_RETENTION_COUNT}, the number of revisions kept per Siddhi app, and
+ * {@value SiddhiConstants#PERSISTENCE_STORE_MMAP_THRESHOLD}, the size in bytes from which snapshots are written and
+ * read through memory mapping. With incremental snapshots, the retention count should be larger than the number of
+ * incremental snapshots, so that the base revisions of the retained revisions are kept.
+ */
+public class FileSystemPersistenceStore implements PersistenceStore {
+
+    private static final Logger log = Logger.getLogger(FileSystemPersistenceStore.class);
+    private static final int MAGIC = 0x53505353;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 8;
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String INDEX_FILE = "revisions.index";
+
+    private Path location = Paths.get("siddhi-app-persistence");
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.ALWAYS;
+    private int retentionCount = 0;
+    private long mmapThreshold = 1024 * 1024;
+    private final Map<String, LinkedList<String>> revisionIndex = new HashMap<>();
+
+    public FileSystemPersistenceStore() {
+    }
+
+    public FileSystemPersistenceStore(String location) {
+        this.location = Paths.get(location);
+    }
+
+    @Override
+    public synchronized void save(String siddhiAppId, String revision, byte[] snapshot) {
+        if (snapshot == null) {
+            log.error("Cannot persist revision '" + revision + "' of Siddhi app '" + siddhiAppId +
+                    "', as its snapshot is not available");
+            return;
+        }
+        try {
+            Path appDirectory = getAppDirectory(siddhiAppId);
+            Files.createDirectories(appDirectory);
+            LinkedList<String> revisions = getRevisions(siddhiAppId, appDirectory);
+            Path segmentFile = appDirectory.resolve(encode(revision) + SEGMENT_SUFFIX);
+            Path tempFile = appDirectory.resolve(encode(revision) + SEGMENT_SUFFIX + TEMP_SUFFIX);
+            writeSegment(tempFile, snapshot);
+            Files.move(tempFile, segmentFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (revisions.isEmpty() || !revision.equals(revisions.getLast())) {
+                // A revision saved again becomes the last one, and keeps a single entry in the index
+                boolean savedBefore = revisions.remove(revision);
+                revisions.add(revision);
+                if (retentionCount > 0 && revisions.size() > retentionCount) {
+                    while (revisions.size() > retentionCount) {
+                        Files.deleteIfExists(appDirectory.resolve(encode(revisions.removeFirst()) + SEGMENT_SUFFIX));
+                    }
+                    writeIndex(appDirectory, revisions);
+                } else if (savedBefore) {
+                    writeIndex(appDirectory, revisions);
+                } else {
+                    appendIndex(appDirectory, revision);
+                }
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                forceDirectory(appDirectory);
+            }
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot persist revision '" + revision + "' of Siddhi app '" +
+                    siddhiAppId + "' in '" + location + "', " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized byte[] load(String siddhiAppId, String revision) {
+        try {
+            Path segmentFile = getAppDirectory(siddhiAppId).resolve(encode(revision) + SEGMENT_SUFFIX);
+            if (!Files.exists(segmentFile)) {
+                log.warn("Revision '" + revision + "' not found for the siddhi app " + siddhiAppId);
+                return null;
+            }
+            return readSegment(segmentFile);
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot load revision '" + revision + "' of Siddhi app '" +
+                    siddhiAppId + "' from '" + location + "', " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized String getLastRevision(String siddhiAppId) {
+        try {
+            LinkedList<String> revisions = getRevisions(siddhiAppId, getAppDirectory(siddhiAppId));
+            return revisions.isEmpty() ? null : revisions.getLast();
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot read the revisions of Siddhi app '" + siddhiAppId +
+                    "' from '" + location + "', " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes") // Signature of PersistenceStore
+    public synchronized void setProperties(Map properties) {
+        Object value = properties.get(SiddhiConstants.PERSISTENCE_STORE_LOCATION);
+        if (value != null) {
+            location = Paths.get(value.toString());
+            revisionIndex.clear();
+        }
+        value = properties.get(SiddhiConstants.PERSISTENCE_STORE_FSYNC);
+        if (value != null) {
+            try {
+                fsyncPolicy = FsyncPolicy.valueOf(value.toString().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new SiddhiAppRuntimeException("Unsupported " + SiddhiConstants.PERSISTENCE_STORE_FSYNC +
+                        " value '" + value + "', expected one of always, data and none", e);
+            }
+        }
+        value = properties.get(SiddhiConstants.PERSISTENCE_STORE_RETENTION_COUNT);
+        if (value != null) {
+            try {
+                retentionCount = Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new SiddhiAppValidationException(SiddhiConstants.PERSISTENCE_STORE_RETENTION_COUNT +
+                        " requires an integer but found '" + value + "'", e);
+            }
+        }
+        value = properties.get(SiddhiConstants.PERSISTENCE_STORE_MMAP_THRESHOLD);
+        if (value != null) {
+            try {
+                mmapThreshold = Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new SiddhiAppValidationException(SiddhiConstants.PERSISTENCE_STORE_MMAP_THRESHOLD +
+                        " requires an integer but found '" + value + "'", e);
+            }
+        }
+    }
+
+    private Path getAppDirectory(String siddhiAppId) throws UnsupportedEncodingException {
+        return location.resolve(encode(siddhiAppId));
+    }
+
+    private static String encode(String name) throws UnsupportedEncodingException {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8.name());
+    }
+
+    private LinkedList<String> getRevisions(String siddhiAppId, Path appDirectory) throws IOException {
+        LinkedList<String> revisions = revisionIndex.get(siddhiAppId);
+        if (revisions == null) {
+            Set<String> indexedRevisions = new LinkedHashSet<>();
+            Path indexFile = appDirectory.resolve(INDEX_FILE);
+            if (Files.exists(indexFile)) {
+                // A revision whose segment is missing was not completely saved, hence it is skipped. A revision
+                // listed more than once, by an index written before saves replaced entries, counts as last saved.
+                for (String revision : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                    if (!revision.isEmpty() && Files.exists(appDirectory.resolve(encode(revision) + SEGMENT_SUFFIX))) {
+                        indexedRevisions.remove(revision);
+                        indexedRevisions.add(revision);
+                    }
+                }
+            }
+            revisions = new LinkedList<>(indexedRevisions);
+            revisionIndex.put(siddhiAppId, revisions);
+        }
+        return revisions;
+    }
+
+    private void appendIndex(Path appDirectory, String revision) throws IOException {
+        try (FileChannel channel = FileChannel.open(appDirectory.resolve(INDEX_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writeFully(channel, ByteBuffer.wrap((revision + "\n").getBytes(StandardCharsets.UTF_8)));
+            force(channel);
+        }
+    }
+
+    private void writeIndex(Path appDirectory, List<String> revisions) throws IOException {
+        StringBuilder index = new StringBuilder();
+        for (String revision : revisions) {
+            index.append(revision).append('\n');
+        }
+        Path tempFile = appDirectory.resolve(INDEX_FILE + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(index.toString().getBytes(StandardCharsets.UTF_8)));
+            force(channel);
+        }
+        Files.move(tempFile, appDirectory.resolve(INDEX_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void writeSegment(Path segmentFile, byte[] snapshot) throws IOException {
+        CRC32 crc32 = new CRC32();
+        crc32.update(snapshot);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put(VERSION).putLong(snapshot.length).putLong(crc32.getValue());
+        header.flip();
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            if (snapshot.length >= mmapThreshold) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, snapshot.length);
+                buffer.put(snapshot);
+                if (fsyncPolicy != FsyncPolicy.NONE) {
+                    buffer.force();
+                }
+            } else {
+                writeFully(channel, ByteBuffer.wrap(snapshot));
+            }
+            force(channel);
+        }
+    }
+
+    private byte[] readSegment(Path segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC || header.get() != VERSION) {
+                throw new IOException("'" + segmentFile + "' is not a snapshot segment");
+            }
+            long length = header.getLong();
+            long checksum = header.getLong();
+            if (length < 0 || length > Integer.MAX_VALUE || HEADER_SIZE + length != channel.size()) {
+                throw new IOException("Snapshot segment '" + segmentFile + "' is truncated");
+            }
+            byte[] snapshot = new byte[(int) length];
+            if (length >= mmapThreshold) {
+                channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, length).get(snapshot);
+            } else {
+                readFully(channel, ByteBuffer.wrap(snapshot));
+            }
+            CRC32 crc32 = new CRC32();
+            crc32.update(snapshot);
+            if (crc32.getValue() != checksum) {
+                throw new IOException("Checksum of snapshot segment '" + segmentFile + "' does not match");
+            }
+            return snapshot;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    private void force(FileChannel channel) throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            channel.force(fsyncPolicy == FsyncPolicy.ALWAYS);
+        }
+    }
+
+    private static void forceDirectory(Path directory) {
+        // Makes the renames durable, where the platform allows directories to be opened
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot sync directory '" + directory + "', " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * When the segment and index files are flushed to the storage device. {@code ALWAYS} flushes the content and
+     * the metadata of the files and their directory, {@code DATA} only flushes the content, and {@code NONE} leaves
+     * flushing to the operating system.
+     */
+    private enum FsyncPolicy {
+        ALWAYS,
+        DATA,
+        NONE
+    }
+}
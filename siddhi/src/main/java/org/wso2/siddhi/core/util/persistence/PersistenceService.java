@@ -20,11 +20,24 @@ package org.wso2.siddhi.core.util.persistence;
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
 import org.wso2.siddhi.core.exception.NoPersistenceStoreException;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.core.util.snapshot.AsyncSnapshotPersistor;
+import org.wso2.siddhi.core.util.snapshot.ByteSerializer;
+import org.wso2.siddhi.core.util.snapshot.IncrementalSnapshot;
 import org.wso2.siddhi.core.util.snapshot.SnapshotService;
+import org.wso2.siddhi.core.util.snapshot.StateSerializer;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Persistence Service is the service layer to handle state persistence tasks such as persisting current state and
- * restoring previous states.
+ * restoring previous states. When incremental snapshots are enabled, the complete state is persisted periodically
+ * and the revisions in between only hold the changes since the previous revision, forming a chain that is replayed
+ * on restore. When a revision of the chain is missing, the complete snapshot starting the chain is restored instead.
  */
 public class PersistenceService {
 
@@ -32,26 +45,137 @@ public class PersistenceService {
     private String siddhiAppName;
     private PersistenceStore persistenceStore;
     private SnapshotService snapshotService;
+    private StateSerializer stateSerializer;
+    private int incrementalSnapshots;
+    private int incrementalSnapshotCount = 0;
+    private String lastRevision;
+    private String fullRevision;
+    // Set when a snapshot could not be persisted, as the snapshots taken after it are based on a missing revision
+    private volatile boolean chainBroken = false;
+    // Captured snapshots waiting to be saved, in the order they were captured
+    private final LinkedList<PendingSnapshot> pendingSnapshots = new LinkedList<>();
 
     public PersistenceService(SiddhiAppContext siddhiAppContext) {
         this.snapshotService = siddhiAppContext.getSnapshotService();
         this.persistenceStore = siddhiAppContext.getSiddhiContext().getPersistenceStore();
+        this.stateSerializer = siddhiAppContext.getSiddhiContext().getStateSerializer();
         this.siddhiAppName = siddhiAppContext.getName();
+        this.incrementalSnapshots = siddhiAppContext.getIncrementalSnapshots();
     }
 
+    /**
+     * Take the snapshot to be persisted as the given revision. With incremental snapshots enabled, the snapshot only
+     * holds the changes since the previously taken one, unless the configured number of incremental snapshots were
+     * already taken, in which case a new chain is started with the complete state.
+     *
+     * @param revision revision the snapshot is persisted as
+     * @return serialized snapshot
+     */
+    public byte[] snapshot(String revision) {
+        return capture(revision).get();
+    }
 
-    public String persist() {
+    /**
+     * Capture the state to be persisted as the given revision, as in {@link #snapshot(String)}. Processing is only
+     * paused while the states are copied, and the returned supplier serializes them, hence it can be run after the
+     * processing resumes, on another thread.
+     *
+     * @param revision revision the snapshot is persisted as
+     * @return supplier of the serialized snapshot
+     */
+    public synchronized Supplier<byte[]> capture(String revision) {
+        Map<String, Map<String, Object>> states = null;
+        IncrementalSnapshot incrementalSnapshot = null;
+        if (incrementalSnapshots <= 0) {
+            states = snapshotService.captureStates();
+        } else {
+            String baseRevision = null;
+            if (lastRevision == null || lastRevision.equals(revision) || chainBroken ||
+                    incrementalSnapshotCount >= incrementalSnapshots) {
+                fullRevision = revision;
+                incrementalSnapshotCount = 0;
+                chainBroken = false;
+            } else {
+                baseRevision = lastRevision;
+                incrementalSnapshotCount++;
+            }
+            incrementalSnapshot = snapshotService.captureIncrementalSnapshot(baseRevision, fullRevision);
+        }
+        lastRevision = revision;
+        CapturedSnapshot capturedSnapshot = new CapturedSnapshot(states, incrementalSnapshot);
+        return () -> serialize(capturedSnapshot);
+    }
 
-        if (persistenceStore != null) {
-            if (log.isDebugEnabled()) {
-                log.debug("Persisting...");
+    private byte[] serialize(CapturedSnapshot capturedSnapshot) {
+        synchronized (capturedSnapshot) {
+            if (!capturedSnapshot.serialized) {
+                try {
+                    if (capturedSnapshot.incrementalSnapshot == null) {
+                        capturedSnapshot.snapshot = snapshotService.snapshot(capturedSnapshot.states);
+                    } else {
+                        capturedSnapshot.snapshot = snapshotService.incrementalSnapshot(
+                                capturedSnapshot.incrementalSnapshot);
+                    }
+                } finally {
+                    capturedSnapshot.states = null;
+                    capturedSnapshot.incrementalSnapshot = null;
+                    capturedSnapshot.serialized = true;
+                    if (capturedSnapshot.snapshot == null) {
+                        chainBroken = true;
+                    }
+                }
             }
-            byte[] snapshot = snapshotService.snapshot();
-            String revision = System.currentTimeMillis() + "_" + siddhiAppName;
-            persistenceStore.save(siddhiAppName, revision, snapshot);
-            if (log.isDebugEnabled()) {
-                log.debug("Persisted.");
+            return capturedSnapshot.snapshot;
+        }
+    }
+
+    /**
+     * Capture the state to be persisted as the given revision, as in {@link #capture(String)}, and return the task
+     * serializing and saving it in the persistence store. Snapshots are saved in the order they were captured, so
+     * that the last saved revision is the last captured one: a task first saves the pending snapshots captured
+     * before its own, and does nothing when its snapshot was already saved by a task of a later snapshot.
+     *
+     * @param revision revision the snapshot is persisted as
+     * @return task persisting the snapshot
+     */
+    public synchronized Runnable capturePersistence(String revision) {
+        if (persistenceStore == null) {
+            // Fails with NoPersistenceStoreException when run
+            return new AsyncSnapshotPersistor(null, null, siddhiAppName, revision);
+        }
+        PendingSnapshot pendingSnapshot = new PendingSnapshot(revision, capture(revision));
+        synchronized (pendingSnapshots) {
+            pendingSnapshots.add(pendingSnapshot);
+        }
+        return () -> save(pendingSnapshot);
+    }
+
+    private void save(PendingSnapshot pendingSnapshot) {
+        synchronized (pendingSnapshots) {
+            while (!pendingSnapshot.saved) {
+                PendingSnapshot nextSnapshot = pendingSnapshots.removeFirst();
+                nextSnapshot.saved = true;
+                try {
+                    new AsyncSnapshotPersistor(nextSnapshot.snapshot.get(), persistenceStore, siddhiAppName,
+                            nextSnapshot.revision).run();
+                } catch (RuntimeException e) {
+                    chainBroken = true;
+                    if (nextSnapshot == pendingSnapshot) {
+                        throw e;
+                    }
+                    log.error("Cannot persist revision '" + nextSnapshot.revision + "' of Siddhi app '" +
+                            siddhiAppName + "', " + e.getMessage(), e);
+                } finally {
+                    nextSnapshot.snapshot = null;
+                }
             }
+        }
+    }
+
+    public String persist() {
+        if (persistenceStore != null) {
+            String revision = System.currentTimeMillis() + "_" + siddhiAppName;
+            capturePersistence(revision).run();
             return revision;
         } else {
             throw new NoPersistenceStoreException("No persistence store assigned for siddhi app " +
@@ -66,7 +190,16 @@ public class PersistenceService {
                 log.debug("Restoring revision: " + revision + " ...");
             }
             byte[] snapshot = persistenceStore.load(siddhiAppName, revision);
-            snapshotService.restore(snapshot);
+            Object snapshots = ByteSerializer.byteToObject(snapshot, stateSerializer);
+            if (snapshots instanceof IncrementalSnapshot) {
+                snapshotService.restore(loadSnapshotChain(revision, (IncrementalSnapshot) snapshots));
+            } else {
+                snapshotService.restore(snapshot);
+            }
+            synchronized (this) {
+                // Revisions taken from here on should not be based on a revision taken before the restore
+                lastRevision = null;
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Restored revision: " + revision);
             }
@@ -76,6 +209,48 @@ public class PersistenceService {
         }
     }
 
+    private LinkedList<IncrementalSnapshot> loadSnapshotChain(String revision, IncrementalSnapshot snapshot) {
+        LinkedList<IncrementalSnapshot> snapshotChain = new LinkedList<>();
+        Set<String> loadedRevisions = new HashSet<>();
+        loadedRevisions.add(revision);
+        snapshotChain.addFirst(snapshot);
+        while (snapshot.getBaseRevision() != null) {
+            String baseRevision = snapshot.getBaseRevision();
+            Object baseSnapshot = null;
+            if (loadedRevisions.add(baseRevision)) {
+                baseSnapshot = ByteSerializer.byteToObject(persistenceStore.load(siddhiAppName, baseRevision),
+                        stateSerializer);
+            }
+            if (!(baseSnapshot instanceof IncrementalSnapshot)) {
+                return loadFullSnapshot(revision, baseRevision, snapshot.getFullRevision());
+            }
+            snapshot = (IncrementalSnapshot) baseSnapshot;
+            snapshotChain.addFirst(snapshot);
+        }
+        return snapshotChain;
+    }
+
+    private LinkedList<IncrementalSnapshot> loadFullSnapshot(String revision, String baseRevision,
+                                                             String fullRevision) {
+        Object fullSnapshot = null;
+        if (fullRevision != null) {
+            fullSnapshot = ByteSerializer.byteToObject(persistenceStore.load(siddhiAppName, fullRevision),
+                    stateSerializer);
+        }
+        if (!(fullSnapshot instanceof IncrementalSnapshot) ||
+                ((IncrementalSnapshot) fullSnapshot).getBaseRevision() != null) {
+            throw new SiddhiAppRuntimeException("Cannot restore revision '" + revision + "' of Siddhi app '" +
+                    siddhiAppName + "', as neither its base revision '" + baseRevision + "' nor the complete " +
+                    "snapshot '" + fullRevision + "' it is based on are available");
+        }
+        log.warn("Base revision '" + baseRevision + "' of revision '" + revision + "' of Siddhi app '" +
+                siddhiAppName + "' is not available, hence restoring the complete snapshot '" + fullRevision +
+                "' it is based on");
+        LinkedList<IncrementalSnapshot> snapshotChain = new LinkedList<>();
+        snapshotChain.add((IncrementalSnapshot) fullSnapshot);
+        return snapshotChain;
+    }
+
     public void restoreLastRevision() {
         if (persistenceStore != null) {
             String revision = persistenceStore.getLastRevision(siddhiAppName);
@@ -91,4 +266,33 @@ public class PersistenceService {
     public void restore(byte[] snapshot) {
         snapshotService.restore(snapshot);
     }
+
+    /**
+     * States captured to be serialized as a snapshot.
+     */
+    private static class CapturedSnapshot {
+        private Map<String, Map<String, Object>> states;
+        private IncrementalSnapshot incrementalSnapshot;
+        private byte[] snapshot;
+        private boolean serialized = false;
+
+        CapturedSnapshot(Map<String, Map<String, Object>> states, IncrementalSnapshot incrementalSnapshot) {
+            this.states = states;
+            this.incrementalSnapshot = incrementalSnapshot;
+        }
+    }
+
+    /**
+     * Captured snapshot waiting to be saved as the given revision.
+     */
+    private static class PendingSnapshot {
+        private final String revision;
+        private Supplier<byte[]> snapshot;
+        private boolean saved = false;
+
+        PendingSnapshot(String revision, Supplier<byte[]> snapshot) {
+            this.revision = revision;
+            this.snapshot = snapshot;
+        }
+    }
 }
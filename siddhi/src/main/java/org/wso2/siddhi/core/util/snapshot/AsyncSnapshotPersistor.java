@@ -34,10 +34,15 @@ public class AsyncSnapshotPersistor implements Runnable {
 
     public AsyncSnapshotPersistor(byte[] snapshots, PersistenceStore persistenceStore,
                                   String siddhiAppName) {
+        this(snapshots, persistenceStore, siddhiAppName, System.currentTimeMillis() + "_" + siddhiAppName);
+    }
+
+    public AsyncSnapshotPersistor(byte[] snapshots, PersistenceStore persistenceStore,
+                                  String siddhiAppName, String revision) {
         this.snapshots = snapshots;
         this.persistenceStore = persistenceStore;
         this.siddhiAppName = siddhiAppName;
-        revision = System.currentTimeMillis() + "_" + siddhiAppName;
+        this.revision = revision;
     }
 
     public String getRevision() {
@@ -0,0 +1,596 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * {@link StateSerializer} writing a compact tagged binary format. Events, event chunks, group by keys, the common
+ * collections and the boxed attribute types are written field by field, keeping the identity of shared events and
+ * collections, while any other {@link java.io.Serializable} state falls back to Java serialization. States written
+ * with Java serialization, such as the snapshots of older revisions, are still read back.
+ */
+public class BinaryStateSerializer implements StateSerializer {
+
+    private static final byte MAGIC_1 = 'S';
+    private static final byte MAGIC_2 = 'B';
+    private static final byte VERSION = 1;
+    private static final byte FLAG_DEFLATE = 1;
+    private static final int JAVA_MAGIC_1 = 0xAC;
+    private static final int JAVA_MAGIC_2 = 0xED;
+
+    private static final byte NULL = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte STRING = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte TRUE = 7;
+    private static final byte FALSE = 8;
+    private static final byte SHORT = 9;
+    private static final byte BYTE = 10;
+    private static final byte BYTE_ARRAY = 11;
+    private static final byte OBJECT_ARRAY = 12;
+    private static final byte ARRAY_LIST = 13;
+    private static final byte LINKED_LIST = 14;
+    private static final byte ARRAY_DEQUE = 15;
+    private static final byte HASH_MAP = 16;
+    private static final byte TREE_MAP = 17;
+    private static final byte HASH_SET = 18;
+    private static final byte LINKED_HASH_SET = 19;
+    private static final byte STREAM_EVENT = 20;
+    private static final byte STATE_EVENT = 21;
+    private static final byte COMPLEX_EVENT_CHUNK = 22;
+    private static final byte GROUP_BY_KEY = 23;
+    private static final byte INCREMENTAL_SNAPSHOT = 24;
+    private static final byte MAP_DELTA = 25;
+    private static final byte JAVA_OBJECT = 26;
+
+    private static final byte END_OF_CHAIN = 0;
+    private static final byte NEXT_INLINE = 1;
+    private static final byte NEXT_VALUE = 2;
+
+    private static final ComplexEvent.Type[] EVENT_TYPES = ComplexEvent.Type.values();
+
+    private final boolean compress;
+
+    public BinaryStateSerializer() {
+        this(false);
+    }
+
+    /**
+     * @param compress whether the written states are compressed with deflate
+     */
+    public BinaryStateSerializer(boolean compress) {
+        this.compress = compress;
+    }
+
+    @Override
+    public void serialize(Object state, OutputStream outputStream) throws IOException {
+        outputStream.write(new byte[]{MAGIC_1, MAGIC_2, VERSION, compress ? FLAG_DEFLATE : 0});
+        DeflaterOutputStream deflaterOutputStream = null;
+        OutputStream target = outputStream;
+        if (compress) {
+            deflaterOutputStream = new DeflaterOutputStream(outputStream, new Deflater(Deflater.BEST_SPEED));
+            target = deflaterOutputStream;
+        }
+        DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(target));
+        new Writer(dataOutputStream).writeValue(state);
+        dataOutputStream.flush();
+        if (deflaterOutputStream != null) {
+            deflaterOutputStream.finish();
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream) throws IOException {
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
+        bufferedInputStream.mark(2);
+        int first = bufferedInputStream.read();
+        int second = bufferedInputStream.read();
+        if (first == JAVA_MAGIC_1 && second == JAVA_MAGIC_2) {
+            bufferedInputStream.reset();
+            return new JavaStateSerializer().deserialize(bufferedInputStream);
+        }
+        if (first != MAGIC_1 || second != MAGIC_2) {
+            throw new StreamCorruptedException("Unknown state format");
+        }
+        int version = bufferedInputStream.read();
+        int flags = bufferedInputStream.read();
+        if (version != VERSION || flags < 0) {
+            throw new StreamCorruptedException("Unsupported state format version " + version);
+        }
+        InputStream source = bufferedInputStream;
+        if ((flags & FLAG_DEFLATE) != 0) {
+            source = new InflaterInputStream(bufferedInputStream);
+        }
+        return new Reader(new DataInputStream(source)).readValue();
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static void writeSignedVarLong(DataOutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readSignedVarLong(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length integer");
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length long");
+    }
+
+    /**
+     * Writes a single state, assigning ids to the events, chunks, arrays and collections in the order they are first
+     * written so that later occurrences are written as references.
+     */
+    private static class Writer {
+        private final DataOutputStream out;
+        private final Map<Object, Integer> ids = new IdentityHashMap<>();
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void register(Object object) {
+            ids.put(object, ids.size());
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+                return;
+            }
+            Integer id = ids.get(value);
+            if (id != null) {
+                out.writeByte(REFERENCE);
+                writeVarInt(out, id);
+                return;
+            }
+            Class<?> type = value.getClass();
+            if (type == String.class) {
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                out.writeByte(STRING);
+                writeVarInt(out, bytes.length);
+                out.write(bytes);
+            } else if (type == Integer.class) {
+                out.writeByte(INTEGER);
+                int intValue = (Integer) value;
+                writeVarInt(out, (intValue << 1) ^ (intValue >> 31));
+            } else if (type == Long.class) {
+                out.writeByte(LONG);
+                writeSignedVarLong(out, (Long) value);
+            } else if (type == Double.class) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (type == Float.class) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (type == Boolean.class) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (type == Short.class) {
+                out.writeByte(SHORT);
+                out.writeShort((Short) value);
+            } else if (type == Byte.class) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) value);
+            } else if (type == byte[].class) {
+                byte[] bytes = (byte[]) value;
+                out.writeByte(BYTE_ARRAY);
+                writeVarInt(out, bytes.length);
+                out.write(bytes);
+            } else if (type == Object[].class) {
+                Object[] array = (Object[]) value;
+                out.writeByte(OBJECT_ARRAY);
+                register(array);
+                writeVarInt(out, array.length);
+                for (Object element : array) {
+                    writeValue(element);
+                }
+            } else if (type == ArrayList.class) {
+                writeCollection(ARRAY_LIST, (Collection<?>) value);
+            } else if (type == LinkedList.class) {
+                writeCollection(LINKED_LIST, (Collection<?>) value);
+            } else if (type == ArrayDeque.class) {
+                writeCollection(ARRAY_DEQUE, (Collection<?>) value);
+            } else if (type == HashSet.class) {
+                writeCollection(HASH_SET, (Collection<?>) value);
+            } else if (type == LinkedHashSet.class) {
+                writeCollection(LINKED_HASH_SET, (Collection<?>) value);
+            } else if (type == HashMap.class) {
+                writeMap(HASH_MAP, (Map<?, ?>) value);
+            } else if (type == TreeMap.class && ((TreeMap<?, ?>) value).comparator() == null) {
+                writeMap(TREE_MAP, (Map<?, ?>) value);
+            } else if (type == StreamEvent.class) {
+                out.writeByte(STREAM_EVENT);
+                writeStreamEvents((StreamEvent) value);
+            } else if (type == StateEvent.class) {
+                out.writeByte(STATE_EVENT);
+                writeStateEvents((StateEvent) value);
+            } else if (type == ComplexEventChunk.class) {
+                ComplexEventChunk<?> chunk = (ComplexEventChunk<?>) value;
+                out.writeByte(COMPLEX_EVENT_CHUNK);
+                out.writeBoolean(chunk.isBatch());
+                writeValue(chunk.getFirst());
+                writeValue(chunk.getLast());
+                register(chunk);
+            } else if (type == GroupByKey.class) {
+                out.writeByte(GROUP_BY_KEY);
+                writeValue(((GroupByKey) value).getValues());
+            } else if (type == IncrementalSnapshot.class) {
+                IncrementalSnapshot snapshot = (IncrementalSnapshot) value;
+                out.writeByte(INCREMENTAL_SNAPSHOT);
+                writeValue(snapshot.getBaseRevision());
+                writeValue(snapshot.getFullRevision());
+                writeValue(snapshot.getReplacedElements());
+                writeValue(snapshot.getClearedElements());
+                writeValue(snapshot.getValues());
+                writeValue(snapshot.getMapDeltas());
+            } else if (type == IncrementalSnapshot.MapDelta.class) {
+                IncrementalSnapshot.MapDelta mapDelta = (IncrementalSnapshot.MapDelta) value;
+                out.writeByte(MAP_DELTA);
+                out.writeBoolean(mapDelta.isComplete());
+                writeValue(mapDelta.getPuts());
+                writeValue(mapDelta.getRemovals());
+            } else {
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+                objectOutputStream.writeObject(value);
+                objectOutputStream.flush();
+                out.writeByte(JAVA_OBJECT);
+                writeVarInt(out, byteArrayOutputStream.size());
+                byteArrayOutputStream.writeTo(out);
+            }
+        }
+
+        private void writeCollection(byte tag, Collection<?> collection) throws IOException {
+            out.writeByte(tag);
+            register(collection);
+            writeVarInt(out, collection.size());
+            for (Object element : collection) {
+                writeValue(element);
+            }
+        }
+
+        private void writeMap(byte tag, Map<?, ?> map) throws IOException {
+            out.writeByte(tag);
+            register(map);
+            writeVarInt(out, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeStreamEvents(StreamEvent streamEvent) throws IOException {
+            while (true) {
+                register(streamEvent);
+                writeSignedVarLong(out, streamEvent.getTimestamp());
+                out.writeByte(streamEvent.getType().ordinal());
+                writeValue(streamEvent.getBeforeWindowData());
+                writeValue(streamEvent.getOnAfterWindowData());
+                writeValue(streamEvent.getOutputData());
+                StreamEvent next = streamEvent.getNext();
+                if (next == null) {
+                    out.writeByte(END_OF_CHAIN);
+                    return;
+                } else if (next.getClass() != StreamEvent.class || ids.containsKey(next)) {
+                    out.writeByte(NEXT_VALUE);
+                    writeValue(next);
+                    return;
+                }
+                out.writeByte(NEXT_INLINE);
+                streamEvent = next;
+            }
+        }
+
+        private void writeStateEvents(StateEvent stateEvent) throws IOException {
+            while (true) {
+                register(stateEvent);
+                writeSignedVarLong(out, stateEvent.getId());
+                writeSignedVarLong(out, stateEvent.getTimestamp());
+                out.writeByte(stateEvent.getType().ordinal());
+                writeValue(stateEvent.getOutputData());
+                StreamEvent[] streamEvents = stateEvent.getStreamEvents();
+                writeVarInt(out, streamEvents.length);
+                for (StreamEvent streamEvent : streamEvents) {
+                    writeValue(streamEvent);
+                }
+                StateEvent next = stateEvent.getNext();
+                if (next == null) {
+                    out.writeByte(END_OF_CHAIN);
+                    return;
+                } else if (next.getClass() != StateEvent.class || ids.containsKey(next)) {
+                    out.writeByte(NEXT_VALUE);
+                    writeValue(next);
+                    return;
+                }
+                out.writeByte(NEXT_INLINE);
+                stateEvent = next;
+            }
+        }
+    }
+
+    /**
+     * Reads a single state written by {@link Writer}, assigning ids in the same order as they were written.
+     */
+    private static class Reader {
+        private final DataInputStream in;
+        private final List<Object> objects = new ArrayList<>();
+
+        Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        @SuppressWarnings("unchecked")
+        Object readValue() throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case REFERENCE:
+                    int id = readVarInt(in);
+                    if (id >= objects.size()) {
+                        throw new StreamCorruptedException("Unknown reference " + id);
+                    }
+                    return objects.get(id);
+                case STRING:
+                    return new String(readBytes(), StandardCharsets.UTF_8);
+                case INTEGER:
+                    int intValue = readVarInt(in);
+                    return (intValue >>> 1) ^ -(intValue & 1);
+                case LONG:
+                    return readSignedVarLong(in);
+                case DOUBLE:
+                    return in.readDouble();
+                case FLOAT:
+                    return in.readFloat();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case SHORT:
+                    return in.readShort();
+                case BYTE:
+                    return in.readByte();
+                case BYTE_ARRAY:
+                    return readBytes();
+                case OBJECT_ARRAY:
+                    int objectIndex = objects.size();
+                    objects.add(null);
+                    Object[] array = new Object[readVarInt(in)];
+                    objects.set(objectIndex, array);
+                    for (int i = 0; i < array.length; i++) {
+                        array[i] = readValue();
+                    }
+                    return array;
+                case ARRAY_LIST:
+                    return readCollection(new ArrayList<>());
+                case LINKED_LIST:
+                    return readCollection(new LinkedList<>());
+                case ARRAY_DEQUE:
+                    return readCollection(new ArrayDeque<>());
+                case HASH_SET:
+                    return readCollection(new HashSet<>());
+                case LINKED_HASH_SET:
+                    return readCollection(new LinkedHashSet<>());
+                case HASH_MAP:
+                    return readMap(new HashMap<>());
+                case TREE_MAP:
+                    return readMap(new TreeMap<>());
+                case STREAM_EVENT:
+                    return readStreamEvents();
+                case STATE_EVENT:
+                    return readStateEvents();
+                case COMPLEX_EVENT_CHUNK:
+                    boolean isBatch = in.readBoolean();
+                    ComplexEvent first = (ComplexEvent) readValue();
+                    ComplexEvent last = (ComplexEvent) readValue();
+                    ComplexEventChunk<ComplexEvent> chunk = new ComplexEventChunk<>(first, last, isBatch);
+                    objects.add(chunk);
+                    return chunk;
+                case GROUP_BY_KEY:
+                    return new GroupByKey((Object[]) readValue());
+                case INCREMENTAL_SNAPSHOT:
+                    return new IncrementalSnapshot((String) readValue(), (String) readValue(),
+                            (Set<String>) readValue(), (Set<String>) readValue(),
+                            (Map<String, Map<String, Object>>) readValue(),
+                            (Map<String, Map<String, IncrementalSnapshot.MapDelta>>) readValue());
+                case MAP_DELTA:
+                    boolean complete = in.readBoolean();
+                    return new IncrementalSnapshot.MapDelta(complete, (Map<Object, Object>) readValue(),
+                            (Set<Object>) readValue());
+                case JAVA_OBJECT:
+                    return new JavaStateSerializer().deserialize(new ByteArrayInputStream(readBytes()));
+                default:
+                    throw new StreamCorruptedException("Unknown state tag " + tag);
+            }
+        }
+
+        private byte[] readBytes() throws IOException {
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        private Collection<Object> readCollection(Collection<Object> collection) throws IOException {
+            objects.add(collection);
+            int size = readVarInt(in);
+            for (int i = 0; i < size; i++) {
+                collection.add(readValue());
+            }
+            return collection;
+        }
+
+        private Map<Object, Object> readMap(Map<Object, Object> map) throws IOException {
+            objects.add(map);
+            int size = readVarInt(in);
+            for (int i = 0; i < size; i++) {
+                Object key = readValue();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        private ComplexEvent.Type readType() throws IOException {
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= EVENT_TYPES.length) {
+                throw new StreamCorruptedException("Unknown event type " + ordinal);
+            }
+            return EVENT_TYPES[ordinal];
+        }
+
+        private StreamEvent readStreamEvents() throws IOException {
+            StreamEvent first = null;
+            StreamEvent previous = null;
+            while (true) {
+                StreamEvent streamEvent = new StreamEvent(0, 0, 0);
+                objects.add(streamEvent);
+                streamEvent.setTimestamp(readSignedVarLong(in));
+                streamEvent.setType(readType());
+                streamEvent.setBeforeWindowData((Object[]) readValue());
+                streamEvent.setOnAfterWindowData((Object[]) readValue());
+                streamEvent.setOutputData((Object[]) readValue());
+                if (previous == null) {
+                    first = streamEvent;
+                } else {
+                    previous.setNext(streamEvent);
+                }
+                previous = streamEvent;
+                byte marker = in.readByte();
+                if (marker == END_OF_CHAIN) {
+                    return first;
+                } else if (marker == NEXT_VALUE) {
+                    streamEvent.setNext((StreamEvent) readValue());
+                    return first;
+                } else if (marker != NEXT_INLINE) {
+                    throw new StreamCorruptedException("Unknown event chain marker " + marker);
+                }
+            }
+        }
+
+        private StateEvent readStateEvents() throws IOException {
+            StateEvent first = null;
+            StateEvent previous = null;
+            while (true) {
+                long id = readSignedVarLong(in);
+                long timestamp = readSignedVarLong(in);
+                ComplexEvent.Type type = readType();
+                int objectIndex = objects.size();
+                objects.add(null);
+                Object[] outputData = (Object[]) readValue();
+                StateEvent stateEvent = new StateEvent(readVarInt(in), 0);
+                objects.set(objectIndex, stateEvent);
+                stateEvent.setId(id);
+                stateEvent.setTimestamp(timestamp);
+                stateEvent.setType(type);
+                stateEvent.setOutputData(outputData);
+                for (int i = 0; i < stateEvent.getStreamEvents().length; i++) {
+                    stateEvent.setEvent(i, (StreamEvent) readValue());
+                }
+                if (previous == null) {
+                    first = stateEvent;
+                } else {
+                    previous.setNext(stateEvent);
+                }
+                previous = stateEvent;
+                byte marker = in.readByte();
+                if (marker == END_OF_CHAIN) {
+                    return first;
+                } else if (marker == NEXT_VALUE) {
+                    stateEvent.setNext((StateEvent) readValue());
+                    return first;
+                } else if (marker != NEXT_INLINE) {
+                    throw new StreamCorruptedException("Unknown event chain marker " + marker);
+                }
+            }
+        }
+    }
+}
@@ -23,8 +23,6 @@ import org.apache.log4j.Logger;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 
 /**
  * Serializer used by {@link SnapshotService} to do Object to Byte[] conversion and vise-versa
@@ -36,13 +34,16 @@ public class ByteSerializer {
     }
 
     public static byte[] objectToByte(Object obj) {
+        return objectToByte(obj, new JavaStateSerializer());
+    }
+
+    public static byte[] objectToByte(Object obj, StateSerializer stateSerializer) {
         long start = System.currentTimeMillis();
         byte[] out = null;
         if (obj != null) {
             try {
                 ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ObjectOutputStream oos = new ObjectOutputStream(baos);
-                oos.writeObject(obj);
+                stateSerializer.serialize(obj, baos);
                 out = baos.toByteArray();
             } catch (IOException e) {
                 log.error("Error when writing byte array. " + e.getMessage(), e);
@@ -57,19 +58,19 @@ public class ByteSerializer {
     }
 
     public static Object byteToObject(byte[] bytes) {
+        return byteToObject(bytes, new JavaStateSerializer());
+    }
+
+    public static Object byteToObject(byte[] bytes, StateSerializer stateSerializer) {
         long start = System.currentTimeMillis();
         Object out = null;
         if (bytes != null) {
             try {
                 ByteArrayInputStream bios = new ByteArrayInputStream(bytes);
-                ObjectInputStream ois = new ObjectInputStream(bios);
-                out = ois.readObject();
+                out = stateSerializer.deserialize(bios);
             } catch (IOException e) {
                 log.error("Error when writing to object. " + e.getMessage(), e);
                 return null;
-            } catch (ClassNotFoundException e) {
-                log.error("Error when writing to object. " + e.getMessage(), e);
-                return null;
             }
         }
         long end = System.currentTimeMillis();
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot holding the state of the {@link Snapshotable}s that changed since a base revision. States are kept per
+ * state key, and the keyed states of {@link IncrementalSnapshotable}s are kept as the entries put and removed since
+ * the base revision.
+ * A snapshot without a base revision holds the complete state and starts a chain of incremental snapshots, which is
+ * restored by replaying the snapshots of the chain in order.
+ */
+public class IncrementalSnapshot implements Serializable {
+
+    private static final long serialVersionUID = -2385618224416823531L;
+
+    private final String baseRevision;
+    private final String fullRevision;
+    private final Set<String> replacedElements;
+    private final Set<String> clearedElements;
+    private final Map<String, Map<String, Object>> values;
+    private final Map<String, Map<String, MapDelta>> mapDeltas;
+
+    IncrementalSnapshot(String baseRevision, String fullRevision) {
+        this(baseRevision, fullRevision, new HashSet<>(), new HashSet<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    IncrementalSnapshot(String baseRevision, String fullRevision, Set<String> replacedElements,
+                        Set<String> clearedElements, Map<String, Map<String, Object>> values,
+                        Map<String, Map<String, MapDelta>> mapDeltas) {
+        this.baseRevision = baseRevision;
+        this.fullRevision = fullRevision;
+        this.replacedElements = replacedElements;
+        this.clearedElements = clearedElements;
+        this.values = values;
+        this.mapDeltas = mapDeltas;
+    }
+
+    /**
+     * @return revision this snapshot holds the changes of, or null when this snapshot holds the complete state
+     */
+    public String getBaseRevision() {
+        return baseRevision;
+    }
+
+    /**
+     * @return revision of the snapshot starting the chain this snapshot belongs to, which holds the complete state
+     */
+    public String getFullRevision() {
+        return fullRevision;
+    }
+
+    Set<String> getReplacedElements() {
+        return replacedElements;
+    }
+
+    Set<String> getClearedElements() {
+        return clearedElements;
+    }
+
+    Map<String, Map<String, Object>> getValues() {
+        return values;
+    }
+
+    Map<String, Map<String, MapDelta>> getMapDeltas() {
+        return mapDeltas;
+    }
+
+    void replaceElement(String elementId) {
+        replacedElements.add(elementId);
+    }
+
+    void clearElement(String elementId) {
+        clearedElements.add(elementId);
+    }
+
+    void putValue(String elementId, String key, Object value) {
+        values.computeIfAbsent(elementId, k -> new HashMap<>()).put(key, value);
+    }
+
+    void putMapDelta(String elementId, String key, MapDelta mapDelta) {
+        mapDeltas.computeIfAbsent(elementId, k -> new HashMap<>()).put(key, mapDelta);
+    }
+
+    /**
+     * Rebuilds the states of the elements by replaying the given chain of snapshots.
+     *
+     * @param snapshotChain snapshots starting from the one holding the complete state
+     * @return states of the elements by element id
+     */
+    static Map<String, Map<String, Object>> replay(List<IncrementalSnapshot> snapshotChain) {
+        Map<String, Map<String, Object>> states = new HashMap<>();
+        for (IncrementalSnapshot incrementalSnapshot : snapshotChain) {
+            incrementalSnapshot.applyTo(states);
+        }
+        return states;
+    }
+
+    private void applyTo(Map<String, Map<String, Object>> states) {
+        for (String elementId : clearedElements) {
+            states.remove(elementId);
+        }
+        for (String elementId : replacedElements) {
+            states.put(elementId, new HashMap<>());
+        }
+        for (Map.Entry<String, Map<String, Object>> elementEntry : values.entrySet()) {
+            states.computeIfAbsent(elementEntry.getKey(), k -> new HashMap<>()).putAll(elementEntry.getValue());
+        }
+        for (Map.Entry<String, Map<String, MapDelta>> elementEntry : mapDeltas.entrySet()) {
+            Map<String, Object> state = states.computeIfAbsent(elementEntry.getKey(), k -> new HashMap<>());
+            for (Map.Entry<String, MapDelta> entry : elementEntry.getValue().entrySet()) {
+                Object currentValue = state.get(entry.getKey());
+                // Keyed states are maps of any keys and values, hence the changes can be replayed on them in place
+                @SuppressWarnings("unchecked")
+                Map<Object, Object> map = !entry.getValue().complete && currentValue instanceof Map ?
+                        (Map<Object, Object>) currentValue : new HashMap<>();
+                entry.getValue().applyTo(map);
+                state.put(entry.getKey(), map);
+            }
+        }
+    }
+
+    /**
+     * Changes of a keyed state, as the entries put and removed since the base revision.
+     */
+    static class MapDelta implements Serializable {
+
+        private static final long serialVersionUID = 5204427880297315842L;
+
+        private final boolean complete;
+        private final Map<Object, Object> puts;
+        private final Set<Object> removals;
+
+        /**
+         * @param complete whether the delta holds all the entries of the map, rather than its changes
+         */
+        MapDelta(boolean complete) {
+            this(complete, new HashMap<>(), new HashSet<>());
+        }
+
+        MapDelta(boolean complete, Map<Object, Object> puts, Set<Object> removals) {
+            this.complete = complete;
+            this.puts = puts;
+            this.removals = removals;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        Map<Object, Object> getPuts() {
+            return puts;
+        }
+
+        Set<Object> getRemovals() {
+            return removals;
+        }
+
+        void put(Object key, Object value) {
+            puts.put(key, value);
+        }
+
+        void remove(Object key) {
+            removals.add(key);
+        }
+
+        boolean isEmpty() {
+            return puts.isEmpty() && removals.isEmpty();
+        }
+
+        private void applyTo(Map<Object, Object> map) {
+            for (Object key : removals) {
+                map.remove(key);
+            }
+            map.putAll(puts);
+        }
+    }
+}
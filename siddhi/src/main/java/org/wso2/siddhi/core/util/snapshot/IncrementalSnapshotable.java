@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+/**
+ * {@link Snapshotable} that marks the changes of its state as they are made, so that incremental snapshots only
+ * hold its changed states without comparing them with the previously persisted ones.
+ */
+public interface IncrementalSnapshotable extends Snapshotable {
+
+    /**
+     * Used to hand over the changes marked since the previous call, after which the marking starts anew. Called
+     * while the processing is paused, right after {@link #currentState()}.
+     *
+     * @return changes of the state since the previous call
+     */
+    StateChanges collectStateChanges();
+}
@@ -19,9 +19,11 @@ package org.wso2.siddhi.core.util.snapshot;
 
 import org.apache.log4j.Logger;
 import org.wso2.siddhi.core.config.SiddhiAppContext;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
 import org.wso2.siddhi.core.util.ThreadBarrier;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,10 +38,14 @@ public class SnapshotService {
     private final ThreadBarrier threadBarrier;
     private HashMap<String, List<Snapshotable>> snapshotableMap = new HashMap<String, List<Snapshotable>>();
     private SiddhiAppContext siddhiAppContext;
+    private StateSerializer stateSerializer;
+    // Elements captured by the last incremental snapshot, by element id
+    private Map<String, Snapshotable> capturedElements = new HashMap<>();
 
     public SnapshotService(SiddhiAppContext siddhiAppContext) {
         this.siddhiAppContext = siddhiAppContext;
         this.threadBarrier = siddhiAppContext.getThreadBarrier();
+        this.stateSerializer = siddhiAppContext.getSiddhiContext().getStateSerializer();
 
     }
 
@@ -60,37 +66,161 @@ public class SnapshotService {
         }
     }
 
+    public synchronized void removeSnapshotable(String queryName, Snapshotable snapshotable) {
+        List<Snapshotable> snapshotableList = snapshotableMap.get(queryName);
+        if (snapshotableList != null) {
+            snapshotableList.remove(snapshotable);
+        }
+    }
+
     public byte[] snapshot() {
-        HashMap<String, Map<String, Object>> snapshots = new HashMap<>(snapshotableMap.size());
-        List<Snapshotable> snapshotableList;
-        byte[] serializedSnapshots;
+        return snapshot(captureStates());
+    }
+
+    /**
+     * Capture copies of the current states of all the processing elements. Processing is paused only while the
+     * states are copied, and the copies can be serialized with {@link #snapshot(Map)} after it resumes.
+     *
+     * @return copies of the states, per element id
+     */
+    public Map<String, Map<String, Object>> captureStates() {
+        HashMap<String, Map<String, Object>> states = new HashMap<>(snapshotableMap.size());
+        StateCopier stateCopier = new StateCopier(stateSerializer);
         if (log.isDebugEnabled()) {
-            log.debug("Taking snapshot ...");
+            log.debug("Capturing state ...");
         }
         try {
             threadBarrier.lock();
-            for (Map.Entry<String, List<Snapshotable>> entry : snapshotableMap.entrySet()) {
-                snapshotableList = entry.getValue();
-                snapshotableList.forEach(snapshotableElement -> snapshots.put(snapshotableElement.getElementId(),
-                        snapshotableElement.currentState()));
-            }
-            if (log.isDebugEnabled()) {
-                log.debug("Snapshot serialization started ...");
-            }
-            serializedSnapshots = ByteSerializer.objectToByte(snapshots);
-            if (log.isDebugEnabled()) {
-                log.debug("Snapshot serialization finished.");
+            for (List<Snapshotable> snapshotableList : snapshotableMap.values()) {
+                for (Snapshotable snapshotable : snapshotableList) {
+                    states.put(snapshotable.getElementId(), stateCopier.copyState(snapshotable.currentState()));
+                }
             }
         } finally {
             threadBarrier.unlock();
         }
         if (log.isDebugEnabled()) {
-            log.debug("Snapshot taken for Siddhi app '" + siddhiAppContext.getName() + "'");
+            log.debug("State captured for Siddhi app '" + siddhiAppContext.getName() + "'");
         }
+        return states;
+    }
 
+    /**
+     * Serialize captured states as a snapshot.
+     *
+     * @param states states captured by {@link #captureStates()}
+     * @return serialized snapshot
+     */
+    public byte[] snapshot(Map<String, Map<String, Object>> states) {
+        if (log.isDebugEnabled()) {
+            log.debug("Snapshot serialization started ...");
+        }
+        byte[] serializedSnapshots = ByteSerializer.objectToByte(states, stateSerializer);
+        if (log.isDebugEnabled()) {
+            log.debug("Snapshot taken for Siddhi app '" + siddhiAppContext.getName() + "'");
+        }
         return serializedSnapshots;
     }
 
+    /**
+     * Capture copies of the states changed since the last incremental snapshot was captured. Elements that are not
+     * {@link IncrementalSnapshotable}, or were not part of the last incremental snapshot, are captured whole, while
+     * the others are skipped when unchanged, and only the marked entries of their keyed states are captured. As the
+     * changes are collected when capturing, the snapshots taken this way form a chain only when each of them is
+     * persisted.
+     *
+     * @param baseRevision revision of the last incremental snapshot, or null to capture the complete state and start
+     *                     a new chain
+     * @param fullRevision revision of the snapshot starting the chain, holding the complete state
+     * @return snapshot to be serialized with {@link #incrementalSnapshot(IncrementalSnapshot)}
+     */
+    public synchronized IncrementalSnapshot captureIncrementalSnapshot(String baseRevision, String fullRevision) {
+        IncrementalSnapshot incrementalSnapshot = new IncrementalSnapshot(baseRevision, fullRevision);
+        Map<String, Snapshotable> lastCapturedElements = baseRevision != null ? capturedElements :
+                Collections.emptyMap();
+        capturedElements = new HashMap<>(lastCapturedElements.size());
+        StateCopier stateCopier = new StateCopier(stateSerializer);
+        if (log.isDebugEnabled()) {
+            log.debug("Capturing incremental state ...");
+        }
+        try {
+            threadBarrier.lock();
+            for (List<Snapshotable> snapshotableList : snapshotableMap.values()) {
+                for (Snapshotable snapshotable : snapshotableList) {
+                    String elementId = snapshotable.getElementId();
+                    Map<String, Object> state = snapshotable.currentState();
+                    StateChanges stateChanges = null;
+                    if (snapshotable instanceof IncrementalSnapshotable) {
+                        stateChanges = ((IncrementalSnapshotable) snapshotable).collectStateChanges();
+                    }
+                    if (state == null) {
+                        continue;
+                    }
+                    capturedElements.put(elementId, snapshotable);
+                    if (lastCapturedElements.get(elementId) != snapshotable) {
+                        // Not known to the base revision, or replaced by another element with the same id since
+                        incrementalSnapshot.replaceElement(elementId);
+                        addStates(incrementalSnapshot, elementId, state, null, stateCopier);
+                    } else if (stateChanges == null || stateChanges.isChanged()) {
+                        addStates(incrementalSnapshot, elementId, state, stateChanges, stateCopier);
+                    }
+                }
+            }
+        } finally {
+            threadBarrier.unlock();
+        }
+        for (String elementId : lastCapturedElements.keySet()) {
+            if (!capturedElements.containsKey(elementId)) {
+                incrementalSnapshot.clearElement(elementId);
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Incremental state captured for Siddhi app '" + siddhiAppContext.getName() + "'");
+        }
+        return incrementalSnapshot;
+    }
+
+    private void addStates(IncrementalSnapshot incrementalSnapshot, String elementId, Map<String, Object> state,
+                           StateChanges stateChanges, StateCopier stateCopier) {
+        for (Map.Entry<String, Object> entry : state.entrySet()) {
+            String key = entry.getKey();
+            if (stateChanges != null && stateChanges.isKeyed(key) && entry.getValue() instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) entry.getValue();
+                IncrementalSnapshot.MapDelta mapDelta = new IncrementalSnapshot.MapDelta(false);
+                for (Object changedKey : stateChanges.getChangedKeys()) {
+                    Object value = map.get(changedKey);
+                    if (value != null || map.containsKey(changedKey)) {
+                        mapDelta.put(changedKey, stateCopier.copy(value));
+                    } else {
+                        mapDelta.remove(changedKey);
+                    }
+                }
+                if (!mapDelta.isEmpty()) {
+                    incrementalSnapshot.putMapDelta(elementId, key, mapDelta);
+                }
+            } else if (stateChanges == null || stateChanges.isChangedWhole()) {
+                incrementalSnapshot.putValue(elementId, key, stateCopier.copy(entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Serialize a snapshot captured by {@link #captureIncrementalSnapshot(String, String)}.
+     *
+     * @param incrementalSnapshot captured snapshot
+     * @return serialized snapshot
+     */
+    public byte[] incrementalSnapshot(IncrementalSnapshot incrementalSnapshot) {
+        if (log.isDebugEnabled()) {
+            log.debug("Incremental snapshot serialization started ...");
+        }
+        byte[] serializedSnapshot = ByteSerializer.objectToByte(incrementalSnapshot, stateSerializer);
+        if (log.isDebugEnabled()) {
+            log.debug("Incremental snapshot taken for Siddhi app '" + siddhiAppContext.getName() + "'");
+        }
+        return serializedSnapshot;
+    }
+
     public Map<String, Object> queryState(String queryName) {
         Map<String, Object> state = new HashMap<>();
         try {
@@ -117,17 +247,44 @@ public class SnapshotService {
 
 
     public void restore(byte[] snapshot) {
-        Map<String, Map<String, Object>> snapshots = (Map<String, Map<String, Object>>)
-                ByteSerializer.byteToObject(snapshot);
+        Object snapshots = ByteSerializer.byteToObject(snapshot, stateSerializer);
+        if (snapshots instanceof IncrementalSnapshot) {
+            restore(Collections.singletonList((IncrementalSnapshot) snapshots));
+        } else {
+            // Written by snapshot(Map) with exactly this type
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> states = (Map<String, Map<String, Object>>) snapshots;
+            restoreStates(states);
+        }
+    }
+
+    /**
+     * Restore the state captured by a chain of incremental snapshots, by replaying them in order.
+     *
+     * @param snapshotChain snapshots starting from the one holding the complete state
+     */
+    public void restore(List<IncrementalSnapshot> snapshotChain) {
+        if (snapshotChain.isEmpty() || snapshotChain.get(0).getBaseRevision() != null) {
+            throw new SiddhiAppRuntimeException("Cannot restore Siddhi app '" + siddhiAppContext.getName() +
+                    "', as the incremental snapshots do not start from a complete snapshot");
+        }
+        restoreStates(IncrementalSnapshot.replay(snapshotChain));
+    }
+
+    private void restoreStates(Map<String, Map<String, Object>> snapshots) {
         List<Snapshotable> snapshotableList;
         try {
             threadBarrier.lock();
-            for (Map.Entry<String, List<Snapshotable>> entry : snapshotableMap.entrySet()) {
-                snapshotableList = entry.getValue();
-                for (Snapshotable snapshotable : snapshotableList) {
-                    snapshotable.restoreState(snapshots.get(snapshotable.getElementId()));
+            // Copied, as restoring an element may clone executors that register themselves as snapshotables
+            synchronized (this) {
+                snapshotableList = new ArrayList<Snapshotable>();
+                for (List<Snapshotable> snapshotables : snapshotableMap.values()) {
+                    snapshotableList.addAll(snapshotables);
                 }
             }
+            for (Snapshotable snapshotable : snapshotableList) {
+                snapshotable.restoreState(snapshots.get(snapshotable.getElementId()));
+            }
         } finally {
             threadBarrier.unlock();
         }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Changes of the state of an {@link IncrementalSnapshotable}, marked as they are made. Keyed states are maps, such
+ * as the aggregators of the groups, of which only the entries of the marked keys are written by incremental
+ * snapshots. The other states are written whole once any of them is marked as changed.
+ * <p>
+ * Keys are only marked once the changes have been collected, as the first snapshot of an element always holds
+ * its complete state, hence elements of apps not taking incremental snapshots do not retain them.
+ */
+public class StateChanges {
+
+    private final Set<String> keyedStates;
+    private Set<Object> changedKeys = null;
+    private boolean changed = false;
+
+    /**
+     * @param keyedStates state keys of the maps of which the changes are marked per key
+     */
+    public StateChanges(String... keyedStates) {
+        this(new HashSet<>(Arrays.asList(keyedStates)));
+    }
+
+    private StateChanges(Set<String> keyedStates) {
+        this.keyedStates = keyedStates;
+    }
+
+    /**
+     * Marks the states other than the keyed ones as changed.
+     */
+    public void markChanged() {
+        changed = true;
+    }
+
+    /**
+     * Marks the entries of the given key of the keyed states as put or removed.
+     *
+     * @param key key of the changed entries
+     */
+    public void markChanged(Object key) {
+        if (changedKeys != null) {
+            changedKeys.add(key);
+        }
+    }
+
+    /**
+     * Hands over the changes marked so far, and starts marking anew.
+     *
+     * @return the changes marked so far
+     */
+    public StateChanges collect() {
+        StateChanges stateChanges = new StateChanges(keyedStates);
+        stateChanges.changed = changed;
+        stateChanges.changedKeys = changedKeys != null ? changedKeys : Collections.emptySet();
+        changed = false;
+        changedKeys = new HashSet<>();
+        return stateChanges;
+    }
+
+    boolean isChanged() {
+        return changed || !changedKeys.isEmpty();
+    }
+
+    boolean isChangedWhole() {
+        return changed;
+    }
+
+    boolean isKeyed(String stateKey) {
+        return keyedStates.contains(stateKey);
+    }
+
+    Set<Object> getChangedKeys() {
+        return changedKeys;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import org.wso2.siddhi.core.event.ComplexEvent;
+import org.wso2.siddhi.core.event.ComplexEventChunk;
+import org.wso2.siddhi.core.event.state.StateEvent;
+import org.wso2.siddhi.core.event.stream.StreamEvent;
+import org.wso2.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.wso2.siddhi.core.query.selector.GroupByKey;
+import org.wso2.siddhi.core.table.holder.ListEventHolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Copies the states of the {@link Snapshotable}s while the processing is paused, so that they can be serialized
+ * after it resumes. Events, event chunks, event holders of tables, arrays and the common collections are copied
+ * structurally, keeping the identity of shared objects, while attribute values, group by keys and enums are
+ * immutable and are not copied.
+ * Any other state is copied by serializing and deserializing it with the {@link StateSerializer}.
+ */
+class StateCopier {
+
+    private final StateSerializer stateSerializer;
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    StateCopier(StateSerializer stateSerializer) {
+        this.stateSerializer = stateSerializer;
+    }
+
+    Map<String, Object> copyState(Map<String, Object> state) {
+        if (state == null) {
+            return null;
+        }
+        HashMap<String, Object> stateCopy = new HashMap<>(state.size());
+        for (Map.Entry<String, Object> entry : state.entrySet()) {
+            stateCopy.put(entry.getKey(), copy(entry.getValue()));
+        }
+        return stateCopy;
+    }
+
+    @SuppressWarnings("unchecked")
+    Object copy(Object value) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        Object copy = copies.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        Class<?> type = value.getClass();
+        if (type == Object[].class) {
+            Object[] array = (Object[]) value;
+            Object[] arrayCopy = new Object[array.length];
+            copies.put(array, arrayCopy);
+            for (int i = 0; i < array.length; i++) {
+                arrayCopy[i] = copy(array[i]);
+            }
+            return arrayCopy;
+        } else if (type == ArrayList.class) {
+            return copyCollection((Collection<Object>) value, new ArrayList<>(((Collection<?>) value).size()));
+        } else if (type == LinkedList.class) {
+            return copyCollection((Collection<Object>) value, new LinkedList<>());
+        } else if (type == ArrayDeque.class) {
+            return copyCollection((Collection<Object>) value, new ArrayDeque<>(((Collection<?>) value).size()));
+        } else if (type == HashSet.class) {
+            return copyCollection((Collection<Object>) value, new HashSet<>(((Collection<?>) value).size()));
+        } else if (type == LinkedHashSet.class) {
+            return copyCollection((Collection<Object>) value, new LinkedHashSet<>(((Collection<?>) value).size()));
+        } else if (type == HashMap.class) {
+            return copyMap((Map<Object, Object>) value, new HashMap<>(((Map<?, ?>) value).size()));
+        } else if (type == TreeMap.class) {
+            return copyMap((Map<Object, Object>) value, new TreeMap<>(((TreeMap<Object, ?>) value).comparator()));
+        } else if (type == ListEventHolder.class) {
+            // Cloned with the converter and the pool of the holder, and then filled with the copies of its events
+            ListEventHolder holderCopy = (ListEventHolder) ((ListEventHolder) value).clone();
+            copies.put(value, holderCopy);
+            for (ListIterator<StreamEvent> iterator = holderCopy.listIterator(); iterator.hasNext(); ) {
+                iterator.set((StreamEvent) copy(iterator.next()));
+            }
+            return holderCopy;
+        } else if (type == StreamEvent.class) {
+            return copyStreamEvents((StreamEvent) value);
+        } else if (type == StateEvent.class) {
+            return copyStateEvents((StateEvent) value);
+        } else if (type == ComplexEventChunk.class) {
+            ComplexEventChunk<?> chunk = (ComplexEventChunk<?>) value;
+            ComplexEventChunk<ComplexEvent> chunkCopy = new ComplexEventChunk<>((ComplexEvent) copy(chunk.getFirst()),
+                    (ComplexEvent) copy(chunk.getLast()), chunk.isBatch());
+            copies.put(chunk, chunkCopy);
+            return chunkCopy;
+        }
+        copy = copySerialized(value);
+        copies.put(value, copy);
+        return copy;
+    }
+
+    private static boolean isImmutable(Object value) {
+        Class<?> type = value.getClass();
+        return type == String.class || type == Integer.class || type == Long.class || type == Double.class ||
+                type == Float.class || type == Boolean.class || type == Short.class || type == Byte.class ||
+                type == Character.class || type == GroupByKey.class || value instanceof Enum;
+    }
+
+    private Collection<Object> copyCollection(Collection<Object> collection, Collection<Object> collectionCopy) {
+        copies.put(collection, collectionCopy);
+        for (Object element : collection) {
+            collectionCopy.add(copy(element));
+        }
+        return collectionCopy;
+    }
+
+    private Map<Object, Object> copyMap(Map<Object, Object> map, Map<Object, Object> mapCopy) {
+        copies.put(map, mapCopy);
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            mapCopy.put(copy(entry.getKey()), copy(entry.getValue()));
+        }
+        return mapCopy;
+    }
+
+    private StreamEvent copyStreamEvents(StreamEvent streamEvent) {
+        StreamEvent first = null;
+        StreamEvent previousCopy = null;
+        while (streamEvent != null) {
+            StreamEvent streamEventCopy = new StreamEvent(0, 0, 0);
+            copies.put(streamEvent, streamEventCopy);
+            streamEventCopy.setTimestamp(streamEvent.getTimestamp());
+            streamEventCopy.setType(streamEvent.getType());
+            streamEventCopy.setBeforeWindowData((Object[]) copy(streamEvent.getBeforeWindowData()));
+            streamEventCopy.setOnAfterWindowData((Object[]) copy(streamEvent.getOnAfterWindowData()));
+            streamEventCopy.setOutputData((Object[]) copy(streamEvent.getOutputData()));
+            if (previousCopy == null) {
+                first = streamEventCopy;
+            } else {
+                previousCopy.setNext(streamEventCopy);
+            }
+            previousCopy = streamEventCopy;
+            StreamEvent next = streamEvent.getNext();
+            if (next != null && (next.getClass() != StreamEvent.class || copies.containsKey(next))) {
+                streamEventCopy.setNext((StreamEvent) copy(next));
+                break;
+            }
+            streamEvent = next;
+        }
+        return first;
+    }
+
+    private StateEvent copyStateEvents(StateEvent stateEvent) {
+        StateEvent first = null;
+        StateEvent previousCopy = null;
+        while (stateEvent != null) {
+            StreamEvent[] streamEvents = stateEvent.getStreamEvents();
+            StateEvent stateEventCopy = new StateEvent(streamEvents.length, 0);
+            copies.put(stateEvent, stateEventCopy);
+            stateEventCopy.setId(stateEvent.getId());
+            stateEventCopy.setTimestamp(stateEvent.getTimestamp());
+            stateEventCopy.setType(stateEvent.getType());
+            stateEventCopy.setOutputData((Object[]) copy(stateEvent.getOutputData()));
+            for (int i = 0; i < streamEvents.length; i++) {
+                stateEventCopy.setEvent(i, (StreamEvent) copy(streamEvents[i]));
+            }
+            if (previousCopy == null) {
+                first = stateEventCopy;
+            } else {
+                previousCopy.setNext(stateEventCopy);
+            }
+            previousCopy = stateEventCopy;
+            StateEvent next = stateEvent.getNext();
+            if (next != null && (next.getClass() != StateEvent.class || copies.containsKey(next))) {
+                stateEventCopy.setNext((StateEvent) copy(next));
+                break;
+            }
+            stateEvent = next;
+        }
+        return first;
+    }
+
+    private Object copySerialized(Object value) {
+        try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            stateSerializer.serialize(value, byteArrayOutputStream);
+            return stateSerializer.deserialize(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot copy state of type '" + value.getClass().getName() +
+                    "', " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.siddhi.core.util.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Serializer used by {@link SnapshotService} to write the states of the {@link Snapshotable}s, and to read them back
+ * when restoring. Implementations can be set through
+ * {@link org.wso2.siddhi.core.SiddhiManager#setStateSerializer(StateSerializer)}.
+ */
+public interface StateSerializer {
+
+    /**
+     * Write the given state to the output stream. The output stream is flushed but not closed.
+     *
+     * @param state        state to be written
+     * @param outputStream stream to write the state to
+     * @throws IOException if the state cannot be written
+     */
+    void serialize(Object state, OutputStream outputStream) throws IOException;
+
+    /**
+     * Read a state written by {@link #serialize(Object, OutputStream)}.
+     *
+     * @param inputStream stream to read the state from
+     * @return the state read
+     * @throws IOException if the state cannot be read
+     */
+    Object deserialize(InputStream inputStream) throws IOException;
+
+}